@@ -0,0 +1,104 @@
+-- Storage and insert-throughput comparison of the sensor_log layouts
+-- legacy:  V1 layout (3 x DECIMAL(5,2), timestamp + created_at)
+-- compact: V5 layout (3 x SMALLINT hundredths, no created_at, widest columns first)
+--
+-- Run against an empty scratch database (not the application database):
+--   createdb sensor_layout_bench
+--   psql -d sensor_layout_bench -v rows=50000000 -f benchmarks/sensor_log_layout.sql
+-- Each layout is loaded in 10 batches of :rows / 10 with the
+-- (equipment_id, timestamp DESC) index in place, as in production.
+-- Results of one 50M-row run are in README.md (Compact Reading Storage).
+
+\set ON_ERROR_STOP on
+\if :{?rows}
+\else
+\set rows 50000000
+\endif
+\set equipment 1000
+\set batches 10
+\timing on
+
+DROP TABLE IF EXISTS bench_legacy;
+DROP TABLE IF EXISTS bench_compact;
+
+CREATE TABLE bench_legacy (
+    id BIGSERIAL PRIMARY KEY,
+    equipment_id BIGINT NOT NULL,
+    timestamp TIMESTAMP NOT NULL,
+    temperature DECIMAL(5,2) NOT NULL,
+    vibration DECIMAL(5,2) NOT NULL,
+    load_percentage DECIMAL(5,2) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX bench_legacy_equipment_timestamp ON bench_legacy(equipment_id, timestamp DESC);
+
+CREATE TABLE bench_compact (
+    id BIGSERIAL PRIMARY KEY,
+    equipment_id BIGINT NOT NULL,
+    timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    temperature SMALLINT NOT NULL,
+    vibration SMALLINT NOT NULL,
+    load_percentage SMALLINT NOT NULL
+);
+CREATE INDEX bench_compact_equipment_timestamp ON bench_compact(equipment_id, timestamp DESC);
+
+-- Same generated readings for both layouts: one per second per equipment,
+-- values with two decimals in the validated ranges
+CREATE OR REPLACE FUNCTION bench_readings(batch INT, batch_rows BIGINT, equipment INT)
+RETURNS TABLE(equipment_id BIGINT, ts TIMESTAMP, temperature NUMERIC, vibration NUMERIC, load_percentage NUMERIC) AS $$
+    SELECT (n % equipment) + 1,
+           TIMESTAMP '2024-01-01' + (n / equipment) * INTERVAL '1 second',
+           ROUND((40 + 60 * random())::NUMERIC, 2),
+           ROUND((2 + 20 * random())::NUMERIC, 2),
+           ROUND((20 + 70 * random())::NUMERIC, 2)
+    FROM generate_series(batch * batch_rows, (batch + 1) * batch_rows - 1) AS n
+$$ LANGUAGE sql;
+
+-- Loads one layout in batches, committing after each, and reports rows per second
+CREATE OR REPLACE PROCEDURE bench_load(layout TEXT, total_rows BIGINT, batches INT, equipment INT) AS $$
+DECLARE
+    batch_rows BIGINT := total_rows / batches;
+    started TIMESTAMPTZ := clock_timestamp();
+BEGIN
+    FOR b IN 0 .. batches - 1 LOOP
+        IF layout = 'legacy' THEN
+            INSERT INTO bench_legacy (equipment_id, timestamp, temperature, vibration, load_percentage)
+            SELECT * FROM bench_readings(b, batch_rows, equipment);
+        ELSE
+            INSERT INTO bench_compact (equipment_id, timestamp, temperature, vibration, load_percentage)
+            SELECT equipment_id, ts, ROUND(temperature * 100), ROUND(vibration * 100), ROUND(load_percentage * 100)
+            FROM bench_readings(b, batch_rows, equipment);
+        END IF;
+        COMMIT;
+    END LOOP;
+    RAISE NOTICE '% layout: % rows in % s (% rows/s)', layout, batch_rows * batches,
+        ROUND(EXTRACT(EPOCH FROM clock_timestamp() - started)::NUMERIC, 1),
+        ROUND(batch_rows * batches / EXTRACT(EPOCH FROM clock_timestamp() - started)::NUMERIC);
+END;
+$$ LANGUAGE plpgsql;
+
+\echo '--- insert throughput'
+CALL bench_load('legacy', :rows, :batches, :equipment);
+CALL bench_load('compact', :rows, :batches, :equipment);
+
+VACUUM ANALYZE bench_legacy;
+VACUUM ANALYZE bench_compact;
+
+\echo '--- storage'
+SELECT relname AS layout,
+       pg_size_pretty(pg_relation_size(oid)) AS heap,
+       pg_size_pretty(pg_indexes_size(oid)) AS indexes,
+       pg_size_pretty(pg_total_relation_size(oid)) AS total,
+       ROUND(pg_relation_size(oid) / NULLIF(reltuples, 0)::NUMERIC, 1) AS heap_bytes_per_row
+FROM pg_class
+WHERE relname IN ('bench_legacy', 'bench_compact')
+ORDER BY relname DESC;
+
+SELECT 'legacy' AS layout, ROUND(AVG(pg_column_size(t.*)), 1) AS avg_tuple_bytes
+FROM (SELECT * FROM bench_legacy TABLESAMPLE SYSTEM (0.1)) t
+UNION ALL
+SELECT 'compact', ROUND(AVG(pg_column_size(t.*)), 1)
+FROM (SELECT * FROM bench_compact TABLESAMPLE SYSTEM (0.1)) t;
+
+DROP PROCEDURE bench_load(TEXT, BIGINT, INT, INT);
+DROP FUNCTION bench_readings(INT, BIGINT, INT);
@@ -0,0 +1,67 @@
+#!/usr/bin/env bash
+# Startup benchmark: packaged jar vs. the fast-startup build (Spring AOT + AppCDS)
+# Records, per start, time-to-ready (JVM start until ApplicationReadyEvent, from the
+# "process running for" figure Spring Boot logs) and the latency of the first request.
+#
+# Usage (from backend/, after `mvn -Pfast-startup package`, database env as for prod):
+#   DATABASE_URL=jdbc:postgresql://localhost:5432/equipment_predictor \
+#   DATABASE_USERNAME=postgres DATABASE_PASSWORD=postgres \
+#   RUNS=5 benchmarks/startup.sh
+set -euo pipefail
+
+RUNS=${RUNS:-5}
+PORT=${PORT:-18080}
+PROFILE=${PROFILE:-prod}
+FIRST_REQUEST=${FIRST_REQUEST:-/api/v1/equipment}
+JAR=$(ls target/equipment-predictor-*.jar | grep -v original | head -n 1)
+FAST=target/fast-startup
+LOG=$(mktemp)
+trap 'rm -f "$LOG"' EXIT
+
+# One start: prints "<ready seconds> <first request ms>"
+measure() {
+    local dir=$1; shift
+    (cd "$dir" && exec java "$@" --server.port="$PORT" --spring.profiles.active="$PROFILE") > "$LOG" 2>&1 &
+    local pid=$!
+    until grep -q "Started EquipmentPredictorApplication" "$LOG"; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "application exited during startup, see output below" >&2
+            cat "$LOG" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    local ready
+    ready=$(sed -n 's/.*process running for \([0-9.]*\)).*/\1/p' "$LOG")
+    local first
+    first=$(curl -s -o /dev/null -w '%{time_total}' "http://localhost:$PORT$FIRST_REQUEST")
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    awk -v r="$ready" -v f="$first" 'BEGIN { printf "%.3f %.1f\n", r, f * 1000 }'
+}
+
+# Median of one column of the results
+median() {
+    local column=$1; shift
+    printf '%s\n' "$@" | awk -v c="$column" '{ print $c }' | sort -n \
+        | awk '{ v[NR] = $1 } END { print v[int((NR + 1) / 2)] }'
+}
+
+run() {
+    local name=$1; shift
+    local results=()
+    for i in $(seq 1 "$RUNS"); do
+        results+=("$(measure "$@")")
+        printf '%-14s run %d: ready %ss, first request %sms\n' "$name" "$i" ${results[-1]}
+    done
+    printf '%-14s median: ready %ss, first request %sms\n\n' "$name" \
+        "$(median 1 "${results[@]}")" "$(median 2 "${results[@]}")"
+}
+
+echo "Runs: $RUNS, profile: $PROFILE, first request: GET $FIRST_REQUEST"
+run "jar" . -jar "$JAR"
+if [ -f "$FAST/application.jsa" ]; then
+    run "aot+appcds" "$FAST" -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true -jar application.jar
+else
+    echo "No $FAST/application.jsa, build with: mvn -Pfast-startup package" >&2
+fi
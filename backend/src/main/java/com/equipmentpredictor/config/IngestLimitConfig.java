@@ -0,0 +1,23 @@
+package com.equipmentpredictor.config;
+
+import com.equipmentpredictor.ingest.IngestLimitInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Rate limits and load shedding on the sensor log ingestion endpoints
+ */
+@Configuration
+@RequiredArgsConstructor
+public class IngestLimitConfig implements WebMvcConfigurer {
+
+    private final IngestLimitInterceptor ingestLimitInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(ingestLimitInterceptor)
+                .addPathPatterns("/api/v1/equipment/*/logs", "/api/v1/equipment/logs/stream");
+    }
+}
@@ -0,0 +1,79 @@
+package com.equipmentpredictor.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.ValidateResult;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Startup shortcuts for production replicas
+ * Beans from the packages in `startup.lazy-packages` (springdoc in prod) are
+ * created on first use instead of during startup, except the classes in
+ * `startup.eager-classes`, whose initialization has side effects. With
+ * `startup.flyway.deferred-validation`, migrate runs without re-checksumming
+ * every applied migration (spring.flyway.validate-on-migrate=false) and the full
+ * validation runs in the background once the application is ready.
+ */
+@Configuration
+@Slf4j
+public class StartupConfig {
+
+    @Bean
+    static BeanFactoryPostProcessor lazyOptionalBeans(Environment environment) {
+        List<String> packages = Arrays.asList(environment.getProperty("startup.lazy-packages", String[].class, new String[0]));
+        List<String> eager = Arrays.asList(environment.getProperty("startup.eager-classes", String[].class, new String[0]));
+        return beanFactory -> {
+            if (packages.isEmpty()) {
+                return;
+            }
+            int count = 0;
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                String className = definingClass(definition);
+                if (className != null && !eager.contains(className)
+                        && packages.stream().anyMatch(p -> className.startsWith(p + "."))) {
+                    definition.setLazyInit(true);
+                    count++;
+                }
+            }
+            log.info("Deferred {} beans from {} to first use", count, packages);
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "startup.flyway.deferred-validation", havingValue = "true")
+    ApplicationListener<ApplicationReadyEvent> deferredFlywayValidation(ObjectProvider<Flyway> flyway) {
+        return event -> flyway.ifAvailable(f -> {
+            Thread validation = new Thread(() -> {
+                ValidateResult result = f.validateWithResult();
+                if (result.validationSuccessful) {
+                    log.info("Flyway validation passed");
+                } else {
+                    log.error("Flyway validation failed: {}", result.getAllErrorMessages());
+                }
+            }, "flyway-validation");
+            validation.setDaemon(true);
+            validation.start();
+        });
+    }
+
+    // Bean class, or for @Bean methods the configuration class declaring them
+    private static String definingClass(BeanDefinition definition) {
+        if (definition instanceof AnnotatedBeanDefinition annotated && annotated.getFactoryMethodMetadata() != null) {
+            return annotated.getFactoryMethodMetadata().getDeclaringClassName();
+        }
+        return definition.getBeanClassName();
+    }
+}
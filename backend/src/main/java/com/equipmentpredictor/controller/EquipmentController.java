@@ -1,16 +1,24 @@
 package com.equipmentpredictor.controller;
 
 import com.equipmentpredictor.dto.EquipmentDTO;
+import com.equipmentpredictor.dto.EquipmentPageDTO;
 import com.equipmentpredictor.dto.SensorLogDTO;
+import com.equipmentpredictor.ingest.IngestLimiter;
 import com.equipmentpredictor.service.EquipmentService;
 import com.equipmentpredictor.service.SensorLogService;
+import com.equipmentpredictor.service.SensorStreamIngestService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -21,12 +29,43 @@ public class EquipmentController {
 
     private final EquipmentService equipmentService;
     private final SensorLogService sensorLogService;
+    private final SensorStreamIngestService sensorStreamIngestService;
 
     @GetMapping
     public ResponseEntity<List<EquipmentDTO>> getAllEquipment() {
         return ResponseEntity.ok(equipmentService.getAllEquipment());
     }
 
+    /**
+     * Page of equipment by id; type and location filter exactly, fields selects a subset of
+     * id, name, type, location and installDate, and nextAfterId is the afterId of the next page
+     */
+    @GetMapping("/page")
+    public ResponseEntity<EquipmentPageDTO> listEquipment(
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String location,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false, defaultValue = "0") Long afterId,
+            @RequestParam(required = false, defaultValue = "100") Integer limit) {
+        return ResponseEntity.ok(equipmentService.listEquipment(type, location, fields, afterId, limit));
+    }
+
+    /**
+     * Every matching equipment in one response, written as it is read: a JSON array,
+     * or NDJSON when requested with Accept: application/x-ndjson
+     */
+    @GetMapping("/stream")
+    public void streamEquipment(
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String location,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            HttpServletResponse response) throws IOException {
+        boolean ndjson = accept != null && accept.contains("application/x-ndjson");
+        response.setContentType(ndjson ? "application/x-ndjson" : MediaType.APPLICATION_JSON_VALUE);
+        equipmentService.streamEquipment(type, location, fields, ndjson, response.getOutputStream());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<EquipmentDTO> getEquipmentById(@PathVariable Long id) {
         return ResponseEntity.ok(equipmentService.getEquipmentById(id));
@@ -51,9 +90,15 @@ public class EquipmentController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Ranked search over name, type and location; name is kept as an alias of q
+     */
     @GetMapping("/search")
-    public ResponseEntity<List<EquipmentDTO>> searchEquipment(@RequestParam String name) {
-        return ResponseEntity.ok(equipmentService.searchEquipmentByName(name));
+    public ResponseEntity<List<EquipmentDTO>> searchEquipment(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String name,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(equipmentService.searchEquipment(q != null ? q : name, limit));
     }
 
     // Sensor log endpoints for specific equipment
@@ -62,8 +107,21 @@ public class EquipmentController {
             @PathVariable Long id,
             @Valid @RequestBody SensorLogDTO dto) {
         dto.setEquipmentId(id);
-        return ResponseEntity.status(HttpStatus.CREATED)
-                .body(sensorLogService.addSensorLog(dto));
+        SensorLogService.Ingested result = sensorLogService.addSensorLog(dto);
+        // 200 with the stored reading for a retry; no id yet when it was only accepted into the write-ahead log
+        HttpStatus status = result.duplicate() ? HttpStatus.OK
+                : result.reading().getId() != null ? HttpStatus.CREATED : HttpStatus.ACCEPTED;
+        return ResponseEntity.status(status).body(result.reading());
+    }
+
+    /**
+     * Long-lived NDJSON stream of readings for any equipment, acknowledged per micro-batch
+     */
+    @PostMapping(value = "/logs/stream", consumes = "application/x-ndjson")
+    public void streamSensorLogs(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        sensorStreamIngestService.ingest(IngestLimiter.clientOf(request), request.getInputStream(),
+                response.getOutputStream());
     }
 
     @GetMapping("/{id}/logs")
@@ -72,9 +130,14 @@ public class EquipmentController {
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
             @RequestParam(required = false, defaultValue = "100") Integer limit,
-            @RequestParam(required = false, defaultValue = "desc") String order) {
+            @RequestParam(required = false, defaultValue = "desc") String order,
+            @RequestParam(required = false) Integer maxPoints) {
         
-        if (from != null && to != null) {
+        if (from != null && to != null && maxPoints != null) {
+            // Whole range, downsampled for charts to at most maxPoints rows for all channels together;
+            // limit and order do not apply
+            return ResponseEntity.ok(sensorLogService.getDownsampledSensorLogs(id, from, to, maxPoints));
+        } else if (from != null && to != null) {
             return ResponseEntity.ok(sensorLogService.getSensorLogsByDateRange(id, from, to, limit));
         } else {
             return ResponseEntity.ok(sensorLogService.getSensorLogs(id, limit, order));
@@ -1,12 +1,20 @@
 package com.equipmentpredictor.controller;
 
 import com.equipmentpredictor.dto.AlertDTO;
+import com.equipmentpredictor.dto.RiskCubeRowDTO;
 import com.equipmentpredictor.dto.RiskResponseDTO;
+import com.equipmentpredictor.dto.RiskSimulationRequestDTO;
+import com.equipmentpredictor.dto.RiskSimulationResultDTO;
 import com.equipmentpredictor.service.AlertService;
+import com.equipmentpredictor.service.RiskCubeService;
+import com.equipmentpredictor.service.RiskSimulationService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -16,6 +24,8 @@ import java.util.Map;
 public class RiskController {
 
     private final AlertService alertService;
+    private final RiskSimulationService riskSimulationService;
+    private final RiskCubeService riskCubeService;
 
     @GetMapping("/equipment/{id}/risk/latest")
     public ResponseEntity<RiskResponseDTO> getLatestRisk(@PathVariable Long id) {
@@ -29,11 +39,35 @@ public class RiskController {
         return ResponseEntity.ok(alertService.getRiskHistory(id, limit));
     }
 
+    /**
+     * Level counts of stored readings under candidate weights and thresholds; read-only
+     */
+    @PostMapping("/risk/simulate")
+    public ResponseEntity<RiskSimulationResultDTO> simulateRisk(@Valid @RequestBody RiskSimulationRequestDTO request) {
+        return ResponseEntity.ok(riskSimulationService.simulate(request));
+    }
+
+    /**
+     * Time in each risk level and events recorded per hour, day or in total, by equipment type and location,
+     * from the pre-aggregated risk cube
+     */
+    @GetMapping("/analytics/risk")
+    public ResponseEntity<List<RiskCubeRowDTO>> getRiskAnalytics(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false, defaultValue = "type,location") List<String> groupBy,
+            @RequestParam(required = false, defaultValue = "hour") String bucket,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String location) {
+        return ResponseEntity.ok(riskCubeService.aggregate(from, to, groupBy, bucket, type, location));
+    }
+
     @GetMapping("/alerts")
     public ResponseEntity<List<AlertDTO>> getAlerts(
             @RequestParam(required = false) String level,
+            @RequestParam(required = false) String factor,
             @RequestParam(required = false, defaultValue = "50") Integer limit) {
-        return ResponseEntity.ok(alertService.getAlerts(level, limit));
+        return ResponseEntity.ok(alertService.getAlerts(level, factor, limit));
     }
 
     @GetMapping("/dashboard/stats")
@@ -0,0 +1,41 @@
+package com.equipmentpredictor.controller;
+
+import com.equipmentpredictor.dto.ScoringProfileDTO;
+import com.equipmentpredictor.service.ScoringProfileService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/scoring-profiles")
+@RequiredArgsConstructor
+public class ScoringProfileController {
+
+    private final ScoringProfileService scoringProfileService;
+
+    @GetMapping
+    public ResponseEntity<List<ScoringProfileDTO>> getAllProfiles() {
+        return ResponseEntity.ok(scoringProfileService.getAllProfiles());
+    }
+
+    @GetMapping("/{equipmentType}")
+    public ResponseEntity<ScoringProfileDTO> getProfile(@PathVariable String equipmentType) {
+        return ResponseEntity.ok(scoringProfileService.getProfile(equipmentType));
+    }
+
+    @PutMapping("/{equipmentType}")
+    public ResponseEntity<ScoringProfileDTO> saveProfile(
+            @PathVariable String equipmentType,
+            @Valid @RequestBody ScoringProfileDTO dto) {
+        return ResponseEntity.ok(scoringProfileService.saveProfile(equipmentType, dto));
+    }
+
+    @DeleteMapping("/{equipmentType}")
+    public ResponseEntity<Void> deleteProfile(@PathVariable String equipmentType) {
+        scoringProfileService.deleteProfile(equipmentType);
+        return ResponseEntity.noContent().build();
+    }
+}
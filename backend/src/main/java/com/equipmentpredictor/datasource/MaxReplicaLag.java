@@ -0,0 +1,21 @@
+package com.equipmentpredictor.datasource;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Staleness limit for a read-only method
+ * Reads inside the method use the replica only while its replication lag
+ * is at most this many milliseconds, otherwise they go to the primary.
+ * The value may be a property placeholder; "0" always reads the primary.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface MaxReplicaLag {
+
+    String value();
+}
@@ -0,0 +1,89 @@
+package com.equipmentpredictor.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Sends read-only transactions to the replica and everything else to the primary
+ * The route is decided when the connection is first used, so this must sit
+ * behind a LazyConnectionDataSourceProxy: the transaction's read-only flag is
+ * only bound after the transaction manager asks for a connection. A read goes
+ * to the replica only while its lag is within the limit of the current method
+ * (see MaxReplicaLag) or the default, and falls back to the primary when the
+ * replica is behind or refuses a connection.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractDataSource {
+
+    private static final ThreadLocal<Long> MAX_LAG = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaLagMonitor lagMonitor;
+    private final long defaultMaxLagMillis;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica,
+                                      ReplicaLagMonitor lagMonitor, long defaultMaxLagMillis) {
+        this.primary = primary;
+        this.replica = replica;
+        this.lagMonitor = lagMonitor;
+        this.defaultMaxLagMillis = defaultMaxLagMillis;
+    }
+
+    /**
+     * Set the staleness limit for the current thread, returning the previous one
+     */
+    public static Long setMaxLag(Long maxLagMillis) {
+        Long previous = MAX_LAG.get();
+        if (maxLagMillis == null) {
+            MAX_LAG.remove();
+        } else {
+            MAX_LAG.set(maxLagMillis);
+        }
+        return previous;
+    }
+
+    /**
+     * Whether a connection requested now would come from the replica
+     */
+    boolean routesToReplica() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return false;
+        }
+        Long maxLag = MAX_LAG.get();
+        long limit = maxLag != null ? maxLag : defaultMaxLagMillis;
+        long lag = lagMonitor.lagMillis();
+        return lag != ReplicaLagMonitor.UNAVAILABLE && lag <= limit;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (routesToReplica()) {
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                log.warn("Read replica connection failed, using primary: {}", e.getMessage());
+                lagMonitor.markUnavailable();
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (routesToReplica()) {
+            try {
+                return replica.getConnection(username, password);
+            } catch (SQLException e) {
+                log.warn("Read replica connection failed, using primary: {}", e.getMessage());
+                lagMonitor.markUnavailable();
+            }
+        }
+        return primary.getConnection(username, password);
+    }
+}
@@ -0,0 +1,75 @@
+package com.equipmentpredictor.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Tracks how far the read replica is behind the primary
+ * A standby with nothing left to replay reports zero lag even when the
+ * primary has been idle; otherwise lag is the age of the last replayed
+ * transaction. A replica that cannot be queried counts as infinitely
+ * behind, so every read falls back to the primary until it recovers.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    public static final long UNAVAILABLE = Long.MAX_VALUE;
+
+    private static final String LAG_QUERY = """
+            SELECT CASE
+                       WHEN NOT pg_is_in_recovery() THEN 0
+                       WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                       ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+                   END::bigint
+            """;
+
+    private final DataSource replica;
+
+    private volatile long lagMillis = UNAVAILABLE;
+
+    public ReplicaLagMonitor(DataSource replica) {
+        this.replica = replica;
+    }
+
+    /**
+     * Last measured lag in milliseconds, or UNAVAILABLE
+     */
+    public long lagMillis() {
+        return lagMillis;
+    }
+
+    /**
+     * Take the replica out of rotation until the next successful check
+     */
+    public void markUnavailable() {
+        update(UNAVAILABLE);
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replica.lag-check-ms:1000}")
+    public void check() {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+            rs.next();
+            update(Math.max(0, rs.getLong(1)));
+        } catch (SQLException e) {
+            if (lagMillis != UNAVAILABLE) {
+                log.warn("Read replica unavailable, routing reads to primary: {}", e.getMessage());
+            }
+            update(UNAVAILABLE);
+        }
+    }
+
+    private void update(long lag) {
+        if (lagMillis == UNAVAILABLE && lag != UNAVAILABLE) {
+            log.info("Read replica available, lag {} ms", lag);
+        }
+        lagMillis = lag;
+    }
+}
@@ -0,0 +1,44 @@
+package com.equipmentpredictor.datasource;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Applies MaxReplicaLag limits around annotated methods
+ * Runs outside the transaction interceptor so the limit is in place before
+ * the first statement picks a connection.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "datasource.replica.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ReplicaStalenessAspect {
+
+    private final Environment environment;
+
+    // Resolved limits, keyed by the annotation's raw value
+    private final Map<String, Long> limits = new ConcurrentHashMap<>();
+
+    @Around("@annotation(maxReplicaLag)")
+    public Object withStalenessLimit(ProceedingJoinPoint joinPoint, MaxReplicaLag maxReplicaLag) throws Throwable {
+        long limit = limits.computeIfAbsent(maxReplicaLag.value(),
+                value -> Long.parseLong(environment.resolveRequiredPlaceholders(value).trim()));
+        Long previous = ReadWriteRoutingDataSource.setMaxLag(limit);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ReadWriteRoutingDataSource.setMaxLag(previous);
+        }
+    }
+}
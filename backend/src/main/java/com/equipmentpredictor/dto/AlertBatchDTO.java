@@ -0,0 +1,23 @@
+package com.equipmentpredictor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Single WebSocket frame carrying all alerts coalesced within one window
+ * The sequence increases by one per frame so clients can detect gaps
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AlertBatchDTO {
+    private long sequence;
+    private LocalDateTime timestamp;
+    private List<CoalescedAlertDTO> alerts;
+}
@@ -22,4 +22,5 @@ public class AlertDTO {
     private BigDecimal riskScore;
     private RiskEvent.RiskLevel riskLevel;
     private String reason;
+    private RiskEvent.RiskFactor reasonFactor;
 }
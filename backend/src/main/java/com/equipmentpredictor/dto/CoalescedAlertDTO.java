@@ -0,0 +1,20 @@
+package com.equipmentpredictor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Alerts for one equipment collapsed within a delivery window
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CoalescedAlertDTO {
+    private Long equipmentId;
+    private RiskResponseDTO latest;
+    private RiskResponseDTO worst;
+    private int count;
+}
@@ -0,0 +1,21 @@
+package com.equipmentpredictor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of the equipment listing, ordered by id
+ * nextAfterId is passed as afterId to fetch the next page and is null on the last one.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EquipmentPageDTO {
+    private List<EquipmentSummaryDTO> items;
+    private Long nextAfterId;
+}
@@ -0,0 +1,26 @@
+package com.equipmentpredictor.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Equipment as shown in list views, without notes
+ * Fields left out by sparse field selection are null and not serialized.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EquipmentSummaryDTO {
+    private Long id;
+    private String name;
+    private String type;
+    private String location;
+    private LocalDate installDate;
+}
@@ -0,0 +1,48 @@
+package com.equipmentpredictor.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One line of the streaming ingestion response
+ * ACK follows each micro-batch (records are numbered from 1 in request order),
+ * DONE carries the totals once the request body ends, and ERROR ends the stream
+ * when it cannot be parsed further: records after the last ACK were not ingested.
+ * Duplicates were already stored (a retry); they are not stored again and
+ * need not be resent, and are not counted as accepted.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IngestAckDTO {
+
+    public enum Status {
+        ACK, DONE, ERROR
+    }
+
+    private Status status;
+    private long batch;
+    private Long firstRecord;
+    private Long lastRecord;
+    private long accepted;
+    private long rejected;
+    private long duplicates;
+    private List<RecordError> errors;
+    private List<Long> duplicateRecords;
+    private String error;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RecordError {
+        private long record;
+        private String error;
+    }
+}
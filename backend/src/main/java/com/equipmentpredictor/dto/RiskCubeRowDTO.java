@@ -0,0 +1,32 @@
+package com.equipmentpredictor.dto;
+
+import com.equipmentpredictor.model.RiskEvent;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Time in each risk level and events recorded in one bucket (hour or day; null for a total)
+ * and, when grouped by them, one equipment type and location
+ * levelSeconds is summed over the equipment and rounded to whole seconds; avgScore is weighted
+ * by time and null when the bucket has no time yet. events and maxEventScore are the risk events
+ * recorded in the bucket (maxEventScore is null when there were none).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RiskCubeRowDTO {
+    private LocalDateTime bucket;
+    private String equipmentType;
+    private String location;
+    private Map<RiskEvent.RiskLevel, Long> levelSeconds;
+    private BigDecimal avgScore;
+    private long events;
+    private BigDecimal maxEventScore;
+}
@@ -0,0 +1,55 @@
+package com.equipmentpredictor.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * What-if scoring of stored readings
+ * Equipment is selected by ids, or else by type and location (all equipment
+ * when none is given). Weights and thresholds left out keep the value of each
+ * equipment type's current profile.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RiskSimulationRequestDTO {
+    private List<Long> equipmentIds;
+
+    private String equipmentType;
+
+    private String location;
+
+    @NotNull(message = "From is required")
+    private LocalDateTime from;
+
+    @NotNull(message = "To is required")
+    private LocalDateTime to;
+
+    @DecimalMin(value = "0.0", message = "Weights must be between 0 and 1")
+    @DecimalMax(value = "1.0", message = "Weights must be between 0 and 1")
+    private BigDecimal weightTemperature;
+
+    @DecimalMin(value = "0.0", message = "Weights must be between 0 and 1")
+    @DecimalMax(value = "1.0", message = "Weights must be between 0 and 1")
+    private BigDecimal weightVibration;
+
+    @DecimalMin(value = "0.0", message = "Weights must be between 0 and 1")
+    @DecimalMax(value = "1.0", message = "Weights must be between 0 and 1")
+    private BigDecimal weightLoad;
+
+    private BigDecimal thresholdMedium;
+
+    private BigDecimal thresholdHigh;
+
+    private BigDecimal thresholdCritical;
+}
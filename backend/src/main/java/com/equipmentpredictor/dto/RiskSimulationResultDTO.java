@@ -0,0 +1,42 @@
+package com.equipmentpredictor.dto;
+
+import com.equipmentpredictor.model.RiskEvent;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Levels the selected readings get under the current and the candidate settings
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RiskSimulationResultDTO {
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private int equipmentCount;
+    private long readings;
+    private Outcome current;
+    private Outcome candidate;
+    private String kernel;
+    private long durationMs;
+
+    /**
+     * alerts counts the events at MEDIUM or above that the risk event policy
+     * would record, as listed by /alerts
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Outcome {
+        private Map<RiskEvent.RiskLevel, Long> levels;
+        private long alerts;
+        private int equipmentWithAlerts;
+    }
+}
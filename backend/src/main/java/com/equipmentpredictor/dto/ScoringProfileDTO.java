@@ -0,0 +1,64 @@
+package com.equipmentpredictor.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ScoringProfileDTO {
+    private String equipmentType;
+
+    @NotNull(message = "Temperature min is required")
+    private BigDecimal temperatureMin;
+
+    @NotNull(message = "Temperature max is required")
+    private BigDecimal temperatureMax;
+
+    @NotNull(message = "Vibration min is required")
+    private BigDecimal vibrationMin;
+
+    @NotNull(message = "Vibration max is required")
+    private BigDecimal vibrationMax;
+
+    @NotNull(message = "Load min is required")
+    private BigDecimal loadMin;
+
+    @NotNull(message = "Load max is required")
+    private BigDecimal loadMax;
+
+    @NotNull(message = "Temperature weight is required")
+    @DecimalMin(value = "0.0", message = "Weights must be between 0 and 1")
+    @DecimalMax(value = "1.0", message = "Weights must be between 0 and 1")
+    private BigDecimal weightTemperature;
+
+    @NotNull(message = "Vibration weight is required")
+    @DecimalMin(value = "0.0", message = "Weights must be between 0 and 1")
+    @DecimalMax(value = "1.0", message = "Weights must be between 0 and 1")
+    private BigDecimal weightVibration;
+
+    @NotNull(message = "Load weight is required")
+    @DecimalMin(value = "0.0", message = "Weights must be between 0 and 1")
+    @DecimalMax(value = "1.0", message = "Weights must be between 0 and 1")
+    private BigDecimal weightLoad;
+
+    @NotNull(message = "Medium threshold is required")
+    private BigDecimal thresholdMedium;
+
+    @NotNull(message = "High threshold is required")
+    private BigDecimal thresholdHigh;
+
+    @NotNull(message = "Critical threshold is required")
+    private BigDecimal thresholdCritical;
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,78 @@
+package com.equipmentpredictor.ingest;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Cap on concurrent ingestion work that follows database latency (AIMD)
+ * Latency samples feed an exponentially weighted average. While it is above
+ * the target the limit is cut by a quarter, at most once per target interval
+ * so one slow spell is not punished repeatedly; while it is below, each sample
+ * adds 1/limit, about one slot per limit's worth of healthy writes.
+ */
+final class AdaptiveConcurrencyLimit {
+
+    private static final double SMOOTHING = 0.1;
+    private static final double DECREASE = 0.75;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetNanos;
+    private final LongSupplier clock;
+
+    private double limit;
+    private double averageNanos;
+    private long lastDecreaseNanos;
+    private int inFlight;
+
+    AdaptiveConcurrencyLimit(int minLimit, int maxLimit, long targetNanos, LongSupplier clock) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= min <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetNanos = targetNanos;
+        this.clock = clock;
+        this.limit = maxLimit;
+        this.lastDecreaseNanos = clock.getAsLong() - targetNanos;
+    }
+
+    /**
+     * Take a slot if fewer than limit are in use; every successful call must be paired with release
+     */
+    synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    synchronized void release() {
+        inFlight--;
+    }
+
+    synchronized void onLatency(long nanos) {
+        averageNanos = averageNanos == 0 ? nanos : averageNanos + SMOOTHING * (nanos - averageNanos);
+        long now = clock.getAsLong();
+        if (averageNanos > targetNanos) {
+            if (now - lastDecreaseNanos >= targetNanos) {
+                limit = Math.max(minLimit, limit * DECREASE);
+                lastDecreaseNanos = now;
+            }
+        } else {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+
+    synchronized int limit() {
+        return (int) limit;
+    }
+
+    synchronized int inFlight() {
+        return inFlight;
+    }
+
+    synchronized double averageMillis() {
+        return averageNanos / 1_000_000d;
+    }
+}
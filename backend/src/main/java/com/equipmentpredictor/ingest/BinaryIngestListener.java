@@ -0,0 +1,376 @@
+package com.equipmentpredictor.ingest;
+
+import com.equipmentpredictor.service.SensorLogService;
+import com.equipmentpredictor.store.ReadingBuffer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * NIO TCP listener for field devices that cannot speak HTTP/JSON
+ * Devices send length-prefixed big-endian frames, no response is written:
+ *
+ *   u16 length (22) | i64 equipmentId | i64 epoch millis, UTC (0 = now)
+ *   | i16 temperature | i16 vibration | i16 load   (hundredths)
+ *
+ * One selector thread reads all connections into per-connection buffers and
+ * decodes frames into a reusable ReadingBuffer. A decoded batch is stored on a
+ * worker through SensorLogService.addReadings (the REST persistence and scoring
+ * path); until it is stored the connection is not read, so a device that sends
+ * faster than readings are stored is held back by TCP flow control. Readings
+ * turned away by a full shard queue or write-ahead log are retried. Frames
+ * with out-of-range values are dropped and counted, as are frames repeating a
+ * stored reading; a wrong length closes the connection.
+ */
+@Component
+@ConditionalOnProperty(name = "ingest.tcp.enabled", havingValue = "true")
+@Slf4j
+public class BinaryIngestListener {
+
+    static final int PAYLOAD_BYTES = 8 + 8 + 2 + 2 + 2;
+    static final int FRAME_BYTES = 2 + PAYLOAD_BYTES;
+
+    private final SensorLogService sensorLogService;
+    private final String host;
+    private final int port;
+    private final int maxConnections;
+    private final int batchSize;
+
+    private final ExecutorService workers = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "ingest-tcp-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Work handed back to the selector thread by workers
+    private final Queue<Runnable> selectorTasks = new ConcurrentLinkedQueue<>();
+    private final AtomicLong framesStored = new AtomicLong();
+    private final AtomicLong framesRejected = new AtomicLong();
+    private final AtomicLong framesDuplicate = new AtomicLong();
+
+    private Selector selector;
+    private ServerSocketChannel server;
+    private Thread selectorThread;
+    private volatile boolean running;
+    private int connections;
+
+    public BinaryIngestListener(SensorLogService sensorLogService,
+            @Value("${ingest.tcp.host:0.0.0.0}") String host,
+            @Value("${ingest.tcp.port:9750}") int port,
+            @Value("${ingest.tcp.max-connections:256}") int maxConnections,
+            @Value("${ingest.tcp.batch-size:1000}") int batchSize) {
+        this.sensorLogService = sensorLogService;
+        this.host = host;
+        this.port = port;
+        this.maxConnections = maxConnections;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(host, port));
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+        selectorThread = new Thread(this::run, "ingest-tcp");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+        log.info("Binary ingestion listening on {}", server.getLocalAddress());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        running = false;
+        selector.wakeup();
+        selectorThread.join(TimeUnit.SECONDS.toMillis(10));
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+    }
+
+    public SocketAddress localAddress() throws IOException {
+        return server.getLocalAddress();
+    }
+
+    /**
+     * Frames handed to storage and accepted
+     */
+    public long framesStored() {
+        return framesStored.get();
+    }
+
+    /**
+     * Frames dropped for invalid values or rejected by storage
+     */
+    public long framesRejected() {
+        return framesRejected.get();
+    }
+
+    /**
+     * Frames skipped because the reading was already stored (device retries)
+     */
+    public long framesDuplicate() {
+        return framesDuplicate.get();
+    }
+
+    /**
+     * Selector loop; a failure while serving one connection closes only that
+     * connection, so the thread keeps serving all others
+     */
+    private void run() {
+        while (running) {
+            try {
+                selector.select();
+            } catch (IOException | RuntimeException e) {
+                log.error("Binary ingestion selector failed", e);
+                continue;
+            }
+            Runnable task;
+            while ((task = selectorTasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.error("Binary ingestion selector task failed", e);
+                }
+            }
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                try {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.isReadable()) {
+                        read((Connection) key.attachment());
+                    }
+                } catch (IOException | RuntimeException e) {
+                    if (key.attachment() instanceof Connection connection) {
+                        log.error("Closing binary ingestion connection {} after a failure",
+                                connection.channel.socket().getRemoteSocketAddress(), e);
+                        close(connection);
+                    } else {
+                        log.error("Failed to accept binary ingestion connection", e);
+                    }
+                }
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        if (connections >= maxConnections) {
+            log.warn("Refusing binary ingestion connection from {}: {} connections open",
+                    channel.getRemoteAddress(), connections);
+            channel.close();
+            return;
+        }
+        channel.configureBlocking(false);
+        Connection connection = new Connection(channel);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        connections++;
+        log.debug("Binary ingestion connection from {}", channel.getRemoteAddress());
+    }
+
+    private void read(Connection connection) {
+        try {
+            if (connection.channel.read(connection.in) < 0) {
+                close(connection);
+                return;
+            }
+            decodeAndStore(connection);
+        } catch (IOException e) {
+            log.debug("Binary ingestion connection failed", e);
+            close(connection);
+        }
+    }
+
+    // Decode buffered frames and, if any, pause reading until they are stored
+    private void decodeAndStore(Connection connection) {
+        if (!decode(connection)) {
+            close(connection);
+            return;
+        }
+        if (connection.batch.size() == 0) {
+            connection.key.interestOps(SelectionKey.OP_READ);
+            return;
+        }
+        connection.key.interestOps(0);
+        workers.execute(() -> {
+            try {
+                store(connection.batch);
+            } finally {
+                // Even after an Error in store, or the connection stays paused for good
+                selectorTasks.add(() -> resume(connection));
+                selector.wakeup();
+            }
+        });
+    }
+
+    // On the selector thread once a batch is stored: decode what arrived meanwhile or read again
+    private void resume(Connection connection) {
+        if (connection.closed) {
+            return;
+        }
+        try {
+            decodeAndStore(connection);
+        } catch (RuntimeException e) {
+            // e.g. CancelledKeyException when the connection was closed while its batch was stored
+            log.warn("Closing binary ingestion connection {} after a failure",
+                    connection.channel.socket().getRemoteSocketAddress(), e);
+            close(connection);
+        }
+    }
+
+    /**
+     * Decode whole frames from the input buffer into the batch until either runs out
+     * Returns false on a framing error.
+     */
+    private boolean decode(Connection connection) {
+        ByteBuffer in = connection.in;
+        ReadingBuffer batch = connection.batch;
+        in.flip();
+        try {
+            while (in.remaining() >= 2 && !batch.isFull()) {
+                int length = Short.toUnsignedInt(in.getShort(in.position()));
+                if (length != PAYLOAD_BYTES) {
+                    log.warn("Closing binary ingestion connection {}: frame length {}, expected {}",
+                            connection.channel.socket().getRemoteSocketAddress(), length, PAYLOAD_BYTES);
+                    return false;
+                }
+                if (in.remaining() < FRAME_BYTES) {
+                    break;
+                }
+                in.position(in.position() + 2);
+                long equipmentId = in.getLong();
+                long epochMillis = in.getLong();
+                short temperature = in.getShort();
+                short vibration = in.getShort();
+                short load = in.getShort();
+                // Same ranges as SensorLogDTO, in hundredths
+                if (equipmentId <= 0 || temperature < -5000 || temperature > 20000
+                        || vibration < 0 || vibration > 10000 || load < 0 || load > 10000) {
+                    framesRejected.incrementAndGet();
+                    continue;
+                }
+                long millis = epochMillis != 0 ? epochMillis : System.currentTimeMillis();
+                batch.add(equipmentId, millis * 1000, temperature, vibration, load);
+            }
+            return true;
+        } finally {
+            in.compact();
+        }
+    }
+
+    private void store(ReadingBuffer batch) {
+        try {
+            storeAll(batch);
+        } finally {
+            batch.clear();
+        }
+    }
+
+    private void storeAll(ReadingBuffer batch) {
+        ReadingBuffer pending = batch;
+        while (true) {
+            try {
+                SensorLogService.IngestResult result = sensorLogService.addReadings(pending);
+                Set<Integer> retryable = result.retryable();
+                int rejected = result.rejected().size() - retryable.size();
+                int duplicates = result.duplicates().size();
+                framesStored.addAndGet(pending.size() - result.rejected().size() - duplicates);
+                framesRejected.addAndGet(rejected);
+                framesDuplicate.addAndGet(duplicates);
+                if (retryable.isEmpty()) {
+                    break;
+                }
+                // Shard queues or log full for part of the batch: keep the connection paused and retry that part
+                pending = pending.select(retryable);
+            } catch (RejectedExecutionException e) {
+                // The log is full for the whole batch
+            } catch (RuntimeException e) {
+                log.warn("Failed to store {} binary ingestion frames", pending.size(), e);
+                framesRejected.addAndGet(pending.size());
+                break;
+            }
+            if (!backOff()) {
+                framesRejected.addAndGet(pending.size());
+                break;
+            }
+        }
+    }
+
+    // False when stopping or interrupted, and the frames still pending are given up
+    private boolean backOff() {
+        if (!running) {
+            return false;
+        }
+        try {
+            Thread.sleep(100);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void close(Connection connection) {
+        if (connection.closed) {
+            return;
+        }
+        connection.closed = true;
+        connection.key.cancel();
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            log.debug("Failed to close binary ingestion connection", e);
+        }
+        connections--;
+    }
+
+    /**
+     * Buffers of one device connection, reused for its lifetime
+     */
+    private final class Connection {
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocateDirect(FRAME_BYTES * batchSize);
+        final ReadingBuffer batch = new ReadingBuffer(batchSize);
+        SelectionKey key;
+        // Only touched on the selector thread
+        boolean closed;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.equipmentpredictor.ingest;
+
+import com.equipmentpredictor.exception.ErrorResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies IngestLimiter to the ingestion endpoints before the body is read
+ * POST /{id}/logs takes a token from the equipment and one from the client,
+ * then a concurrency slot held until the response completes; tokens taken
+ * for a request that a later check rejects are given back. The NDJSON
+ * stream only needs a client token to open; its batches are paced and
+ * limited by SensorStreamIngestService. Rate limited requests get 429 and
+ * shed ones 503, both with Retry-After in seconds.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IngestLimitInterceptor implements HandlerInterceptor {
+
+    private static final String ENTERED = IngestLimitInterceptor.class.getName() + ".entered";
+
+    private final IngestLimiter limiter;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        if (!"POST".equals(request.getMethod())) {
+            return true;
+        }
+        String client = IngestLimiter.clientOf(request);
+        Long equipmentId = equipmentId(request);
+        if (equipmentId != null) {
+            long wait = limiter.tryAcquireEquipment(equipmentId);
+            if (wait > 0) {
+                return reject(request, response, HttpStatus.TOO_MANY_REQUESTS, wait,
+                        "Rate limit exceeded for equipment " + equipmentId);
+            }
+        }
+        long wait = limiter.tryAcquireClient(client, 1);
+        if (wait > 0) {
+            refundEquipment(equipmentId);
+            return reject(request, response, HttpStatus.TOO_MANY_REQUESTS, wait, "Rate limit exceeded for client");
+        }
+        if (equipmentId != null) {
+            if (!limiter.tryEnter()) {
+                refundEquipment(equipmentId);
+                limiter.refundClient(client, 1);
+                return reject(request, response, HttpStatus.SERVICE_UNAVAILABLE, TimeUnit.SECONDS.toNanos(1),
+                        "Ingestion is shedding load, retry later");
+            }
+            request.setAttribute(ENTERED, Boolean.TRUE);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        if (request.getAttribute(ENTERED) != null) {
+            request.removeAttribute(ENTERED);
+            limiter.exit();
+        }
+    }
+
+    // A rejected request is not charged to the buckets whose checks it passed
+    private void refundEquipment(Long equipmentId) {
+        if (equipmentId != null) {
+            limiter.refundEquipment(equipmentId, 1);
+        }
+    }
+
+    // The {id} path variable, null for the stream or when it is not a number (the controller reports that)
+    @SuppressWarnings("unchecked")
+    private static Long equipmentId(HttpServletRequest request) {
+        Map<String, String> variables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String id = variables != null ? variables.get("id") : null;
+        if (id == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(id);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private boolean reject(HttpServletRequest request, HttpServletResponse response, HttpStatus status,
+            long waitNanos, String message) throws IOException {
+        log.debug("{} {}: {}", status.value(), request.getRequestURI(), message);
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(
+                LocalDateTime.now(), status.value(), status.getReasonPhrase(), message, request.getRequestURI()));
+        return false;
+    }
+}
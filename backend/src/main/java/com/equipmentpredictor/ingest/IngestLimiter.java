@@ -0,0 +1,204 @@
+package com.equipmentpredictor.ingest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for HTTP ingestion
+ * Rate limits are token buckets per equipment and per client (the
+ * authenticated user, else the remote address), counted in readings; they are
+ * checked before any database work. The concurrency limit caps ingestion work
+ * in flight and shrinks while database write latency (reported by
+ * SensorLogService) is above target, shedding load instead of queueing it on
+ * the ingest shards. Every decision is counted in ingest.limiter.decisions,
+ * tagged by limiter and outcome.
+ */
+@Component
+@Slf4j
+public class IngestLimiter {
+
+    private final boolean enabled;
+    private final TokenBucketTable<Long> equipmentBuckets;
+    private final TokenBucketTable<String> clientBuckets;
+    private final AdaptiveConcurrencyLimit concurrency;
+
+    private final Counter equipmentAllowed;
+    private final Counter equipmentRejected;
+    private final Counter equipmentRefunded;
+    private final Counter clientAllowed;
+    private final Counter clientRejected;
+    private final Counter clientDelayed;
+    private final Counter clientRefunded;
+    private final Counter concurrencyAllowed;
+    private final Counter concurrencyShed;
+
+    public IngestLimiter(@Value("${ingest.limits.enabled:true}") boolean enabled,
+            @Value("${ingest.limits.equipment.rate-per-second:50}") double equipmentRate,
+            @Value("${ingest.limits.equipment.burst:500}") double equipmentBurst,
+            @Value("${ingest.limits.client.rate-per-second:5000}") double clientRate,
+            @Value("${ingest.limits.client.burst:20000}") double clientBurst,
+            @Value("${ingest.limits.stripes:64}") int stripes,
+            @Value("${ingest.shed.min-concurrency:4}") int minConcurrency,
+            @Value("${ingest.shed.max-concurrency:128}") int maxConcurrency,
+            @Value("${ingest.shed.latency-target-ms:200}") long latencyTargetMs,
+            MeterRegistry registry) {
+        this.enabled = enabled;
+        this.equipmentBuckets = new TokenBucketTable<>(equipmentRate, equipmentBurst, stripes, System::nanoTime);
+        this.clientBuckets = new TokenBucketTable<>(clientRate, clientBurst, stripes, System::nanoTime);
+        this.concurrency = new AdaptiveConcurrencyLimit(minConcurrency, maxConcurrency,
+                TimeUnit.MILLISECONDS.toNanos(latencyTargetMs), System::nanoTime);
+
+        this.equipmentAllowed = decisions(registry, "equipment", "allowed");
+        this.equipmentRejected = decisions(registry, "equipment", "rejected");
+        this.equipmentRefunded = decisions(registry, "equipment", "refunded");
+        this.clientAllowed = decisions(registry, "client", "allowed");
+        this.clientRejected = decisions(registry, "client", "rejected");
+        this.clientDelayed = decisions(registry, "client", "delayed");
+        this.clientRefunded = decisions(registry, "client", "refunded");
+        this.concurrencyAllowed = decisions(registry, "concurrency", "allowed");
+        this.concurrencyShed = decisions(registry, "concurrency", "shed");
+        Gauge.builder("ingest.limiter.concurrency.limit", concurrency, AdaptiveConcurrencyLimit::limit)
+                .description("Current cap on ingestion work in flight")
+                .register(registry);
+        Gauge.builder("ingest.limiter.concurrency.in-flight", concurrency, AdaptiveConcurrencyLimit::inFlight)
+                .description("Ingestion work in flight")
+                .register(registry);
+        Gauge.builder("ingest.limiter.database.latency", concurrency, AdaptiveConcurrencyLimit::averageMillis)
+                .description("Weighted average of ingestion transaction time")
+                .baseUnit("milliseconds")
+                .register(registry);
+        Gauge.builder("ingest.limiter.buckets", equipmentBuckets, TokenBucketTable::size)
+                .tag("limiter", "equipment")
+                .register(registry);
+        Gauge.builder("ingest.limiter.buckets", clientBuckets, TokenBucketTable::size)
+                .tag("limiter", "client")
+                .register(registry);
+        log.info("Ingestion limits {}: {}/s per equipment, {}/s per client, concurrency {}-{} at {} ms",
+                enabled ? "enabled" : "disabled", equipmentRate, clientRate,
+                minConcurrency, maxConcurrency, latencyTargetMs);
+    }
+
+    private static Counter decisions(MeterRegistry registry, String limiter, String outcome) {
+        return Counter.builder("ingest.limiter.decisions")
+                .description("Ingestion admission decisions")
+                .tag("limiter", limiter)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    /**
+     * Rate limit key of the caller: the authenticated user, else the remote address
+     */
+    public static String clientOf(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        return "address:" + request.getRemoteAddr();
+    }
+
+    /**
+     * Take one reading's token for the equipment; returns 0, or the nanoseconds until one is available
+     */
+    public long tryAcquireEquipment(long equipmentId) {
+        if (!enabled) {
+            return 0;
+        }
+        long wait = equipmentBuckets.tryAcquire(equipmentId, 1);
+        (wait == 0 ? equipmentAllowed : equipmentRejected).increment();
+        return wait;
+    }
+
+    /**
+     * Take tokens for `readings` from the client; returns 0, or the nanoseconds until they are available
+     */
+    public long tryAcquireClient(String client, int readings) {
+        if (!enabled) {
+            return 0;
+        }
+        long wait = clientBuckets.tryAcquire(client, readings);
+        (wait == 0 ? clientAllowed : clientRejected).increment();
+        return wait;
+    }
+
+    /**
+     * Charge `readings` to the client unconditionally; returns how long to hold the client back, 0 for not at all
+     * Used to pace long-lived streams instead of rejecting them.
+     */
+    public long reserveClient(String client, int readings) {
+        if (!enabled) {
+            return 0;
+        }
+        long wait = clientBuckets.reserve(client, readings);
+        (wait == 0 ? clientAllowed : clientDelayed).increment();
+        return wait;
+    }
+
+    /**
+     * Give back equipment tokens taken for readings that a later check turned away
+     */
+    public void refundEquipment(long equipmentId, int readings) {
+        if (enabled) {
+            equipmentBuckets.refund(equipmentId, readings);
+            equipmentRefunded.increment(readings);
+        }
+    }
+
+    /**
+     * Give back client tokens taken or reserved for readings that a later check turned away
+     */
+    public void refundClient(String client, int readings) {
+        if (enabled) {
+            clientBuckets.refund(client, readings);
+            clientRefunded.increment(readings);
+        }
+    }
+
+    /**
+     * Enter the concurrency limit; false means shed. Every true must be paired with exit
+     */
+    public boolean tryEnter() {
+        if (!enabled) {
+            return true;
+        }
+        boolean entered = concurrency.tryAcquire();
+        (entered ? concurrencyAllowed : concurrencyShed).increment();
+        return entered;
+    }
+
+    public void exit() {
+        if (enabled) {
+            concurrency.release();
+        }
+    }
+
+    /**
+     * Time taken by one ingestion transaction, including the wait for a connection
+     */
+    public void recordDatabaseLatency(long nanos) {
+        if (enabled) {
+            concurrency.onLatency(nanos);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ingest.limits.evict-ms:60000}")
+    public void evictIdle() {
+        if (enabled) {
+            int equipment = equipmentBuckets.evictIdle();
+            int clients = clientBuckets.evictIdle();
+            log.debug("Rate limit buckets after eviction: {} equipment, {} clients", equipment, clients);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.equipmentpredictor.ingest;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets by key, refilled lazily from the clock
+ * Keys hash to one of a fixed number of stripes, each a plain HashMap guarded
+ * by its own monitor, so callers for different keys rarely contend. A bucket
+ * holds at most `burst` tokens and gains `ratePerSecond` per second; a key
+ * seen for the first time starts full. Buckets that have refilled completely
+ * are indistinguishable from absent ones and are dropped by evictIdle.
+ */
+final class TokenBucketTable<K> {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final double tokensPerNano;
+    private final double burst;
+    private final LongSupplier clock;
+    private final Stripe<K>[] stripes;
+    private final int mask;
+
+    @SuppressWarnings("unchecked")
+    TokenBucketTable(double ratePerSecond, double burst, int stripeCount, LongSupplier clock) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate must be positive and burst at least 1");
+        }
+        this.tokensPerNano = ratePerSecond / NANOS_PER_SECOND;
+        this.burst = burst;
+        this.clock = clock;
+        int count = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe<>();
+        }
+        this.mask = count - 1;
+    }
+
+    /**
+     * Take `permits` tokens if the bucket holds them
+     * Returns 0 when taken, otherwise the nanoseconds until they will be there
+     * (nothing is taken). More permits than the burst are capped to it.
+     */
+    long tryAcquire(K key, int permits) {
+        double wanted = Math.min(permits, burst);
+        Stripe<K> stripe = stripe(key);
+        synchronized (stripe) {
+            Bucket bucket = stripe.refill(key, clock.getAsLong(), this);
+            if (bucket.tokens >= wanted) {
+                bucket.tokens -= wanted;
+                return 0;
+            }
+            return nanosFor(wanted - bucket.tokens);
+        }
+    }
+
+    /**
+     * Take `permits` tokens unconditionally, going into debt if needed
+     * Returns the nanoseconds the caller should wait before proceeding, 0 if the bucket covered them.
+     */
+    long reserve(K key, int permits) {
+        Stripe<K> stripe = stripe(key);
+        synchronized (stripe) {
+            Bucket bucket = stripe.refill(key, clock.getAsLong(), this);
+            bucket.tokens -= permits;
+            return bucket.tokens >= 0 ? 0 : nanosFor(-bucket.tokens);
+        }
+    }
+
+    /**
+     * Give back `permits` tokens taken for work that was then turned away, up to the burst
+     */
+    void refund(K key, int permits) {
+        Stripe<K> stripe = stripe(key);
+        synchronized (stripe) {
+            Bucket bucket = stripe.refill(key, clock.getAsLong(), this);
+            bucket.tokens = Math.min(burst, bucket.tokens + permits);
+        }
+    }
+
+    /**
+     * Drop full buckets; returns how many remain
+     */
+    int evictIdle() {
+        int remaining = 0;
+        for (Stripe<K> stripe : stripes) {
+            synchronized (stripe) {
+                long now = clock.getAsLong();
+                Iterator<Map.Entry<K, Bucket>> entries = stripe.buckets.entrySet().iterator();
+                while (entries.hasNext()) {
+                    Bucket bucket = entries.next().getValue();
+                    if (bucket.level(now, this) >= burst) {
+                        entries.remove();
+                    }
+                }
+                remaining += stripe.buckets.size();
+            }
+        }
+        return remaining;
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe<K> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.buckets.size();
+            }
+        }
+        return size;
+    }
+
+    private Stripe<K> stripe(K key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & mask];
+    }
+
+    private long nanosFor(double tokens) {
+        return Math.max(1, (long) Math.ceil(tokens / tokensPerNano));
+    }
+
+    private static final class Stripe<K> {
+        final Map<K, Bucket> buckets = new HashMap<>();
+
+        Bucket refill(K key, long now, TokenBucketTable<K> table) {
+            Bucket bucket = buckets.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(table.burst, now);
+                buckets.put(key, bucket);
+            } else {
+                bucket.tokens = bucket.level(now, table);
+                bucket.updatedNanos = now;
+            }
+            return bucket;
+        }
+    }
+
+    private static final class Bucket {
+        double tokens;
+        long updatedNanos;
+
+        Bucket(double tokens, long updatedNanos) {
+            this.tokens = tokens;
+            this.updatedNanos = updatedNanos;
+        }
+
+        double level(long now, TokenBucketTable<?> table) {
+            return Math.min(table.burst, tokens + (now - updatedNanos) * table.tokensPerNano);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.equipmentpredictor.logging;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the logging.hot-path settings to every SampledLog and logs per-site summaries of what they suppressed
+ */
+@Component
+@Slf4j
+public class HotPathLogSummarizer {
+
+    private final long periodSeconds;
+
+    public HotPathLogSummarizer(@Value("${logging.hot-path.sample-every:100}") int sampleEvery,
+            @Value("${logging.hot-path.max-per-second:10}") int maxPerSecond,
+            @Value("${logging.hot-path.summary-ms:60000}") long summaryMs) {
+        SampledLog.configure(sampleEvery, maxPerSecond);
+        this.periodSeconds = TimeUnit.MILLISECONDS.toSeconds(summaryMs);
+        log.info("Hot-path logs sampled 1 in {}, at most {}/s per call site", sampleEvery, maxPerSecond);
+    }
+
+    @Scheduled(fixedDelayString = "${logging.hot-path.summary-ms:60000}", initialDelayString = "${logging.hot-path.summary-ms:60000}")
+    public void summarize() {
+        for (SampledLog site : SampledLog.sites()) {
+            site.summarize(periodSeconds);
+        }
+    }
+}
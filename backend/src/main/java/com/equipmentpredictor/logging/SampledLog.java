@@ -0,0 +1,102 @@
+package com.equipmentpredictor.logging;
+
+import org.slf4j.Logger;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Log budget of one hot-path call site
+ * Guard the log statement with allow(): the first call and every
+ * sample-every'th after it are let through, at most max-per-second of them,
+ * so the cost of suppressed lines is one atomic increment (arguments are
+ * not even built). Calls and logged lines are counted per site and
+ * HotPathLogSummarizer logs what was suppressed once per period.
+ * Settings are shared by all sites (logging.hot-path.*).
+ *
+ *   private static final SampledLog READINGS = SampledLog.of(log, "sensor-log.added");
+ *   if (READINGS.allow()) { log.info(...); }
+ */
+public final class SampledLog {
+
+    private static final Map<String, SampledLog> SITES = new ConcurrentHashMap<>();
+
+    private static volatile int sampleEvery = 100;
+    private static volatile int maxPerSecond = 10;
+
+    private final Logger logger;
+    private final String site;
+    private final LongSupplier clock;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong logged = new AtomicLong();
+
+    // Guarded by this; only sampled calls get here
+    private long windowSecond = Long.MIN_VALUE;
+    private int windowCount;
+
+    SampledLog(Logger logger, String site, LongSupplier clock) {
+        this.logger = logger;
+        this.site = site;
+        this.clock = clock;
+    }
+
+    /**
+     * The budget of the named call site, created on first use
+     */
+    public static SampledLog of(Logger logger, String site) {
+        return SITES.computeIfAbsent(site, name -> new SampledLog(logger, name, System::nanoTime));
+    }
+
+    static void configure(int sampleEvery, int maxPerSecond) {
+        if (sampleEvery < 1 || maxPerSecond < 1) {
+            throw new IllegalArgumentException("Hot-path log sampling and rate must be at least 1");
+        }
+        SampledLog.sampleEvery = sampleEvery;
+        SampledLog.maxPerSecond = maxPerSecond;
+    }
+
+    static Collection<SampledLog> sites() {
+        return SITES.values();
+    }
+
+    /**
+     * Whether this call should log at INFO; counts the call either way
+     */
+    public boolean allow() {
+        if (!logger.isInfoEnabled()) {
+            return false;
+        }
+        if ((calls.getAndIncrement() % sampleEvery) != 0) {
+            return false;
+        }
+        long second = TimeUnit.NANOSECONDS.toSeconds(clock.getAsLong());
+        synchronized (this) {
+            if (second != windowSecond) {
+                windowSecond = second;
+                windowCount = 0;
+            }
+            if (windowCount >= maxPerSecond) {
+                return false;
+            }
+            windowCount++;
+        }
+        logged.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Log and reset the counts of the period if anything was suppressed
+     */
+    void summarize(long periodSeconds) {
+        long periodLogged = logged.getAndSet(0);
+        long periodCalls = calls.getAndSet(0);
+        if (periodCalls > periodLogged) {
+            logger.info("{}: {} calls in the last {} s, {} logged, {} suppressed",
+                    site, periodCalls, periodSeconds, periodLogged, periodCalls - periodLogged);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.equipmentpredictor.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "ingest_wal_checkpoint")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestWalCheckpoint {
+
+    @Id
+    @Column(name = "wal_id", length = 64)
+    private String walId;
+
+    @Column(name = "applied_lsn", nullable = false)
+    private Long appliedLsn;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
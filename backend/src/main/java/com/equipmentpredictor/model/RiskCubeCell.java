@@ -0,0 +1,68 @@
+package com.equipmentpredictor.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Time spent in each risk level and events recorded in one hour for one equipment type and location (risk_cube_hourly)
+ * Maintained by the database (V9__risk_cube_level_time.sql) and RiskCubeService; never written through JPA.
+ */
+@Entity
+@Table(name = "risk_cube_hourly")
+@IdClass(RiskCubeCell.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RiskCubeCell {
+
+    @Id
+    @Column(nullable = false)
+    private LocalDateTime hour;
+
+    @Id
+    @Column(name = "equipment_type", nullable = false, length = 100)
+    private String equipmentType;
+
+    // '' for equipment without a location
+    @Id
+    @Column(nullable = false)
+    private String location;
+
+    @Column(name = "low_seconds", nullable = false, precision = 20, scale = 6)
+    private BigDecimal lowSeconds;
+
+    @Column(name = "medium_seconds", nullable = false, precision = 20, scale = 6)
+    private BigDecimal mediumSeconds;
+
+    @Column(name = "high_seconds", nullable = false, precision = 20, scale = 6)
+    private BigDecimal highSeconds;
+
+    @Column(name = "critical_seconds", nullable = false, precision = 20, scale = 6)
+    private BigDecimal criticalSeconds;
+
+    // Score times seconds at that score
+    @Column(name = "score_seconds", nullable = false, precision = 24, scale = 8)
+    private BigDecimal scoreSeconds;
+
+    @Column(name = "event_count", nullable = false)
+    private long eventCount;
+
+    // Null when no event was recorded in the hour
+    @Column(name = "event_score_max", precision = 5, scale = 2)
+    private BigDecimal eventScoreMax;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDateTime hour;
+        private String equipmentType;
+        private String location;
+    }
+}
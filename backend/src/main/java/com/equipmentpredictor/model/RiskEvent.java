@@ -32,8 +32,20 @@ public class RiskEvent {
     @Enumerated(EnumType.STRING)
     private RiskLevel riskLevel;
 
-    @Column(columnDefinition = "TEXT")
-    private String reason;
+    // Primary risk factor and its reading; the reason text is rendered on read
+    @Column(name = "reason_factor")
+    @Convert(converter = RiskFactor.Converter.class)
+    private RiskFactor reasonFactor;
+
+    @Column(name = "reason_value", precision = 5, scale = 2)
+    private BigDecimal reasonValue;
+
+    /**
+     * Human-readable reason, e.g. "Primary risk factor: Temperature (120.0°C)"
+     */
+    public String describeReason() {
+        return reasonFactor != null ? reasonFactor.describe(reasonValue) : null;
+    }
 
     public enum RiskLevel {
         LOW,
@@ -41,4 +53,56 @@ public class RiskEvent {
         HIGH,
         CRITICAL
     }
+
+    /**
+     * Sensor channel that contributed most to a risk score
+     * Stored as a stable SMALLINT code, not the ordinal.
+     */
+    public enum RiskFactor {
+        TEMPERATURE((short) 1, "Temperature", "°C"),
+        VIBRATION((short) 2, "Vibration", " mm/s"),
+        LOAD((short) 3, "Load", "%");
+
+        private final short code;
+        private final String label;
+        private final String unit;
+
+        RiskFactor(short code, String label, String unit) {
+            this.code = code;
+            this.label = label;
+            this.unit = unit;
+        }
+
+        public short getCode() {
+            return code;
+        }
+
+        public String describe(BigDecimal value) {
+            return String.format("Primary risk factor: %s (%.1f%s)",
+                    label, value != null ? value : BigDecimal.ZERO, unit);
+        }
+
+        public static RiskFactor fromCode(short code) {
+            for (RiskFactor factor : values()) {
+                if (factor.code == code) {
+                    return factor;
+                }
+            }
+            throw new IllegalArgumentException("Unknown risk factor code: " + code);
+        }
+
+        @jakarta.persistence.Converter
+        public static class Converter implements AttributeConverter<RiskFactor, Short> {
+
+            @Override
+            public Short convertToDatabaseColumn(RiskFactor factor) {
+                return factor != null ? factor.code : null;
+            }
+
+            @Override
+            public RiskFactor convertToEntityAttribute(Short code) {
+                return code != null ? fromCode(code) : null;
+            }
+        }
+    }
 }
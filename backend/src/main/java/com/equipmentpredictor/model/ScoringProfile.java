@@ -0,0 +1,69 @@
+package com.equipmentpredictor.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "scoring_profile")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScoringProfile {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "equipment_type", nullable = false, unique = true, length = 100)
+    private String equipmentType;
+
+    @Column(name = "temperature_min", nullable = false, precision = 7, scale = 2)
+    private BigDecimal temperatureMin;
+
+    @Column(name = "temperature_max", nullable = false, precision = 7, scale = 2)
+    private BigDecimal temperatureMax;
+
+    @Column(name = "vibration_min", nullable = false, precision = 7, scale = 2)
+    private BigDecimal vibrationMin;
+
+    @Column(name = "vibration_max", nullable = false, precision = 7, scale = 2)
+    private BigDecimal vibrationMax;
+
+    @Column(name = "load_min", nullable = false, precision = 7, scale = 2)
+    private BigDecimal loadMin;
+
+    @Column(name = "load_max", nullable = false, precision = 7, scale = 2)
+    private BigDecimal loadMax;
+
+    @Column(name = "weight_temperature", nullable = false, precision = 4, scale = 3)
+    private BigDecimal weightTemperature;
+
+    @Column(name = "weight_vibration", nullable = false, precision = 4, scale = 3)
+    private BigDecimal weightVibration;
+
+    @Column(name = "weight_load", nullable = false, precision = 4, scale = 3)
+    private BigDecimal weightLoad;
+
+    @Column(name = "threshold_medium", nullable = false, precision = 5, scale = 2)
+    private BigDecimal thresholdMedium;
+
+    @Column(name = "threshold_high", nullable = false, precision = 5, scale = 2)
+    private BigDecimal thresholdHigh;
+
+    @Column(name = "threshold_critical", nullable = false, precision = 5, scale = 2)
+    private BigDecimal thresholdCritical;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+}
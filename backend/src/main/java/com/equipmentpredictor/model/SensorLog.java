@@ -6,8 +6,14 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 
+/**
+ * One sensor reading
+ * Values are stored as hundredths in SMALLINT columns (see V5 migration) and
+ * scored as such; convert with the *Value() accessors and toHundredths() at the API edge.
+ */
 @Entity
 @Table(name = "sensor_log")
 @Data
@@ -20,28 +26,64 @@ public class SensorLog {
     private Long id;
 
     @Column(name = "equipment_id", nullable = false)
-    private Long equipmentId;
+    private long equipmentId;
 
     @Column(nullable = false)
     private LocalDateTime timestamp;
 
-    @Column(nullable = false, precision = 5, scale = 2)
-    private BigDecimal temperature;
+    // Hundredths of °C
+    @Column(name = "temperature", nullable = false)
+    private short temperatureHundredths;
 
-    @Column(nullable = false, precision = 5, scale = 2)
-    private BigDecimal vibration;
+    // Hundredths of mm/s
+    @Column(name = "vibration", nullable = false)
+    private short vibrationHundredths;
 
-    @Column(name = "load_percentage", nullable = false, precision = 5, scale = 2)
-    private BigDecimal loadPercentage;
-
-    @Column(name = "created_at", nullable = false, updatable = false)
-    private LocalDateTime createdAt;
+    // Hundredths of a percent
+    @Column(name = "load_percentage", nullable = false)
+    private short loadHundredths;
 
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
         if (timestamp == null) {
             timestamp = LocalDateTime.now();
         }
     }
+
+    public BigDecimal temperatureValue() {
+        return BigDecimal.valueOf(temperatureHundredths, 2);
+    }
+
+    public BigDecimal vibrationValue() {
+        return BigDecimal.valueOf(vibrationHundredths, 2);
+    }
+
+    public BigDecimal loadValue() {
+        return BigDecimal.valueOf(loadHundredths, 2);
+    }
+
+    /**
+     * Scale a reading to hundredths, rounding half up
+     * Throws IllegalArgumentException when it does not fit the SMALLINT columns (-327.68 to 327.67).
+     */
+    public static short toHundredths(BigDecimal value) {
+        try {
+            return value.movePointRight(2).setScale(0, RoundingMode.HALF_UP).shortValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Reading " + value.toPlainString()
+                    + " is out of range (-327.68 to 327.67)");
+        }
+    }
+
+    /**
+     * Narrow a reading already in hundredths
+     * Throws IllegalArgumentException as toHundredths(BigDecimal) does.
+     */
+    public static short toHundredths(int hundredths) {
+        if (hundredths < Short.MIN_VALUE || hundredths > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Reading " + BigDecimal.valueOf(hundredths, 2).toPlainString()
+                    + " is out of range (-327.68 to 327.67)");
+        }
+        return (short) hundredths;
+    }
 }
@@ -1,15 +1,55 @@
 package com.equipmentpredictor.repository;
 
 import com.equipmentpredictor.model.Equipment;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface EquipmentRepository extends JpaRepository<Equipment, Long> {
     
     List<Equipment> findByType(String type);
-    
-    List<Equipment> findByNameContainingIgnoreCase(String name);
+
+    // List views select the summary columns only; notes (TEXT) is never read
+    String SELECT_SUMMARIES = "SELECT e.id AS id, e.name AS name, e.type AS type, e.location AS location, " +
+            "e.installDate AS installDate FROM Equipment e " +
+            "WHERE (:type IS NULL OR e.type = :type) AND (:location IS NULL OR e.location = :location) ";
+
+    /**
+     * Keyset page: equipment with id above afterId, by id
+     */
+    @Query(SELECT_SUMMARIES + "AND e.id > :afterId ORDER BY e.id")
+    List<EquipmentSummary> findSummaries(
+            @Param("type") String type,
+            @Param("location") String location,
+            @Param("afterId") long afterId,
+            Pageable pageable);
+
+    /**
+     * All matching equipment by id, read in fetch-size chunks; needs an open transaction
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(SELECT_SUMMARIES + "ORDER BY e.id")
+    Stream<EquipmentSummary> streamSummaries(@Param("type") String type, @Param("location") String location);
+
+    interface EquipmentSummary {
+        Long getId();
+
+        String getName();
+
+        String getType();
+
+        String getLocation();
+
+        LocalDate getInstallDate();
+    }
 }
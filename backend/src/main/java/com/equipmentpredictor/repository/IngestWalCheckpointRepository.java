@@ -0,0 +1,9 @@
+package com.equipmentpredictor.repository;
+
+import com.equipmentpredictor.model.IngestWalCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IngestWalCheckpointRepository extends JpaRepository<IngestWalCheckpoint, String> {
+}
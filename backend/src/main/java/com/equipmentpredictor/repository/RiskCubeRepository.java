@@ -0,0 +1,96 @@
+package com.equipmentpredictor.repository;
+
+import com.equipmentpredictor.model.RiskCubeCell;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RiskCubeRepository extends JpaRepository<RiskCubeCell, RiskCubeCell.Key> {
+
+    String CELLS_IN_RANGE = "hour >= :from AND hour < :to " +
+            "AND (CAST(:type AS varchar) IS NULL OR equipment_type = :type) " +
+            "AND (CAST(:location AS varchar) IS NULL OR location = :location)";
+
+    // Folded cells plus the deltas not folded yet; a dimension left out of the grouping is NULL
+    String AGGREGATE = "SELECT CASE CAST(:bucket AS varchar) WHEN 'hour' THEN c.hour " +
+            "WHEN 'day' THEN date_trunc('day', c.hour) END AS \"bucket\", " +
+            "CASE WHEN CAST(:byType AS boolean) THEN c.equipment_type END AS \"equipmentType\", " +
+            "CASE WHEN CAST(:byLocation AS boolean) THEN c.location END AS \"location\", " +
+            "sum(c.low_seconds) AS \"lowSeconds\", sum(c.medium_seconds) AS \"mediumSeconds\", " +
+            "sum(c.high_seconds) AS \"highSeconds\", sum(c.critical_seconds) AS \"criticalSeconds\", " +
+            "sum(c.score_seconds) AS \"scoreSeconds\", CAST(sum(c.event_count) AS bigint) AS \"eventCount\", " +
+            "max(c.event_score_max) AS \"eventScoreMax\" " +
+            "FROM (SELECT * FROM risk_cube_hourly WHERE " + CELLS_IN_RANGE + " " +
+            "UNION ALL SELECT * FROM risk_cube_delta WHERE " + CELLS_IN_RANGE + ") c " +
+            "GROUP BY 1, 2, 3 ORDER BY 1, 2, 3";
+
+    /**
+     * Seconds in each level, score-seconds and events of the hours in [from, to), optionally filtered by type and location,
+     * per `bucket` (hour, day, or anything else for one total) and per type and location when asked for
+     */
+    @Query(value = AGGREGATE, nativeQuery = true)
+    List<CubeRow> aggregate(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("type") String type,
+            @Param("location") String location,
+            @Param("bucket") String bucket,
+            @Param("byType") boolean byType,
+            @Param("byLocation") boolean byLocation);
+
+    // Deleted and upserted in one statement: concurrent folds (other nodes) skip the rows one has taken
+    String FOLD_DELTAS = "WITH moved AS (DELETE FROM risk_cube_delta RETURNING *) " +
+            "INSERT INTO risk_cube_hourly AS c " +
+            "SELECT hour, equipment_type, location, sum(low_seconds), sum(medium_seconds), sum(high_seconds), " +
+            "sum(critical_seconds), sum(score_seconds), sum(event_count), max(event_score_max) " +
+            "FROM moved GROUP BY hour, equipment_type, location " +
+            "ORDER BY hour, equipment_type, location " +
+            "ON CONFLICT (hour, equipment_type, location) DO UPDATE SET " +
+            "low_seconds = c.low_seconds + EXCLUDED.low_seconds, " +
+            "medium_seconds = c.medium_seconds + EXCLUDED.medium_seconds, " +
+            "high_seconds = c.high_seconds + EXCLUDED.high_seconds, " +
+            "critical_seconds = c.critical_seconds + EXCLUDED.critical_seconds, " +
+            "score_seconds = c.score_seconds + EXCLUDED.score_seconds, " +
+            "event_count = c.event_count + EXCLUDED.event_count, " +
+            "event_score_max = GREATEST(c.event_score_max, EXCLUDED.event_score_max)";
+
+    /**
+     * Move the deltas written by the risk_event trigger into the hourly cells; returns the cells updated
+     */
+    @Transactional
+    @Modifying
+    @Query(value = FOLD_DELTAS, nativeQuery = true)
+    int foldDeltas();
+
+    interface CubeRow {
+        LocalDateTime getBucket();
+
+        String getEquipmentType();
+
+        String getLocation();
+
+        BigDecimal getLowSeconds();
+
+        BigDecimal getMediumSeconds();
+
+        BigDecimal getHighSeconds();
+
+        BigDecimal getCriticalSeconds();
+
+        // Score times seconds at that score; over the total seconds, the time-weighted average score
+        BigDecimal getScoreSeconds();
+
+        long getEventCount();
+
+        // Null when no event was recorded in the bucket
+        BigDecimal getEventScoreMax();
+    }
+}
@@ -1,12 +1,14 @@
 package com.equipmentpredictor.repository;
 
 import com.equipmentpredictor.model.RiskEvent;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,13 +21,37 @@ public interface RiskEventRepository extends JpaRepository<RiskEvent, Long> {
 
         List<RiskEvent> findByRiskLevelOrderByTimestampDesc(RiskEvent.RiskLevel riskLevel, Pageable pageable);
 
-        @Query("SELECT r FROM RiskEvent r WHERE r.riskLevel IN :levels ORDER BY r.timestamp DESC")
-        List<RiskEvent> findByRiskLevelInOrderByTimestampDesc(
+        /**
+         * Newest events of any of the given levels
+         * Reads each level's newest page from idx_risk_event_level_timestamp and merges them;
+         * a single IN query cannot use that index for ordering and sorts every matching event.
+         */
+        default List<RiskEvent> findByRiskLevelInOrderByTimestampDesc(
+                        List<RiskEvent.RiskLevel> levels,
+                        Pageable pageable) {
+                Pageable perLevel = PageRequest.of(0, (int) (pageable.getOffset() + pageable.getPageSize()));
+                return levels.stream()
+                                .distinct()
+                                .flatMap(level -> findByRiskLevelOrderByTimestampDesc(level, perLevel).stream())
+                                .sorted(Comparator.comparing(RiskEvent::getTimestamp).reversed())
+                                .skip(pageable.getOffset())
+                                .limit(pageable.getPageSize())
+                                .toList();
+        }
+
+        @Query("SELECT r FROM RiskEvent r WHERE r.reasonFactor = :factor AND r.riskLevel IN :levels " +
+                        "ORDER BY r.timestamp DESC")
+        List<RiskEvent> findByReasonFactorAndRiskLevelInOrderByTimestampDesc(
+                        @Param("factor") RiskEvent.RiskFactor factor,
                         @Param("levels") List<RiskEvent.RiskLevel> levels,
                         Pageable pageable);
 
-        @Query(value = "SELECT COUNT(DISTINCT equipment_id) FROM risk_event r1 " +
-                        "WHERE r1.risk_level = :#{#level.name()} " +
-                        "AND r1.timestamp = (SELECT MAX(r2.timestamp) FROM risk_event r2 WHERE r2.equipment_id = r1.equipment_id)", nativeQuery = true)
+        // One index probe per equipment for its newest event, instead of checking every event of the level
+        String COUNT_EQUIPMENT_BY_LATEST_RISK_LEVEL = "SELECT COUNT(*) FROM equipment e " +
+                        "CROSS JOIN LATERAL (SELECT r.risk_level FROM risk_event r WHERE r.equipment_id = e.id " +
+                        "ORDER BY r.timestamp DESC LIMIT 1) latest " +
+                        "WHERE latest.risk_level = :#{#level.name()}";
+
+        @Query(value = COUNT_EQUIPMENT_BY_LATEST_RISK_LEVEL, nativeQuery = true)
         long countEquipmentByLatestRiskLevel(@Param("level") RiskEvent.RiskLevel level);
 }
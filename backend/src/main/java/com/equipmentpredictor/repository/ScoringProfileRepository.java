@@ -0,0 +1,13 @@
+package com.equipmentpredictor.repository;
+
+import com.equipmentpredictor.model.ScoringProfile;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ScoringProfileRepository extends JpaRepository<ScoringProfile, Long> {
+
+    Optional<ScoringProfile> findByEquipmentType(String equipmentType);
+}
@@ -1,15 +1,21 @@
 package com.equipmentpredictor.repository;
 
 import com.equipmentpredictor.model.SensorLog;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface SensorLogRepository extends JpaRepository<SensorLog, Long> {
@@ -29,6 +35,190 @@ public interface SensorLogRepository extends JpaRepository<SensorLog, Long> {
     
     Optional<SensorLog> findFirstByEquipmentIdOrderByTimestampDesc(Long equipmentId);
     
-    @Query("SELECT COUNT(s) FROM SensorLog s WHERE s.equipmentId = :equipmentId")
+    Optional<SensorLog> findFirstByEquipmentIdOrderByTimestampAsc(Long equipmentId);
+    
+    @Query("SELECT s FROM SensorLog s WHERE s.equipmentId = :equipmentId " +
+           "AND s.timestamp >= :from AND s.timestamp < :to ORDER BY s.timestamp ASC, s.id ASC")
+    List<SensorLog> findForArchive(
+        @Param("equipmentId") Long equipmentId,
+        @Param("from") LocalDateTime from,
+        @Param("to") LocalDateTime to
+    );
+    
+    /**
+     * Readings in a range, oldest first, for streaming
+     * Rows are built with a constructor expression, so they are not managed
+     * and the persistence context does not grow with the range.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.equipmentpredictor.model.SensorLog(s.id, s.equipmentId, s.timestamp, " +
+           "s.temperatureHundredths, s.vibrationHundredths, s.loadHundredths) FROM SensorLog s " +
+           "WHERE s.equipmentId = :equipmentId AND s.timestamp BETWEEN :from AND :to " +
+           "ORDER BY s.timestamp ASC, s.id ASC")
+    Stream<SensorLog> streamByEquipmentIdAndTimestampBetween(
+        @Param("equipmentId") Long equipmentId,
+        @Param("from") LocalDateTime from,
+        @Param("to") LocalDateTime to
+    );
+    
+    // One statement per batch; EXISTS skips readings of unknown equipment instead of failing the batch
+    String INSERT_IGNORING_DUPLICATES = "INSERT INTO sensor_log " +
+           "(equipment_id, timestamp, temperature, vibration, load_percentage) " +
+           "SELECT r.equipment_id, TIMESTAMP 'epoch' + r.micros * INTERVAL '1 microsecond', " +
+           "r.temperature, r.vibration, r.load_percentage " +
+           "FROM unnest(CAST(:equipmentIds AS bigint[]), CAST(:timestamps AS bigint[]), " +
+           "CAST(:temperatures AS smallint[]), CAST(:vibrations AS smallint[]), CAST(:loads AS smallint[])) " +
+           "WITH ORDINALITY AS r(equipment_id, micros, temperature, vibration, load_percentage, n) " +
+           "WHERE EXISTS (SELECT 1 FROM equipment e WHERE e.id = r.equipment_id) " +
+           "ORDER BY r.n " +
+           "ON CONFLICT (equipment_id, timestamp) DO NOTHING " +
+           "RETURNING id, equipment_id, timestamp, temperature, vibration, load_percentage";
+    
+    /**
+     * Insert a batch of readings and return the rows inserted, in batch order
+     * A reading whose (equipment_id, timestamp) is already stored or appears
+     * earlier in the batch is skipped, and so is one for equipment that does
+     * not exist. Timestamps are epoch microseconds.
+     */
+    @Transactional
+    @Query(value = INSERT_IGNORING_DUPLICATES, nativeQuery = true)
+    List<SensorLog> insertIgnoringDuplicates(
+        @Param("equipmentIds") long[] equipmentIds,
+        @Param("timestamps") long[] timestampMicros,
+        @Param("temperatures") short[] temperatures,
+        @Param("vibrations") short[] vibrations,
+        @Param("loads") short[] loads
+    );
+    
+    // Same scoring and RiskEventPolicy rules as RiskPredictionService, in exact numeric; levels are ranked 0-3.
+    // Data-modifying CTEs run once whether or not the final SELECT reads them, and only see the rows
+    // of the statement's snapshot, so last_event is the event before this reading.
+    String INSERT_AND_EVALUATE = """
+            WITH e AS (
+                SELECT id, name, type FROM equipment WHERE id = :equipmentId
+            ), inserted AS (
+                INSERT INTO sensor_log (equipment_id, timestamp, temperature, vibration, load_percentage)
+                SELECT e.id, TIMESTAMP 'epoch' + CAST(:micros AS bigint) * INTERVAL '1 microsecond',
+                       CAST(:temperature AS smallint), CAST(:vibration AS smallint), CAST(:load AS smallint)
+                FROM e
+                ON CONFLICT (equipment_id, timestamp) DO NOTHING
+                RETURNING id, equipment_id, timestamp,
+                          temperature * 0.01 AS t, vibration * 0.01 AS v, load_percentage * 0.01 AS l
+            ), profile AS (
+                SELECT p.* FROM e, jsonb_to_recordset(CAST(:profiles AS jsonb)) AS p(type varchar,
+                    temperature_min numeric, temperature_max numeric, temperature_weight numeric,
+                    vibration_min numeric, vibration_max numeric, vibration_weight numeric,
+                    load_min numeric, load_max numeric, load_weight numeric,
+                    threshold_medium numeric, threshold_high numeric, threshold_critical numeric)
+                WHERE p.type = e.type OR p.type IS NULL
+                ORDER BY p.type IS NULL
+                LIMIT 1
+            ), weighted AS (
+                SELECT i.id, i.equipment_id, i.timestamp, i.t, i.v, i.l,
+                       p.threshold_medium, p.threshold_high, p.threshold_critical,
+                       CASE WHEN i.t <= p.temperature_min THEN 0 WHEN i.t >= p.temperature_max THEN 100
+                            ELSE round((i.t - p.temperature_min) * 100 / (p.temperature_max - p.temperature_min), 2)
+                       END * p.temperature_weight AS wt,
+                       CASE WHEN i.v <= p.vibration_min THEN 0 WHEN i.v >= p.vibration_max THEN 100
+                            ELSE round((i.v - p.vibration_min) * 100 / (p.vibration_max - p.vibration_min), 2)
+                       END * p.vibration_weight AS wv,
+                       CASE WHEN i.l <= p.load_min THEN 0 WHEN i.l >= p.load_max THEN 100
+                            ELSE round((i.l - p.load_min) * 100 / (p.load_max - p.load_min), 2)
+                       END * p.load_weight AS wl
+                FROM inserted i, profile p
+            ), scored AS (
+                SELECT w.*, round(w.wt + w.wv + w.wl, 2) AS score FROM weighted w
+            ), levelled AS (
+                SELECT s.*,
+                       CASE WHEN s.score >= s.threshold_critical THEN 3 WHEN s.score >= s.threshold_high THEN 2
+                            WHEN s.score >= s.threshold_medium THEN 1 ELSE 0 END AS level,
+                       CASE WHEN s.wt >= s.wv AND s.wt >= s.wl THEN 1 WHEN s.wv >= s.wl THEN 2 ELSE 3 END AS factor
+                FROM scored s
+            ), last_event AS (
+                SELECT r.timestamp, r.risk_score,
+                       array_position(ARRAY['LOW', 'MEDIUM', 'HIGH', 'CRITICAL'], CAST(r.risk_level AS text)) - 1 AS level
+                FROM risk_event r
+                WHERE r.equipment_id = :equipmentId
+                ORDER BY r.timestamp DESC
+                LIMIT 1
+            ), held AS (
+                SELECT l.*, le.level AS last_level, le.risk_score AS last_score, le.timestamp AS last_timestamp,
+                       CASE WHEN l.level < coalesce(le.level, 0)
+                                 AND l.score >= CASE le.level WHEN 3 THEN l.threshold_critical
+                                                              WHEN 2 THEN l.threshold_high
+                                                              ELSE l.threshold_medium END - :hysteresis
+                            THEN le.level ELSE l.level END AS held_level
+                FROM levelled l LEFT JOIN last_event le ON true
+            ), decided AS (
+                SELECT h.*,
+                       CASE WHEN :policy = 'EVERY' THEN
+                                CASE WHEN h.level > 0 OR coalesce(h.last_level, 0) > 0 THEN h.level END
+                            WHEN h.held_level <> coalesce(h.last_level, 0) THEN h.held_level
+                            WHEN h.held_level = 0 OR h.last_level IS NULL THEN NULL
+                            WHEN abs(h.score - h.last_score) >= :scoreDelta THEN h.held_level
+                            WHEN h.timestamp >= h.last_timestamp + CAST(:heartbeatMicros AS bigint) * INTERVAL '1 microsecond'
+                                THEN h.held_level
+                       END AS event_level,
+                       CASE h.factor WHEN 1 THEN h.t WHEN 2 THEN h.v ELSE h.l END AS factor_value
+                FROM held h
+            ), event AS (
+                INSERT INTO risk_event (equipment_id, timestamp, risk_score, risk_level, reason_factor, reason_value)
+                SELECT d.equipment_id, d.timestamp, d.score,
+                       (ARRAY['LOW', 'MEDIUM', 'HIGH', 'CRITICAL'])[d.event_level + 1], d.factor, d.factor_value
+                FROM decided d
+                WHERE d.event_level IS NOT NULL
+            )
+            SELECT e.name AS "equipmentName", d.id AS "id", d.score AS "riskScore",
+                   (ARRAY['LOW', 'MEDIUM', 'HIGH', 'CRITICAL'])[d.level + 1] AS "riskLevel",
+                   d.factor AS "reasonFactor", d.factor_value AS "reasonValue",
+                   (ARRAY['LOW', 'MEDIUM', 'HIGH', 'CRITICAL'])[d.event_level + 1] AS "eventLevel",
+                   (ARRAY['LOW', 'MEDIUM', 'HIGH', 'CRITICAL'])[d.last_level + 1] AS "previousLevel"
+            FROM e LEFT JOIN decided d ON true
+            """;
+    
+    /**
+     * Insert one reading, score it and write its risk event if the policy asks for one, in one statement
+     * Empty when the equipment does not exist; id is null when the reading
+     * is already stored (nothing is scored or written then). `profiles` is
+     * ScoringProfileService.Snapshot.json(); the policy arguments are those
+     * of RiskEventPolicy.
+     */
+    @Transactional
+    @Query(value = INSERT_AND_EVALUATE, nativeQuery = true)
+    Optional<EvaluatedReading> insertAndEvaluate(
+        @Param("equipmentId") long equipmentId,
+        @Param("micros") long timestampMicros,
+        @Param("temperature") short temperature,
+        @Param("vibration") short vibration,
+        @Param("load") short load,
+        @Param("profiles") String profiles,
+        @Param("policy") String policy,
+        @Param("scoreDelta") BigDecimal scoreDelta,
+        @Param("heartbeatMicros") long heartbeatMicros,
+        @Param("hysteresis") BigDecimal hysteresis
+    );
+    
+    // COUNT(*) rather than COUNT(s): Hibernate counts s.id for the latter, which is not in the index
+    @Query("SELECT COUNT(*) FROM SensorLog s WHERE s.equipmentId = :equipmentId")
     long countByEquipmentId(@Param("equipmentId") Long equipmentId);
+    
+    interface EvaluatedReading {
+        Long getId();
+        
+        String getEquipmentName();
+        
+        BigDecimal getRiskScore();
+        
+        String getRiskLevel();
+        
+        Integer getReasonFactor();
+        
+        BigDecimal getReasonValue();
+        
+        // Level of the event written, null if none
+        String getEventLevel();
+        
+        // Level of the equipment's previous event, null if none
+        String getPreviousLevel();
+    }
 }
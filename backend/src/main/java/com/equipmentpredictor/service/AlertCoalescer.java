@@ -0,0 +1,116 @@
+package com.equipmentpredictor.service;
+
+import com.equipmentpredictor.dto.AlertBatchDTO;
+import com.equipmentpredictor.dto.CoalescedAlertDTO;
+import com.equipmentpredictor.dto.RiskResponseDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces alerts per equipment within a delivery window
+ * Keeps the latest and the worst alert for each equipment and sends the
+ * whole window as one frame, so frame rate stays bounded during alert storms.
+ * Subscribers of the per-alert topics still get, per equipment and window,
+ * the latest alert on /topic/alerts and on its level topic, and the worst
+ * alert on its level topic when that level differs.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AlertCoalescer {
+
+    public static final String BATCH_TOPIC = RiskBroadcastService.ALERTS_TOPIC + "/batch";
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    private final ConcurrentMap<Long, CoalescedAlertDTO> pending = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Add an alert to the current window
+     */
+    public void offer(RiskResponseDTO alert) {
+        pending.merge(alert.getEquipmentId(),
+                new CoalescedAlertDTO(alert.getEquipmentId(), alert, alert, 1),
+                AlertCoalescer::combine);
+    }
+
+    /**
+     * Send everything collected since the last flush as a single frame
+     */
+    @Scheduled(fixedDelayString = "${websocket.alerts.coalesce-window-ms:250}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<CoalescedAlertDTO> alerts = new ArrayList<>(pending.size());
+        for (Long equipmentId : pending.keySet()) {
+            CoalescedAlertDTO alert = pending.remove(equipmentId);
+            if (alert != null) {
+                alerts.add(alert);
+            }
+        }
+        if (alerts.isEmpty()) {
+            return;
+        }
+
+        AlertBatchDTO batch = AlertBatchDTO.builder()
+                .sequence(sequence.incrementAndGet())
+                .timestamp(LocalDateTime.now())
+                .alerts(alerts)
+                .build();
+
+        try {
+            messagingTemplate.convertAndSend(BATCH_TOPIC, batch);
+            for (CoalescedAlertDTO alert : alerts) {
+                sendToAlertTopics(alert);
+            }
+            log.debug("Broadcasted alert batch {} with {} equipment", batch.getSequence(), alerts.size());
+        } catch (Exception e) {
+            log.error("Failed to broadcast WebSocket alert batch", e);
+        }
+    }
+
+    private void sendToAlertTopics(CoalescedAlertDTO alert) {
+        RiskResponseDTO latest = alert.getLatest();
+        RiskResponseDTO worst = alert.getWorst();
+        messagingTemplate.convertAndSend(RiskBroadcastService.ALERTS_TOPIC, latest);
+        messagingTemplate.convertAndSend(RiskBroadcastService.alertsByLevelTopic(latest.getRiskLevel()), latest);
+        if (worst.getRiskLevel() != latest.getRiskLevel()) {
+            messagingTemplate.convertAndSend(RiskBroadcastService.alertsByLevelTopic(worst.getRiskLevel()), worst);
+        }
+    }
+
+    static CoalescedAlertDTO combine(CoalescedAlertDTO current, CoalescedAlertDTO next) {
+        RiskResponseDTO latest = isAfter(next.getLatest(), current.getLatest()) ? next.getLatest() : current.getLatest();
+        RiskResponseDTO worst = isWorse(next.getWorst(), current.getWorst()) ? next.getWorst() : current.getWorst();
+        return new CoalescedAlertDTO(current.getEquipmentId(), latest, worst,
+                current.getCount() + next.getCount());
+    }
+
+    private static boolean isAfter(RiskResponseDTO a, RiskResponseDTO b) {
+        if (a.getTimestamp() == null || b.getTimestamp() == null) {
+            return true;
+        }
+        return !a.getTimestamp().isBefore(b.getTimestamp());
+    }
+
+    private static boolean isWorse(RiskResponseDTO a, RiskResponseDTO b) {
+        int byLevel = a.getRiskLevel().compareTo(b.getRiskLevel());
+        if (byLevel != 0) {
+            return byLevel > 0;
+        }
+        return a.getRiskScore().compareTo(b.getRiskScore()) > 0;
+    }
+}
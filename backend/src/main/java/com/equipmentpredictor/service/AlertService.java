@@ -1,5 +1,6 @@
 package com.equipmentpredictor.service;
 
+import com.equipmentpredictor.datasource.MaxReplicaLag;
 import com.equipmentpredictor.dto.AlertDTO;
 import com.equipmentpredictor.dto.RiskResponseDTO;
 import com.equipmentpredictor.exception.ResourceNotFoundException;
@@ -12,6 +13,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Map;
@@ -26,13 +28,21 @@ public class AlertService {
     private final EquipmentRepository equipmentRepository;
 
     /**
-     * Get alerts filtered by risk level
+     * Get alerts filtered by risk level and, optionally, primary risk factor
      */
-    public List<AlertDTO> getAlerts(String level, Integer limit) {
+    @Transactional(readOnly = true)
+    public List<AlertDTO> getAlerts(String level, String factor, Integer limit) {
         Pageable pageable = PageRequest.of(0, limit != null ? limit : 50);
 
         List<RiskEvent> events;
-        if (level == null || level.isEmpty()) {
+        if (factor != null && !factor.isEmpty()) {
+            RiskEvent.RiskFactor riskFactor = RiskEvent.RiskFactor.valueOf(factor.toUpperCase());
+            List<RiskEvent.RiskLevel> levels = level == null || level.isEmpty()
+                    ? List.of(RiskEvent.RiskLevel.MEDIUM, RiskEvent.RiskLevel.HIGH, RiskEvent.RiskLevel.CRITICAL)
+                    : List.of(RiskEvent.RiskLevel.valueOf(level.toUpperCase()));
+            events = riskEventRepository.findByReasonFactorAndRiskLevelInOrderByTimestampDesc(
+                    riskFactor, levels, pageable);
+        } else if (level == null || level.isEmpty()) {
             // Get MEDIUM, HIGH, and CRITICAL alerts
             events = riskEventRepository.findByRiskLevelInOrderByTimestampDesc(
                     List.of(RiskEvent.RiskLevel.MEDIUM, RiskEvent.RiskLevel.HIGH, RiskEvent.RiskLevel.CRITICAL),
@@ -58,7 +68,8 @@ public class AlertService {
                             .timestamp(event.getTimestamp())
                             .riskScore(event.getRiskScore())
                             .riskLevel(event.getRiskLevel())
-                            .reason(event.getReason())
+                            .reason(event.describeReason())
+                            .reasonFactor(event.getReasonFactor())
                             .build();
                 })
                 .collect(Collectors.toList());
@@ -66,7 +77,10 @@ public class AlertService {
 
     /**
      * Get latest risk for equipment
+     * Must reflect the newest reading, so the replica is only used when nearly caught up
      */
+    @Transactional(readOnly = true)
+    @MaxReplicaLag("${datasource.replica.fresh-max-lag-ms:250}")
     public RiskResponseDTO getLatestRisk(Long equipmentId) {
         Equipment equipment = equipmentRepository.findById(equipmentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Equipment not found with id: " + equipmentId));
@@ -80,13 +94,14 @@ public class AlertService {
                 .timestamp(latestRisk.getTimestamp())
                 .riskScore(latestRisk.getRiskScore())
                 .riskLevel(latestRisk.getRiskLevel())
-                .reason(latestRisk.getReason())
+                .reason(latestRisk.describeReason())
                 .build();
     }
 
     /**
      * Get risk history for equipment
      */
+    @Transactional(readOnly = true)
     public List<RiskResponseDTO> getRiskHistory(Long equipmentId, Integer limit) {
         Equipment equipment = equipmentRepository.findById(equipmentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Equipment not found with id: " + equipmentId));
@@ -101,7 +116,7 @@ public class AlertService {
                         .timestamp(event.getTimestamp())
                         .riskScore(event.getRiskScore())
                         .riskLevel(event.getRiskLevel())
-                        .reason(event.getReason())
+                        .reason(event.describeReason())
                         .build())
                 .collect(Collectors.toList());
     }
@@ -109,6 +124,7 @@ public class AlertService {
     /**
      * Get dashboard statistics
      */
+    @Transactional(readOnly = true)
     public Map<String, Object> getDashboardStats() {
         List<Equipment> allEquipment = equipmentRepository.findAll();
         long totalEquipment = allEquipment.size();
@@ -0,0 +1,379 @@
+package com.equipmentpredictor.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory n-gram index over equipment name, type and location
+ *
+ * Entries are split into words (letter and digit runs). Every distinct word
+ * keeps the ordinals of the entries containing it, and words are indexed by
+ * their trigrams, so n-gram work is proportional to the vocabulary rather than
+ * the fleet. Results are ranked in tiers, each filled before the next is
+ * searched, and the search stops once the limit is reached:
+ *   1. name starts with the query, in name order (sorted name map)
+ *   2. name, type or location contains the query: entries of the words that
+ *      contain the query's most selective word (fewest entries), merged in
+ *      ordinal order and verified
+ *   3. fuzzy: query words are matched to vocabulary words by trigram similarity
+ *      (pg_trgm style, at least 0.3), and entries are scored by the sum of their
+ *      best similarity per query word. Candidates come from the most selective
+ *      query word, closest words first, up to MAX_FUZZY_CANDIDATES.
+ * Queries shorter than three characters only use tier 1.
+ *
+ * Entries get increasing ordinals, so postings stay sorted by appending. A
+ * removed or replaced entry leaves a dead ordinal in the postings, and unused
+ * words stay in the vocabulary, until the owner rebuilds the index.
+ */
+final class EquipmentSearchIndex {
+
+    // pg_trgm's default similarity threshold
+    private static final double MIN_SIMILARITY = 0.3;
+    private static final int MAX_FUZZY_CANDIDATES = 1000;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Per ordinal; id 0 marks a removed entry
+    private long[] ids = new long[1024];
+    private String[] texts = new String[1024];
+    private int size;
+
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    // lowercase name + '\0' + ordinal -> ordinal
+    private final TreeMap<String, Integer> names = new TreeMap<>();
+    private final Map<String, Word> vocabulary = new HashMap<>();
+    private final List<Word> words = new ArrayList<>();
+    // padded trigram -> ids of the words containing it
+    private final Map<Long, IntList> wordsByTrigram = new HashMap<>();
+
+    /**
+     * Add or replace the entry for an equipment id
+     */
+    void put(long id, String name, String type, String location) {
+        String lowerName = normalize(name);
+        String text = lowerName + '\n' + normalize(type) + '\n' + normalize(location);
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                texts = Arrays.copyOf(texts, size * 2);
+            }
+            int ordinal = size++;
+            ids[ordinal] = id;
+            texts[ordinal] = text;
+            ordinals.put(id, ordinal);
+            names.put(lowerName + '\0' + ordinal, ordinal);
+            for (String word : words(text)) {
+                vocabulary.computeIfAbsent(word, this::newWord).entries.addOnce(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the best matches, best first, at most limit
+     */
+    List<Long> search(String query, int limit) {
+        String q = normalize(query);
+        Set<Integer> found = new LinkedHashSet<>();
+        lock.readLock().lock();
+        try {
+            for (int ordinal : names.subMap(q, true, q + Character.MAX_VALUE, true).values()) {
+                if (found.size() == limit) {
+                    break;
+                }
+                found.add(ordinal);
+            }
+            if (q.length() >= 3 && found.size() < limit) {
+                containing(q, found, limit);
+            }
+            if (q.length() >= 3 && found.size() < limit) {
+                similar(q, found, limit);
+            }
+            List<Long> result = new ArrayList<>(found.size());
+            for (int ordinal : found) {
+                result.add(ids[ordinal]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void containing(String q, Set<Integer> found, int limit) {
+        // Entries of the words containing the most selective query word
+        List<Word> selective = null;
+        long selectiveEntries = Long.MAX_VALUE;
+        for (String queryWord : words(q)) {
+            if (queryWord.length() < 3) {
+                continue;
+            }
+            List<Word> containing = wordsContaining(queryWord);
+            long entries = containing.stream().mapToLong(word -> word.entries.size).sum();
+            if (entries < selectiveEntries) {
+                selective = containing;
+                selectiveEntries = entries;
+            }
+        }
+        if (selective == null) {
+            return;
+        }
+
+        PriorityQueue<Cursor> merge = new PriorityQueue<>(Comparator.comparingInt(Cursor::ordinal));
+        for (Word word : selective) {
+            merge.add(new Cursor(word.entries));
+        }
+        int last = -1;
+        while (!merge.isEmpty() && found.size() < limit) {
+            Cursor cursor = merge.poll();
+            int ordinal = cursor.ordinal();
+            if (ordinal != last && ids[ordinal] != 0 && texts[ordinal].contains(q)) {
+                found.add(ordinal);
+            }
+            last = ordinal;
+            if (++cursor.position < cursor.list.size) {
+                merge.add(cursor);
+            }
+        }
+    }
+
+    private void similar(String q, Set<Integer> found, int limit) {
+        List<Map<String, Double>> matches = new ArrayList<>();
+        for (String queryWord : new LinkedHashSet<>(words(q))) {
+            Map<String, Double> similar = similarWords(queryWord);
+            if (!similar.isEmpty()) {
+                matches.add(similar);
+            }
+        }
+        if (matches.isEmpty()) {
+            return;
+        }
+
+        Map<String, Double> driver = matches.stream()
+                .min(Comparator.comparingLong(similar -> similar.keySet().stream()
+                        .mapToLong(word -> vocabulary.get(word).entries.size).sum()))
+                .orElseThrow();
+        Set<Integer> candidates = new LinkedHashSet<>();
+        driver.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                .map(e -> vocabulary.get(e.getKey()).entries)
+                .takeWhile(entries -> candidates.size() < MAX_FUZZY_CANDIDATES)
+                .forEach(entries -> {
+                    for (int i = 0; i < entries.size && candidates.size() < MAX_FUZZY_CANDIDATES; i++) {
+                        int ordinal = entries.values[i];
+                        if (ids[ordinal] != 0 && !found.contains(ordinal)) {
+                            candidates.add(ordinal);
+                        }
+                    }
+                });
+
+        Map<Integer, Double> scores = new HashMap<>();
+        for (int ordinal : candidates) {
+            List<String> entryWords = words(texts[ordinal]);
+            double score = 0;
+            for (Map<String, Double> similar : matches) {
+                double best = 0;
+                for (String word : entryWords) {
+                    best = Math.max(best, similar.getOrDefault(word, 0.0));
+                }
+                score += best;
+            }
+            scores.put(ordinal, score);
+        }
+        candidates.stream()
+                .sorted(Comparator.<Integer>comparingDouble(scores::get).reversed())
+                .limit(limit - found.size())
+                .forEach(found::add);
+    }
+
+    /**
+     * Vocabulary words containing a query word, found through its rarest inner trigram
+     */
+    private List<Word> wordsContaining(String queryWord) {
+        IntList rarest = null;
+        for (int i = 0; i + 3 <= queryWord.length(); i++) {
+            IntList candidates = wordsByTrigram.get(trigram(queryWord, i));
+            if (candidates == null) {
+                return List.of();
+            }
+            if (rarest == null || candidates.size < rarest.size) {
+                rarest = candidates;
+            }
+        }
+        List<Word> containing = new ArrayList<>();
+        for (int i = 0; i < rarest.size; i++) {
+            Word word = words.get(rarest.values[i]);
+            if (word.text.contains(queryWord)) {
+                containing.add(word);
+            }
+        }
+        return containing;
+    }
+
+    /**
+     * Vocabulary words with trigram similarity of at least MIN_SIMILARITY
+     */
+    private Map<String, Double> similarWords(String queryWord) {
+        Set<Long> queryTrigrams = trigrams(queryWord);
+        int[] shared = new int[words.size()];
+        IntList touched = new IntList();
+        for (long trigram : queryTrigrams) {
+            IntList containing = wordsByTrigram.get(trigram);
+            if (containing == null) {
+                continue;
+            }
+            for (int i = 0; i < containing.size; i++) {
+                if (shared[containing.values[i]]++ == 0) {
+                    touched.add(containing.values[i]);
+                }
+            }
+        }
+        Map<String, Double> similar = new HashMap<>();
+        for (int i = 0; i < touched.size; i++) {
+            Word word = words.get(touched.values[i]);
+            int common = shared[word.id];
+            double similarity = (double) common / (queryTrigrams.size() + word.trigrams - common);
+            if (similarity >= MIN_SIMILARITY) {
+                similar.put(word.text, similarity);
+            }
+        }
+        return similar;
+    }
+
+    private Word newWord(String text) {
+        Set<Long> trigrams = trigrams(text);
+        Word word = new Word(words.size(), text, trigrams.size());
+        words.add(word);
+        for (long trigram : trigrams) {
+            wordsByTrigram.computeIfAbsent(trigram, t -> new IntList()).add(word.id);
+        }
+        return word;
+    }
+
+    private void removeLocked(long id) {
+        Integer ordinal = ordinals.remove(id);
+        if (ordinal == null) {
+            return;
+        }
+        String text = texts[ordinal];
+        names.remove(text.substring(0, text.indexOf('\n')) + '\0' + ordinal);
+        ids[ordinal] = 0;
+        texts[ordinal] = null;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Letter and digit runs
+     */
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Trigrams of a word padded like pg_trgm: "  w", " wo", ..., "rd "
+     */
+    static Set<Long> trigrams(String word) {
+        String padded = "  " + word + " ";
+        Set<Long> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(trigram(padded, i));
+        }
+        return trigrams;
+    }
+
+    private static long trigram(String text, int at) {
+        return (long) text.charAt(at) << 32 | (long) text.charAt(at + 1) << 16 | text.charAt(at + 2);
+    }
+
+    private static final class Word {
+        final int id;
+        final String text;
+        final int trigrams;
+        // Ascending ordinals of the entries containing the word
+        final IntList entries = new IntList();
+
+        Word(int id, String text, int trigrams) {
+            this.id = id;
+            this.text = text;
+            this.trigrams = trigrams;
+        }
+    }
+
+    private static final class IntList {
+        int[] values = new int[2];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        // Postings are appended in ordinal order, so a repeat is always the last value
+        void addOnce(int value) {
+            if (size == 0 || values[size - 1] != value) {
+                add(value);
+            }
+        }
+    }
+
+    private static final class Cursor {
+        final IntList list;
+        int position;
+
+        Cursor(IntList list) {
+            this.list = list;
+        }
+
+        int ordinal() {
+            return list.values[position];
+        }
+    }
+}
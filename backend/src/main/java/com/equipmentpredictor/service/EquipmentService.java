@@ -1,36 +1,172 @@
 package com.equipmentpredictor.service;
 
 import com.equipmentpredictor.dto.EquipmentDTO;
+import com.equipmentpredictor.dto.EquipmentPageDTO;
+import com.equipmentpredictor.dto.EquipmentSummaryDTO;
 import com.equipmentpredictor.exception.ResourceNotFoundException;
 import com.equipmentpredictor.model.Equipment;
 import com.equipmentpredictor.repository.EquipmentRepository;
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class EquipmentService {
 
+    // Columns of EquipmentRepository.EquipmentSummary that list views can select
+    private static final List<String> SUMMARY_FIELDS = List.of("id", "name", "type", "location", "installDate");
+
     private final EquipmentRepository equipmentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int searchMaxResults;
+    private final int listMaxPageSize;
+
+    // Changes made on this node apply after commit; changes from other nodes
+    // arrive with the periodic rebuild
+    private volatile EquipmentSearchIndex searchIndex = new EquipmentSearchIndex();
+    // Local changes made while a rebuild reads the table, replayed onto the new index
+    private List<Consumer<EquipmentSearchIndex>> changesDuringRebuild;
+
+    public EquipmentService(EquipmentRepository equipmentRepository,
+            TransactionTemplate transactionTemplate,
+            ObjectMapper objectMapper,
+            @Value("${search.equipment.max-results:50}") int searchMaxResults,
+            @Value("${equipment.list.max-page-size:1000}") int listMaxPageSize) {
+        this.equipmentRepository = equipmentRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.searchMaxResults = searchMaxResults;
+        this.listMaxPageSize = listMaxPageSize;
+    }
+
+    @PostConstruct
+    public void loadSearchIndex() {
+        rebuildSearchIndex();
+    }
+
+    /**
+     * Rebuild the search index from the table, dropping dead entries
+     */
+    @Scheduled(fixedDelayString = "${search.equipment.rebuild-ms:300000}", initialDelayString = "${search.equipment.rebuild-ms:300000}")
+    public void rebuildSearchIndex() {
+        synchronized (this) {
+            changesDuringRebuild = new ArrayList<>();
+        }
+        EquipmentSearchIndex rebuilt = new EquipmentSearchIndex();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<EquipmentRepository.EquipmentSummary> entries = equipmentRepository.streamSummaries(null, null)) {
+                    entries.forEach(e -> rebuilt.put(e.getId(), e.getName(), e.getType(), e.getLocation()));
+                }
+            });
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                changesDuringRebuild = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            changesDuringRebuild.forEach(change -> change.accept(rebuilt));
+            changesDuringRebuild = null;
+            searchIndex = rebuilt;
+        }
+        log.info("Built equipment search index with {} entries", rebuilt.size());
+    }
 
     /**
      * Get all equipment
+     * Full records, notes included, as GET /api/v1/equipment has always
+     * returned them; list views use listEquipment or streamEquipment instead.
      */
+    @Transactional(readOnly = true)
     public List<EquipmentDTO> getAllEquipment() {
         return equipmentRepository.findAll().stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * One page of equipment summaries by id, optionally filtered by type and location
+     * fields is a comma-separated subset of SUMMARY_FIELDS; all of them when blank.
+     */
+    @Transactional(readOnly = true)
+    public EquipmentPageDTO listEquipment(String type, String location, String fields, long afterId, int limit) {
+        if (limit < 1 || limit > listMaxPageSize) {
+            throw new IllegalArgumentException("limit must be between 1 and " + listMaxPageSize);
+        }
+        Set<String> selected = parseFields(fields);
+        List<EquipmentRepository.EquipmentSummary> rows = equipmentRepository.findSummaries(
+                blankToNull(type), blankToNull(location), afterId, PageRequest.of(0, limit));
+        return EquipmentPageDTO.builder()
+                .items(rows.stream().map(row -> convertToSummaryDTO(row, selected)).collect(Collectors.toList()))
+                .nextAfterId(rows.size() == limit ? rows.get(rows.size() - 1).getId() : null)
+                .build();
+    }
+
+    /**
+     * Write every matching equipment summary to out as one JSON array, or as NDJSON
+     * Rows are read in fetch-size chunks and written as they arrive, so the fleet is
+     * never held in memory.
+     */
+    @Transactional(readOnly = true)
+    public void streamEquipment(String type, String location, String fields, boolean ndjson, OutputStream out)
+            throws IOException {
+        Set<String> selected = parseFields(fields);
+        ObjectWriter writer = objectMapper.writerFor(EquipmentSummaryDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (Stream<EquipmentRepository.EquipmentSummary> rows =
+                     equipmentRepository.streamSummaries(blankToNull(type), blankToNull(location));
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            if (ndjson) {
+                // Rows end with a newline instead of Jackson's space between root values
+                generator.setRootValueSeparator(null);
+            } else {
+                generator.writeStartArray();
+            }
+            Iterator<EquipmentRepository.EquipmentSummary> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, convertToSummaryDTO(iterator.next(), selected));
+                if (ndjson) {
+                    generator.writeRaw('\n');
+                }
+            }
+            if (!ndjson) {
+                generator.writeEndArray();
+            }
+        }
+    }
+
     /**
      * Get equipment by ID
      */
+    @Transactional(readOnly = true)
     public EquipmentDTO getEquipmentById(Long id) {
         Equipment equipment = equipmentRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Equipment not found with id: " + id));
@@ -51,6 +187,7 @@ public class EquipmentService {
 
         Equipment saved = equipmentRepository.save(equipment);
         log.info("Created new equipment: id={}, name={}", saved.getId(), saved.getName());
+        indexAfterCommit(saved);
         
         return convertToDTO(saved);
     }
@@ -71,6 +208,7 @@ public class EquipmentService {
 
         Equipment updated = equipmentRepository.save(equipment);
         log.info("Updated equipment: id={}, name={}", updated.getId(), updated.getName());
+        indexAfterCommit(updated);
         
         return convertToDTO(updated);
     }
@@ -86,17 +224,79 @@ public class EquipmentService {
         
         equipmentRepository.deleteById(id);
         log.info("Deleted equipment: id={}", id);
+        afterCommit(index -> index.remove(id));
     }
 
     /**
-     * Search equipment by name
+     * Type-ahead search over name, type and location, best matches first
+     * See EquipmentSearchIndex for the ranking.
      */
-    public List<EquipmentDTO> searchEquipmentByName(String name) {
-        return equipmentRepository.findByNameContainingIgnoreCase(name).stream()
+    @Transactional(readOnly = true)
+    public List<EquipmentDTO> searchEquipment(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query must not be blank");
+        }
+        if (limit < 1 || limit > searchMaxResults) {
+            throw new IllegalArgumentException("limit must be between 1 and " + searchMaxResults);
+        }
+        List<Long> ids = searchIndex.search(query, limit);
+        Map<Long, Equipment> byId = equipmentRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Equipment::getId, Function.identity()));
+        // Deleted on another node and not yet dropped from the index
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
+    private void indexAfterCommit(Equipment equipment) {
+        afterCommit(index -> index.put(equipment.getId(), equipment.getName(),
+                equipment.getType(), equipment.getLocation()));
+    }
+
+    private void afterCommit(Consumer<EquipmentSearchIndex> change) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                synchronized (EquipmentService.this) {
+                    change.accept(searchIndex);
+                    if (changesDuringRebuild != null) {
+                        changesDuringRebuild.add(change);
+                    }
+                }
+            }
+        });
+    }
+
+    private static Set<String> parseFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return Set.copyOf(SUMMARY_FIELDS);
+        }
+        Set<String> selected = new HashSet<>();
+        for (String field : fields.split(",")) {
+            if (!SUMMARY_FIELDS.contains(field.trim())) {
+                throw new IllegalArgumentException("Unknown field '" + field.trim() + "', expected any of " + SUMMARY_FIELDS);
+            }
+            selected.add(field.trim());
+        }
+        return selected;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    private EquipmentSummaryDTO convertToSummaryDTO(EquipmentRepository.EquipmentSummary row, Set<String> fields) {
+        return EquipmentSummaryDTO.builder()
+                .id(fields.contains("id") ? row.getId() : null)
+                .name(fields.contains("name") ? row.getName() : null)
+                .type(fields.contains("type") ? row.getType() : null)
+                .location(fields.contains("location") ? row.getLocation() : null)
+                .installDate(fields.contains("installDate") ? row.getInstallDate() : null)
+                .build();
+    }
+
     /**
      * Convert entity to DTO
      */
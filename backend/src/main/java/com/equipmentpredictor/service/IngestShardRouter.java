@@ -0,0 +1,101 @@
+package com.equipmentpredictor.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routes ingestion work to single-writer shards keyed by equipmentId % N
+ * All readings for one equipment run on the same thread in arrival order,
+ * so the read-modify-write in risk event creation needs no locking.
+ * Different equipment still spread across shards.
+ */
+@Component
+@Slf4j
+public class IngestShardRouter {
+
+    private final ExecutorService[] shards;
+
+    public IngestShardRouter(@Value("${ingest.shards:0}") int shardCount,
+            @Value("${ingest.shard-queue-capacity:10000}") int queueCapacity) {
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        this.shards = new ExecutorService[count];
+        for (int i = 0; i < count; i++) {
+            int shard = i;
+            shards[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "ingest-shard-" + shard);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+        log.info("Ingestion routed through {} shards", count);
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    public int shardFor(Long equipmentId) {
+        return (int) Math.floorMod(equipmentId, (long) shards.length);
+    }
+
+    /**
+     * Run the task on the equipment's shard and wait for its result
+     * Runtime exceptions thrown by the task are rethrown unchanged.
+     * Throws RejectedExecutionException if the shard queue is full.
+     */
+    public <T> T execute(Long equipmentId, Callable<T> task) {
+        return await(submit(equipmentId, task));
+    }
+
+    /**
+     * Queue the task on the equipment's shard without waiting
+     * Throws RejectedExecutionException if the shard queue is full.
+     */
+    public <T> Future<T> submit(Long equipmentId, Callable<T> task) {
+        return shards[shardFor(equipmentId)].submit(task);
+    }
+
+    /**
+     * Wait for a task queued with submit, unwrapping its exception as execute does
+     */
+    public <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw new IllegalStateException("Interrupted while waiting for ingestion", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Ingestion failed", cause);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ExecutorService shard : shards) {
+            shard.shutdown();
+        }
+        for (ExecutorService shard : shards) {
+            shard.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.equipmentpredictor.service;
+
+import com.equipmentpredictor.dto.SensorLogDTO;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Single-pass Largest-Triangle-Three-Buckets downsampling of a reading stream
+ *
+ * The budget is split between the three channels (temperature, vibration,
+ * load): every channel keeps the first and last reading, which they share,
+ * and the range is cut into (maxPoints - 2) / 3 equal time buckets. From
+ * every non-empty bucket each channel keeps the reading forming the largest
+ * triangle with its previously kept reading and the average of the next
+ * bucket. Spikes form large triangles, so they survive. The result is the
+ * union of the readings kept by any channel, oldest first, so each channel's
+ * line runs through all of its own points and there are never more than
+ * maxPoints rows.
+ *
+ * Rows must arrive in timestamp order. A bucket's point can only be chosen once
+ * the next bucket's average is known, but the largest triangle is always at a
+ * vertex of the bucket's convex hull, so only the hull is retained (built
+ * incrementally, rows arrive sorted by time). Up to maxPoints rows are buffered
+ * first; shorter ranges are returned unchanged.
+ */
+final class LttbDownsampler {
+
+    // The two shared end points and one bucket per channel
+    static final int MIN_POINTS = 5;
+    static final int MAX_POINTS_LIMIT = 10_000;
+
+    private final LocalDateTime from;
+    private final double bucketSeconds;
+    private final int buckets;
+    private final int maxPoints;
+
+    private final List<SensorLogDTO> buffered = new ArrayList<>();
+    private final List<Channel> channels = List.of(
+            new Channel(SensorLogDTO::getTemperature),
+            new Channel(SensorLogDTO::getVibration),
+            new Channel(SensorLogDTO::getLoadPercentage));
+    private boolean streaming;
+
+    LttbDownsampler(LocalDateTime from, LocalDateTime to, int maxPoints) {
+        if (maxPoints < MIN_POINTS || maxPoints > MAX_POINTS_LIMIT) {
+            throw new IllegalArgumentException("maxPoints must be between " + MIN_POINTS + " and " + MAX_POINTS_LIMIT);
+        }
+        this.from = from;
+        this.maxPoints = maxPoints;
+        this.buckets = bucketsFor(maxPoints);
+        this.bucketSeconds = Math.max(seconds(from, to), 1e-6) / buckets;
+    }
+
+    /**
+     * Time buckets for a budget of maxPoints rows over the three channels
+     */
+    static int bucketsFor(int maxPoints) {
+        return (maxPoints - 2) / 3;
+    }
+
+    /**
+     * Add the next reading; timestamps must not decrease
+     */
+    void add(SensorLogDTO row) {
+        if (!streaming) {
+            buffered.add(row);
+            if (buffered.size() <= maxPoints) {
+                return;
+            }
+            streaming = true;
+            buffered.forEach(this::feed);
+            buffered.clear();
+            return;
+        }
+        feed(row);
+    }
+
+    /**
+     * Readings kept by any channel, oldest first; at most maxPoints
+     */
+    List<SensorLogDTO> finish() {
+        if (!streaming) {
+            return List.copyOf(buffered);
+        }
+        Set<SensorLogDTO> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Channel channel : channels) {
+            kept.addAll(channel.finish());
+        }
+        List<SensorLogDTO> result = new ArrayList<>(kept);
+        result.sort(Comparator.comparing(SensorLogDTO::getTimestamp)
+                .thenComparing(SensorLogDTO::getId, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return result;
+    }
+
+    private void feed(SensorLogDTO row) {
+        double x = seconds(from, row.getTimestamp());
+        // A reading exactly at `to` belongs to the last bucket
+        long bucket = Math.min((long) Math.floor(x / bucketSeconds), buckets - 1);
+        for (Channel channel : channels) {
+            channel.add(row, x, bucket);
+        }
+    }
+
+    private static double seconds(LocalDateTime from, LocalDateTime to) {
+        Duration duration = Duration.between(from, to);
+        return duration.getSeconds() + duration.getNano() / 1e9;
+    }
+
+    private record Point(double x, double y, SensorLogDTO row) {
+    }
+
+    /**
+     * Convex hull and average of the readings in one bucket
+     */
+    private static final class Bucket {
+        final long index;
+        final List<Point> upper = new ArrayList<>();
+        final List<Point> lower = new ArrayList<>();
+        double sumX;
+        double sumY;
+        int count;
+
+        Bucket(long index) {
+            this.index = index;
+        }
+
+        void add(Point p) {
+            push(upper, p, true);
+            push(lower, p, false);
+            sumX += p.x();
+            sumY += p.y();
+            count++;
+        }
+
+        // Andrew's monotone chain; points arrive with non-decreasing x
+        private static void push(List<Point> hull, Point p, boolean upperHull) {
+            while (hull.size() >= 2) {
+                double cross = cross(hull.get(hull.size() - 2), hull.get(hull.size() - 1), p);
+                if (upperHull ? cross < 0 : cross > 0) {
+                    break;
+                }
+                hull.remove(hull.size() - 1);
+            }
+            hull.add(p);
+        }
+
+        private static double cross(Point o, Point a, Point b) {
+            return (a.x() - o.x()) * (b.y() - o.y()) - (a.y() - o.y()) * (b.x() - o.x());
+        }
+
+        /**
+         * Hull vertex forming the largest triangle with a and (cx, cy)
+         */
+        Point largestTriangle(Point a, double cx, double cy) {
+            Point best = null;
+            double bestArea = -1;
+            for (List<Point> hull : List.of(upper, lower)) {
+                for (Point b : hull) {
+                    double area = Math.abs((a.x() - cx) * (b.y() - a.y()) - (a.x() - b.x()) * (cy - a.y()));
+                    if (area > bestArea) {
+                        bestArea = area;
+                        best = b;
+                    }
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * LTTB state for one sensor channel
+     */
+    private static final class Channel {
+        private final Function<SensorLogDTO, BigDecimal> value;
+        private final List<SensorLogDTO> kept = new ArrayList<>();
+        private Point anchor;
+        private Point last;
+        private Bucket pending;
+        private Bucket current;
+
+        Channel(Function<SensorLogDTO, BigDecimal> value) {
+            this.value = value;
+        }
+
+        void add(SensorLogDTO row, double x, long bucket) {
+            Point p = new Point(x, value.apply(row).doubleValue(), row);
+            last = p;
+            if (anchor == null) {
+                anchor = p;
+                kept.add(row);
+                return;
+            }
+            if (current == null || bucket != current.index) {
+                if (current != null) {
+                    // current is complete, so the pending bucket can choose its point
+                    select(pending, current.sumX / current.count, current.sumY / current.count);
+                    pending = current;
+                }
+                current = new Bucket(bucket);
+            }
+            current.add(p);
+        }
+
+        List<SensorLogDTO> finish() {
+            if (current != null) {
+                select(pending, current.sumX / current.count, current.sumY / current.count);
+                select(current, last.x(), last.y());
+            }
+            if (kept.get(kept.size() - 1) != last.row()) {
+                kept.add(last.row());
+            }
+            return kept;
+        }
+
+        private void select(Bucket bucket, double cx, double cy) {
+            if (bucket == null) {
+                return;
+            }
+            anchor = bucket.largestTriangle(anchor, cx, cy);
+            kept.add(anchor.row());
+        }
+    }
+}
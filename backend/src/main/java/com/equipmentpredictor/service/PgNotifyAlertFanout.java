@@ -0,0 +1,232 @@
+package com.equipmentpredictor.service;
+
+import com.equipmentpredictor.dto.RiskResponseDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Cross-node alert fan-out over PostgreSQL LISTEN/NOTIFY
+ * Committed alerts are batched into NOTIFY payloads on a dedicated connection.
+ * Every node LISTENs on the same channel and rebroadcasts alerts from other
+ * nodes to its local WebSocket subscribers.
+ */
+@Component
+@ConditionalOnProperty(name = "websocket.fanout.mode", havingValue = "postgres")
+@RequiredArgsConstructor
+@Slf4j
+public class PgNotifyAlertFanout {
+
+    // NOTIFY payloads must be shorter than 8000 bytes (UTF-8)
+    static final int MAX_PAYLOAD_BYTES = 7999;
+    // Everything in a payload except the alerts: node id (a UUID) and sequence, all ASCII
+    private static final int ENVELOPE_BYTES = "{\"node\":\"\",\"seq\":,\"alerts\":[]}".length()
+            + 36 + String.valueOf(Long.MAX_VALUE).length();
+    private static final int SEEN_BATCHES_CAPACITY = 4096;
+
+    private final RiskBroadcastService riskBroadcastService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${spring.datasource.url}")
+    private String url;
+
+    @Value("${spring.datasource.username}")
+    private String username;
+
+    @Value("${spring.datasource.password}")
+    private String password;
+
+    @Value("${websocket.fanout.channel:risk_alerts}")
+    private String channel;
+
+    @Value("${websocket.fanout.batch-window-ms:50}")
+    private int batchWindowMs;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final BlockingQueue<RiskResponseDTO> outbound = new LinkedBlockingQueue<>(10000);
+    private long sequence;
+    // Drained but not yet sent; owned by the worker thread, sent first after a reconnect
+    private final List<RiskResponseDTO> unsent = new ArrayList<>();
+
+    // Recently received batch ids, oldest evicted first
+    private final Map<String, Boolean> seenBatches = new LinkedHashMap<>(256, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > SEEN_BATCHES_CAPACITY;
+        }
+    };
+
+    private volatile boolean running;
+    private Thread worker;
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "alert-fanout");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("Alert fan-out via LISTEN/NOTIFY started on channel {} as node {}", channel, nodeId);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Queue a committed alert for other nodes
+     * RiskBroadcastService calls this after commit, together with local delivery
+     */
+    public void publish(RiskResponseDTO alert) {
+        if (!outbound.offer(alert)) {
+            log.warn("Alert fan-out queue full, dropping alert for equipment {}", alert.getEquipmentId());
+        }
+    }
+
+    /**
+     * Single thread owning the dedicated connection: sends queued alerts,
+     * then waits up to one batch window for notifications
+     */
+    private void run() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, username, password)) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + pgConnection.escapeIdentifier(channel));
+                }
+
+                while (running) {
+                    sendPending(connection);
+                    PGNotification[] notifications = pgConnection.getNotifications(batchWindowMs);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            receive(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                // Anything else ending this thread would stop cross-node delivery for good
+                if (!running) {
+                    return;
+                }
+                log.error("Alert fan-out failed, reconnecting", e);
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Send queued alerts in NOTIFY payloads of at most MAX_PAYLOAD_BYTES
+     * If a NOTIFY fails, the alerts it did not send are kept for the next call
+     */
+    void sendPending(Connection connection) throws SQLException {
+        outbound.drainTo(unsent);
+        if (unsent.isEmpty()) {
+            return;
+        }
+
+        int sent = 0;
+        try (PreparedStatement notify = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+            StringBuilder batch = new StringBuilder();
+            int batchBytes = 0;
+            for (int i = 0; i < unsent.size(); i++) {
+                String json = toJson(unsent.get(i));
+                int jsonBytes = json == null ? 0 : json.getBytes(StandardCharsets.UTF_8).length;
+                if (json == null || ENVELOPE_BYTES + jsonBytes > MAX_PAYLOAD_BYTES) {
+                    if (json != null) {
+                        log.warn("Alert for equipment {} exceeds the NOTIFY payload limit, not fanned out",
+                                unsent.get(i).getEquipmentId());
+                    }
+                    if (batch.length() == 0) {
+                        sent = i + 1;
+                    }
+                    continue;
+                }
+                if (batch.length() > 0 && ENVELOPE_BYTES + batchBytes + 1 + jsonBytes > MAX_PAYLOAD_BYTES) {
+                    notify(notify, batch);
+                    sent = i;
+                    batch.setLength(0);
+                    batchBytes = 0;
+                }
+                if (batch.length() > 0) {
+                    batch.append(',');
+                    batchBytes++;
+                }
+                batch.append(json);
+                batchBytes += jsonBytes;
+            }
+            if (batch.length() > 0) {
+                notify(notify, batch);
+            }
+            sent = unsent.size();
+        } finally {
+            unsent.subList(0, sent).clear();
+        }
+    }
+
+    private void notify(PreparedStatement notify, StringBuilder alerts) throws SQLException {
+        String payload = "{\"node\":\"" + nodeId + "\",\"seq\":" + (++sequence) + ",\"alerts\":[" + alerts + "]}";
+        notify.setString(1, channel);
+        notify.setString(2, payload);
+        notify.execute();
+    }
+
+    private void receive(String payload) {
+        try {
+            JsonNode envelope = objectMapper.readTree(payload);
+            String node = envelope.path("node").asText();
+            if (nodeId.equals(node)) {
+                // Already delivered locally when it was published
+                return;
+            }
+            String batchId = node + ":" + envelope.path("seq").asLong();
+            if (seenBatches.put(batchId, Boolean.TRUE) != null) {
+                return;
+            }
+
+            for (JsonNode alert : envelope.path("alerts")) {
+                riskBroadcastService.deliverAlert(objectMapper.treeToValue(alert, RiskResponseDTO.class));
+            }
+        } catch (Exception e) {
+            log.error("Failed to process fan-out notification", e);
+        }
+    }
+
+    private String toJson(RiskResponseDTO alert) {
+        try {
+            return objectMapper.writeValueAsString(alert);
+        } catch (Exception e) {
+            log.error("Failed to serialize alert for fan-out", e);
+            return null;
+        }
+    }
+}
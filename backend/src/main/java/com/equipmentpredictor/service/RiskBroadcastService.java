@@ -0,0 +1,123 @@
+package com.equipmentpredictor.service;
+
+import com.equipmentpredictor.dto.RiskResponseDTO;
+import com.equipmentpredictor.dto.SensorLogDTO;
+import com.equipmentpredictor.logging.SampledLog;
+import com.equipmentpredictor.model.RiskEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Publishes risk results and sensor readings to STOMP destinations
+ * Clients subscribe only to the equipment or risk level they care about,
+ * so filtering happens in the broker instead of the browser
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RiskBroadcastService {
+
+    public static final String ALERTS_TOPIC = "/topic/alerts";
+
+    private static final SampledLog BROADCAST_LOG = SampledLog.of(log, "alert.broadcast");
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final AlertCoalescer alertCoalescer;
+    // Present only when websocket.fanout.mode=postgres
+    private final ObjectProvider<PgNotifyAlertFanout> alertFanout;
+
+    // immediate: one frame per alert, coalesced: one batch frame on /topic/alerts/batch and
+    // at most one frame per equipment and topic per window on the per-alert topics
+    @Value("${websocket.alerts.delivery:immediate}")
+    private String alertDelivery;
+
+    public static String alertsByLevelTopic(RiskEvent.RiskLevel level) {
+        return ALERTS_TOPIC + "/" + level.name();
+    }
+
+    public static String equipmentRiskTopic(Long equipmentId) {
+        return "/topic/equipment/" + equipmentId + "/risk";
+    }
+
+    public static String equipmentReadingsTopic(Long equipmentId) {
+        return "/topic/equipment/" + equipmentId + "/readings";
+    }
+
+    /**
+     * Publish a risk calculation to the equipment topic, and to the alert
+     * topics if it is HIGH or CRITICAL
+     * Everything goes out once the current transaction commits, alerts to local
+     * subscribers and to other nodes alike, so no dashboard or node shows a
+     * reading or event that rolled back (a duplicate race, a failed shard batch)
+     */
+    public void publishRisk(RiskResponseDTO risk) {
+        afterCommit(() -> {
+            try {
+                messagingTemplate.convertAndSend(equipmentRiskTopic(risk.getEquipmentId()), risk);
+            } catch (Exception e) {
+                log.error("Failed to broadcast WebSocket risk update", e);
+            }
+            if (isAlert(risk.getRiskLevel())) {
+                deliverAlert(risk);
+                alertFanout.ifAvailable(fanout -> fanout.publish(risk));
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Deliver an alert to local subscribers
+     * In coalesced mode alerts are handed to the AlertCoalescer instead
+     */
+    public void deliverAlert(RiskResponseDTO alert) {
+        try {
+            if ("coalesced".equalsIgnoreCase(alertDelivery)) {
+                alertCoalescer.offer(alert);
+            } else {
+                messagingTemplate.convertAndSend(ALERTS_TOPIC, alert);
+                messagingTemplate.convertAndSend(alertsByLevelTopic(alert.getRiskLevel()), alert);
+                if (BROADCAST_LOG.allow()) {
+                    log.info("Broadcasted {} risk alert for equipment {} via WebSocket",
+                            alert.getRiskLevel(), alert.getEquipmentName());
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to broadcast WebSocket alert", e);
+        }
+    }
+
+    /**
+     * Publish a live sensor reading to the equipment readings topic once the current transaction commits
+     */
+    public void publishReading(SensorLogDTO reading) {
+        afterCommit(() -> {
+            try {
+                messagingTemplate.convertAndSend(equipmentReadingsTopic(reading.getEquipmentId()), reading);
+            } catch (Exception e) {
+                log.error("Failed to broadcast sensor reading", e);
+            }
+        });
+    }
+
+    static boolean isAlert(RiskEvent.RiskLevel level) {
+        return level == RiskEvent.RiskLevel.HIGH || level == RiskEvent.RiskLevel.CRITICAL;
+    }
+}
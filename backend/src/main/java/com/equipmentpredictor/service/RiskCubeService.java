@@ -0,0 +1,123 @@
+package com.equipmentpredictor.service;
+
+import com.equipmentpredictor.dto.RiskCubeRowDTO;
+import com.equipmentpredictor.model.RiskEvent;
+import com.equipmentpredictor.repository.RiskCubeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fleet risk analytics from the risk cube (V9__risk_cube_level_time.sql)
+ * The cube holds the time equipment spent in each risk level, from each risk
+ * event to the next one of the same equipment, and the events recorded.
+ * Risk event inserts append per-hour deltas in the database; they are
+ * folded into risk_cube_hourly here every analytics.cube.fold-ms. Queries
+ * read the cells of the requested hours plus the pending deltas, so their
+ * cost depends on the range and the fleet's types and locations, not on the
+ * number of events stored.
+ */
+@Service
+@Slf4j
+public class RiskCubeService {
+
+    private static final Set<String> BUCKETS = Set.of("hour", "day", "total");
+    private static final Set<String> DIMENSIONS = Set.of("type", "location");
+
+    private final RiskCubeRepository riskCubeRepository;
+    private final Duration maxRange;
+
+    public RiskCubeService(RiskCubeRepository riskCubeRepository,
+            @Value("${analytics.cube.max-days:400}") long maxDays) {
+        this.riskCubeRepository = riskCubeRepository;
+        this.maxRange = Duration.ofDays(maxDays);
+    }
+
+    /**
+     * Time in each risk level and events in [from, to) per bucket (hour, day or total) and per the groupBy dimensions (type, location, or none)
+     * The range is widened to whole hours; days are calendar days of the stored timestamps.
+     */
+    @Transactional(readOnly = true)
+    public List<RiskCubeRowDTO> aggregate(LocalDateTime from, LocalDateTime to, List<String> groupBy,
+            String bucket, String type, String location) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("From must be before to");
+        }
+        if (Duration.between(from, to).compareTo(maxRange) > 0) {
+            throw new IllegalArgumentException("Range may span at most " + maxRange.toDays() + " days");
+        }
+        String normalizedBucket = bucket.trim().toLowerCase();
+        if (!BUCKETS.contains(normalizedBucket)) {
+            throw new IllegalArgumentException("Bucket must be one of hour, day, total");
+        }
+        List<String> dimensions = groupBy.stream()
+                .map(dimension -> dimension.trim().toLowerCase())
+                .filter(dimension -> !dimension.isEmpty() && !"none".equals(dimension))
+                .toList();
+        for (String dimension : dimensions) {
+            if (!DIMENSIONS.contains(dimension)) {
+                throw new IllegalArgumentException("Unknown groupBy dimension: " + dimension + " (type, location)");
+            }
+        }
+
+        LocalDateTime fromHour = from.truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime toHour = to.truncatedTo(ChronoUnit.HOURS);
+        if (toHour.isBefore(to)) {
+            toHour = toHour.plusHours(1);
+        }
+        return riskCubeRepository.aggregate(fromHour, toHour, type, location, normalizedBucket,
+                        dimensions.contains("type"), dimensions.contains("location")).stream()
+                .map(this::convertToDTO)
+                .toList();
+    }
+
+    /**
+     * Fold the pending deltas into the hourly cells
+     */
+    @Scheduled(fixedDelayString = "${analytics.cube.fold-ms:5000}")
+    public void fold() {
+        int cells = riskCubeRepository.foldDeltas();
+        if (cells > 0) {
+            log.debug("Folded risk cube deltas into {} cells", cells);
+        }
+    }
+
+    private RiskCubeRowDTO convertToDTO(RiskCubeRepository.CubeRow row) {
+        Map<RiskEvent.RiskLevel, Long> levelSeconds = new EnumMap<>(RiskEvent.RiskLevel.class);
+        levelSeconds.put(RiskEvent.RiskLevel.LOW, wholeSeconds(row.getLowSeconds()));
+        levelSeconds.put(RiskEvent.RiskLevel.MEDIUM, wholeSeconds(row.getMediumSeconds()));
+        levelSeconds.put(RiskEvent.RiskLevel.HIGH, wholeSeconds(row.getHighSeconds()));
+        levelSeconds.put(RiskEvent.RiskLevel.CRITICAL, wholeSeconds(row.getCriticalSeconds()));
+        BigDecimal seconds = row.getLowSeconds().add(row.getMediumSeconds())
+                .add(row.getHighSeconds()).add(row.getCriticalSeconds());
+
+        return RiskCubeRowDTO.builder()
+                .bucket(row.getBucket())
+                .equipmentType(row.getEquipmentType())
+                // Stored as '' for equipment without a location
+                .location(row.getLocation() == null || row.getLocation().isEmpty() ? null : row.getLocation())
+                .levelSeconds(levelSeconds)
+                .avgScore(seconds.signum() > 0
+                        ? row.getScoreSeconds().divide(seconds, 2, RoundingMode.HALF_UP)
+                        : null)
+                .events(row.getEventCount())
+                .maxEventScore(row.getEventScoreMax())
+                .build();
+    }
+
+    private static long wholeSeconds(BigDecimal seconds) {
+        return seconds.setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+}
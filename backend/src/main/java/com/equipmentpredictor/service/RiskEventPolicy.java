@@ -0,0 +1,120 @@
+package com.equipmentpredictor.service;
+
+import com.equipmentpredictor.model.RiskEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Decides which scored readings are recorded as risk events
+ *
+ * EVERY records each reading at MEDIUM or above, plus the return to LOW.
+ * CHANGES records only:
+ * - level transitions, with a hysteresis band so a score hovering around a
+ *   threshold does not flap (stepping down requires falling `hysteresis`
+ *   points below the threshold of the recorded level)
+ * - score moves of at least `score-delta` since the last event
+ * - a heartbeat every `heartbeat-seconds` while above LOW
+ *
+ * Only event writes are affected; every reading is still scored and broadcast.
+ */
+@Component
+@Slf4j
+public class RiskEventPolicy {
+
+    public enum Mode {
+        EVERY,
+        CHANGES
+    }
+
+    private final Mode mode;
+    private final BigDecimal scoreDelta;
+    private final Duration heartbeat;
+    private final BigDecimal hysteresis;
+
+    @Autowired
+    public RiskEventPolicy(@Value("${risk.events.policy:changes}") String mode,
+            @Value("${risk.events.score-delta:10}") BigDecimal scoreDelta,
+            @Value("${risk.events.heartbeat-seconds:300}") long heartbeatSeconds,
+            @Value("${risk.events.hysteresis:5}") BigDecimal hysteresis) {
+        this(Mode.valueOf(mode.trim().toUpperCase()), scoreDelta, Duration.ofSeconds(heartbeatSeconds), hysteresis);
+    }
+
+    public RiskEventPolicy(Mode mode, BigDecimal scoreDelta, Duration heartbeat, BigDecimal hysteresis) {
+        this.mode = mode;
+        this.scoreDelta = scoreDelta;
+        this.heartbeat = heartbeat;
+        this.hysteresis = hysteresis;
+        log.info("Risk event policy: {} (score delta {}, heartbeat {}, hysteresis {})",
+                mode, scoreDelta, heartbeat, hysteresis);
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    public BigDecimal scoreDelta() {
+        return scoreDelta;
+    }
+
+    public Duration heartbeat() {
+        return heartbeat;
+    }
+
+    public BigDecimal hysteresis() {
+        return hysteresis;
+    }
+
+    /**
+     * Level to record for this reading, or empty if no event should be written
+     */
+    public Optional<RiskEvent.RiskLevel> decide(ScoringProfileService.CompiledProfile profile,
+            Optional<RiskEvent> lastEvent, LocalDateTime timestamp,
+            BigDecimal riskScore, RiskEvent.RiskLevel riskLevel) {
+        RiskEvent.RiskLevel lastLevel = lastEvent.map(RiskEvent::getRiskLevel).orElse(RiskEvent.RiskLevel.LOW);
+
+        if (mode == Mode.EVERY) {
+            // Always for MEDIUM, HIGH, CRITICAL; LOW only when leaving a higher level
+            return riskLevel != RiskEvent.RiskLevel.LOW || lastLevel != RiskEvent.RiskLevel.LOW
+                    ? Optional.of(riskLevel)
+                    : Optional.empty();
+        }
+
+        RiskEvent.RiskLevel level = applyHysteresis(profile, riskScore, riskLevel, lastLevel);
+        if (level != lastLevel) {
+            return Optional.of(level);
+        }
+        if (level == RiskEvent.RiskLevel.LOW || lastEvent.isEmpty()) {
+            return Optional.empty();
+        }
+
+        RiskEvent last = lastEvent.get();
+        if (last.getRiskScore() != null
+                && riskScore.subtract(last.getRiskScore()).abs().compareTo(scoreDelta) >= 0) {
+            return Optional.of(level);
+        }
+        if (last.getTimestamp() != null && timestamp != null
+                && !timestamp.isBefore(last.getTimestamp().plus(heartbeat))) {
+            return Optional.of(level);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Stay at the recorded level until the score falls clearly below its threshold
+     */
+    private RiskEvent.RiskLevel applyHysteresis(ScoringProfileService.CompiledProfile profile,
+            BigDecimal riskScore, RiskEvent.RiskLevel riskLevel, RiskEvent.RiskLevel lastLevel) {
+        if (riskLevel.compareTo(lastLevel) < 0
+                && riskScore.compareTo(profile.threshold(lastLevel).subtract(hysteresis)) >= 0) {
+            return lastLevel;
+        }
+        return riskLevel;
+    }
+}
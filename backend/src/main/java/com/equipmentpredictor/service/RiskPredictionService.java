@@ -1,214 +1,229 @@
 package com.equipmentpredictor.service;
 
 import com.equipmentpredictor.dto.RiskResponseDTO;
+import com.equipmentpredictor.logging.SampledLog;
+import com.equipmentpredictor.model.Equipment;
 import com.equipmentpredictor.model.RiskEvent;
 import com.equipmentpredictor.model.SensorLog;
 import com.equipmentpredictor.repository.EquipmentRepository;
 import com.equipmentpredictor.repository.RiskEventRepository;
+import com.equipmentpredictor.repository.SensorLogRepository;
+import com.equipmentpredictor.store.SensorHotStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 /**
  * AI-based Risk Prediction Service
  * Implements weighted risk formula: riskScore = 0.4*sT + 0.35*sV + 0.25*sL
  * Where sT, sV, sL are normalized scores (0-100) for temperature, vibration,
- * and load
+ * and load. Ranges, weights and level thresholds come from the scoring
+ * profile of the equipment's type (see ScoringProfileService).
+ *
+ * Per-reading log lines are sampled (SampledLog); a change of the stored
+ * risk level is always logged.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class RiskPredictionService {
 
+    private static final SampledLog CALCULATED_LOG = SampledLog.of(log, "risk.calculated");
+    private static final SampledLog EVENT_LOG = SampledLog.of(log, "risk.event-created");
+
     private final RiskEventRepository riskEventRepository;
     private final EquipmentRepository equipmentRepository;
-    private final org.springframework.messaging.simp.SimpMessagingTemplate messagingTemplate;
-
-    // Normalization ranges
-    private static final BigDecimal TEMP_MIN = BigDecimal.ZERO;
-    private static final BigDecimal TEMP_MAX = new BigDecimal("150");
-    private static final BigDecimal VIB_MIN = BigDecimal.ZERO;
-    private static final BigDecimal VIB_MAX = new BigDecimal("50");
-    private static final BigDecimal LOAD_MIN = BigDecimal.ZERO;
-    private static final BigDecimal LOAD_MAX = new BigDecimal("100");
+    private final RiskBroadcastService riskBroadcastService;
+    private final ScoringProfileService scoringProfileService;
+    private final RiskEventPolicy riskEventPolicy;
+    private final SensorLogRepository sensorLogRepository;
 
-    // Weights for risk calculation (injected from application.properties)
-    @org.springframework.beans.factory.annotation.Value("${risk.calculation.weight.temperature:0.40}")
-    private BigDecimal WEIGHT_TEMP;
+    /**
+     * Calculate risk score from sensor log data
+     */
+    @Transactional
+    public RiskResponseDTO calculateRisk(SensorLog sensorLog) {
+        return calculateRisk(sensorLog, target(sensorLog.getEquipmentId()));
+    }
 
-    @org.springframework.beans.factory.annotation.Value("${risk.calculation.weight.vibration:0.35}")
-    private BigDecimal WEIGHT_VIB;
+    /**
+     * Equipment name and scoring profile for scoring readings of one equipment
+     */
+    public Target target(long equipmentId) {
+        Optional<Equipment> equipment = equipmentRepository.findById(equipmentId);
+        return new Target(equipmentId, equipment.map(Equipment::getName).orElse("Unknown"),
+                scoringProfileService.snapshot().forType(equipment.map(Equipment::getType).orElse(null)));
+    }
 
-    @org.springframework.beans.factory.annotation.Value("${risk.calculation.weight.load:0.25}")
-    private BigDecimal WEIGHT_LOAD;
+    /**
+     * Targets of the given equipment with one query; unknown equipment is left out
+     */
+    public Map<Long, Target> targets(Collection<Long> equipmentIds) {
+        ScoringProfileService.Snapshot snapshot = scoringProfileService.snapshot();
+        Map<Long, Target> targets = new HashMap<>();
+        for (Equipment equipment : equipmentRepository.findAllById(equipmentIds)) {
+            targets.put(equipment.getId(), new Target(equipment.getId(), equipment.getName(),
+                    snapshot.forType(equipment.getType())));
+        }
+        return targets;
+    }
 
     /**
-     * Calculate risk score from sensor log data
+     * Calculate risk score for a reading of the target's equipment, without looking the equipment or profile up
      */
     @Transactional
-    public RiskResponseDTO calculateRisk(SensorLog sensorLog) {
-        // Normalize sensor readings to 0-100 scale
-        BigDecimal normalizedTemp = normalize(sensorLog.getTemperature(), TEMP_MIN, TEMP_MAX);
-        BigDecimal normalizedVib = normalize(sensorLog.getVibration(), VIB_MIN, VIB_MAX);
-        BigDecimal normalizedLoad = normalize(sensorLog.getLoadPercentage(), LOAD_MIN, LOAD_MAX);
+    public RiskResponseDTO calculateRisk(SensorLog sensorLog, Target target) {
+        ScoringProfileService.CompiledProfile profile = target.profile();
 
-        // Calculate weighted risk score
-        BigDecimal riskScore = normalizedTemp.multiply(WEIGHT_TEMP)
-                .add(normalizedVib.multiply(WEIGHT_VIB))
-                .add(normalizedLoad.multiply(WEIGHT_LOAD))
-                .setScale(2, RoundingMode.HALF_UP);
+        // Weighted normalized readings in integer units (ScoringProfileService.Channel.weighted)
+        long temperature = profile.temperature().weighted(sensorLog.getTemperatureHundredths());
+        long vibration = profile.vibration().weighted(sensorLog.getVibrationHundredths());
+        long load = profile.load().weighted(sensorLog.getLoadHundredths());
 
-        // Determine risk level
-        RiskEvent.RiskLevel riskLevel = determineRiskLevel(riskScore);
+        // Calculate weighted risk score and determine risk level
+        int scoreHundredths = profile.score(temperature + vibration + load);
+        RiskEvent.RiskLevel riskLevel = profile.level(scoreHundredths);
 
         // Identify primary contributing factor
-        String reason = identifyPrimaryReason(normalizedTemp, normalizedVib, normalizedLoad,
-                sensorLog.getTemperature(),
-                sensorLog.getVibration(),
-                sensorLog.getLoadPercentage());
+        RiskEvent.RiskFactor factor = identifyPrimaryFactor(temperature, vibration, load);
+
+        // BigDecimal only for the stored event and the response
+        BigDecimal riskScore = BigDecimal.valueOf(scoreHundredths, 2);
+        BigDecimal factorValue = switch (factor) {
+            case TEMPERATURE -> sensorLog.temperatureValue();
+            case VIBRATION -> sensorLog.vibrationValue();
+            case LOAD -> sensorLog.loadValue();
+        };
 
-        log.info("Calculated risk for equipment {}: score={}, level={}, reason={}",
-                sensorLog.getEquipmentId(), riskScore, riskLevel, reason);
+        if (CALCULATED_LOG.allow()) {
+            log.info("Calculated risk for equipment {}: score={}, level={}, factor={} ({})",
+                    sensorLog.getEquipmentId(), riskScore, riskLevel, factor, factorValue);
+        }
 
         // Check if we need to create a risk event
-        createRiskEventIfNeeded(sensorLog.getEquipmentId(), sensorLog.getTimestamp(),
-                riskScore, riskLevel, reason);
+        createRiskEventIfNeeded(profile, sensorLog.getEquipmentId(), sensorLog.getTimestamp(),
+                riskScore, riskLevel, factor, factorValue);
 
-        // Build response DTO
-        String equipmentName = equipmentRepository.findById(sensorLog.getEquipmentId())
-                .map(e -> e.getName())
-                .orElse("Unknown");
+        return publish(sensorLog, target.equipmentName(), riskScore, riskLevel, factor, factorValue);
+    }
+
+    /**
+     * Store a new reading, calculate its risk and create the risk event in one statement
+     * Same result as saving the reading and calling calculateRisk, in one
+     * round trip (SensorLogRepository.insertAndEvaluate). Empty when the
+     * equipment does not exist; when the reading is already stored the id is
+     * null and nothing is scored or broadcast.
+     */
+    @Transactional
+    public Optional<SensorLogRepository.EvaluatedReading> insertAndCalculateRisk(SensorLog reading) {
+        Optional<SensorLogRepository.EvaluatedReading> evaluated = sensorLogRepository.insertAndEvaluate(
+                reading.getEquipmentId(), SensorHotStore.toMicros(reading.getTimestamp()),
+                reading.getTemperatureHundredths(), reading.getVibrationHundredths(), reading.getLoadHundredths(),
+                scoringProfileService.snapshot().json(), riskEventPolicy.mode().name(), riskEventPolicy.scoreDelta(),
+                TimeUnit.NANOSECONDS.toMicros(riskEventPolicy.heartbeat().toNanos()), riskEventPolicy.hysteresis());
+        evaluated.filter(row -> row.getId() != null).ifPresent(row -> publishEvaluated(reading, row));
+        return evaluated;
+    }
+
+    private RiskResponseDTO publishEvaluated(SensorLog sensorLog, SensorLogRepository.EvaluatedReading evaluated) {
+        RiskEvent.RiskLevel riskLevel = RiskEvent.RiskLevel.valueOf(evaluated.getRiskLevel());
+        RiskEvent.RiskFactor factor = RiskEvent.RiskFactor.fromCode(evaluated.getReasonFactor().shortValue());
+
+        if (CALCULATED_LOG.allow()) {
+            log.info("Calculated risk for equipment {}: score={}, level={}, factor={} ({})",
+                    sensorLog.getEquipmentId(), evaluated.getRiskScore(), riskLevel, factor, evaluated.getReasonValue());
+        }
+        if (evaluated.getEventLevel() != null) {
+            logRiskEvent(sensorLog.getEquipmentId(),
+                    evaluated.getPreviousLevel() != null ? RiskEvent.RiskLevel.valueOf(evaluated.getPreviousLevel()) : null,
+                    RiskEvent.RiskLevel.valueOf(evaluated.getEventLevel()),
+                    evaluated.getRiskScore(), factor, evaluated.getReasonValue());
+        }
 
+        return publish(sensorLog, evaluated.getEquipmentName(), evaluated.getRiskScore(), riskLevel,
+                factor, evaluated.getReasonValue());
+    }
+
+    private RiskResponseDTO publish(SensorLog sensorLog, String equipmentName, BigDecimal riskScore,
+            RiskEvent.RiskLevel riskLevel, RiskEvent.RiskFactor factor, BigDecimal factorValue) {
+        // Build response DTO
         RiskResponseDTO riskResponseDTO = RiskResponseDTO.builder()
                 .equipmentId(sensorLog.getEquipmentId())
                 .equipmentName(equipmentName)
                 .timestamp(sensorLog.getTimestamp())
                 .riskScore(riskScore)
                 .riskLevel(riskLevel)
-                .reason(reason)
-                .temperature(sensorLog.getTemperature())
-                .vibration(sensorLog.getVibration())
-                .loadPercentage(sensorLog.getLoadPercentage())
+                .reason(factor.describe(factorValue))
+                .temperature(sensorLog.temperatureValue())
+                .vibration(sensorLog.vibrationValue())
+                .loadPercentage(sensorLog.loadValue())
                 .build();
 
-        // Broadcast HIGH or CRITICAL risk events via WebSocket
-        if (riskLevel == RiskEvent.RiskLevel.HIGH || riskLevel == RiskEvent.RiskLevel.CRITICAL) {
-            try {
-                messagingTemplate.convertAndSend("/topic/alerts", riskResponseDTO);
-                log.info("Broadcasted {} risk alert for equipment {} via WebSocket",
-                        riskLevel, equipmentName);
-            } catch (Exception e) {
-                log.error("Failed to broadcast WebSocket alert", e);
-            }
-        }
+        // Broadcast to the equipment topic, and to the alert topics if HIGH or CRITICAL
+        riskBroadcastService.publishRisk(riskResponseDTO);
 
         return riskResponseDTO;
     }
 
-    /**
-     * Normalize a value to 0-100 scale
-     */
-    private BigDecimal normalize(BigDecimal value, BigDecimal min, BigDecimal max) {
-        if (value.compareTo(min) <= 0)
-            return BigDecimal.ZERO;
-        if (value.compareTo(max) >= 0)
-            return new BigDecimal("100");
-
-        return value.subtract(min)
-                .multiply(new BigDecimal("100"))
-                .divide(max.subtract(min), 2, RoundingMode.HALF_UP);
-    }
-
-    /**
-     * Determine risk level based on risk score
-     */
-    private RiskEvent.RiskLevel determineRiskLevel(BigDecimal riskScore) {
-        if (riskScore.compareTo(new BigDecimal("85")) >= 0) {
-            return RiskEvent.RiskLevel.CRITICAL;
-        } else if (riskScore.compareTo(new BigDecimal("65")) >= 0) {
-            return RiskEvent.RiskLevel.HIGH;
-        } else if (riskScore.compareTo(new BigDecimal("40")) >= 0) {
-            return RiskEvent.RiskLevel.MEDIUM;
-        } else {
-            return RiskEvent.RiskLevel.LOW;
-        }
-    }
-
     /**
      * Identify which metric contributed most to the risk score
      */
-    private String identifyPrimaryReason(BigDecimal normTemp, BigDecimal normVib, BigDecimal normLoad,
-            BigDecimal actualTemp, BigDecimal actualVib, BigDecimal actualLoad) {
-        Map<String, BigDecimal> contributions = new HashMap<>();
-        contributions.put("Temperature", normTemp.multiply(WEIGHT_TEMP));
-        contributions.put("Vibration", normVib.multiply(WEIGHT_VIB));
-        contributions.put("Load", normLoad.multiply(WEIGHT_LOAD));
-
-        String primaryFactor = contributions.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse("Unknown");
-
-        return String.format("Primary risk factor: %s (%.1f%s)",
-                primaryFactor,
-                getPrimaryValue(primaryFactor, actualTemp, actualVib, actualLoad),
-                getUnit(primaryFactor));
-    }
-
-    private BigDecimal getPrimaryValue(String factor, BigDecimal temp, BigDecimal vib, BigDecimal load) {
-        return switch (factor) {
-            case "Temperature" -> temp;
-            case "Vibration" -> vib;
-            case "Load" -> load;
-            default -> BigDecimal.ZERO;
-        };
-    }
-
-    private String getUnit(String factor) {
-        return switch (factor) {
-            case "Temperature" -> "°C";
-            case "Vibration" -> " mm/s";
-            case "Load" -> "%";
-            default -> "";
-        };
+    private static RiskEvent.RiskFactor identifyPrimaryFactor(long temperature, long vibration, long load) {
+        if (temperature >= vibration && temperature >= load) {
+            return RiskEvent.RiskFactor.TEMPERATURE;
+        }
+        return vibration >= load ? RiskEvent.RiskFactor.VIBRATION : RiskEvent.RiskFactor.LOAD;
     }
 
     /**
-     * Create risk event if:
-     * 1. Risk level is MEDIUM or higher, OR
-     * 2. Risk level changed from previous event
+     * Create a risk event when the RiskEventPolicy asks for one
      */
-    private void createRiskEventIfNeeded(Long equipmentId, java.time.LocalDateTime timestamp,
-            BigDecimal riskScore, RiskEvent.RiskLevel riskLevel, String reason) {
+    private void createRiskEventIfNeeded(ScoringProfileService.CompiledProfile profile,
+            Long equipmentId, java.time.LocalDateTime timestamp,
+            BigDecimal riskScore, RiskEvent.RiskLevel riskLevel,
+            RiskEvent.RiskFactor factor, BigDecimal factorValue) {
         Optional<RiskEvent> lastEvent = riskEventRepository.findFirstByEquipmentIdOrderByTimestampDesc(equipmentId);
 
-        boolean shouldCreate = false;
-
-        if (riskLevel != RiskEvent.RiskLevel.LOW) {
-            // Always create for MEDIUM, HIGH, CRITICAL
-            shouldCreate = true;
-        } else if (lastEvent.isPresent() && lastEvent.get().getRiskLevel() != RiskEvent.RiskLevel.LOW) {
-            // Risk level changed to LOW from higher level
-            shouldCreate = true;
-        }
+        Optional<RiskEvent.RiskLevel> eventLevel = riskEventPolicy.decide(
+                profile, lastEvent, timestamp, riskScore, riskLevel);
 
-        if (shouldCreate) {
+        if (eventLevel.isPresent()) {
             RiskEvent event = new RiskEvent();
             event.setEquipmentId(equipmentId);
             event.setTimestamp(timestamp);
             event.setRiskScore(riskScore);
-            event.setRiskLevel(riskLevel);
-            event.setReason(reason);
+            event.setRiskLevel(eventLevel.get());
+            event.setReasonFactor(factor);
+            event.setReasonValue(factorValue);
             riskEventRepository.save(event);
 
-            log.info("Created risk event for equipment {}: level={}", equipmentId, riskLevel);
+            logRiskEvent(equipmentId, lastEvent.map(RiskEvent::getRiskLevel).orElse(null), eventLevel.get(),
+                    riskScore, factor, factorValue);
+        }
+    }
+
+    /**
+     * Equipment name and scoring profile, resolved once for a run of readings of one equipment
+     * The profile is the one of the snapshot current when the target was resolved.
+     */
+    public record Target(long equipmentId, String equipmentName, ScoringProfileService.CompiledProfile profile) {
+    }
+
+    private void logRiskEvent(Long equipmentId, RiskEvent.RiskLevel previous, RiskEvent.RiskLevel level,
+            BigDecimal riskScore, RiskEvent.RiskFactor factor, BigDecimal factorValue) {
+        if (previous != level) {
+            log.info("Risk level of equipment {} changed from {} to {}: score={}, factor={} ({})",
+                    equipmentId, previous, level, riskScore, factor, factorValue);
+        } else if (EVENT_LOG.allow()) {
+            log.info("Created risk event for equipment {}: level={}", equipmentId, level);
         }
     }
 }
@@ -0,0 +1,128 @@
+package com.equipmentpredictor.service;
+
+import com.equipmentpredictor.model.RiskEvent;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Counts the risk level of every reading in columns of hundredths
+ *
+ * Produces exactly the levels of RiskPredictionService (normalized values and
+ * the score rounded half up to two decimals) without BigDecimal: all work is
+ * done on doubles holding integers, which are exact below 2^53.
+ *   normalized = clamp(trunc((x - min) * 10000 / span + 0.5), 0, 10000)   hundredths
+ *   S          = sum(normalized * weight * 10^s)                          s = weight decimals
+ *   level >= L  <=>  round(S / 10^s) >= ceil(threshold_L * 100)  <=>  2S >= bound_L
+ * The division is correctly rounded and lands exactly on .5 only when the true
+ * quotient does, so half-up rounding matches BigDecimal.
+ */
+@Slf4j
+abstract class RiskScoringKernel {
+
+    /**
+     * The vector kernel when it was built (-Pvector) and the JVM runs with
+     * --add-modules jdk.incubator.vector, else the scalar one
+     */
+    static RiskScoringKernel forPlatform() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                Class<?> vector = Class.forName(RiskScoringKernel.class.getPackageName() + ".VectorRiskScoringKernel");
+                return (RiskScoringKernel) vector.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                log.warn("Vector API unavailable, using the scalar scoring kernel: {}", e.toString());
+            }
+        }
+        return new Scalar();
+    }
+
+    abstract String describe();
+
+    /**
+     * Add the number of readings at each level, indexed by RiskLevel ordinal, to counts
+     */
+    abstract void countLevels(double[] temperature, double[] vibration, double[] load, int size,
+            Params params, long[] counts);
+
+    static double normalized(double value, Channel channel) {
+        long rounded = (long) ((value - channel.min()) * 10_000 / channel.span() + 0.5);
+        return Math.min(10_000, Math.max(0, rounded));
+    }
+
+    static double twiceScaledScore(double temperature, double vibration, double load, Params params) {
+        double score = normalized(temperature, params.temperature()) * params.temperature().weight()
+                + normalized(vibration, params.vibration()) * params.vibration().weight()
+                + normalized(load, params.load()) * params.load().weight();
+        return score + score;
+    }
+
+    static void addCounts(long[] counts, int size, long medium, long high, long critical) {
+        counts[RiskEvent.RiskLevel.LOW.ordinal()] += size - medium;
+        counts[RiskEvent.RiskLevel.MEDIUM.ordinal()] += medium - high;
+        counts[RiskEvent.RiskLevel.HIGH.ordinal()] += high - critical;
+        counts[RiskEvent.RiskLevel.CRITICAL.ordinal()] += critical;
+    }
+
+    /**
+     * Normalization range in hundredths and weight scaled to an integer (ScoringProfileService.Channel)
+     */
+    record Channel(double min, double span, double weight) {
+    }
+
+    /**
+     * A compiled profile in kernel units; medium, high and critical are bounds on 2S
+     */
+    record Params(Channel temperature, Channel vibration, Channel load,
+            double medium, double high, double critical) {
+
+        static Params of(ScoringProfileService.CompiledProfile profile) {
+            return new Params(
+                    channel(profile.temperature()),
+                    channel(profile.vibration()),
+                    channel(profile.load()),
+                    bound(profile.mediumScore(), profile.weightScale()),
+                    bound(profile.highScore(), profile.weightScale()),
+                    bound(profile.criticalScore(), profile.weightScale()));
+        }
+
+        private static Channel channel(ScoringProfileService.Channel channel) {
+            return new Channel(channel.minHundredths(), channel.spanHundredths(), channel.scaledWeight());
+        }
+
+        // round(S / 10^s) >= lowest  <=>  2S >= (2 * lowest - 1) * 10^s
+        private static double bound(int lowestScore, long weightScale) {
+            return (2.0 * lowestScore - 1) * weightScale;
+        }
+    }
+
+    /**
+     * One reading at a time; used when the Vector API module is not loaded
+     */
+    static final class Scalar extends RiskScoringKernel {
+
+        @Override
+        String describe() {
+            return "scalar";
+        }
+
+        @Override
+        void countLevels(double[] temperature, double[] vibration, double[] load, int size,
+                Params params, long[] counts) {
+            long medium = 0;
+            long high = 0;
+            long critical = 0;
+            for (int i = 0; i < size; i++) {
+                double twice = twiceScaledScore(temperature[i], vibration[i], load[i], params);
+                if (twice >= params.medium()) {
+                    medium++;
+                }
+                if (twice >= params.high()) {
+                    high++;
+                }
+                if (twice >= params.critical()) {
+                    critical++;
+                }
+            }
+            addCounts(counts, size, medium, high, critical);
+        }
+    }
+}
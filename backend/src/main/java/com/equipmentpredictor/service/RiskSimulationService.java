@@ -0,0 +1,366 @@
+package com.equipmentpredictor.service;
+
+import com.equipmentpredictor.dto.RiskSimulationRequestDTO;
+import com.equipmentpredictor.dto.RiskSimulationResultDTO;
+import com.equipmentpredictor.exception.ResourceNotFoundException;
+import com.equipmentpredictor.model.Equipment;
+import com.equipmentpredictor.model.RiskEvent;
+import com.equipmentpredictor.model.ScoringProfile;
+import com.equipmentpredictor.model.SensorLog;
+import com.equipmentpredictor.repository.EquipmentRepository;
+import com.equipmentpredictor.repository.SensorLogRepository;
+import com.equipmentpredictor.store.SensorArchiveStore;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * What-if scoring of stored readings under candidate weights and thresholds
+ *
+ * Nothing is written: readings of each equipment are streamed (database and
+ * archive, in timestamp order) through fixed-size chunks of primitive columns
+ * and scored under both the current profile of its type and the candidate,
+ * which is that profile with the requested overrides. Levels are counted per
+ * chunk, with the vector kernel when the JVM has jdk.incubator.vector (see
+ * RiskScoringKernel), and match live scoring exactly. Alerts are the events at
+ * MEDIUM or above that RiskEventPolicy would record, replayed per equipment
+ * from no prior event. Equipment is processed in parallel on a fixed pool,
+ * each task in its own read-only transaction.
+ */
+@Service
+@Slf4j
+public class RiskSimulationService {
+
+    private static final RiskEvent.RiskLevel[] LEVELS = RiskEvent.RiskLevel.values();
+    private static final int CHUNK_READINGS = 4096;
+
+    private final EquipmentRepository equipmentRepository;
+    private final SensorLogRepository sensorLogRepository;
+    private final ScoringProfileService scoringProfileService;
+    private final RiskEventPolicy riskEventPolicy;
+    // Present only when archive.enabled=true
+    private final ObjectProvider<SensorArchiveStore> archiveStore;
+    private final TransactionTemplate readOnly;
+    private final Duration maxRange;
+    private final RiskScoringKernel kernel = RiskScoringKernel.forPlatform();
+    private final ExecutorService workers;
+
+    public RiskSimulationService(EquipmentRepository equipmentRepository,
+            SensorLogRepository sensorLogRepository,
+            ScoringProfileService scoringProfileService,
+            RiskEventPolicy riskEventPolicy,
+            ObjectProvider<SensorArchiveStore> archiveStore,
+            PlatformTransactionManager transactionManager,
+            @Value("${simulation.max-days:93}") long maxDays,
+            @Value("${simulation.parallelism:4}") int parallelism) {
+        this.equipmentRepository = equipmentRepository;
+        this.sensorLogRepository = sensorLogRepository;
+        this.scoringProfileService = scoringProfileService;
+        this.riskEventPolicy = riskEventPolicy;
+        this.archiveStore = archiveStore;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.maxRange = Duration.ofDays(maxDays);
+        this.workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "risk-simulation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("Risk simulation uses the {} scoring kernel", kernel.describe());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    public RiskSimulationResultDTO simulate(RiskSimulationRequestDTO request) {
+        long started = System.nanoTime();
+        LocalDateTime from = request.getFrom();
+        LocalDateTime to = request.getTo();
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("From must be before to");
+        }
+        if (Duration.between(from, to).compareTo(maxRange) > 0) {
+            throw new IllegalArgumentException("Range may span at most " + maxRange.toDays() + " days");
+        }
+
+        // Compile per type up front so an invalid candidate fails before any work
+        Map<Long, String> equipment = selectEquipment(request);
+        ScoringProfileService.Snapshot profiles = scoringProfileService.snapshot();
+        Map<String, Settings[]> settingsByType = new HashMap<>();
+        Map<Long, Settings[]> settingsById = new LinkedHashMap<>();
+        equipment.forEach((id, type) -> settingsById.put(id, settingsByType.computeIfAbsent(type, t -> {
+            ScoringProfileService.CompiledProfile current = profiles.forType(t);
+            return new Settings[] {
+                    Settings.of(current),
+                    Settings.of(ScoringProfileService.compile(candidate(current, request)))};
+        })));
+
+        List<Future<Replay>> pending = new ArrayList<>();
+        settingsById.forEach((id, settings) -> pending.add(workers.submit(
+                () -> readOnly.execute(status -> replay(id, from, to, settings)))));
+
+        Tally current = new Tally();
+        Tally candidate = new Tally();
+        long readings = 0;
+        try {
+            for (Future<Replay> future : pending) {
+                Replay replay = future.get();
+                current.add(replay.outcomes[0]);
+                candidate.add(replay.outcomes[1]);
+                readings += replay.readings;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Risk simulation interrupted", e);
+        } catch (ExecutionException e) {
+            pending.forEach(future -> future.cancel(true));
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        }
+
+        long durationMs = (System.nanoTime() - started) / 1_000_000;
+        log.info("Simulated {} readings of {} equipment in {} ms", readings, equipment.size(), durationMs);
+        return RiskSimulationResultDTO.builder()
+                .from(from)
+                .to(to)
+                .equipmentCount(equipment.size())
+                .readings(readings)
+                .current(current.outcome())
+                .candidate(candidate.outcome())
+                .kernel(kernel.describe())
+                .durationMs(durationMs)
+                .build();
+    }
+
+    /**
+     * Selected equipment id to type, by id
+     */
+    private Map<Long, String> selectEquipment(RiskSimulationRequestDTO request) {
+        if (request.getEquipmentIds() != null && !request.getEquipmentIds().isEmpty()) {
+            TreeSet<Long> ids = new TreeSet<>(request.getEquipmentIds());
+            Map<Long, String> found = equipmentRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Equipment::getId, Equipment::getType));
+            ids.removeAll(found.keySet());
+            if (!ids.isEmpty()) {
+                throw new ResourceNotFoundException("Equipment not found with id: " + ids.first());
+            }
+            return found.entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+        }
+        return readOnly.execute(status -> {
+            try (Stream<EquipmentRepository.EquipmentSummary> summaries =
+                         equipmentRepository.streamSummaries(request.getEquipmentType(), request.getLocation())) {
+                Map<Long, String> selected = new LinkedHashMap<>();
+                summaries.forEach(summary -> selected.put(summary.getId(), summary.getType()));
+                return selected;
+            }
+        });
+    }
+
+    private static ScoringProfile candidate(ScoringProfileService.CompiledProfile current,
+            RiskSimulationRequestDTO request) {
+        return new ScoringProfile(null, null,
+                current.temperature().min(), current.temperature().max(),
+                current.vibration().min(), current.vibration().max(),
+                current.load().min(), current.load().max(),
+                override(request.getWeightTemperature(), current.temperature().weight()),
+                override(request.getWeightVibration(), current.vibration().weight()),
+                override(request.getWeightLoad(), current.load().weight()),
+                override(request.getThresholdMedium(), current.thresholdMedium()),
+                override(request.getThresholdHigh(), current.thresholdHigh()),
+                override(request.getThresholdCritical(), current.thresholdCritical()),
+                null);
+    }
+
+    private static BigDecimal override(BigDecimal requested, BigDecimal current) {
+        return requested != null ? requested : current;
+    }
+
+    /**
+     * Replays the readings of one equipment with from <= timestamp <= to
+     * Archived days are read from the archive only, in order between the
+     * database rows; database rows left on them by an interrupted archive run
+     * are skipped.
+     */
+    private Replay replay(Long equipmentId, LocalDateTime from, LocalDateTime to, Settings[] settings) {
+        Replay replay = new Replay(equipmentId, settings);
+        SensorArchiveStore store = archiveStore.getIfAvailable();
+        NavigableSet<LocalDate> archived = store == null ? new TreeSet<>()
+                : store.archivedDays(equipmentId).subSet(from.toLocalDate(), true, to.toLocalDate(), true);
+        Deque<LocalDate> unread = new ArrayDeque<>(archived);
+
+        try (Stream<SensorLog> rows = sensorLogRepository.streamByEquipmentIdAndTimestampBetween(equipmentId, from, to)) {
+            rows.forEach(row -> {
+                LocalDate day = row.getTimestamp().toLocalDate();
+                while (!unread.isEmpty() && unread.peekFirst().isBefore(day)) {
+                    replayArchived(store, replay, unread.pollFirst(), from, to);
+                }
+                if (archived.isEmpty() || !archived.contains(day)) {
+                    replay.add(row.getTimestamp(), row.getTemperatureHundredths(),
+                            row.getVibrationHundredths(), row.getLoadHundredths());
+                }
+            });
+        }
+        while (!unread.isEmpty()) {
+            replayArchived(store, replay, unread.pollFirst(), from, to);
+        }
+        replay.flush();
+        return replay;
+    }
+
+    private static void replayArchived(SensorArchiveStore store, Replay replay, LocalDate day,
+            LocalDateTime from, LocalDateTime to) {
+        LocalDateTime dayStart = day.atStartOfDay();
+        LocalDateTime dayEnd = day.plusDays(1).atStartOfDay().minusNanos(1);
+        store.readRange(replay.equipmentId, from.isAfter(dayStart) ? from : dayStart,
+                        to.isBefore(dayEnd) ? to : dayEnd, Integer.MAX_VALUE, false)
+                .forEach(row -> replay.add(row.getTimestamp(), SensorLog.toHundredths(row.getTemperature()),
+                        SensorLog.toHundredths(row.getVibration()),
+                        SensorLog.toHundredths(row.getLoadPercentage())));
+    }
+
+    /**
+     * A compiled profile and its kernel parameters
+     */
+    private record Settings(ScoringProfileService.CompiledProfile profile, RiskScoringKernel.Params params) {
+
+        static Settings of(ScoringProfileService.CompiledProfile profile) {
+            return new Settings(profile, RiskScoringKernel.Params.of(profile));
+        }
+    }
+
+    /**
+     * Level counts and recorded alerts of one equipment under one setting
+     */
+    private static final class Outcome {
+        final long[] levels = new long[LEVELS.length];
+        long alerts;
+        Optional<RiskEvent> lastEvent = Optional.empty();
+    }
+
+    /**
+     * Readings of one equipment in timestamp order, scored a chunk at a time
+     * The chunk holds readings in hundredths; when full, levels are counted
+     * by the kernel and the event policy is replayed over it reading by
+     * reading. Only readings at MEDIUM or above, or following a recorded
+     * level above LOW, can produce an event, so only those are passed to it.
+     */
+    private final class Replay {
+        final Long equipmentId;
+        final Settings[] settings;
+        final Outcome[] outcomes;
+        final LocalDateTime[] timestamps = new LocalDateTime[CHUNK_READINGS];
+        final double[] temperature = new double[CHUNK_READINGS];
+        final double[] vibration = new double[CHUNK_READINGS];
+        final double[] load = new double[CHUNK_READINGS];
+        int size;
+        long readings;
+
+        Replay(Long equipmentId, Settings[] settings) {
+            this.equipmentId = equipmentId;
+            this.settings = settings;
+            this.outcomes = new Outcome[settings.length];
+            Arrays.setAll(outcomes, i -> new Outcome());
+        }
+
+        void add(LocalDateTime timestamp, short temperatureHundredths, short vibrationHundredths,
+                short loadHundredths) {
+            timestamps[size] = timestamp;
+            temperature[size] = temperatureHundredths;
+            vibration[size] = vibrationHundredths;
+            load[size] = loadHundredths;
+            if (++size == CHUNK_READINGS) {
+                flush();
+            }
+        }
+
+        void flush() {
+            for (int s = 0; s < settings.length; s++) {
+                kernel.countLevels(temperature, vibration, load, size, settings[s].params(), outcomes[s].levels);
+                replayEvents(settings[s].profile(), outcomes[s]);
+            }
+            readings += size;
+            size = 0;
+        }
+
+        private void replayEvents(ScoringProfileService.CompiledProfile profile, Outcome outcome) {
+            for (int i = 0; i < size; i++) {
+                int score = profile.score(profile.temperature().weighted((int) temperature[i])
+                        + profile.vibration().weighted((int) vibration[i])
+                        + profile.load().weighted((int) load[i]));
+                RiskEvent.RiskLevel level = profile.level(score);
+                if (level == RiskEvent.RiskLevel.LOW && outcome.lastEvent
+                        .map(event -> event.getRiskLevel() == RiskEvent.RiskLevel.LOW).orElse(true)) {
+                    continue;
+                }
+                BigDecimal riskScore = BigDecimal.valueOf(score, 2);
+                Optional<RiskEvent.RiskLevel> recorded = riskEventPolicy.decide(
+                        profile, outcome.lastEvent, timestamps[i], riskScore, level);
+                if (recorded.isPresent()) {
+                    outcome.lastEvent = Optional.of(
+                            new RiskEvent(null, equipmentId, timestamps[i], riskScore, recorded.get(), null, null));
+                    if (recorded.get() != RiskEvent.RiskLevel.LOW) {
+                        outcome.alerts++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Level counts summed over equipment
+     */
+    private static final class Tally {
+        final long[] levels = new long[LEVELS.length];
+        long alerts;
+        int equipmentWithAlerts;
+
+        void add(Outcome outcome) {
+            for (int i = 0; i < levels.length; i++) {
+                levels[i] += outcome.levels[i];
+            }
+            alerts += outcome.alerts;
+            if (outcome.alerts > 0) {
+                equipmentWithAlerts++;
+            }
+        }
+
+        RiskSimulationResultDTO.Outcome outcome() {
+            Map<RiskEvent.RiskLevel, Long> byLevel = new EnumMap<>(RiskEvent.RiskLevel.class);
+            for (RiskEvent.RiskLevel level : LEVELS) {
+                byLevel.put(level, levels[level.ordinal()]);
+            }
+            return new RiskSimulationResultDTO.Outcome(byLevel, alerts, equipmentWithAlerts);
+        }
+    }
+}
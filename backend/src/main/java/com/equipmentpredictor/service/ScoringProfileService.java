@@ -0,0 +1,381 @@
+package com.equipmentpredictor.service;
+
+import com.equipmentpredictor.dto.ScoringProfileDTO;
+import com.equipmentpredictor.exception.ResourceNotFoundException;
+import com.equipmentpredictor.model.RiskEvent;
+import com.equipmentpredictor.model.ScoringProfile;
+import com.equipmentpredictor.repository.ScoringProfileRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Risk scoring profiles per equipment type
+ * Profiles are compiled into an immutable Snapshot that is swapped in one
+ * volatile write whenever the table changes, so scoring reads it without
+ * locks or queries. Changes made through this service apply immediately;
+ * changes made on other nodes or directly in the table are picked up by
+ * the periodic refresh.
+ */
+@Service
+@Slf4j
+public class ScoringProfileService {
+
+    private static final BigDecimal HUNDRED = new BigDecimal("100");
+    private static final int MAX_RANGE_DECIMALS = 2;
+    private static final int MAX_WEIGHT_DECIMALS = 8;
+    // Plain notation keeps every digit of the BigDecimals exact in the statement
+    private static final ObjectMapper JSON = JsonMapper.builder()
+            .enable(StreamWriteFeature.WRITE_BIGDECIMAL_AS_PLAIN)
+            .build();
+
+    private final ScoringProfileRepository scoringProfileRepository;
+    private final CompiledProfile defaultProfile;
+
+    private volatile Snapshot snapshot;
+    // Rows of the last load by id; a refresh compiles again only when they differ
+    private List<ScoringProfile> loadedRows;
+
+    public ScoringProfileService(ScoringProfileRepository scoringProfileRepository,
+            @Value("${risk.calculation.weight.temperature:0.40}") BigDecimal weightTemperature,
+            @Value("${risk.calculation.weight.vibration:0.35}") BigDecimal weightVibration,
+            @Value("${risk.calculation.weight.load:0.25}") BigDecimal weightLoad) {
+        this.scoringProfileRepository = scoringProfileRepository;
+        ScoringProfile defaults = new ScoringProfile(null, null,
+                BigDecimal.ZERO, new BigDecimal("150"),
+                BigDecimal.ZERO, new BigDecimal("50"),
+                BigDecimal.ZERO, HUNDRED,
+                weightTemperature, weightVibration, weightLoad,
+                new BigDecimal("40"), new BigDecimal("65"), new BigDecimal("85"),
+                null);
+        this.defaultProfile = compile(defaults);
+        this.snapshot = Snapshot.of(Map.of(), defaultProfile);
+    }
+
+    /**
+     * Current profiles; a single volatile read
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    @PostConstruct
+    public void load() {
+        reload();
+    }
+
+    /**
+     * Recompile when the table changed since the last load
+     * Rows are compared by content, so direct edits that leave updated_at
+     * alone are picked up as well; the table holds one row per type.
+     */
+    @Scheduled(fixedDelayString = "${risk.profiles.refresh-ms:30000}")
+    public synchronized void refresh() {
+        List<ScoringProfile> profiles = byId(scoringProfileRepository.findAll());
+        if (!profiles.equals(loadedRows)) {
+            reload(profiles);
+        }
+    }
+
+    public List<ScoringProfileDTO> getAllProfiles() {
+        return scoringProfileRepository.findAll().stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    public ScoringProfileDTO getProfile(String equipmentType) {
+        return scoringProfileRepository.findByEquipmentType(equipmentType)
+                .map(this::convertToDTO)
+                .orElseThrow(() -> new ResourceNotFoundException("No scoring profile for equipment type: " + equipmentType));
+    }
+
+    /**
+     * Create or replace the profile for an equipment type and apply it immediately
+     */
+    public ScoringProfileDTO saveProfile(String equipmentType, ScoringProfileDTO dto) {
+        ScoringProfile profile = scoringProfileRepository.findByEquipmentType(equipmentType)
+                .orElseGet(ScoringProfile::new);
+        profile.setEquipmentType(equipmentType);
+        profile.setTemperatureMin(dto.getTemperatureMin());
+        profile.setTemperatureMax(dto.getTemperatureMax());
+        profile.setVibrationMin(dto.getVibrationMin());
+        profile.setVibrationMax(dto.getVibrationMax());
+        profile.setLoadMin(dto.getLoadMin());
+        profile.setLoadMax(dto.getLoadMax());
+        profile.setWeightTemperature(dto.getWeightTemperature());
+        profile.setWeightVibration(dto.getWeightVibration());
+        profile.setWeightLoad(dto.getWeightLoad());
+        profile.setThresholdMedium(dto.getThresholdMedium());
+        profile.setThresholdHigh(dto.getThresholdHigh());
+        profile.setThresholdCritical(dto.getThresholdCritical());
+
+        // Reject invalid profiles before they reach the table
+        compile(profile);
+
+        ScoringProfile saved = scoringProfileRepository.save(profile);
+        log.info("Saved scoring profile for equipment type {}", equipmentType);
+        reload();
+        return convertToDTO(saved);
+    }
+
+    /**
+     * Delete the profile for an equipment type; it falls back to the default profile
+     */
+    public void deleteProfile(String equipmentType) {
+        ScoringProfile profile = scoringProfileRepository.findByEquipmentType(equipmentType)
+                .orElseThrow(() -> new ResourceNotFoundException("No scoring profile for equipment type: " + equipmentType));
+        scoringProfileRepository.delete(profile);
+        log.info("Deleted scoring profile for equipment type {}", equipmentType);
+        reload();
+    }
+
+    private synchronized void reload() {
+        reload(byId(scoringProfileRepository.findAll()));
+    }
+
+    private synchronized void reload(List<ScoringProfile> profiles) {
+        Map<String, CompiledProfile> byType = new HashMap<>();
+        for (ScoringProfile profile : profiles) {
+            try {
+                byType.put(profile.getEquipmentType(), compile(profile));
+            } catch (IllegalArgumentException e) {
+                log.error("Ignoring invalid scoring profile for {}: {}", profile.getEquipmentType(), e.getMessage());
+            }
+        }
+        snapshot = Snapshot.of(Map.copyOf(byType), defaultProfile);
+        loadedRows = profiles;
+        log.info("Loaded {} scoring profiles", byType.size());
+    }
+
+    private static List<ScoringProfile> byId(List<ScoringProfile> profiles) {
+        return profiles.stream()
+                .sorted(Comparator.comparing(ScoringProfile::getId))
+                .toList();
+    }
+
+    static CompiledProfile compile(ScoringProfile profile) {
+        if (profile.getTemperatureMin().compareTo(profile.getTemperatureMax()) >= 0
+                || profile.getVibrationMin().compareTo(profile.getVibrationMax()) >= 0
+                || profile.getLoadMin().compareTo(profile.getLoadMax()) >= 0) {
+            throw new IllegalArgumentException("Each range min must be below its max");
+        }
+        BigDecimal weightSum = profile.getWeightTemperature()
+                .add(profile.getWeightVibration())
+                .add(profile.getWeightLoad());
+        if (weightSum.compareTo(BigDecimal.ONE) != 0) {
+            throw new IllegalArgumentException("Weights must sum to 1.0, got " + weightSum);
+        }
+        if (profile.getThresholdMedium().compareTo(profile.getThresholdHigh()) >= 0
+                || profile.getThresholdHigh().compareTo(profile.getThresholdCritical()) >= 0) {
+            throw new IllegalArgumentException("Thresholds must increase from medium to high to critical");
+        }
+        if (Stream.of(profile.getTemperatureMin(), profile.getTemperatureMax(), profile.getVibrationMin(),
+                        profile.getVibrationMax(), profile.getLoadMin(), profile.getLoadMax())
+                .anyMatch(value -> decimals(value) > MAX_RANGE_DECIMALS)) {
+            throw new IllegalArgumentException("Ranges may have at most " + MAX_RANGE_DECIMALS + " decimals");
+        }
+        int weightDecimals = Stream.of(profile.getWeightTemperature(), profile.getWeightVibration(),
+                        profile.getWeightLoad())
+                .mapToInt(ScoringProfileService::decimals)
+                .max().orElse(0);
+        if (weightDecimals > MAX_WEIGHT_DECIMALS) {
+            throw new IllegalArgumentException("Weights may have at most " + MAX_WEIGHT_DECIMALS + " decimals");
+        }
+        return new CompiledProfile(
+                Channel.of(profile.getTemperatureMin(), profile.getTemperatureMax(), profile.getWeightTemperature(),
+                        weightDecimals),
+                Channel.of(profile.getVibrationMin(), profile.getVibrationMax(), profile.getWeightVibration(),
+                        weightDecimals),
+                Channel.of(profile.getLoadMin(), profile.getLoadMax(), profile.getWeightLoad(), weightDecimals),
+                profile.getThresholdMedium(), profile.getThresholdHigh(), profile.getThresholdCritical(),
+                BigDecimal.ONE.movePointRight(weightDecimals).longValueExact(),
+                lowestScore(profile.getThresholdMedium()),
+                lowestScore(profile.getThresholdHigh()),
+                lowestScore(profile.getThresholdCritical()));
+    }
+
+    private static int decimals(BigDecimal value) {
+        return Math.max(value.stripTrailingZeros().scale(), 0);
+    }
+
+    // Lowest score in hundredths that reaches the threshold
+    private static int lowestScore(BigDecimal threshold) {
+        return threshold.movePointRight(2).setScale(0, RoundingMode.CEILING).intValueExact();
+    }
+
+    private ScoringProfileDTO convertToDTO(ScoringProfile profile) {
+        return ScoringProfileDTO.builder()
+                .equipmentType(profile.getEquipmentType())
+                .temperatureMin(profile.getTemperatureMin())
+                .temperatureMax(profile.getTemperatureMax())
+                .vibrationMin(profile.getVibrationMin())
+                .vibrationMax(profile.getVibrationMax())
+                .loadMin(profile.getLoadMin())
+                .loadMax(profile.getLoadMax())
+                .weightTemperature(profile.getWeightTemperature())
+                .weightVibration(profile.getWeightVibration())
+                .weightLoad(profile.getWeightLoad())
+                .thresholdMedium(profile.getThresholdMedium())
+                .thresholdHigh(profile.getThresholdHigh())
+                .thresholdCritical(profile.getThresholdCritical())
+                .updatedAt(profile.getUpdatedAt())
+                .build();
+    }
+
+    /**
+     * Immutable set of compiled profiles
+     * `json` holds the same profiles for SensorLogRepository.insertAndEvaluate,
+     * the default one with a null type; built once per snapshot.
+     */
+    public record Snapshot(Map<String, CompiledProfile> byType, CompiledProfile defaultProfile, String json) {
+
+        static Snapshot of(Map<String, CompiledProfile> byType, CompiledProfile defaultProfile) {
+            ArrayNode profiles = JSON.createArrayNode();
+            byType.forEach((type, profile) -> profile.writeTo(profiles.addObject().put("type", type)));
+            defaultProfile.writeTo(profiles.addObject().putNull("type"));
+            try {
+                return new Snapshot(byType, defaultProfile, JSON.writeValueAsString(profiles));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Cannot serialize scoring profiles", e);
+            }
+        }
+
+        public CompiledProfile forType(String equipmentType) {
+            CompiledProfile profile = equipmentType != null ? byType.get(equipmentType) : null;
+            return profile != null ? profile : defaultProfile;
+        }
+    }
+
+    /**
+     * One sensor channel: normalization range (with max - min precomputed) and weight
+     * The range is also kept in hundredths and the weight scaled to an integer
+     * (CompiledProfile.weightScale), for scoring readings without BigDecimal.
+     */
+    public record Channel(BigDecimal min, BigDecimal max, BigDecimal span, BigDecimal weight,
+            long minHundredths, long spanHundredths, long scaledWeight) {
+
+        static Channel of(BigDecimal min, BigDecimal max, BigDecimal weight, int weightDecimals) {
+            BigDecimal span = max.subtract(min);
+            return new Channel(min, max, span, weight,
+                    min.movePointRight(2).longValueExact(), span.movePointRight(2).longValueExact(),
+                    weight.movePointRight(weightDecimals).longValueExact());
+        }
+
+        /**
+         * Normalized reading times the scaled weight
+         * The reading is in hundredths and normalized to hundredths (0-10000),
+         * rounded half up as normalize() does; exact in long arithmetic.
+         */
+        public long weighted(int hundredths) {
+            long offset = hundredths - minHundredths;
+            if (offset <= 0) {
+                return 0;
+            }
+            if (offset >= spanHundredths) {
+                return 10_000 * scaledWeight;
+            }
+            return (offset * 20_000 + spanHundredths) / (2 * spanHundredths) * scaledWeight;
+        }
+
+        /**
+         * Normalize a value to 0-100 scale
+         */
+        public BigDecimal normalize(BigDecimal value) {
+            if (value.compareTo(min) <= 0)
+                return BigDecimal.ZERO;
+            if (value.compareTo(max) >= 0)
+                return HUNDRED;
+
+            return value.subtract(min)
+                    .multiply(HUNDRED)
+                    .divide(span, 2, RoundingMode.HALF_UP);
+        }
+    }
+
+    /**
+     * Scoring parameters for one equipment type, validated once at compile time
+     * Besides the BigDecimal values it holds the integer coefficients of the
+     * scoring hot path: weights times weightScale and the lowest score in
+     * hundredths of each level.
+     */
+    public record CompiledProfile(Channel temperature, Channel vibration, Channel load,
+            BigDecimal thresholdMedium, BigDecimal thresholdHigh, BigDecimal thresholdCritical,
+            long weightScale, int mediumScore, int highScore, int criticalScore) {
+
+        /**
+         * Risk score in hundredths from the sum of Channel.weighted, rounded half up
+         */
+        public int score(long weighted) {
+            return (int) ((2 * weighted + weightScale) / (2 * weightScale));
+        }
+
+        /**
+         * Risk level of a score in hundredths; same result as level(BigDecimal)
+         */
+        public RiskEvent.RiskLevel level(int scoreHundredths) {
+            if (scoreHundredths >= criticalScore) {
+                return RiskEvent.RiskLevel.CRITICAL;
+            } else if (scoreHundredths >= highScore) {
+                return RiskEvent.RiskLevel.HIGH;
+            } else if (scoreHundredths >= mediumScore) {
+                return RiskEvent.RiskLevel.MEDIUM;
+            } else {
+                return RiskEvent.RiskLevel.LOW;
+            }
+        }
+
+        /**
+         * Lowest score of a risk level
+         */
+        public BigDecimal threshold(RiskEvent.RiskLevel level) {
+            return switch (level) {
+                case CRITICAL -> thresholdCritical;
+                case HIGH -> thresholdHigh;
+                case MEDIUM -> thresholdMedium;
+                case LOW -> BigDecimal.ZERO;
+            };
+        }
+
+        void writeTo(ObjectNode node) {
+            node.put("temperature_min", temperature.min()).put("temperature_max", temperature.max())
+                    .put("temperature_weight", temperature.weight())
+                    .put("vibration_min", vibration.min()).put("vibration_max", vibration.max())
+                    .put("vibration_weight", vibration.weight())
+                    .put("load_min", load.min()).put("load_max", load.max()).put("load_weight", load.weight())
+                    .put("threshold_medium", thresholdMedium).put("threshold_high", thresholdHigh)
+                    .put("threshold_critical", thresholdCritical);
+        }
+
+        /**
+         * Determine risk level based on risk score
+         */
+        public RiskEvent.RiskLevel level(BigDecimal riskScore) {
+            if (riskScore.compareTo(thresholdCritical) >= 0) {
+                return RiskEvent.RiskLevel.CRITICAL;
+            } else if (riskScore.compareTo(thresholdHigh) >= 0) {
+                return RiskEvent.RiskLevel.HIGH;
+            } else if (riskScore.compareTo(thresholdMedium) >= 0) {
+                return RiskEvent.RiskLevel.MEDIUM;
+            } else {
+                return RiskEvent.RiskLevel.LOW;
+            }
+        }
+    }
+}
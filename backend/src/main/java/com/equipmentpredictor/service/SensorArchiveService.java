@@ -0,0 +1,92 @@
+package com.equipmentpredictor.service;
+
+import com.equipmentpredictor.model.Equipment;
+import com.equipmentpredictor.model.SensorLog;
+import com.equipmentpredictor.repository.EquipmentRepository;
+import com.equipmentpredictor.repository.SensorLogRepository;
+import com.equipmentpredictor.store.SensorArchiveStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Moves aged sensor history from the database into the cold archive
+ * Each full day older than `archive.after-days` is written to the archive
+ * (merged with anything already archived for that day), and only then are
+ * exactly the archived rows deleted from the database. A crash in between
+ * leaves rows in both places, which the next run and readers deduplicate by id.
+ */
+@Service
+@ConditionalOnProperty(name = "archive.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class SensorArchiveService {
+
+    private final SensorArchiveStore archiveStore;
+    private final SensorLogRepository sensorLogRepository;
+    private final EquipmentRepository equipmentRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${archive.after-days:30}")
+    private int afterDays;
+
+    @Scheduled(cron = "${archive.cron:0 30 2 * * *}")
+    public void archiveAgedReadings() {
+        LocalDate cutoff = LocalDate.now().minusDays(afterDays);
+        for (Equipment equipment : equipmentRepository.findAll()) {
+            try {
+                archiveEquipment(equipment.getId(), cutoff);
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to archive readings for equipment {}", equipment.getId(), e);
+            }
+        }
+    }
+
+    /**
+     * Archive every day before `cutoff` that still has rows in the database
+     */
+    void archiveEquipment(Long equipmentId, LocalDate cutoff) throws IOException {
+        Optional<SensorLog> oldest = sensorLogRepository.findFirstByEquipmentIdOrderByTimestampAsc(equipmentId);
+        if (oldest.isEmpty()) {
+            return;
+        }
+
+        for (LocalDate day = oldest.get().getTimestamp().toLocalDate(); day.isBefore(cutoff); day = day.plusDays(1)) {
+            List<SensorLog> rows = sensorLogRepository.findForArchive(
+                    equipmentId, day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+            if (rows.isEmpty()) {
+                continue;
+            }
+
+            archiveStore.write(equipmentId, day, merge(archiveStore.readDay(equipmentId, day), rows));
+
+            List<Long> ids = rows.stream().map(SensorLog::getId).toList();
+            transactionTemplate.executeWithoutResult(status -> sensorLogRepository.deleteAllByIdInBatch(ids));
+        }
+    }
+
+    private static List<SensorLog> merge(List<SensorLog> archived, List<SensorLog> rows) {
+        if (archived.isEmpty()) {
+            return rows;
+        }
+        Map<Long, SensorLog> byId = new LinkedHashMap<>();
+        archived.forEach(row -> byId.put(row.getId(), row));
+        rows.forEach(row -> byId.put(row.getId(), row));
+        List<SensorLog> merged = new ArrayList<>(byId.values());
+        merged.sort(Comparator.comparing(SensorLog::getTimestamp).thenComparing(SensorLog::getId));
+        return merged;
+    }
+}
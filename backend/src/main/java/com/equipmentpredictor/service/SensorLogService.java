@@ -1,66 +1,459 @@
 package com.equipmentpredictor.service;
 
+import com.equipmentpredictor.datasource.MaxReplicaLag;
 import com.equipmentpredictor.dto.SensorLogDTO;
 import com.equipmentpredictor.exception.ResourceNotFoundException;
+import com.equipmentpredictor.ingest.IngestLimiter;
+import com.equipmentpredictor.logging.SampledLog;
 import com.equipmentpredictor.model.SensorLog;
 import com.equipmentpredictor.repository.EquipmentRepository;
 import com.equipmentpredictor.repository.SensorLogRepository;
+import com.equipmentpredictor.store.IngestWal;
+import com.equipmentpredictor.store.ReadingBuffer;
+import com.equipmentpredictor.store.SensorArchiveStore;
+import com.equipmentpredictor.store.SensorHotStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.function.IntToLongFunction;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class SensorLogService {
 
+    private static final SampledLog ADDED_LOG = SampledLog.of(log, "sensor-log.added");
+    private static final SampledLog SHARD_FAILED_LOG = SampledLog.of(log, "sensor-log.shard-failed");
+
     private final SensorLogRepository sensorLogRepository;
     private final EquipmentRepository equipmentRepository;
     private final RiskPredictionService riskPredictionService;
+    private final RiskBroadcastService riskBroadcastService;
+    private final IngestShardRouter ingestShardRouter;
+    private final TransactionTemplate transactionTemplate;
+    // Present only when hotstore.enabled=true
+    private final ObjectProvider<SensorHotStore> hotStore;
+    // Present only when ingest.durability=wal
+    private final ObjectProvider<IngestWal> ingestWal;
+    // Present only when archive.enabled=true
+    private final ObjectProvider<SensorArchiveStore> archiveStore;
+    private final IngestLimiter ingestLimiter;
+
+    // Single readings are stored, scored and recorded with one statement (RiskPredictionService.insertAndCalculateRisk)
+    @Value("${ingest.single-statement:false}")
+    private boolean singleStatement;
 
     /**
      * Add sensor log for equipment
+     * Runs on the equipment's ingest shard so readings for one equipment
+     * are persisted and scored strictly in order. A reading already stored
+     * for the same equipment and timestamp (a retry) is not stored or scored
+     * again; the stored one is returned, marked as duplicate.
+     * In WAL mode the reading is only logged and acknowledged here (id is
+     * null in the result); WalApplier persists and scores it afterwards.
+     * Unknown equipment is rejected before logging in both modes.
+     * With ingest.single-statement the reading costs one statement and the
+     * commit instead of a round trip per step.
+     */
+    public Ingested addSensorLog(SensorLogDTO dto) {
+        IngestWal wal = ingestWal.getIfAvailable();
+        if (wal != null) {
+            if (!equipmentRepository.existsById(dto.getEquipmentId())) {
+                throw new ResourceNotFoundException("Equipment not found with id: " + dto.getEquipmentId());
+            }
+            if (dto.getTimestamp() == null) {
+                dto.setTimestamp(LocalDateTime.now());
+            }
+            wal.append(dto);
+            dto.setId(null);
+            return new Ingested(dto, false);
+        }
+
+        return ingestShardRouter.execute(dto.getEquipmentId(), () -> timed(() -> transactionTemplate.execute(
+                status -> singleStatement ? persistAndScoreInOneStatement(dto) : persistAndScore(dto))));
+    }
+
+    /**
+     * Add a batch of readings for any number of equipment
+     * Readings are grouped by ingest shard and each group is inserted with one
+     * statement in one transaction on its shard, in batch order; the shards run
+     * in parallel, and a shard that fails rejects its own readings only. In WAL
+     * mode the whole batch is covered by one group fsync; readings of unknown
+     * equipment are rejected before logging, so are those after the point
+     * where the log filled up, and duplicates are not reported. Readings whose
+     * values do not fit the hundredths columns are rejected in both modes.
+     * Returns the rejected readings and the duplicates (already stored) by
+     * their index in the batch.
+     */
+    public IngestResult addSensorLogs(List<SensorLogDTO> batch) {
+        Map<Integer, String> rejected = new TreeMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            SensorLogDTO dto = batch.get(i);
+            if (dto.getTimestamp() == null) {
+                dto.setTimestamp(LocalDateTime.now());
+            }
+            String outOfRange = outOfRange(dto);
+            if (outOfRange != null) {
+                rejected.put(i, outOfRange);
+            }
+        }
+        IngestWal wal = ingestWal.getIfAvailable();
+        if (wal != null) {
+            rejected.putAll(unknownEquipment(batch.size(), i -> batch.get(i).getEquipmentId()));
+            List<Integer> indexes = new ArrayList<>(batch.size() - rejected.size());
+            List<SensorLogDTO> accepted = new ArrayList<>(batch.size() - rejected.size());
+            for (int i = 0; i < batch.size(); i++) {
+                if (!rejected.containsKey(i)) {
+                    indexes.add(i);
+                    accepted.add(batch.get(i));
+                }
+            }
+            Set<Integer> retryable = rejectUnlogged(rejected, indexes, wal.appendAll(accepted));
+            return new IngestResult(rejected, List.of(), retryable);
+        }
+
+        return persistByShard(batch.size(), i -> batch.get(i).getEquipmentId(), rejected,
+                indexes -> () -> persistAndScoreAll(batch, indexes, null));
+    }
+
+    /**
+     * Add a columnar batch (binary TCP ingestion) as addSensorLogs does
+     * The columns go to the log in WAL mode, and to the insert and scoring
+     * otherwise, without an object per reading on the way.
+     */
+    public IngestResult addReadings(ReadingBuffer readings) {
+        IngestWal wal = ingestWal.getIfAvailable();
+        if (wal != null) {
+            Map<Integer, String> rejected = unknownEquipment(readings.size(), readings::equipmentId);
+            List<Integer> indexes = new ArrayList<>(readings.size() - rejected.size());
+            for (int i = 0; i < readings.size(); i++) {
+                if (!rejected.containsKey(i)) {
+                    indexes.add(i);
+                }
+            }
+            int appended = wal.appendAll(rejected.isEmpty() ? readings : readings.select(indexes));
+            return new IngestResult(rejected, List.of(), rejectUnlogged(rejected, indexes, appended));
+        }
+
+        Map<Integer, String> rejected = new TreeMap<>();
+        for (int i = 0; i < readings.size(); i++) {
+            try {
+                SensorLog.toHundredths(readings.temperature(i));
+                SensorLog.toHundredths(readings.vibration(i));
+                SensorLog.toHundredths(readings.load(i));
+            } catch (IllegalArgumentException e) {
+                rejected.put(i, e.getMessage());
+            }
+        }
+        // Copied out on the calling thread: the buffer is reused as soon as this returns
+        return persistByShard(readings.size(), readings::equipmentId, rejected, indexes -> {
+            int size = indexes.size();
+            long[] equipmentIds = new long[size];
+            long[] timestamps = new long[size];
+            short[] temperatures = new short[size];
+            short[] vibrations = new short[size];
+            short[] loads = new short[size];
+            for (int j = 0; j < size; j++) {
+                int i = indexes.get(j);
+                equipmentIds[j] = readings.equipmentId(i);
+                timestamps[j] = readings.timestampMicros(i);
+                temperatures[j] = (short) readings.temperature(i);
+                vibrations[j] = (short) readings.vibration(i);
+                loads[j] = (short) readings.load(i);
+            }
+            return () -> persistAndScoreAll(indexes, equipmentIds, timestamps, temperatures, vibrations, loads, null);
+        });
+    }
+
+    /**
+     * Group the readings not yet rejected by ingest shard and persist each group in one transaction on its shard
+     * `shardBatch` is called here for each group and returns the work to run on the shard.
+     */
+    private IngestResult persistByShard(int size, IntToLongFunction equipmentId, Map<Integer, String> rejected,
+            Function<List<Integer>, Supplier<IngestResult>> shardBatch) {
+        Map<Integer, List<Integer>> byShard = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            if (!rejected.containsKey(i)) {
+                byShard.computeIfAbsent(ingestShardRouter.shardFor(equipmentId.applyAsLong(i)),
+                        shard -> new ArrayList<>()).add(i);
+            }
+        }
+
+        List<Integer> duplicates = new ArrayList<>();
+        Set<Integer> retryable = new TreeSet<>();
+        Map<Future<IngestResult>, List<Integer>> pending = new LinkedHashMap<>();
+        for (List<Integer> indexes : byShard.values()) {
+            Supplier<IngestResult> work = shardBatch.apply(indexes);
+            try {
+                pending.put(ingestShardRouter.submit(equipmentId.applyAsLong(indexes.get(0)),
+                        () -> timed(() -> transactionTemplate.execute(status -> work.get()))),
+                        indexes);
+            } catch (RejectedExecutionException e) {
+                indexes.forEach(i -> rejected.put(i, "Ingestion queue full"));
+                retryable.addAll(indexes);
+            }
+        }
+        // Every shard commits on its own; a failed one rolled back its readings only
+        for (Map.Entry<Future<IngestResult>, List<Integer>> shard : pending.entrySet()) {
+            try {
+                IngestResult result = ingestShardRouter.await(shard.getKey());
+                rejected.putAll(result.rejected());
+                duplicates.addAll(result.duplicates());
+            } catch (RuntimeException e) {
+                if (SHARD_FAILED_LOG.allow()) {
+                    log.warn("Ingestion of {} readings on one shard failed", shard.getValue().size(), e);
+                }
+                shard.getValue().forEach(i -> rejected.put(i, "Ingestion failed: " + e.getMessage()));
+            }
+        }
+        Collections.sort(duplicates);
+        return new IngestResult(rejected, duplicates, retryable);
+    }
+
+    // The log filled up after `appended` of the readings at `indexes`; the rest were not logged and can be retried
+    private static Set<Integer> rejectUnlogged(Map<Integer, String> rejected, List<Integer> indexes, int appended) {
+        Set<Integer> unlogged = new TreeSet<>();
+        for (int k = appended; k < indexes.size(); k++) {
+            rejected.put(indexes.get(k), "Write-ahead log is full");
+            unlogged.add(indexes.get(k));
+        }
+        return unlogged;
+    }
+
+    // A value the columns cannot hold would otherwise fail the whole shard batch, or the WAL record later on
+    private static String outOfRange(SensorLogDTO dto) {
+        try {
+            SensorLog.toHundredths(dto.getTemperature());
+            SensorLog.toHundredths(dto.getVibration());
+            SensorLog.toHundredths(dto.getLoadPercentage());
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    // WAL mode acknowledges before anything is applied, so unknown equipment must be caught before logging
+    private Map<Integer, String> unknownEquipment(int size, IntToLongFunction equipmentId) {
+        Map<Long, Boolean> exists = new HashMap<>();
+        Map<Integer, String> unknown = new TreeMap<>();
+        for (int i = 0; i < size; i++) {
+            long id = equipmentId.applyAsLong(i);
+            if (!exists.computeIfAbsent(id, equipmentRepository::existsById)) {
+                unknown.put(i, "Equipment not found with id: " + id);
+            }
+        }
+        return unknown;
+    }
+
+    // Transaction time, including the wait for a connection, drives the ingestion concurrency limit
+    private <T> T timed(Supplier<T> transaction) {
+        long started = System.nanoTime();
+        try {
+            return transaction.get();
+        } finally {
+            ingestLimiter.recordDatabaseLatency(System.nanoTime() - started);
+        }
+    }
+
+    private Ingested persistAndScore(SensorLogDTO dto) {
+        List<SensorLogDTO> stored = new ArrayList<>(1);
+        IngestResult result = persistAndScoreAll(List.of(dto), List.of(0), stored);
+        if (!result.rejected().isEmpty()) {
+            throw new ResourceNotFoundException(result.rejected().get(0));
+        }
+        if (!stored.isEmpty()) {
+            return new Ingested(stored.get(0), false);
+        }
+        return duplicate(dto);
+    }
+
+    private Ingested persistAndScoreInOneStatement(SensorLogDTO dto) {
+        if (dto.getTimestamp() == null) {
+            dto.setTimestamp(LocalDateTime.now());
+        }
+        SensorLog reading = new SensorLog(null, dto.getEquipmentId(),
+                SensorHotStore.fromMicros(SensorHotStore.toMicros(dto.getTimestamp())),
+                SensorLog.toHundredths(dto.getTemperature()),
+                SensorLog.toHundredths(dto.getVibration()),
+                SensorLog.toHundredths(dto.getLoadPercentage()));
+        SensorLogRepository.EvaluatedReading evaluated = riskPredictionService.insertAndCalculateRisk(reading)
+                .orElseThrow(() -> new ResourceNotFoundException("Equipment not found with id: " + dto.getEquipmentId()));
+        if (evaluated.getId() == null) {
+            return duplicate(dto);
+        }
+        reading.setId(evaluated.getId());
+        logAdded(reading);
+        return new Ingested(published(reading), false);
+    }
+
+    private Ingested duplicate(SensorLogDTO dto) {
+        LocalDateTime timestamp = SensorHotStore.fromMicros(SensorHotStore.toMicros(dto.getTimestamp()));
+        SensorLogDTO existing = sensorLogRepository.findByEquipmentIdAndTimestampBetween(
+                        dto.getEquipmentId(), timestamp, timestamp, PageRequest.of(0, 1)).stream()
+                .findFirst()
+                .map(this::convertToDTO)
+                .orElse(dto);
+        return new Ingested(existing, true);
+    }
+
+    /**
+     * Insert the readings at the given indexes with one statement and score the new ones, in the caller's transaction
+     * Timestamps are stored to the microsecond; one left out is set to the current time.
+     * A reading that was not inserted is a duplicate when its equipment exists
+     * and rejected otherwise. New readings are scored in batch order and, when
+     * `stored` is given, added to it.
+     */
+    IngestResult persistAndScoreAll(List<SensorLogDTO> batch, List<Integer> indexes, List<SensorLogDTO> stored) {
+        int size = indexes.size();
+        long[] equipmentIds = new long[size];
+        long[] timestamps = new long[size];
+        short[] temperatures = new short[size];
+        short[] vibrations = new short[size];
+        short[] loads = new short[size];
+        for (int j = 0; j < size; j++) {
+            SensorLogDTO dto = batch.get(indexes.get(j));
+            if (dto.getTimestamp() == null) {
+                dto.setTimestamp(LocalDateTime.now());
+            }
+            equipmentIds[j] = dto.getEquipmentId();
+            timestamps[j] = SensorHotStore.toMicros(dto.getTimestamp());
+            temperatures[j] = SensorLog.toHundredths(dto.getTemperature());
+            vibrations[j] = SensorLog.toHundredths(dto.getVibration());
+            loads[j] = SensorLog.toHundredths(dto.getLoadPercentage());
+        }
+        return persistAndScoreAll(indexes, equipmentIds, timestamps, temperatures, vibrations, loads, stored);
+    }
+
+    /**
+     * persistAndScoreAll on readings already in columns, timestamps in epoch microseconds and values in hundredths
+     * Column j holds the reading at indexes.get(j).
      */
-    @Transactional
-    public SensorLogDTO addSensorLog(SensorLogDTO dto) {
-        // Validate equipment exists
-        if (!equipmentRepository.existsById(dto.getEquipmentId())) {
-            throw new ResourceNotFoundException("Equipment not found with id: " + dto.getEquipmentId());
+    private IngestResult persistAndScoreAll(List<Integer> indexes, long[] equipmentIds, long[] timestamps,
+            short[] temperatures, short[] vibrations, short[] loads, List<SensorLogDTO> stored) {
+        int size = indexes.size();
+        Map<ReadingKey, SensorLog> inserted = new HashMap<>();
+        for (SensorLog row : sensorLogRepository.insertIgnoringDuplicates(
+                equipmentIds, timestamps, temperatures, vibrations, loads)) {
+            inserted.put(new ReadingKey(row.getEquipmentId(), SensorHotStore.toMicros(row.getTimestamp())), row);
+        }
+
+        // Equipment and scoring profiles of the whole batch in one query; also tells duplicates from unknown equipment
+        Set<Long> distinct = new HashSet<>();
+        for (long equipmentId : equipmentIds) {
+            distinct.add(equipmentId);
         }
+        Map<Long, RiskPredictionService.Target> targets = riskPredictionService.targets(distinct);
 
-        SensorLog sensorLog = new SensorLog();
-        sensorLog.setEquipmentId(dto.getEquipmentId());
-        sensorLog.setTimestamp(dto.getTimestamp() != null ? dto.getTimestamp() : LocalDateTime.now());
-        sensorLog.setTemperature(dto.getTemperature());
-        sensorLog.setVibration(dto.getVibration());
-        sensorLog.setLoadPercentage(dto.getLoadPercentage());
+        Map<Integer, String> rejected = new TreeMap<>();
+        List<Integer> duplicates = new ArrayList<>();
+        RiskPredictionService.Target target = null;
+        for (int j = 0; j < size; j++) {
+            // The first reading with a key claims its row; a repeat within the batch is a duplicate
+            SensorLog saved = inserted.remove(new ReadingKey(equipmentIds[j], timestamps[j]));
+            if (saved != null) {
+                // Readings of one equipment usually come in runs; the map is only consulted when it changes
+                if (target == null || target.equipmentId() != equipmentIds[j]) {
+                    target = targets.computeIfAbsent(equipmentIds[j], riskPredictionService::target);
+                }
+                SensorLogDTO result = score(saved, target);
+                if (stored != null) {
+                    stored.add(result);
+                }
+            } else if (targets.containsKey(equipmentIds[j])) {
+                duplicates.add(indexes.get(j));
+            } else {
+                rejected.put(indexes.get(j), "Equipment not found with id: " + equipmentIds[j]);
+            }
+        }
+        if (!duplicates.isEmpty()) {
+            log.debug("Skipped {} duplicate readings", duplicates.size());
+        }
+        return new IngestResult(rejected, duplicates);
+    }
 
-        SensorLog saved = sensorLogRepository.save(sensorLog);
-        log.info("Added sensor log for equipment {}: temp={}, vib={}, load={}", 
-                 saved.getEquipmentId(), saved.getTemperature(), saved.getVibration(), saved.getLoadPercentage());
+    private SensorLogDTO score(SensorLog saved, RiskPredictionService.Target target) {
+        logAdded(saved);
 
         // Calculate risk for this sensor log
-        riskPredictionService.calculateRisk(saved);
+        riskPredictionService.calculateRisk(saved, target);
+        return published(saved);
+    }
 
-        return convertToDTO(saved);
+    private void logAdded(SensorLog saved) {
+        if (ADDED_LOG.allow()) {
+            log.info("Added sensor log for equipment {}: temp={}, vib={}, load={}",
+                    saved.getEquipmentId(), saved.temperatureValue(), saved.vibrationValue(), saved.loadValue());
+        }
+    }
+
+    private SensorLogDTO published(SensorLog saved) {
+        SensorLogDTO result = convertToDTO(saved);
+        riskBroadcastService.publishReading(result);
+
+        // Still on the equipment's shard thread when the commit completes
+        hotStore.ifAvailable(store -> TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        store.append(saved);
+                    }
+                }));
+
+        return result;
     }
 
     /**
      * Get sensor logs for equipment with pagination
      */
+    @Transactional(readOnly = true)
     public List<SensorLogDTO> getSensorLogs(Long equipmentId, Integer limit, String order) {
         if (!equipmentRepository.existsById(equipmentId)) {
             throw new ResourceNotFoundException("Equipment not found with id: " + equipmentId);
         }
 
-        Pageable pageable = PageRequest.of(0, limit != null ? limit : 100);
+        int pageSize = limit != null ? limit : 100;
+        if (!"asc".equalsIgnoreCase(order)) {
+            SensorHotStore store = hotStore.getIfAvailable();
+            Optional<List<SensorLogDTO>> recent = store != null
+                    ? store.findLatest(equipmentId, pageSize)
+                    : Optional.empty();
+            if (recent.isPresent()) {
+                return recent.get();
+            }
+        }
+
+        Pageable pageable = PageRequest.of(0, pageSize);
         
         List<SensorLog> logs;
         if ("asc".equalsIgnoreCase(order)) {
@@ -69,33 +462,90 @@ public class SensorLogService {
             logs = sensorLogRepository.findByEquipmentIdOrderByTimestampDesc(equipmentId, pageable);
         }
 
-        return logs.stream()
+        List<SensorLogDTO> result = logs.stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
+        return mergeArchived(equipmentId, result, null, null, pageSize, !"asc".equalsIgnoreCase(order));
     }
 
     /**
      * Get sensor logs within date range
      */
+    @Transactional(readOnly = true)
     public List<SensorLogDTO> getSensorLogsByDateRange(Long equipmentId, LocalDateTime from, 
                                                        LocalDateTime to, Integer limit) {
         if (!equipmentRepository.existsById(equipmentId)) {
             throw new ResourceNotFoundException("Equipment not found with id: " + equipmentId);
         }
 
-        Pageable pageable = PageRequest.of(0, limit != null ? limit : 100);
+        int pageSize = limit != null ? limit : 100;
+        SensorHotStore store = hotStore.getIfAvailable();
+        Optional<List<SensorLogDTO>> recent = store != null
+                ? store.findByDateRange(equipmentId, from, to, pageSize)
+                : Optional.empty();
+        if (recent.isPresent()) {
+            return recent.get();
+        }
+
+        Pageable pageable = PageRequest.of(0, pageSize);
         
         List<SensorLog> logs = sensorLogRepository.findByEquipmentIdAndTimestampBetween(
             equipmentId, from, to, pageable);
 
-        return logs.stream()
+        List<SensorLogDTO> result = logs.stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
+        return mergeArchived(equipmentId, result, from, to, pageSize, true);
+    }
+
+    /**
+     * Get sensor logs within date range, downsampled for charts
+     * Archived and database readings are streamed oldest first through LTTB,
+     * returning at most maxPoints rows for all three channels together;
+     * memory does not grow with the range.
+     */
+    @Transactional(readOnly = true)
+    public List<SensorLogDTO> getDownsampledSensorLogs(Long equipmentId, LocalDateTime from,
+                                                       LocalDateTime to, int maxPoints) {
+        if (!equipmentRepository.existsById(equipmentId)) {
+            throw new ResourceNotFoundException("Equipment not found with id: " + equipmentId);
+        }
+
+        LttbDownsampler downsampler = new LttbDownsampler(from, to, maxPoints);
+        Iterator<SensorLogDTO> archived = archivedRows(equipmentId, from, to);
+        try (Stream<SensorLog> rows = sensorLogRepository.streamByEquipmentIdAndTimestampBetween(equipmentId, from, to)) {
+            Iterator<SensorLogDTO> stored = rows.map(this::convertToDTO).iterator();
+
+            // Both sources ascend by (timestamp, id); a reading in both (interrupted archive run) is added once
+            Comparator<SensorLogDTO> order = Comparator.comparing(SensorLogDTO::getTimestamp)
+                    .thenComparing(SensorLogDTO::getId);
+            SensorLogDTO nextArchived = archived.hasNext() ? archived.next() : null;
+            SensorLogDTO nextStored = stored.hasNext() ? stored.next() : null;
+            Long lastId = null;
+            while (nextArchived != null || nextStored != null) {
+                SensorLogDTO row;
+                if (nextStored == null || (nextArchived != null && order.compare(nextArchived, nextStored) <= 0)) {
+                    row = nextArchived;
+                    nextArchived = archived.hasNext() ? archived.next() : null;
+                } else {
+                    row = nextStored;
+                    nextStored = stored.hasNext() ? stored.next() : null;
+                }
+                if (!row.getId().equals(lastId)) {
+                    downsampler.add(row);
+                    lastId = row.getId();
+                }
+            }
+        }
+        return downsampler.finish();
     }
 
     /**
      * Get latest sensor log for equipment
+     * Must reflect the newest reading, so the replica is only used when nearly caught up
      */
+    @Transactional(readOnly = true)
+    @MaxReplicaLag("${datasource.replica.fresh-max-lag-ms:250}")
     public SensorLogDTO getLatestSensorLog(Long equipmentId) {
         if (!equipmentRepository.existsById(equipmentId)) {
             throw new ResourceNotFoundException("Equipment not found with id: " + equipmentId);
@@ -103,9 +553,72 @@ public class SensorLogService {
 
         return sensorLogRepository.findFirstByEquipmentIdOrderByTimestampDesc(equipmentId)
                 .map(this::convertToDTO)
+                .or(() -> mergeArchived(equipmentId, List.of(), null, null, 1, true).stream().findFirst())
                 .orElseThrow(() -> new ResourceNotFoundException("No sensor logs found for equipment: " + equipmentId));
     }
 
+    /**
+     * Archived readings in a range, oldest first, decoded one day at a time
+     */
+    private Iterator<SensorLogDTO> archivedRows(Long equipmentId, LocalDateTime from, LocalDateTime to) {
+        SensorArchiveStore store = archiveStore.getIfAvailable();
+        if (store == null) {
+            return Collections.emptyIterator();
+        }
+        return store.archivedDays(equipmentId)
+                .subSet(from.toLocalDate(), true, to.toLocalDate(), true).stream()
+                .flatMap(day -> {
+                    LocalDateTime dayStart = day.atStartOfDay();
+                    LocalDateTime dayEnd = day.plusDays(1).atStartOfDay().minusNanos(1);
+                    return store.readRange(equipmentId,
+                            from.isAfter(dayStart) ? from : dayStart,
+                            to.isBefore(dayEnd) ? to : dayEnd,
+                            Integer.MAX_VALUE, false).stream();
+                })
+                .iterator();
+    }
+
+    /**
+     * Merge archived readings into a database result
+     * Archived days are no longer in the database, so a page that reaches
+     * back past the archive horizon is completed from the archive. Rows
+     * present in both (an interrupted archive run) are deduplicated by id.
+     */
+    private List<SensorLogDTO> mergeArchived(Long equipmentId, List<SensorLogDTO> rows,
+                                             LocalDateTime from, LocalDateTime to,
+                                             int limit, boolean descending) {
+        SensorArchiveStore store = archiveStore.getIfAvailable();
+        if (store == null) {
+            return rows;
+        }
+        NavigableSet<LocalDate> days = store.archivedDays(equipmentId);
+        if (days.isEmpty()) {
+            return rows;
+        }
+        LocalDateTime archiveFrom = days.first().atStartOfDay();
+        LocalDateTime archiveTo = days.last().plusDays(1).atStartOfDay().minusNanos(1);
+        if (from != null && from.isAfter(archiveFrom)) {
+            archiveFrom = from;
+        }
+        if (to != null && to.isBefore(archiveTo)) {
+            archiveTo = to;
+        }
+        if (archiveFrom.isAfter(archiveTo)) {
+            return rows;
+        }
+
+        Map<Long, SensorLogDTO> byId = new LinkedHashMap<>();
+        store.readRange(equipmentId, archiveFrom, archiveTo, limit, descending)
+                .forEach(row -> byId.put(row.getId(), row));
+        rows.forEach(row -> byId.put(row.getId(), row));
+
+        Comparator<SensorLogDTO> order = Comparator.comparing(SensorLogDTO::getTimestamp)
+                .thenComparing(SensorLogDTO::getId);
+        List<SensorLogDTO> merged = new ArrayList<>(byId.values());
+        merged.sort(descending ? order.reversed() : order);
+        return merged.size() > limit ? merged.subList(0, limit) : merged;
+    }
+
     /**
      * Convert entity to DTO
      */
@@ -114,9 +627,33 @@ public class SensorLogService {
         dto.setId(log.getId());
         dto.setEquipmentId(log.getEquipmentId());
         dto.setTimestamp(log.getTimestamp());
-        dto.setTemperature(log.getTemperature());
-        dto.setVibration(log.getVibration());
-        dto.setLoadPercentage(log.getLoadPercentage());
+        dto.setTemperature(log.temperatureValue());
+        dto.setVibration(log.vibrationValue());
+        dto.setLoadPercentage(log.loadValue());
         return dto;
     }
+
+    /**
+     * Result of a single reading; duplicate when it was already stored and this is the stored one
+     */
+    public record Ingested(SensorLogDTO reading, boolean duplicate) {
+    }
+
+    /**
+     * Rejection reasons and duplicates of a batch, by index in the batch
+     * Duplicates were already stored (a retry) and are neither stored nor scored again.
+     * Retryable are the rejected readings that were only turned away because a
+     * shard queue or the write-ahead log was full; they can be sent again later.
+     */
+    public record IngestResult(Map<Integer, String> rejected, List<Integer> duplicates, Set<Integer> retryable) {
+
+        public static final IngestResult NONE = new IngestResult(Map.of(), List.of());
+
+        public IngestResult(Map<Integer, String> rejected, List<Integer> duplicates) {
+            this(rejected, duplicates, Set.of());
+        }
+    }
+
+    private record ReadingKey(long equipmentId, long timestampMicros) {
+    }
 }
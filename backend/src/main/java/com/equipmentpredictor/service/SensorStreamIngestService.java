@@ -0,0 +1,483 @@
+package com.equipmentpredictor.service;
+
+import com.equipmentpredictor.dto.IngestAckDTO;
+import com.equipmentpredictor.dto.SensorLogDTO;
+import com.equipmentpredictor.ingest.IngestLimiter;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.core.exc.InputCoercionException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-lived NDJSON ingestion for gateways
+ * The request body is a stream of readings, one JSON object per line
+ * ({"equipmentId":1,"timestamp":"2024-01-01T10:00:00","temperature":71.5,"vibration":3.2,"loadPercentage":64}),
+ * parsed incrementally with Jackson's non-blocking parser. Fields are
+ * range-checked inline instead of through bean validation.
+ *
+ * Parsed readings queue up per request and a committer thread hands them to
+ * SensorLogService.addSensorLogs in micro-batches of at most batch-size,
+ * acknowledging each with one response line. Whenever everything the gateway
+ * has sent so far is parsed, the queue is committed; while a commit is running
+ * the next batch keeps growing (group commit), so batches stay small for a
+ * trickle and grow with the rate. Parsing pauses once max-pending-batches are queued.
+ *
+ * Before a batch is stored, readings over their equipment's rate limit are
+ * rejected, the batch is charged to the client's rate limit (the commit waits
+ * out any debt, which holds the gateway back through the pending queue), and
+ * when the ingestion concurrency limit is full the whole batch is rejected
+ * as shed; the gateway may resend it, ingestion being idempotent.
+ */
+@Service
+@Slf4j
+public class SensorStreamIngestService {
+
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+    private static final byte[] NEWLINE = {'\n'};
+    private static final BigDecimal TEMPERATURE_MIN = new BigDecimal("-50.0");
+    private static final BigDecimal TEMPERATURE_MAX = new BigDecimal("200.0");
+    private static final BigDecimal PERCENT_MAX = new BigDecimal("100.0");
+
+    private final SensorLogService sensorLogService;
+    private final IngestLimiter limiter;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int maxPending;
+    private final Executor committer;
+
+    @Autowired
+    public SensorStreamIngestService(SensorLogService sensorLogService, IngestLimiter limiter, ObjectMapper objectMapper,
+            @Value("${ingest.stream.batch-size:1000}") int batchSize,
+            @Value("${ingest.stream.max-pending-batches:4}") int maxPendingBatches) {
+        this(sensorLogService, limiter, objectMapper, batchSize, maxPendingBatches, Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "ingest-stream-commit");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    SensorStreamIngestService(SensorLogService sensorLogService, IngestLimiter limiter, ObjectMapper objectMapper,
+            int batchSize, int maxPendingBatches, Executor committer) {
+        this.sensorLogService = sensorLogService;
+        this.limiter = limiter;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxPending = batchSize * maxPendingBatches;
+        this.committer = committer;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (committer instanceof ExecutorService executor) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Ingest readings from `body` until it ends, writing one acknowledgement line per micro-batch to `out`
+     * `client` is the caller's rate limit key (IngestLimiter.clientOf).
+     */
+    public void ingest(String client, InputStream body, OutputStream out) throws IOException {
+        Session session = new Session(client, out);
+        byte[] buffer = new byte[READ_BUFFER_BYTES];
+        try (JsonParser parser = objectMapper.getFactory().createNonBlockingByteArrayParser()) {
+            ByteArrayFeeder feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+            while (true) {
+                JsonToken token;
+                try {
+                    while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                        session.accept(token, parser);
+                    }
+                } catch (JsonProcessingException e) {
+                    session.finish("Malformed JSON after record " + session.completed + ": " + e.getOriginalMessage());
+                    return;
+                }
+                if (token == null) {
+                    break;
+                }
+                // Everything received so far is parsed: commit it before blocking for more
+                if (body.available() == 0) {
+                    session.commit();
+                }
+                int read = body.read(buffer);
+                if (read < 0) {
+                    feeder.endOfInput();
+                } else {
+                    feeder.feedInput(buffer, 0, read);
+                }
+            }
+        }
+        session.finish(null);
+    }
+
+    /**
+     * Parse, queue and acknowledgement state of one request
+     * The request thread parses and queues; one commit task at a time drains
+     * the queue and writes the acknowledgements, so they stay in order. The
+     * final line is written by the request thread once the queue is drained.
+     */
+    private final class Session {
+        private final String client;
+        private final OutputStream out;
+        private final Object lock = new Object();
+
+        // Guarded by lock
+        private final List<Record> pending = new ArrayList<>();
+        private boolean committing;
+        private IOException writeFailure;
+
+        // Request thread only
+        private long records;
+        private long completed;
+        private int depth;
+        private String field;
+        private Record current;
+
+        // Commit task only, then the request thread after the last commit
+        private long batches;
+        private long totalAccepted;
+        private long totalRejected;
+        private long totalDuplicates;
+
+        Session(String client, OutputStream out) {
+            this.client = client;
+            this.out = out;
+        }
+
+        void accept(JsonToken token, JsonParser parser) throws IOException {
+            switch (token) {
+                case START_OBJECT, START_ARRAY -> {
+                    if (depth == 0) {
+                        current = new Record(++records);
+                        if (token == JsonToken.START_ARRAY) {
+                            current.reject("Expected a JSON object");
+                        }
+                    } else if (depth == 1) {
+                        current.set(field, token, parser);
+                    }
+                    depth++;
+                }
+                case END_OBJECT, END_ARRAY -> {
+                    if (--depth == 0) {
+                        complete(current);
+                    }
+                }
+                case FIELD_NAME -> field = parser.currentName();
+                default -> {
+                    if (depth == 0) {
+                        Record scalar = new Record(++records);
+                        scalar.reject("Expected a JSON object");
+                        complete(scalar);
+                    } else if (depth == 1) {
+                        current.set(field, token, parser);
+                    }
+                }
+            }
+        }
+
+        private void complete(Record record) throws IOException {
+            completed = record.number;
+            int queued;
+            synchronized (lock) {
+                pending.add(record);
+                queued = pending.size();
+            }
+            if (queued >= batchSize) {
+                commit();
+            }
+            if (queued >= maxPending) {
+                awaitPendingBelow(maxPending);
+            }
+        }
+
+        /**
+         * Start a commit task unless one is running; it drains everything queued
+         */
+        void commit() throws IOException {
+            synchronized (lock) {
+                if (writeFailure != null) {
+                    throw writeFailure;
+                }
+                if (committing || pending.isEmpty()) {
+                    return;
+                }
+                committing = true;
+            }
+            committer.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                List<Record> batch;
+                synchronized (lock) {
+                    if (pending.isEmpty() || writeFailure != null) {
+                        committing = false;
+                        lock.notifyAll();
+                        return;
+                    }
+                    List<Record> head = pending.subList(0, Math.min(batchSize, pending.size()));
+                    batch = new ArrayList<>(head);
+                    head.clear();
+                    lock.notifyAll();
+                }
+                try {
+                    write(store(batch));
+                } catch (IOException e) {
+                    log.debug("Streaming ingestion client went away", e);
+                    synchronized (lock) {
+                        writeFailure = e;
+                        pending.clear();
+                    }
+                }
+            }
+        }
+
+        private IngestAckDTO store(List<Record> batch) {
+            List<SensorLogDTO> readings = new ArrayList<>(batch.size());
+            List<Long> readingRecords = new ArrayList<>(batch.size());
+            List<IngestAckDTO.RecordError> errors = new ArrayList<>();
+            for (Record record : batch) {
+                String error = record.validate();
+                if (error == null && limiter.tryAcquireEquipment(record.equipmentId) > 0) {
+                    error = "Rate limit exceeded for equipment " + record.equipmentId;
+                }
+                if (error != null) {
+                    errors.add(new IngestAckDTO.RecordError(record.number, error));
+                } else {
+                    readings.add(record.toDTO());
+                    readingRecords.add(record.number);
+                }
+            }
+
+            SensorLogService.IngestResult result = readings.isEmpty()
+                    ? SensorLogService.IngestResult.NONE : storeAdmitted(readings);
+            Map<Integer, String> rejected = result.rejected();
+            List<Integer> duplicates = result.duplicates();
+            rejected.forEach((index, reason) ->
+                    errors.add(new IngestAckDTO.RecordError(readingRecords.get(index), reason)));
+            errors.sort(Comparator.comparingLong(IngestAckDTO.RecordError::getRecord));
+            List<Long> duplicateRecords = duplicates.stream().map(readingRecords::get).toList();
+
+            long accepted = readings.size() - rejected.size() - duplicates.size();
+            totalAccepted += accepted;
+            totalRejected += errors.size();
+            totalDuplicates += duplicates.size();
+            return IngestAckDTO.builder()
+                    .status(IngestAckDTO.Status.ACK)
+                    .batch(++batches)
+                    .firstRecord(batch.get(0).number)
+                    .lastRecord(batch.get(batch.size() - 1).number)
+                    .accepted(accepted)
+                    .rejected(errors.size())
+                    .duplicates(duplicates.size())
+                    .errors(errors.isEmpty() ? null : errors)
+                    .duplicateRecords(duplicateRecords.isEmpty() ? null : duplicateRecords)
+                    .build();
+        }
+
+        // Paced by the client's rate limit; all rejected when shed or when the batch fails as a whole
+        // (a failed shard or a full write-ahead log comes back as rejections of the readings concerned)
+        private SensorLogService.IngestResult storeAdmitted(List<SensorLogDTO> readings) {
+            long wait = limiter.reserveClient(client, readings.size());
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (!limiter.tryEnter()) {
+                // Nothing of the batch is stored, so it is not charged to the client or its equipment
+                limiter.refundClient(client, readings.size());
+                readings.forEach(reading -> limiter.refundEquipment(reading.getEquipmentId(), 1));
+                return rejectAll(readings.size(), "Ingestion is shedding load, retry later");
+            }
+            try {
+                return sensorLogService.addSensorLogs(readings);
+            } catch (RuntimeException e) {
+                log.warn("Streaming ingestion batch of {} readings failed", readings.size(), e);
+                return rejectAll(readings.size(), "Ingestion failed: " + e.getMessage());
+            } finally {
+                limiter.exit();
+            }
+        }
+
+        private SensorLogService.IngestResult rejectAll(int readings, String reason) {
+            Map<Integer, String> rejected = new HashMap<>();
+            for (int i = 0; i < readings; i++) {
+                rejected.put(i, reason);
+            }
+            return new SensorLogService.IngestResult(rejected, List.of());
+        }
+
+        /**
+         * Commit what is queued, wait for it and write the DONE line, or ERROR with the given message
+         */
+        void finish(String error) throws IOException {
+            commit();
+            awaitPendingBelow(1);
+            synchronized (lock) {
+                if (writeFailure != null) {
+                    throw writeFailure;
+                }
+            }
+            write(IngestAckDTO.builder()
+                    .status(error == null ? IngestAckDTO.Status.DONE : IngestAckDTO.Status.ERROR)
+                    .batch(batches)
+                    .accepted(totalAccepted)
+                    .rejected(totalRejected)
+                    .duplicates(totalDuplicates)
+                    .error(error)
+                    .build());
+        }
+
+        // Waits until fewer than `limit` readings are queued and, for limit 1, the last commit is done
+        private void awaitPendingBelow(int limit) throws IOException {
+            synchronized (lock) {
+                try {
+                    while (writeFailure == null && (pending.size() >= limit || (limit == 1 && committing))) {
+                        lock.wait();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for ingestion");
+                }
+                if (writeFailure != null) {
+                    throw writeFailure;
+                }
+            }
+        }
+
+        private void write(IngestAckDTO ack) throws IOException {
+            out.write(objectMapper.writeValueAsBytes(ack));
+            out.write(NEWLINE);
+            out.flush();
+        }
+    }
+
+    /**
+     * Fields of one reading as they are parsed; the first problem found is kept
+     */
+    private static final class Record {
+        private final long number;
+        private Long equipmentId;
+        private LocalDateTime timestamp;
+        private BigDecimal temperature;
+        private BigDecimal vibration;
+        private BigDecimal loadPercentage;
+        private String error;
+
+        Record(long number) {
+            this.number = number;
+        }
+
+        void reject(String reason) {
+            if (error == null) {
+                error = reason;
+            }
+        }
+
+        void invalid(String field) {
+            if (field != null) {
+                reject("Invalid " + field);
+            }
+        }
+
+        void set(String field, JsonToken token, JsonParser parser) throws IOException {
+            if (field == null || token == JsonToken.VALUE_NULL) {
+                return;
+            }
+            try {
+                switch (field) {
+                    case "equipmentId" -> {
+                        if (token == JsonToken.VALUE_NUMBER_INT) {
+                            equipmentId = parser.getLongValue();
+                        } else {
+                            invalid(field);
+                        }
+                    }
+                    case "timestamp" -> {
+                        if (token == JsonToken.VALUE_STRING) {
+                            timestamp = LocalDateTime.parse(parser.getText());
+                        } else {
+                            invalid(field);
+                        }
+                    }
+                    case "temperature" -> temperature = decimal(field, token, parser);
+                    case "vibration" -> vibration = decimal(field, token, parser);
+                    case "loadPercentage" -> loadPercentage = decimal(field, token, parser);
+                    default -> {
+                        // Unknown fields are ignored, as in the JSON endpoints
+                    }
+                }
+            } catch (InputCoercionException | DateTimeParseException e) {
+                invalid(field);
+            }
+        }
+
+        private BigDecimal decimal(String field, JsonToken token, JsonParser parser) throws IOException {
+            if (token.isNumeric()) {
+                return parser.getDecimalValue();
+            }
+            invalid(field);
+            return null;
+        }
+
+        // Same rules as the SensorLogDTO constraints
+        String validate() {
+            if (error != null) {
+                return error;
+            }
+            if (equipmentId == null) {
+                return "Equipment id is required";
+            }
+            if (temperature == null) {
+                return "Temperature is required";
+            }
+            if (vibration == null) {
+                return "Vibration is required";
+            }
+            if (loadPercentage == null) {
+                return "Load percentage is required";
+            }
+            if (temperature.compareTo(TEMPERATURE_MIN) < 0 || temperature.compareTo(TEMPERATURE_MAX) > 0) {
+                return "Temperature must be between -50 and 200°C";
+            }
+            if (vibration.signum() < 0 || vibration.compareTo(PERCENT_MAX) > 0) {
+                return "Vibration must be between 0 and 100 mm/s";
+            }
+            if (loadPercentage.signum() < 0 || loadPercentage.compareTo(PERCENT_MAX) > 0) {
+                return "Load percentage must be between 0 and 100%";
+            }
+            return null;
+        }
+
+        SensorLogDTO toDTO() {
+            return new SensorLogDTO(null, equipmentId, timestamp, temperature, vibration, loadPercentage);
+        }
+    }
+}
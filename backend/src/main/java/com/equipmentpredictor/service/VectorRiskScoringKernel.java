@@ -0,0 +1,57 @@
+package com.equipmentpredictor.service;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * RiskScoringKernel on the incubating Vector API, one register of readings per step
+ * Same arithmetic as the scalar kernel: D2L conversion truncates like the
+ * (long) cast, and the level counts are mask population counts. Only compiled
+ * with -Pvector and only loaded when the jdk.incubator.vector module is
+ * present (see forPlatform).
+ */
+final class VectorRiskScoringKernel extends RiskScoringKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    String describe() {
+        return "vector (" + SPECIES.length() + " lanes)";
+    }
+
+    @Override
+    void countLevels(double[] temperature, double[] vibration, double[] load, int size,
+            Params params, long[] counts) {
+        long medium = 0;
+        long high = 0;
+        long critical = 0;
+        int i = 0;
+        for (int bound = SPECIES.loopBound(size); i < bound; i += SPECIES.length()) {
+            DoubleVector score = normalized(DoubleVector.fromArray(SPECIES, temperature, i), params.temperature())
+                    .mul(params.temperature().weight())
+                    .add(normalized(DoubleVector.fromArray(SPECIES, vibration, i), params.vibration())
+                            .mul(params.vibration().weight()))
+                    .add(normalized(DoubleVector.fromArray(SPECIES, load, i), params.load())
+                            .mul(params.load().weight()));
+            DoubleVector twice = score.add(score);
+            medium += twice.compare(VectorOperators.GE, params.medium()).trueCount();
+            high += twice.compare(VectorOperators.GE, params.high()).trueCount();
+            critical += twice.compare(VectorOperators.GE, params.critical()).trueCount();
+        }
+        for (; i < size; i++) {
+            double twice = twiceScaledScore(temperature[i], vibration[i], load[i], params);
+            medium += twice >= params.medium() ? 1 : 0;
+            high += twice >= params.high() ? 1 : 0;
+            critical += twice >= params.critical() ? 1 : 0;
+        }
+        addCounts(counts, size, medium, high, critical);
+    }
+
+    private static DoubleVector normalized(DoubleVector value, Channel channel) {
+        LongVector truncated = (LongVector) value.sub(channel.min()).mul(10_000).div(channel.span()).add(0.5)
+                .convert(VectorOperators.D2L, 0);
+        return ((DoubleVector) truncated.convert(VectorOperators.L2D, 0)).max(0).min(10_000);
+    }
+}
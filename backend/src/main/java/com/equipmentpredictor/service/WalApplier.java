@@ -0,0 +1,184 @@
+package com.equipmentpredictor.service;
+
+import com.equipmentpredictor.dto.SensorLogDTO;
+import com.equipmentpredictor.model.IngestWalCheckpoint;
+import com.equipmentpredictor.repository.IngestWalCheckpointRepository;
+import com.equipmentpredictor.store.IngestWal;
+import com.equipmentpredictor.store.WalRecord;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies write-ahead log records to the database in batches
+ * Each batch is inserted with one statement and commits with its checkpoint
+ * in one transaction, so replaying the log after a crash never applies a
+ * record twice. Readings a gateway retried are skipped as duplicates.
+ * Unapplied records left by a previous run are replayed first, in log order.
+ * A batch that keeps failing with a non-transient error is applied record by
+ * record, and records that still fail go to the WAL dead-letter file.
+ */
+@Component
+@ConditionalOnProperty(name = "ingest.durability", havingValue = "wal")
+@RequiredArgsConstructor
+@Slf4j
+public class WalApplier {
+
+    private final IngestWal ingestWal;
+    private final SensorLogService sensorLogService;
+    private final IngestWalCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${ingest.wal.apply-batch-size:500}")
+    private int batchSize;
+
+    @Value("${ingest.wal.max-apply-attempts:3}")
+    private int maxAttempts;
+
+    private volatile long appliedLsn;
+    private volatile boolean running;
+    private Thread worker;
+    // Consecutive non-transient failures of the current batch; owned by the worker thread
+    private int failures;
+
+    @PostConstruct
+    public void start() {
+        appliedLsn = checkpointRepository.findById(ingestWal.walId())
+                .map(IngestWalCheckpoint::getAppliedLsn)
+                .orElse(0L);
+        ingestWal.recover(appliedLsn);
+
+        running = true;
+        worker = new Thread(this::run, "wal-applier");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    public long appliedLsn() {
+        return appliedLsn;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                applyNext();
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.error("Failed to apply WAL batch after lsn {} ({} non-transient failures), retrying",
+                        appliedLsn, failures, e);
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Apply the next batch of durable records, or wait briefly for some
+     * After `ingest.wal.max-apply-attempts` non-transient failures the batch is
+     * applied record by record. Transient failures (connection loss, timeouts)
+     * are retried as they are and never dead-letter a record.
+     */
+    void applyNext() throws InterruptedException {
+        List<WalRecord> batch = ingestWal.read(appliedLsn, batchSize);
+        if (batch.isEmpty()) {
+            ingestWal.awaitRecords(appliedLsn, 100);
+            return;
+        }
+
+        try {
+            if (failures >= maxAttempts) {
+                applyEach(batch);
+            } else {
+                applyBatch(batch);
+            }
+            failures = 0;
+        } catch (RuntimeException e) {
+            if (!isTransient(e)) {
+                failures++;
+            }
+            throw e;
+        }
+    }
+
+    private void applyBatch(List<WalRecord> batch) {
+        long lastLsn = batch.get(batch.size() - 1).lsn();
+        transactionTemplate.executeWithoutResult(status -> apply(batch, lastLsn));
+        appliedLsn = lastLsn;
+        ingestWal.truncate(lastLsn);
+    }
+
+    // Each record commits on its own; one that still fails is dead-lettered and checkpointed past
+    private void applyEach(List<WalRecord> batch) {
+        log.warn("Applying WAL records {} to {} one by one", batch.get(0).lsn(), batch.get(batch.size() - 1).lsn());
+        for (WalRecord record : batch) {
+            try {
+                applyBatch(List.of(record));
+            } catch (RuntimeException e) {
+                if (isTransient(e)) {
+                    throw e;
+                }
+                log.error("Moving WAL record {} to the dead-letter file", record.lsn(), e);
+                ingestWal.deadLetter(record, e.toString());
+                transactionTemplate.executeWithoutResult(status -> checkpointRepository.save(
+                        new IngestWalCheckpoint(ingestWal.walId(), record.lsn(), LocalDateTime.now())));
+                appliedLsn = record.lsn();
+                ingestWal.truncate(record.lsn());
+            }
+        }
+    }
+
+    static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    private void apply(List<WalRecord> batch, long lastLsn) {
+        List<SensorLogDTO> readings = new ArrayList<>(batch.size());
+        List<Integer> indexes = new ArrayList<>(batch.size());
+        for (WalRecord record : batch) {
+            SensorLogDTO dto = new SensorLogDTO();
+            dto.setEquipmentId(record.equipmentId());
+            dto.setTimestamp(record.timestamp());
+            dto.setTemperature(record.temperatureValue());
+            dto.setVibration(record.vibrationValue());
+            dto.setLoadPercentage(record.loadValue());
+            indexes.add(readings.size());
+            readings.add(dto);
+        }
+        SensorLogService.IngestResult result = sensorLogService.persistAndScoreAll(readings, indexes, null);
+        result.rejected().forEach((index, reason) ->
+                log.warn("Skipping WAL record {}: {}", batch.get(index).lsn(), reason));
+        if (!result.duplicates().isEmpty()) {
+            log.info("Skipped {} duplicate WAL records", result.duplicates().size());
+        }
+        checkpointRepository.save(new IngestWalCheckpoint(ingestWal.walId(), lastLsn, LocalDateTime.now()));
+        log.debug("Applied {} WAL records up to lsn {}", batch.size(), lastLsn);
+    }
+}
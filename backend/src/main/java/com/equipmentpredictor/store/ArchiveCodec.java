@@ -0,0 +1,195 @@
+package com.equipmentpredictor.store;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Gorilla-style block codec for archived readings
+ *
+ * Timestamps (epoch micros) and ids use delta-of-delta encoding with
+ * variable-width buckets. Sensor values use XOR compression over the
+ * value in hundredths as a double; integral doubles have mostly zero
+ * trailing mantissa bits, so consecutive similar readings need few bits.
+ * The first row of a block is stored raw so every block decodes on its own.
+ */
+final class ArchiveCodec {
+
+    private ArchiveCodec() {
+    }
+
+    /**
+     * Encode rows [from, to) of the columns as one block; an empty range is an empty block
+     */
+    static byte[] encodeBlock(HotSegment.Columns rows, int from, int to) {
+        if (from >= to) {
+            return new byte[0];
+        }
+        BitWriter out = new BitWriter();
+        out.writeBits(rows.timestamps[from], 64);
+        out.writeBits(rows.ids[from], 64);
+        XorState temperature = new XorState(rows.temperatures[from]);
+        XorState vibration = new XorState(rows.vibrations[from]);
+        XorState load = new XorState(rows.loads[from]);
+        out.writeBits(temperature.previous, 64);
+        out.writeBits(vibration.previous, 64);
+        out.writeBits(load.previous, 64);
+
+        long previousTimestamp = rows.timestamps[from];
+        long previousTimestampDelta = 0;
+        long previousId = rows.ids[from];
+        long previousIdDelta = 0;
+        for (int i = from + 1; i < to; i++) {
+            long timestampDelta = rows.timestamps[i] - previousTimestamp;
+            writeDeltaOfDelta(out, timestampDelta - previousTimestampDelta);
+            previousTimestamp = rows.timestamps[i];
+            previousTimestampDelta = timestampDelta;
+
+            long idDelta = rows.ids[i] - previousId;
+            writeDeltaOfDelta(out, idDelta - previousIdDelta);
+            previousId = rows.ids[i];
+            previousIdDelta = idDelta;
+
+            temperature.write(out, rows.temperatures[i]);
+            vibration.write(out, rows.vibrations[i]);
+            load.write(out, rows.loads[i]);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode a block of `count` rows starting at `offset`
+     */
+    static HotSegment.Columns decodeBlock(ByteBuffer buffer, int offset, int count) {
+        HotSegment.Columns rows = new HotSegment.Columns(count);
+        if (count == 0) {
+            return rows;
+        }
+        BitReader in = new BitReader(buffer, offset);
+        rows.timestamps[0] = in.readBits(64);
+        rows.ids[0] = in.readBits(64);
+        XorState temperature = new XorState(in.readBits(64));
+        XorState vibration = new XorState(in.readBits(64));
+        XorState load = new XorState(in.readBits(64));
+        rows.temperatures[0] = temperature.value();
+        rows.vibrations[0] = vibration.value();
+        rows.loads[0] = load.value();
+
+        long timestampDelta = 0;
+        long idDelta = 0;
+        for (int i = 1; i < count; i++) {
+            timestampDelta += readDeltaOfDelta(in);
+            rows.timestamps[i] = rows.timestamps[i - 1] + timestampDelta;
+            idDelta += readDeltaOfDelta(in);
+            rows.ids[i] = rows.ids[i - 1] + idDelta;
+            rows.temperatures[i] = temperature.read(in);
+            rows.vibrations[i] = vibration.read(in);
+            rows.loads[i] = load.read(in);
+        }
+        return rows;
+    }
+
+    // '0' | '10' 14 bits | '110' 20 bits | '1110' 32 bits | '1111' 64 bits
+    private static void writeDeltaOfDelta(BitWriter out, long dod) {
+        if (dod == 0) {
+            out.writeBit(false);
+        } else if (fits(dod, 14)) {
+            out.writeBits(0b10, 2);
+            out.writeBits(dod, 14);
+        } else if (fits(dod, 20)) {
+            out.writeBits(0b110, 3);
+            out.writeBits(dod, 20);
+        } else if (fits(dod, 32)) {
+            out.writeBits(0b1110, 4);
+            out.writeBits(dod, 32);
+        } else {
+            out.writeBits(0b1111, 4);
+            out.writeBits(dod, 64);
+        }
+    }
+
+    private static long readDeltaOfDelta(BitReader in) {
+        if (!in.readBit()) {
+            return 0;
+        }
+        if (!in.readBit()) {
+            return signExtend(in.readBits(14), 14);
+        }
+        if (!in.readBit()) {
+            return signExtend(in.readBits(20), 20);
+        }
+        if (!in.readBit()) {
+            return signExtend(in.readBits(32), 32);
+        }
+        return in.readBits(64);
+    }
+
+    private static boolean fits(long value, int bits) {
+        long limit = 1L << (bits - 1);
+        return value >= -limit && value < limit;
+    }
+
+    private static long signExtend(long value, int bits) {
+        int shift = 64 - bits;
+        return (value << shift) >> shift;
+    }
+
+    /**
+     * XOR encoder/decoder state for one channel
+     */
+    private static final class XorState {
+        long previous;
+        int leading = -1;
+        int trailing;
+
+        XorState(int hundredths) {
+            previous = Double.doubleToRawLongBits(hundredths);
+        }
+
+        XorState(long bits) {
+            previous = bits;
+        }
+
+        int value() {
+            return (int) Double.longBitsToDouble(previous);
+        }
+
+        void write(BitWriter out, int hundredths) {
+            long current = Double.doubleToRawLongBits(hundredths);
+            long xor = current ^ previous;
+            previous = current;
+            if (xor == 0) {
+                out.writeBit(false);
+                return;
+            }
+            out.writeBit(true);
+
+            int newLeading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int newTrailing = Long.numberOfTrailingZeros(xor);
+            if (leading >= 0 && newLeading >= leading && newTrailing >= trailing) {
+                // Meaningful bits fit in the previous window
+                out.writeBit(false);
+                out.writeBits(xor >>> trailing, 64 - leading - trailing);
+            } else {
+                leading = newLeading;
+                trailing = newTrailing;
+                int meaningful = 64 - leading - trailing;
+                out.writeBit(true);
+                out.writeBits(leading, 5);
+                out.writeBits(meaningful - 1, 6);
+                out.writeBits(xor >>> trailing, meaningful);
+            }
+        }
+
+        int read(BitReader in) {
+            if (in.readBit()) {
+                if (in.readBit()) {
+                    leading = (int) in.readBits(5);
+                    int meaningful = (int) in.readBits(6) + 1;
+                    trailing = 64 - leading - meaningful;
+                }
+                long xor = in.readBits(64 - leading - trailing) << trailing;
+                previous ^= xor;
+            }
+            return value();
+        }
+    }
+}
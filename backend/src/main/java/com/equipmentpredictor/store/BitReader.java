@@ -0,0 +1,33 @@
+package com.equipmentpredictor.store;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Bit stream reader over a (possibly memory-mapped) buffer region
+ */
+class BitReader {
+
+    private final ByteBuffer buffer;
+    private final int start;
+    private long bitPosition;
+
+    BitReader(ByteBuffer buffer, int start) {
+        this.buffer = buffer;
+        this.start = start;
+    }
+
+    boolean readBit() {
+        int b = buffer.get(start + (int) (bitPosition >>> 3));
+        boolean bit = (b & (0x80 >>> (bitPosition & 7))) != 0;
+        bitPosition++;
+        return bit;
+    }
+
+    long readBits(int count) {
+        long value = 0;
+        for (int i = 0; i < count; i++) {
+            value = (value << 1) | (readBit() ? 1L : 0L);
+        }
+        return value;
+    }
+}
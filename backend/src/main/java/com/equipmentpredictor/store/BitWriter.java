@@ -0,0 +1,40 @@
+package com.equipmentpredictor.store;
+
+import java.util.Arrays;
+
+/**
+ * Append-only bit stream backed by a growable byte array
+ */
+class BitWriter {
+
+    private byte[] bytes = new byte[1024];
+    private long bitLength;
+
+    void writeBit(boolean bit) {
+        writeBits(bit ? 1 : 0, 1);
+    }
+
+    /**
+     * Write the low `count` bits of `value`, most significant first
+     */
+    void writeBits(long value, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            int byteIndex = (int) (bitLength >>> 3);
+            if (byteIndex == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            if (((value >>> i) & 1L) != 0) {
+                bytes[byteIndex] |= (byte) (0x80 >>> (bitLength & 7));
+            }
+            bitLength++;
+        }
+    }
+
+    int byteLength() {
+        return (int) ((bitLength + 7) >>> 3);
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(bytes, byteLength());
+    }
+}
@@ -0,0 +1,361 @@
+package com.equipmentpredictor.store;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Memory-mapped columnar ring buffer of readings for one equipment
+ *
+ * Layout: 64 byte header, then one column per field of `capacity` slots:
+ * timestamp (epoch micros), id, temperature, vibration, load (hundredths).
+ * Rows are kept sorted by timestamp; the oldest row is at `head`.
+ * Data is written before the header, so a crash mid-append loses at most that row.
+ * The header records whether the segment was closed cleanly; any other open
+ * (a crash, possibly between a commit and its append) empties the segment.
+ */
+class HotSegment {
+
+    static final int MAGIC = 0x53484F54;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int ROW_BYTES = 8 + 8 + 4 + 4 + 4;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int HEAD_OFFSET = 12;
+    private static final int COUNT_OFFSET = 16;
+    private static final int EQUIPMENT_OFFSET = 24;
+    private static final int COVERED_FROM_OFFSET = 32;
+    private static final int CLEAN_OFFSET = 40;
+
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final LongBuffer timestamps;
+    private final LongBuffer ids;
+    private final IntBuffer temperatures;
+    private final IntBuffer vibrations;
+    private final IntBuffer loads;
+    private final StampedLock lock = new StampedLock();
+
+    private int head;
+    private int count;
+    private long coveredFromMicros;
+    private boolean restored;
+
+    private HotSegment(MappedByteBuffer buffer, int capacity) {
+        this.buffer = buffer;
+        this.capacity = capacity;
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        int offset = HEADER_BYTES;
+        this.timestamps = buffer.slice(offset, 8 * capacity).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        offset += 8 * capacity;
+        this.ids = buffer.slice(offset, 8 * capacity).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        offset += 8 * capacity;
+        this.temperatures = buffer.slice(offset, 4 * capacity).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        offset += 4 * capacity;
+        this.vibrations = buffer.slice(offset, 4 * capacity).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        offset += 4 * capacity;
+        this.loads = buffer.slice(offset, 4 * capacity).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    static long fileSize(int capacity) {
+        return HEADER_BYTES + (long) ROW_BYTES * capacity;
+    }
+
+    /**
+     * Create a new empty segment file
+     */
+    static HotSegment create(Path file, long equipmentId, int capacity, long coveredFromMicros) throws IOException {
+        HotSegment segment = new HotSegment(map(file, fileSize(capacity)), capacity);
+        segment.buffer.putInt(MAGIC_OFFSET, MAGIC);
+        segment.buffer.putInt(VERSION_OFFSET, VERSION);
+        segment.buffer.putInt(CAPACITY_OFFSET, capacity);
+        segment.buffer.putLong(EQUIPMENT_OFFSET, equipmentId);
+        segment.coveredFromMicros = coveredFromMicros;
+        segment.writeHeader();
+        return segment;
+    }
+
+    /**
+     * Map an existing segment file and restore its state from the header
+     * If it was not closed cleanly, it is emptied and covers only readings
+     * from `reopenedAtMicros` on
+     */
+    static HotSegment open(Path file, long reopenedAtMicros) throws IOException {
+        long size = java.nio.file.Files.size(file);
+        MappedByteBuffer buffer = map(file, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(MAGIC_OFFSET) != MAGIC || buffer.getInt(VERSION_OFFSET) != VERSION) {
+            throw new IOException("Not a hot store segment: " + file);
+        }
+        int capacity = buffer.getInt(CAPACITY_OFFSET);
+        if (fileSize(capacity) != size) {
+            throw new IOException("Truncated hot store segment: " + file);
+        }
+
+        HotSegment segment = new HotSegment(buffer, capacity);
+        if (buffer.getInt(CLEAN_OFFSET) == 1) {
+            segment.head = buffer.getInt(HEAD_OFFSET);
+            segment.count = buffer.getInt(COUNT_OFFSET);
+            segment.coveredFromMicros = buffer.getLong(COVERED_FROM_OFFSET);
+            segment.restored = true;
+            if (segment.head < 0 || segment.head >= capacity || segment.count < 0 || segment.count > capacity) {
+                throw new IOException("Corrupt hot store segment header: " + file);
+            }
+        } else {
+            segment.coveredFromMicros = reopenedAtMicros;
+        }
+        segment.writeHeader();
+        return segment;
+    }
+
+    private static MappedByteBuffer map(Path file, long size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(size);
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    long equipmentId() {
+        return buffer.getLong(EQUIPMENT_OFFSET);
+    }
+
+    /**
+     * Whether open() kept the rows of a cleanly closed segment
+     */
+    boolean restored() {
+        return restored;
+    }
+
+    long coveredFromMicros() {
+        long stamp = lock.tryOptimisticRead();
+        long covered = coveredFromMicros;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                covered = coveredFromMicros;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return covered;
+    }
+
+    int size() {
+        long stamp = lock.tryOptimisticRead();
+        int size = count;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                size = count;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Insert a row in timestamp order, evicting rows that are full-capacity
+     * overflow or older than the retention window
+     * Returns false if the row is already outside the retention window
+     */
+    boolean append(long id, long timestampMicros, int temperature, int vibration, int load, long retentionMicros) {
+        long stamp = lock.writeLock();
+        try {
+            long newest = count > 0 ? Math.max(timestampMicros, timestampAt(count - 1)) : timestampMicros;
+            long cutoff = newest - retentionMicros;
+            if (timestampMicros < cutoff) {
+                return false;
+            }
+
+            while (count > 0 && (count == capacity || timestampAt(0) < cutoff)) {
+                coveredFromMicros = Math.max(coveredFromMicros, timestampAt(0) + 1);
+                head = (head + 1) % capacity;
+                count--;
+            }
+
+            // Readings usually arrive in order, so this shift is normally empty
+            int position = upperBound(timestampMicros);
+            for (int i = count; i > position; i--) {
+                copyRow(physical(i - 1), physical(i));
+            }
+
+            int slot = physical(position);
+            timestamps.put(slot, timestampMicros);
+            ids.put(slot, id);
+            temperatures.put(slot, temperature);
+            vibrations.put(slot, vibration);
+            loads.put(slot, load);
+            count++;
+
+            writeHeader();
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Copy the newest `limit` rows with fromMicros <= timestamp <= toMicros
+     */
+    Columns range(long fromMicros, long toMicros, int limit) {
+        long stamp = lock.tryOptimisticRead();
+        Columns columns = copyRange(fromMicros, toMicros, limit);
+        if (lock.validate(stamp)) {
+            return columns;
+        }
+
+        stamp = lock.readLock();
+        try {
+            return copyRange(fromMicros, toMicros, limit);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Copy the newest `limit` rows
+     */
+    Columns latest(int limit) {
+        return range(Long.MIN_VALUE, Long.MAX_VALUE, limit);
+    }
+
+    /**
+     * Flush to disk and mark the segment as closed cleanly
+     * A later append clears the mark again
+     */
+    void close() {
+        long stamp = lock.writeLock();
+        try {
+            buffer.putInt(CLEAN_OFFSET, 1);
+            buffer.force();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private Columns copyRange(long fromMicros, long toMicros, int limit) {
+        try {
+            int snapshotCount = count;
+            int snapshotHead = head;
+            if (snapshotCount > capacity || snapshotHead >= capacity) {
+                return Columns.EMPTY;
+            }
+            int lo = lowerBound(fromMicros, snapshotHead, snapshotCount);
+            int hi = upperBound(toMicros, snapshotHead, snapshotCount);
+            int length = Math.max(0, Math.min(limit, hi - lo));
+            int start = hi - length;
+
+            Columns columns = new Columns(length);
+            int first = Math.min(length, capacity - (snapshotHead + start) % capacity);
+            copy(columns, 0, (snapshotHead + start) % capacity, first);
+            if (first < length) {
+                copy(columns, first, 0, length - first);
+            }
+            return columns;
+        } catch (IndexOutOfBoundsException e) {
+            // Torn optimistic read; the caller retries under the read lock
+            return Columns.EMPTY;
+        }
+    }
+
+    private void copy(Columns columns, int offset, int slot, int length) {
+        timestamps.get(slot, columns.timestamps, offset, length);
+        ids.get(slot, columns.ids, offset, length);
+        temperatures.get(slot, columns.temperatures, offset, length);
+        vibrations.get(slot, columns.vibrations, offset, length);
+        loads.get(slot, columns.loads, offset, length);
+    }
+
+    private void copyRow(int from, int to) {
+        timestamps.put(to, timestamps.get(from));
+        ids.put(to, ids.get(from));
+        temperatures.put(to, temperatures.get(from));
+        vibrations.put(to, vibrations.get(from));
+        loads.put(to, loads.get(from));
+    }
+
+    private void writeHeader() {
+        buffer.putInt(CLEAN_OFFSET, 0);
+        buffer.putLong(COVERED_FROM_OFFSET, coveredFromMicros);
+        buffer.putInt(HEAD_OFFSET, head);
+        buffer.putInt(COUNT_OFFSET, count);
+    }
+
+    private int physical(int logical) {
+        return (head + logical) % capacity;
+    }
+
+    private long timestampAt(int logical) {
+        return timestamps.get(physical(logical));
+    }
+
+    private int upperBound(long micros) {
+        return upperBound(micros, head, count);
+    }
+
+    // First logical index with timestamp >= micros
+    private int lowerBound(long micros, int fromHead, int size) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (timestamps.get((fromHead + mid) % capacity) < micros) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // First logical index with timestamp > micros
+    private int upperBound(long micros, int fromHead, int size) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (timestamps.get((fromHead + mid) % capacity) <= micros) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Rows copied out of a segment in ascending timestamp order
+     */
+    static final class Columns {
+        static final Columns EMPTY = new Columns(0);
+
+        final long[] timestamps;
+        final long[] ids;
+        final int[] temperatures;
+        final int[] vibrations;
+        final int[] loads;
+
+        Columns(int length) {
+            timestamps = new long[length];
+            ids = new long[length];
+            temperatures = new int[length];
+            vibrations = new int[length];
+            loads = new int[length];
+        }
+
+        int length() {
+            return timestamps.length;
+        }
+    }
+}
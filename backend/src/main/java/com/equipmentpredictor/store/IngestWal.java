@@ -0,0 +1,395 @@
+package com.equipmentpredictor.store;
+
+import com.equipmentpredictor.dto.SensorLogDTO;
+import com.equipmentpredictor.model.SensorLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Segmented, memory-mapped write-ahead log for acknowledged ingestion
+ * Readings are appended and acknowledged once a group fsync covers them.
+ * WalApplier later writes them to the database in batches and checkpoints
+ * the applied lsn, after which fully applied segments are deleted. Records
+ * that cannot be applied at all are kept in a dead-letter file.
+ */
+@Component
+@ConditionalOnProperty(name = "ingest.durability", havingValue = "wal")
+@Slf4j
+public class IngestWal {
+
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String ID_FILE = "wal.id";
+    private static final String DEAD_LETTER_FILE = "dead-letter.log";
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final long groupCommitNanos;
+    private final int maxSegments;
+    private final long ackTimeoutMillis;
+
+    // Segments keyed by first lsn
+    private final ConcurrentSkipListMap<Long, WalSegment> segments = new ConcurrentSkipListMap<>();
+    private final ByteBuffer scratch = ByteBuffer.allocate(WalSegment.RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private final Object writeLock = new Object();
+    private final Object flushMonitor = new Object();
+
+    private String walId;
+    private WalSegment current;
+    private int currentFlushedCount;
+    private volatile long writtenLsn;
+    private volatile long flushedLsn;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public IngestWal(@Value("${ingest.wal.directory:./data/wal}") String directory,
+            @Value("${ingest.wal.segment-size-mb:64}") int segmentSizeMb,
+            @Value("${ingest.wal.group-commit-micros:2000}") long groupCommitMicros,
+            @Value("${ingest.wal.max-segments:64}") int maxSegments,
+            @Value("${ingest.wal.ack-timeout-ms:10000}") long ackTimeoutMillis) {
+        this.directory = Paths.get(directory);
+        this.recordsPerSegment = (int) ((long) segmentSizeMb * 1024 * 1024 / WalSegment.RECORD_BYTES);
+        this.groupCommitNanos = TimeUnit.MICROSECONDS.toNanos(groupCommitMicros);
+        this.maxSegments = maxSegments;
+        this.ackTimeoutMillis = ackTimeoutMillis;
+    }
+
+    /**
+     * Open existing segments; appends are rejected until recover() is called
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        Path idFile = directory.resolve(ID_FILE);
+        if (Files.exists(idFile)) {
+            walId = Files.readString(idFile, StandardCharsets.UTF_8).trim();
+        } else {
+            walId = UUID.randomUUID().toString();
+            Files.writeString(idFile, walId, StandardCharsets.UTF_8);
+        }
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                long firstLsn = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                segments.put(firstLsn, WalSegment.open(file, firstLsn));
+            }
+        }
+        log.info("Opened write-ahead log {} with {} segments in {}", walId, segments.size(), directory);
+    }
+
+    /**
+     * Position the writer after both the log contents and the applied checkpoint
+     * and start the group-commit flusher
+     */
+    public void recover(long appliedLsn) {
+        synchronized (writeLock) {
+            long lastLsn = segments.isEmpty() ? 0 : segments.lastEntry().getValue().lastLsn();
+            long nextLsn = Math.max(lastLsn, appliedLsn) + 1;
+
+            WalSegment last = segments.isEmpty() ? null : segments.lastEntry().getValue();
+            if (last != null && !last.isFull() && last.lastLsn() + 1 == nextLsn) {
+                current = last;
+            } else {
+                current = createSegment(nextLsn);
+            }
+            currentFlushedCount = current.count();
+            writtenLsn = nextLsn - 1;
+            flushedLsn = nextLsn - 1;
+        }
+
+        running = true;
+        flusher = new Thread(this::flushLoop, "wal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("Write-ahead log recovered: applied lsn {}, next lsn {}", appliedLsn, flushedLsn + 1);
+    }
+
+    @PreDestroy
+    public void close() {
+        running = false;
+        if (flusher != null) {
+            flusher.interrupt();
+        }
+        synchronized (writeLock) {
+            if (current != null) {
+                current.force(currentFlushedCount, current.count());
+            }
+        }
+    }
+
+    public String walId() {
+        return walId;
+    }
+
+    /**
+     * Append a reading and wait until a group fsync has made it durable
+     * Throws RejectedExecutionException if the log is too far behind the database
+     */
+    public long append(SensorLogDTO reading) {
+        long lsn;
+        synchronized (writeLock) {
+            if (!appendLocked(reading.getEquipmentId(),
+                    SensorHotStore.toMicros(reading.getTimestamp()),
+                    SensorLog.toHundredths(reading.getTemperature()),
+                    SensorLog.toHundredths(reading.getVibration()),
+                    SensorLog.toHundredths(reading.getLoadPercentage()))) {
+                throw new RejectedExecutionException("Write-ahead log is full");
+            }
+            lsn = writtenLsn;
+        }
+
+        awaitDurable(lsn);
+        return lsn;
+    }
+
+    /**
+     * Append readings in order and wait until a group fsync covers all of them
+     * Returns how many readings were appended: the log can fill up partway,
+     * and then only that many leading readings are logged (and will be applied).
+     * Throws RejectedExecutionException if the log is too far behind the
+     * database to take even the first one.
+     */
+    public int appendAll(List<SensorLogDTO> readings) {
+        int appended = 0;
+        long lsn;
+        synchronized (writeLock) {
+            for (SensorLogDTO reading : readings) {
+                if (!appendLocked(reading.getEquipmentId(),
+                        SensorHotStore.toMicros(reading.getTimestamp()),
+                        SensorLog.toHundredths(reading.getTemperature()),
+                        SensorLog.toHundredths(reading.getVibration()),
+                        SensorLog.toHundredths(reading.getLoadPercentage()))) {
+                    break;
+                }
+                appended++;
+            }
+            lsn = writtenLsn;
+        }
+        return awaitAppended(appended, readings.size(), lsn);
+    }
+
+    /**
+     * Append a columnar batch as appendAll(List) does, without per-reading objects
+     */
+    public int appendAll(ReadingBuffer readings) {
+        int appended = 0;
+        long lsn;
+        synchronized (writeLock) {
+            for (int i = 0; i < readings.size(); i++) {
+                if (!appendLocked(readings.equipmentId(i), readings.timestampMicros(i),
+                        readings.temperature(i), readings.vibration(i), readings.load(i))) {
+                    break;
+                }
+                appended++;
+            }
+            lsn = writtenLsn;
+        }
+        return awaitAppended(appended, readings.size(), lsn);
+    }
+
+    private int awaitAppended(int appended, int size, long lsn) {
+        if (appended == 0 && size > 0) {
+            throw new RejectedExecutionException("Write-ahead log is full");
+        }
+        awaitDurable(lsn);
+        return appended;
+    }
+
+    // Caller holds writeLock; false when the log has reached max-segments
+    private boolean appendLocked(long equipmentId, long timestampMicros, int temperature, int vibration, int load) {
+        if (current == null) {
+            throw new IllegalStateException("Write-ahead log is not recovered yet");
+        }
+        if (current.isFull()) {
+            if (segments.size() >= maxSegments) {
+                return false;
+            }
+            current.force(currentFlushedCount, current.count());
+            current = createSegment(current.lastLsn() + 1);
+            currentFlushedCount = 0;
+        }
+        current.append(scratch, equipmentId, timestampMicros, temperature, vibration, load);
+        writtenLsn = current.lastLsn();
+        return true;
+    }
+
+    /**
+     * Read up to `max` durable records after `afterLsn`
+     */
+    public List<WalRecord> read(long afterLsn, int max) {
+        List<WalRecord> records = new ArrayList<>();
+        long durable = flushedLsn;
+        long lsn = afterLsn + 1;
+        while (records.size() < max && lsn <= durable) {
+            Map.Entry<Long, WalSegment> entry = segments.floorEntry(lsn);
+            if (entry == null) {
+                // Older segments already truncated; continue at the oldest remaining one
+                entry = segments.ceilingEntry(lsn);
+                if (entry == null) {
+                    break;
+                }
+                lsn = entry.getKey();
+                continue;
+            }
+            WalSegment segment = entry.getValue();
+            if (lsn > segment.lastLsn()) {
+                Map.Entry<Long, WalSegment> next = segments.higherEntry(entry.getKey());
+                if (next == null) {
+                    break;
+                }
+                lsn = next.getKey();
+                continue;
+            }
+            records.add(segment.read((int) (lsn - segment.firstLsn())));
+            lsn++;
+        }
+        return records;
+    }
+
+    /**
+     * Wait until records after `afterLsn` are durable or the timeout passes
+     */
+    public void awaitRecords(long afterLsn, long timeoutMillis) throws InterruptedException {
+        synchronized (flushMonitor) {
+            if (flushedLsn <= afterLsn) {
+                flushMonitor.wait(timeoutMillis);
+            }
+        }
+    }
+
+    /**
+     * Append a record that could not be applied to dead-letter.log and fsync it
+     * One tab-separated line per record: lsn, equipment id, timestamp,
+     * temperature, vibration, load and the reason.
+     */
+    public void deadLetter(WalRecord record, String reason) {
+        String line = record.lsn() + "\t" + record.equipmentId() + "\t" + record.timestamp()
+                + "\t" + record.temperatureValue() + "\t" + record.vibrationValue() + "\t" + record.loadValue()
+                + "\t" + String.valueOf(reason).replaceAll("\\s+", " ") + "\n";
+        Path file = directory.resolve(DEAD_LETTER_FILE);
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)));
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write WAL dead-letter file " + file, e);
+        }
+    }
+
+    /**
+     * Delete segments whose records are all applied
+     */
+    public void truncate(long appliedLsn) {
+        synchronized (writeLock) {
+            for (WalSegment segment : new ArrayList<>(segments.values())) {
+                if (segment == current || segment.lastLsn() > appliedLsn) {
+                    break;
+                }
+                segments.remove(segment.firstLsn());
+                try {
+                    Files.deleteIfExists(segment.file());
+                } catch (IOException e) {
+                    log.warn("Failed to delete applied WAL segment {}", segment.file(), e);
+                }
+            }
+        }
+    }
+
+    private WalSegment createSegment(long firstLsn) {
+        Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstLsn, SEGMENT_SUFFIX));
+        try {
+            WalSegment segment = WalSegment.create(file, firstLsn, recordsPerSegment);
+            segments.put(firstLsn, segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create WAL segment " + file, e);
+        }
+    }
+
+    private void awaitDurable(long lsn) {
+        long deadline = System.currentTimeMillis() + ackTimeoutMillis;
+        synchronized (flushMonitor) {
+            flushMonitor.notifyAll();
+            while (flushedLsn < lsn) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new IllegalStateException("Timed out waiting for WAL fsync");
+                }
+                try {
+                    flushMonitor.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for WAL fsync", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Group commit: wait for new records, let a short window accumulate,
+     * then fsync once for everything written so far
+     */
+    private void flushLoop() {
+        while (running) {
+            try {
+                synchronized (flushMonitor) {
+                    while (running && writtenLsn == flushedLsn) {
+                        flushMonitor.wait();
+                    }
+                }
+                if (groupCommitNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(groupCommitNanos);
+                }
+
+                // Appenders keep writing while the fsync runs; a segment that
+                // fills up meanwhile is forced by the appender that rotates it
+                long target;
+                WalSegment segment;
+                int from;
+                int to;
+                synchronized (writeLock) {
+                    target = writtenLsn;
+                    segment = current;
+                    from = currentFlushedCount;
+                    to = current.count();
+                    currentFlushedCount = to;
+                }
+                segment.force(from, to);
+
+                synchronized (flushMonitor) {
+                    flushedLsn = target;
+                    flushMonitor.notifyAll();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.error("WAL group commit failed", e);
+            }
+        }
+    }
+}
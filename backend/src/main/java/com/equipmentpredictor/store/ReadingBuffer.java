@@ -0,0 +1,92 @@
+package com.equipmentpredictor.store;
+
+import com.equipmentpredictor.dto.SensorLogDTO;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+
+/**
+ * Reusable columnar batch of incoming readings
+ * Timestamps are epoch microseconds and sensor values hundredths, as in the
+ * write-ahead log, so a batch can be filled, logged and cleared again
+ * without allocating an object per reading.
+ */
+public final class ReadingBuffer {
+
+    private final long[] equipmentIds;
+    private final long[] timestamps;
+    private final int[] temperatures;
+    private final int[] vibrations;
+    private final int[] loads;
+    private int size;
+
+    public ReadingBuffer(int capacity) {
+        equipmentIds = new long[capacity];
+        timestamps = new long[capacity];
+        temperatures = new int[capacity];
+        vibrations = new int[capacity];
+        loads = new int[capacity];
+    }
+
+    public void add(long equipmentId, long timestampMicros, int temperature, int vibration, int load) {
+        equipmentIds[size] = equipmentId;
+        timestamps[size] = timestampMicros;
+        temperatures[size] = temperature;
+        vibrations[size] = vibration;
+        loads[size] = load;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size == equipmentIds.length;
+    }
+
+    /**
+     * The readings at the given indexes, in that order, as a new buffer
+     */
+    public ReadingBuffer select(Collection<Integer> indexes) {
+        ReadingBuffer selected = new ReadingBuffer(indexes.size());
+        for (int i : indexes) {
+            selected.add(equipmentIds[i], timestamps[i], temperatures[i], vibrations[i], loads[i]);
+        }
+        return selected;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public long equipmentId(int i) {
+        return equipmentIds[i];
+    }
+
+    public long timestampMicros(int i) {
+        return timestamps[i];
+    }
+
+    public int temperature(int i) {
+        return temperatures[i];
+    }
+
+    public int vibration(int i) {
+        return vibrations[i];
+    }
+
+    public int load(int i) {
+        return loads[i];
+    }
+
+    /**
+     * Reading i as a DTO
+     */
+    public SensorLogDTO toDTO(int i) {
+        return new SensorLogDTO(null, equipmentIds[i], SensorHotStore.fromMicros(timestamps[i]),
+                BigDecimal.valueOf(temperatures[i], 2),
+                BigDecimal.valueOf(vibrations[i], 2),
+                BigDecimal.valueOf(loads[i], 2));
+    }
+}
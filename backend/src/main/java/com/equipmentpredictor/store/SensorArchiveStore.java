@@ -0,0 +1,282 @@
+package com.equipmentpredictor.store;
+
+import com.equipmentpredictor.dto.SensorLogDTO;
+import com.equipmentpredictor.model.SensorLog;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Compressed cold tier for aged sensor history
+ * One data file per equipment per day ({equipmentId}/{yyyy-MM-dd}.{generation}.gor)
+ * holding Gorilla-encoded blocks of rows, plus a small index ({yyyy-MM-dd}.idx)
+ * naming the data file's generation and listing the time range, row count and
+ * offset of each block. Reads memory-map the data file and decode only the
+ * blocks overlapping the requested range.
+ */
+@Component
+@ConditionalOnProperty(name = "archive.enabled", havingValue = "true")
+@Slf4j
+public class SensorArchiveStore {
+
+    static final int BLOCK_ROWS = 1024;
+    // Indexes written before generations existed point at {yyyy-MM-dd}.gor
+    private static final int INDEX_MAGIC_V1 = 0x47494458;
+    private static final int INDEX_MAGIC = 0x47494432;
+    private static final int INDEX_HEADER_BYTES_V1 = 8;
+    private static final int INDEX_HEADER_BYTES = 16;
+    private static final int INDEX_ENTRY_BYTES = 8 + 8 + 4 + 4 + 4;
+    private static final int OPEN_FILE_CACHE_SIZE = 256;
+
+    private final Path directory;
+
+    // Recently read archives by index file, least recently used evicted first
+    private final Map<Path, ArchiveFile> openFiles = Collections.synchronizedMap(
+            new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Path, ArchiveFile> eldest) {
+                    return size() > OPEN_FILE_CACHE_SIZE;
+                }
+            });
+
+    public SensorArchiveStore(@Value("${archive.directory:./data/archive}") String directory) {
+        this.directory = Paths.get(directory);
+    }
+
+    /**
+     * Days with an archive for the equipment, oldest first
+     */
+    public NavigableSet<LocalDate> archivedDays(Long equipmentId) {
+        NavigableSet<LocalDate> days = new TreeSet<>();
+        Path equipmentDir = directory.resolve(String.valueOf(equipmentId));
+        if (!Files.isDirectory(equipmentDir)) {
+            return days;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(equipmentDir, "*.idx")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                days.add(LocalDate.parse(name.substring(0, name.length() - 4)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list archive for equipment " + equipmentId, e);
+        }
+        return days;
+    }
+
+    /**
+     * Write (or replace) the archive for one equipment and day
+     * Rows must be sorted by timestamp. Every write creates a data file of a
+     * new generation, and the index naming it is moved into place last, so a
+     * day only counts as archived once both files are complete and a reader
+     * always gets an index with its own data file. A replaced data file is
+     * deleted once it is out of the cache; readers still holding it keep
+     * their mapping.
+     */
+    public void write(Long equipmentId, LocalDate day, List<SensorLog> rows) throws IOException {
+        HotSegment.Columns columns = new HotSegment.Columns(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            SensorLog row = rows.get(i);
+            columns.timestamps[i] = SensorHotStore.toMicros(row.getTimestamp());
+            columns.ids[i] = row.getId();
+            columns.temperatures[i] = row.getTemperatureHundredths();
+            columns.vibrations[i] = row.getVibrationHundredths();
+            columns.loads[i] = row.getLoadHundredths();
+        }
+
+        Path equipmentDir = directory.resolve(String.valueOf(equipmentId));
+        Files.createDirectories(equipmentDir);
+        Path index = equipmentDir.resolve(day + ".idx");
+        Path dataTmp = equipmentDir.resolve(day + ".gor.tmp");
+        Path indexTmp = equipmentDir.resolve(day + ".idx.tmp");
+        Path previousData = Files.exists(index) ? dataFile(equipmentDir, day, readIndex(index)) : null;
+        long generation = System.currentTimeMillis();
+        while (Files.exists(equipmentDir.resolve(day + "." + generation + ".gor"))) {
+            generation++;
+        }
+        Path data = equipmentDir.resolve(day + "." + generation + ".gor");
+
+        int blocks = (columns.length() + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        ByteBuffer indexBuffer = ByteBuffer.allocate(INDEX_HEADER_BYTES + blocks * INDEX_ENTRY_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        indexBuffer.putInt(INDEX_MAGIC).putInt(blocks).putLong(generation);
+
+        try (FileChannel out = FileChannel.open(dataTmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            int offset = 0;
+            for (int from = 0; from < columns.length(); from += BLOCK_ROWS) {
+                int to = Math.min(from + BLOCK_ROWS, columns.length());
+                byte[] block = ArchiveCodec.encodeBlock(columns, from, to);
+                out.write(ByteBuffer.wrap(block));
+                indexBuffer.putLong(columns.timestamps[from])
+                        .putLong(columns.timestamps[to - 1])
+                        .putInt(to - from)
+                        .putInt(offset)
+                        .putInt(block.length);
+                offset += block.length;
+            }
+            out.force(true);
+        }
+        indexBuffer.flip();
+        try (FileChannel out = FileChannel.open(indexTmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            out.write(indexBuffer);
+            out.force(true);
+        }
+
+        Files.move(dataTmp, data, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(indexTmp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // Entries are opened under the map's lock, so after this no reader can pick up the previous pair
+        openFiles.remove(index);
+        if (previousData != null) {
+            Files.deleteIfExists(previousData);
+        }
+        log.info("Archived {} readings for equipment {} on {} ({} bytes)",
+                rows.size(), equipmentId, day, Files.size(data));
+    }
+
+    /**
+     * All archived rows of one day as entities, sorted by timestamp
+     */
+    public List<SensorLog> readDay(Long equipmentId, LocalDate day) {
+        List<SensorLog> rows = new ArrayList<>();
+        LocalDateTime end = day.plusDays(1).atStartOfDay().minusNanos(1);
+        for (SensorLogDTO dto : readRange(equipmentId, day.atStartOfDay(), end, Integer.MAX_VALUE, false)) {
+            rows.add(new SensorLog(dto.getId(), equipmentId, dto.getTimestamp(),
+                    SensorLog.toHundredths(dto.getTemperature()),
+                    SensorLog.toHundredths(dto.getVibration()),
+                    SensorLog.toHundredths(dto.getLoadPercentage())));
+        }
+        return rows;
+    }
+
+    /**
+     * Archived rows with from <= timestamp <= to, at most `limit`, newest
+     * first when `descending`, otherwise oldest first
+     */
+    public List<SensorLogDTO> readRange(Long equipmentId, LocalDateTime from, LocalDateTime to,
+            int limit, boolean descending) {
+        List<SensorLogDTO> result = new ArrayList<>();
+        NavigableSet<LocalDate> days = archivedDays(equipmentId)
+                .subSet(from.toLocalDate(), true, to.toLocalDate(), true);
+        long fromMicros = SensorHotStore.toMicros(from);
+        long toMicros = SensorHotStore.toMicros(to);
+
+        for (LocalDate day : descending ? days.descendingSet() : days) {
+            ArchiveFile file = open(equipmentId, day);
+            for (int b = 0; b < file.blocks; b++) {
+                int block = descending ? file.blocks - 1 - b : b;
+                if (file.lastTimestamp(block) < fromMicros || file.firstTimestamp(block) > toMicros) {
+                    continue;
+                }
+                HotSegment.Columns rows = ArchiveCodec.decodeBlock(file.data, file.offset(block), file.count(block));
+                for (int r = 0; r < rows.length(); r++) {
+                    int i = descending ? rows.length() - 1 - r : r;
+                    if (rows.timestamps[i] < fromMicros || rows.timestamps[i] > toMicros) {
+                        continue;
+                    }
+                    result.add(new SensorLogDTO(rows.ids[i], equipmentId,
+                            SensorHotStore.fromMicros(rows.timestamps[i]),
+                            BigDecimal.valueOf(rows.temperatures[i], 2),
+                            BigDecimal.valueOf(rows.vibrations[i], 2),
+                            BigDecimal.valueOf(rows.loads[i], 2)));
+                    if (result.size() >= limit) {
+                        return result;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private ArchiveFile open(Long equipmentId, LocalDate day) {
+        Path equipmentDir = directory.resolve(String.valueOf(equipmentId));
+        return openFiles.computeIfAbsent(equipmentDir.resolve(day + ".idx"), path -> {
+            try {
+                ByteBuffer index = readIndex(path);
+                return ArchiveFile.open(dataFile(equipmentDir, day, index), index);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open archive " + path, e);
+            }
+        });
+    }
+
+    private static ByteBuffer readIndex(Path indexFile) throws IOException {
+        ByteBuffer index = ByteBuffer.wrap(Files.readAllBytes(indexFile)).order(ByteOrder.LITTLE_ENDIAN);
+        int magic = index.getInt(0);
+        if (magic != INDEX_MAGIC && magic != INDEX_MAGIC_V1) {
+            throw new IOException("Not an archive index: " + indexFile);
+        }
+        return index;
+    }
+
+    private static Path dataFile(Path equipmentDir, LocalDate day, ByteBuffer index) {
+        return index.getInt(0) == INDEX_MAGIC_V1
+                ? equipmentDir.resolve(day + ".gor")
+                : equipmentDir.resolve(day + "." + index.getLong(8) + ".gor");
+    }
+
+    /**
+     * Mapped data file plus its in-memory block index
+     */
+    private static final class ArchiveFile {
+        final MappedByteBuffer data;
+        final ByteBuffer index;
+        final int blocks;
+        private final int headerBytes;
+
+        private ArchiveFile(MappedByteBuffer data, ByteBuffer index) {
+            this.data = data;
+            this.index = index;
+            this.blocks = index.getInt(4);
+            this.headerBytes = index.getInt(0) == INDEX_MAGIC_V1 ? INDEX_HEADER_BYTES_V1 : INDEX_HEADER_BYTES;
+        }
+
+        static ArchiveFile open(Path dataFile, ByteBuffer index) throws IOException {
+            try (RandomAccessFile raf = new RandomAccessFile(dataFile.toFile(), "r")) {
+                MappedByteBuffer data = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+                return new ArchiveFile(data, index);
+            }
+        }
+
+        long firstTimestamp(int block) {
+            return index.getLong(headerBytes + block * INDEX_ENTRY_BYTES);
+        }
+
+        long lastTimestamp(int block) {
+            return index.getLong(headerBytes + block * INDEX_ENTRY_BYTES + 8);
+        }
+
+        int count(int block) {
+            return index.getInt(headerBytes + block * INDEX_ENTRY_BYTES + 16);
+        }
+
+        int offset(int block) {
+            return index.getInt(headerBytes + block * INDEX_ENTRY_BYTES + 20);
+        }
+    }
+}
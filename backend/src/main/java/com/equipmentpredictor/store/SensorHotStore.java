@@ -0,0 +1,170 @@
+package com.equipmentpredictor.store;
+
+import com.equipmentpredictor.dto.SensorLogDTO;
+import com.equipmentpredictor.model.SensorLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Off-heap hot store for recent sensor history
+ * Keeps the last `hotstore.retention-hours` of readings per equipment in
+ * memory-mapped columnar segments, appended after each ingest commits.
+ * Recent range queries are answered by binary search and bulk column copies
+ * without touching the database. Segments are reopened from disk on startup.
+ *
+ * The store only sees readings ingested by this node, from the moment its
+ * segment was created (coveredFrom). Older ranges fall back to the database.
+ * It assumes this node is the only writer for its equipment: readings that
+ * other nodes ingest never reach it. Segments not closed cleanly are emptied
+ * on startup, since a reading may have committed without being appended.
+ */
+@Component
+@ConditionalOnProperty(name = "hotstore.enabled", havingValue = "true")
+@Slf4j
+public class SensorHotStore {
+
+    private static final String SEGMENT_PREFIX = "equipment-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path directory;
+    private final int capacityPerEquipment;
+    private final long retentionMicros;
+    private final ConcurrentMap<Long, HotSegment> segments = new ConcurrentHashMap<>();
+
+    public SensorHotStore(@Value("${hotstore.directory:./data/hotstore}") String directory,
+            @Value("${hotstore.capacity-per-equipment:262144}") int capacityPerEquipment,
+            @Value("${hotstore.retention-hours:72}") int retentionHours) {
+        if (HotSegment.fileSize(capacityPerEquipment) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("hotstore.capacity-per-equipment is too large: " + capacityPerEquipment);
+        }
+        this.directory = Paths.get(directory);
+        this.capacityPerEquipment = capacityPerEquipment;
+        this.retentionMicros = Duration.ofHours(retentionHours).toNanos() / 1000;
+    }
+
+    /**
+     * Reopen all segment files left by a previous run
+     */
+    @PostConstruct
+    public void load() throws IOException {
+        Files.createDirectories(directory);
+        long now = toMicros(LocalDateTime.now());
+        int reset = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                try {
+                    HotSegment segment = HotSegment.open(file, now);
+                    segments.put(segment.equipmentId(), segment);
+                    if (!segment.restored()) {
+                        reset++;
+                    }
+                } catch (IOException e) {
+                    log.warn("Discarding unreadable hot store segment {}: {}", file, e.getMessage());
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        log.info("Hot store opened {} equipment segments from {} ({} emptied after an unclean shutdown)",
+                segments.size(), directory, reset);
+    }
+
+    @PreDestroy
+    public void close() {
+        segments.values().forEach(HotSegment::close);
+    }
+
+    /**
+     * Append a committed reading
+     * Callers must not append concurrently for the same equipment (see IngestShardRouter)
+     */
+    public void append(SensorLog reading) {
+        HotSegment segment = segments.computeIfAbsent(reading.getEquipmentId(), this::createSegment);
+        segment.append(reading.getId(),
+                toMicros(reading.getTimestamp()),
+                reading.getTemperatureHundredths(),
+                reading.getVibrationHundredths(),
+                reading.getLoadHundredths(),
+                retentionMicros);
+    }
+
+    /**
+     * Readings in [from, to], newest first, if the store covers the whole range
+     */
+    public Optional<List<SensorLogDTO>> findByDateRange(Long equipmentId, LocalDateTime from,
+            LocalDateTime to, int limit) {
+        HotSegment segment = segments.get(equipmentId);
+        if (segment == null || toMicros(from) < segment.coveredFromMicros()) {
+            return Optional.empty();
+        }
+        return Optional.of(toDTOs(equipmentId, segment.range(toMicros(from), toMicros(to), limit)));
+    }
+
+    /**
+     * Newest readings, newest first, if the store holds at least `limit` of them
+     */
+    public Optional<List<SensorLogDTO>> findLatest(Long equipmentId, int limit) {
+        HotSegment segment = segments.get(equipmentId);
+        if (segment == null || segment.size() < limit) {
+            return Optional.empty();
+        }
+        HotSegment.Columns columns = segment.latest(limit);
+        if (columns.length() < limit) {
+            return Optional.empty();
+        }
+        return Optional.of(toDTOs(equipmentId, columns));
+    }
+
+    private HotSegment createSegment(Long equipmentId) {
+        Path file = directory.resolve(SEGMENT_PREFIX + equipmentId + SEGMENT_SUFFIX);
+        try {
+            // Anything ingested before this moment is only in the database
+            return HotSegment.create(file, equipmentId, capacityPerEquipment, toMicros(LocalDateTime.now()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create hot store segment " + file, e);
+        }
+    }
+
+    private List<SensorLogDTO> toDTOs(Long equipmentId, HotSegment.Columns columns) {
+        List<SensorLogDTO> result = new ArrayList<>(columns.length());
+        for (int i = columns.length() - 1; i >= 0; i--) {
+            result.add(new SensorLogDTO(
+                    columns.ids[i],
+                    equipmentId,
+                    fromMicros(columns.timestamps[i]),
+                    BigDecimal.valueOf(columns.temperatures[i], 2),
+                    BigDecimal.valueOf(columns.vibrations[i], 2),
+                    BigDecimal.valueOf(columns.loads[i], 2)));
+        }
+        return result;
+    }
+
+    public static long toMicros(LocalDateTime timestamp) {
+        return ChronoUnit.MICROS.between(LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC), timestamp);
+    }
+
+    public static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1000, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,24 @@
+package com.equipmentpredictor.store;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Reading stored in the ingestion write-ahead log
+ * Sensor values are kept as hundredths, matching the DECIMAL(5,2) columns
+ */
+public record WalRecord(long lsn, long equipmentId, LocalDateTime timestamp,
+        int temperature, int vibration, int load) {
+
+    public BigDecimal temperatureValue() {
+        return BigDecimal.valueOf(temperature, 2);
+    }
+
+    public BigDecimal vibrationValue() {
+        return BigDecimal.valueOf(vibration, 2);
+    }
+
+    public BigDecimal loadValue() {
+        return BigDecimal.valueOf(load, 2);
+    }
+}
@@ -0,0 +1,136 @@
+package com.equipmentpredictor.store;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32C;
+
+/**
+ * One memory-mapped write-ahead log file of fixed-size records
+ *
+ * Record layout (little endian, 40 bytes):
+ * lsn, equipmentId, timestamp (epoch micros), temperature, vibration, load (hundredths), crc32c.
+ * Records are contiguous by lsn starting at `firstLsn`, which is also the file name.
+ * A record with a bad checksum or an unexpected lsn marks the end of the log.
+ */
+class WalSegment {
+
+    static final int RECORD_BYTES = 40;
+    private static final int PAYLOAD_BYTES = 36;
+
+    private final Path file;
+    private final long firstLsn;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private int count;
+
+    private WalSegment(Path file, long firstLsn, MappedByteBuffer buffer) {
+        this.file = file;
+        this.firstLsn = firstLsn;
+        this.buffer = buffer;
+        this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.capacity = buffer.capacity() / RECORD_BYTES;
+    }
+
+    static WalSegment create(Path file, long firstLsn, int capacity) throws IOException {
+        return new WalSegment(file, firstLsn, map(file, (long) capacity * RECORD_BYTES));
+    }
+
+    /**
+     * Map an existing segment and find the end of its valid records
+     */
+    static WalSegment open(Path file, long firstLsn) throws IOException {
+        WalSegment segment = new WalSegment(file, firstLsn, map(file, Files.size(file)));
+        while (segment.count < segment.capacity && segment.isValid(segment.count)) {
+            segment.count++;
+        }
+        return segment;
+    }
+
+    private static MappedByteBuffer map(Path file, long size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(size);
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    Path file() {
+        return file;
+    }
+
+    long firstLsn() {
+        return firstLsn;
+    }
+
+    /**
+     * Lsn of the last record, or firstLsn - 1 if empty
+     */
+    long lastLsn() {
+        return firstLsn + count - 1;
+    }
+
+    int count() {
+        return count;
+    }
+
+    boolean isFull() {
+        return count == capacity;
+    }
+
+    /**
+     * Write the next record; the caller holds the log's write lock
+     */
+    void append(ByteBuffer scratch, long equipmentId, long timestampMicros, int temperature, int vibration, int load) {
+        long lsn = firstLsn + count;
+        scratch.clear();
+        scratch.putLong(lsn)
+                .putLong(equipmentId)
+                .putLong(timestampMicros)
+                .putInt(temperature)
+                .putInt(vibration)
+                .putInt(load);
+        scratch.flip();
+        CRC32C crc = new CRC32C();
+        crc.update(scratch.duplicate());
+
+        int offset = count * RECORD_BYTES;
+        buffer.put(offset, scratch, 0, PAYLOAD_BYTES);
+        buffer.putInt(offset + PAYLOAD_BYTES, (int) crc.getValue());
+        count++;
+    }
+
+    /**
+     * Flush records [fromIndex, toIndex) to disk
+     */
+    void force(int fromIndex, int toIndex) {
+        if (toIndex > fromIndex) {
+            buffer.force(fromIndex * RECORD_BYTES, (toIndex - fromIndex) * RECORD_BYTES);
+        }
+    }
+
+    WalRecord read(int index) {
+        int offset = index * RECORD_BYTES;
+        return new WalRecord(
+                buffer.getLong(offset),
+                buffer.getLong(offset + 8),
+                SensorHotStore.fromMicros(buffer.getLong(offset + 16)),
+                buffer.getInt(offset + 24),
+                buffer.getInt(offset + 28),
+                buffer.getInt(offset + 32));
+    }
+
+    private boolean isValid(int index) {
+        int offset = index * RECORD_BYTES;
+        if (buffer.getLong(offset) != firstLsn + index) {
+            return false;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, PAYLOAD_BYTES));
+        return (int) crc.getValue() == buffer.getInt(offset + PAYLOAD_BYTES);
+    }
+}
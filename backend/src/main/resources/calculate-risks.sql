@@ -3,14 +3,15 @@
 
 -- Function to normalize and calculate risk score
 CREATE OR REPLACE FUNCTION calculate_risk_score(temp DECIMAL, vib DECIMAL, load_pct DECIMAL)
-RETURNS TABLE(risk_score DECIMAL, risk_level VARCHAR, reason VARCHAR) AS $$
+RETURNS TABLE(risk_score DECIMAL, risk_level VARCHAR, reason_factor SMALLINT, reason_value DECIMAL) AS $$
 DECLARE
     normalized_temp DECIMAL;
     normalized_vib DECIMAL;
     normalized_load DECIMAL;
     calculated_score DECIMAL;
     calculated_level VARCHAR(10);
-    primary_reason VARCHAR(255);
+    primary_factor SMALLINT;
+    primary_value DECIMAL;
 BEGIN
     -- Normalize values to 0-100 scale
     normalized_temp := GREATEST(0, LEAST(100, (temp / 150.0) * 100));
@@ -32,29 +33,34 @@ BEGIN
         calculated_level := 'LOW';
     END IF;
     
-    -- Determine primary contributing factor
+    -- Determine primary contributing factor (1 temperature, 2 vibration, 3 load)
     IF normalized_temp > normalized_vib AND normalized_temp > normalized_load THEN
-        primary_reason := 'High temperature (' || temp || '°C)';
+        primary_factor := 1;
+        primary_value := temp;
     ELSIF normalized_vib > normalized_load THEN
-        primary_reason := 'Excessive vibration (' || vib || ' mm/s)';
+        primary_factor := 2;
+        primary_value := vib;
     ELSE
-        primary_reason := 'Heavy load (' || load_pct || '%)';
+        primary_factor := 3;
+        primary_value := load_pct;
     END IF;
     
-    RETURN QUERY SELECT calculated_score, calculated_level, primary_reason;
+    RETURN QUERY SELECT calculated_score, calculated_level, primary_factor, primary_value;
 END;
 $$ LANGUAGE plpgsql;
 
 -- Insert risk events for all existing sensor logs
-INSERT INTO risk_event (equipment_id, timestamp, risk_score, risk_level, reason)
+-- Readings are stored in hundredths
+INSERT INTO risk_event (equipment_id, timestamp, risk_score, risk_level, reason_factor, reason_value)
 SELECT 
     sl.equipment_id,
     sl.timestamp,
     calc.risk_score,
     calc.risk_level,
-    calc.reason
+    calc.reason_factor,
+    calc.reason_value
 FROM sensor_log sl
-CROSS JOIN LATERAL calculate_risk_score(sl.temperature, sl.vibration, sl.load_percentage) calc
+CROSS JOIN LATERAL calculate_risk_score(sl.temperature / 100.0, sl.vibration / 100.0, sl.load_percentage / 100.0) calc
 WHERE NOT EXISTS (
     SELECT 1 FROM risk_event re 
     WHERE re.equipment_id = sl.equipment_id 
@@ -0,0 +1,10 @@
+-- Applied position of each ingestion write-ahead log
+-- Updated in the same transaction as the readings it covers, so WAL replay is idempotent
+
+CREATE TABLE ingest_wal_checkpoint (
+    wal_id VARCHAR(64) PRIMARY KEY,
+    applied_lsn BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+COMMENT ON TABLE ingest_wal_checkpoint IS 'Last write-ahead log sequence number applied to the database';
@@ -0,0 +1,26 @@
+-- Risk scoring profile per equipment type
+-- Types without a profile use the default ranges and the risk.calculation.weight.* properties
+
+CREATE TABLE scoring_profile (
+    id BIGSERIAL PRIMARY KEY,
+    equipment_type VARCHAR(100) NOT NULL UNIQUE,
+    temperature_min DECIMAL(7,2) NOT NULL DEFAULT 0,
+    temperature_max DECIMAL(7,2) NOT NULL DEFAULT 150,
+    vibration_min DECIMAL(7,2) NOT NULL DEFAULT 0,
+    vibration_max DECIMAL(7,2) NOT NULL DEFAULT 50,
+    load_min DECIMAL(7,2) NOT NULL DEFAULT 0,
+    load_max DECIMAL(7,2) NOT NULL DEFAULT 100,
+    weight_temperature DECIMAL(4,3) NOT NULL DEFAULT 0.40,
+    weight_vibration DECIMAL(4,3) NOT NULL DEFAULT 0.35,
+    weight_load DECIMAL(4,3) NOT NULL DEFAULT 0.25,
+    threshold_medium DECIMAL(5,2) NOT NULL DEFAULT 40,
+    threshold_high DECIMAL(5,2) NOT NULL DEFAULT 65,
+    threshold_critical DECIMAL(5,2) NOT NULL DEFAULT 85,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CHECK (temperature_min < temperature_max),
+    CHECK (vibration_min < vibration_max),
+    CHECK (load_min < load_max),
+    CHECK (threshold_medium < threshold_high AND threshold_high < threshold_critical)
+);
+
+COMMENT ON TABLE scoring_profile IS 'Normalization ranges, weights and level thresholds per equipment type';
@@ -0,0 +1,40 @@
+-- Replace the formatted reason text with the primary factor code and its reading
+-- Codes: 1 = temperature, 2 = vibration, 3 = load (RiskEvent.RiskFactor)
+
+ALTER TABLE risk_event
+    ADD COLUMN reason_factor SMALLINT CHECK (reason_factor IN (1, 2, 3)),
+    ADD COLUMN reason_value DECIMAL(5,2);
+
+-- Backfill from "Primary risk factor: <Factor> (<value><unit>)" (service) and
+-- "High temperature (<value>°C)", "Excessive vibration (<value> mm/s)",
+-- "Heavy load (<value>%)" (calculate-risks.sql)
+UPDATE risk_event
+SET reason_factor = CASE
+        WHEN reason LIKE 'Primary risk factor: Temperature%' OR reason LIKE 'High temperature (%' THEN 1
+        WHEN reason LIKE 'Primary risk factor: Vibration%' OR reason LIKE 'Excessive vibration (%' THEN 2
+        WHEN reason LIKE 'Primary risk factor: Load%' OR reason LIKE 'Heavy load (%' THEN 3
+    END,
+    reason_value = CAST(substring(reason FROM '\(([-0-9.]+)') AS DECIMAL(5,2))
+WHERE reason IS NOT NULL;
+
+-- Dropping a reason that was not understood would lose it for good
+DO $$
+DECLARE
+    unmapped BIGINT;
+    example TEXT;
+BEGIN
+    SELECT count(*), min(reason) INTO unmapped, example
+    FROM risk_event
+    WHERE reason IS NOT NULL AND (reason_factor IS NULL OR reason_value IS NULL);
+    IF unmapped > 0 THEN
+        RAISE EXCEPTION '% risk_event reasons could not be mapped to a factor, e.g. "%"', unmapped, example;
+    END IF;
+END $$;
+
+ALTER TABLE risk_event DROP COLUMN reason;
+
+-- "Alerts caused by vibration"
+CREATE INDEX idx_risk_event_factor_timestamp ON risk_event(reason_factor, timestamp DESC);
+
+COMMENT ON COLUMN risk_event.reason_factor IS 'Primary risk factor: 1 temperature, 2 vibration, 3 load';
+COMMENT ON COLUMN risk_event.reason_value IS 'Reading of the primary risk factor';
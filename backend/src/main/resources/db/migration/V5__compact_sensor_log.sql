@@ -0,0 +1,38 @@
+-- Compact sensor_log layout
+-- Readings become SMALLINT hundredths (2 bytes each, exact for DECIMAL(5,2) in range) instead of
+-- variable-length NUMERIC, and created_at is dropped (timestamp already defaults to ingest time).
+-- Fixed-width columns are ordered widest first so the tuple has no alignment padding:
+-- 3 x 8-byte columns followed by 3 x 2-byte columns.
+-- The table is rewritten; on large tables run this in a maintenance window.
+
+CREATE TABLE sensor_log_compact (
+    id BIGSERIAL PRIMARY KEY,
+    equipment_id BIGINT NOT NULL,
+    timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    temperature SMALLINT NOT NULL CHECK (temperature >= -5000 AND temperature <= 20000),
+    vibration SMALLINT NOT NULL CHECK (vibration >= 0 AND vibration <= 10000),
+    load_percentage SMALLINT NOT NULL CHECK (load_percentage >= 0 AND load_percentage <= 10000),
+    FOREIGN KEY (equipment_id) REFERENCES equipment(id) ON DELETE CASCADE
+);
+
+INSERT INTO sensor_log_compact (id, equipment_id, timestamp, temperature, vibration, load_percentage)
+SELECT id, equipment_id, timestamp,
+       ROUND(temperature * 100)::SMALLINT,
+       ROUND(vibration * 100)::SMALLINT,
+       ROUND(load_percentage * 100)::SMALLINT
+FROM sensor_log
+ORDER BY equipment_id, timestamp;
+
+SELECT setval('sensor_log_compact_id_seq', COALESCE((SELECT MAX(id) FROM sensor_log_compact), 0) + 1, false);
+
+DROP TABLE sensor_log;
+ALTER TABLE sensor_log_compact RENAME TO sensor_log;
+ALTER SEQUENCE sensor_log_compact_id_seq RENAME TO sensor_log_id_seq;
+ALTER INDEX sensor_log_compact_pkey RENAME TO sensor_log_pkey;
+
+CREATE INDEX idx_sensor_log_equipment_timestamp ON sensor_log(equipment_id, timestamp DESC);
+
+COMMENT ON TABLE sensor_log IS 'Stores sensor readings from equipment';
+COMMENT ON COLUMN sensor_log.temperature IS 'Temperature in hundredths of a degree Celsius';
+COMMENT ON COLUMN sensor_log.vibration IS 'Vibration in hundredths of mm/s';
+COMMENT ON COLUMN sensor_log.load_percentage IS 'Load in hundredths of a percent (0-10000)';
@@ -0,0 +1,7 @@
+-- Alert feeds filter by risk level and read newest first
+-- (risk_level, timestamp DESC) returns a page of one level straight from the index instead of
+-- collecting and sorting every event of that level. It replaces the level-only index, which is
+-- a prefix of it. Checked by QueryPlanRegressionTest.
+
+CREATE INDEX idx_risk_event_level_timestamp ON risk_event(risk_level, timestamp DESC);
+DROP INDEX idx_risk_event_level;
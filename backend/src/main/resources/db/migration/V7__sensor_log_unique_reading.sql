@@ -0,0 +1,16 @@
+-- A reading is identified by (equipment_id, timestamp)
+-- Gateways retry on timeout; with a unique index a retried reading is skipped by
+-- INSERT ... ON CONFLICT DO NOTHING instead of being stored, scored and alerted on again.
+-- It replaces the non-unique index on the same columns under the same name, so reads keep
+-- their plans (QueryPlanRegressionTest). Duplicates already stored are removed first,
+-- keeping the earliest row; on large tables run this in a maintenance window.
+
+DELETE FROM sensor_log s
+USING sensor_log d
+WHERE s.equipment_id = d.equipment_id
+  AND s.timestamp = d.timestamp
+  AND s.id > d.id;
+
+CREATE UNIQUE INDEX idx_sensor_log_equipment_timestamp_unique ON sensor_log(equipment_id, timestamp DESC);
+DROP INDEX idx_sensor_log_equipment_timestamp;
+ALTER INDEX idx_sensor_log_equipment_timestamp_unique RENAME TO idx_sensor_log_equipment_timestamp;
@@ -0,0 +1,70 @@
+-- Fleet risk cube: risk events per (hour, equipment type, location)
+-- Each insert into risk_event appends one row per key it touched to risk_cube_delta (a
+-- statement trigger over the inserted rows), so writers never update a shared cube row and
+-- never wait on each other. RiskCubeService folds the deltas into risk_cube_hourly every few
+-- seconds; reads combine both, so they are exact and only scan the hours asked for.
+-- Type and location are those of the equipment when the event was written; equipment without
+-- a location is keyed ''. Existing events are loaded here; on large tables run this in a
+-- maintenance window.
+
+CREATE TABLE risk_cube_hourly (
+    hour TIMESTAMP NOT NULL,
+    equipment_type VARCHAR(100) NOT NULL,
+    location VARCHAR(255) NOT NULL,
+    low_count BIGINT NOT NULL,
+    medium_count BIGINT NOT NULL,
+    high_count BIGINT NOT NULL,
+    critical_count BIGINT NOT NULL,
+    score_sum DECIMAL(18,2) NOT NULL,
+    score_max DECIMAL(5,2) NOT NULL,
+    PRIMARY KEY (hour, equipment_type, location)
+);
+
+CREATE TABLE risk_cube_delta (
+    hour TIMESTAMP NOT NULL,
+    equipment_type VARCHAR(100) NOT NULL,
+    location VARCHAR(255) NOT NULL,
+    low_count BIGINT NOT NULL,
+    medium_count BIGINT NOT NULL,
+    high_count BIGINT NOT NULL,
+    critical_count BIGINT NOT NULL,
+    score_sum DECIMAL(18,2) NOT NULL,
+    score_max DECIMAL(5,2) NOT NULL
+);
+
+CREATE INDEX idx_risk_cube_delta_hour ON risk_cube_delta(hour);
+
+CREATE FUNCTION risk_cube_append() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO risk_cube_delta
+    SELECT date_trunc('hour', n.timestamp), e.type, coalesce(e.location, ''),
+           count(*) FILTER (WHERE n.risk_level = 'LOW'),
+           count(*) FILTER (WHERE n.risk_level = 'MEDIUM'),
+           count(*) FILTER (WHERE n.risk_level = 'HIGH'),
+           count(*) FILTER (WHERE n.risk_level = 'CRITICAL'),
+           sum(n.risk_score), max(n.risk_score)
+    FROM inserted_events n
+    JOIN equipment e ON e.id = n.equipment_id
+    GROUP BY 1, 2, 3;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER risk_event_cube
+    AFTER INSERT ON risk_event
+    REFERENCING NEW TABLE AS inserted_events
+    FOR EACH STATEMENT EXECUTE FUNCTION risk_cube_append();
+
+INSERT INTO risk_cube_hourly
+SELECT date_trunc('hour', r.timestamp), e.type, coalesce(e.location, ''),
+       count(*) FILTER (WHERE r.risk_level = 'LOW'),
+       count(*) FILTER (WHERE r.risk_level = 'MEDIUM'),
+       count(*) FILTER (WHERE r.risk_level = 'HIGH'),
+       count(*) FILTER (WHERE r.risk_level = 'CRITICAL'),
+       sum(r.risk_score), max(r.risk_score)
+FROM risk_event r
+JOIN equipment e ON e.id = r.equipment_id
+GROUP BY 1, 2, 3;
+
+COMMENT ON TABLE risk_cube_hourly IS 'Risk event counts per level and scores per hour, equipment type and location';
+COMMENT ON TABLE risk_cube_delta IS 'Risk cube rows not yet folded into risk_cube_hourly';
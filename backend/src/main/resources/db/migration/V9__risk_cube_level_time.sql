@@ -0,0 +1,154 @@
+-- Fleet risk cube by time spent in each level, replacing the event counts of V8
+-- An equipment is at the level of its latest risk event until its next one, so the cube sums,
+-- per (hour, equipment type, location), the seconds from each event to the next event of the
+-- same equipment, split at hour boundaries, by the level and score of the earlier event. With
+-- risk.events.policy=changes events are only transitions, score moves and heartbeats, so event
+-- counts said little; the time in each level is the same under every policy. The interval after
+-- an equipment's latest event is added once its next event arrives, so while readings flow
+-- the cube trails by at most risk.events.heartbeat-seconds. Events recorded and their highest
+-- score are still counted per hour.
+--
+-- The statement trigger works on the stretch of each equipment's events the insert touched:
+-- the stored events within it and the nearest stored one on either side. Intervals between
+-- those stored events are taken out and the intervals with the inserted events added back, so
+-- readings arriving late (an older timestamp) split the interval they fall into. Inserts for
+-- one equipment are serialized by its ingest shard. Existing events are loaded here; on large
+-- tables run this in a maintenance window.
+
+DROP TRIGGER risk_event_cube ON risk_event;
+DROP FUNCTION risk_cube_append();
+DROP TABLE risk_cube_hourly;
+DROP TABLE risk_cube_delta;
+
+CREATE TABLE risk_cube_hourly (
+    hour TIMESTAMP NOT NULL,
+    equipment_type VARCHAR(100) NOT NULL,
+    location VARCHAR(255) NOT NULL,
+    low_seconds DECIMAL(20,6) NOT NULL,
+    medium_seconds DECIMAL(20,6) NOT NULL,
+    high_seconds DECIMAL(20,6) NOT NULL,
+    critical_seconds DECIMAL(20,6) NOT NULL,
+    score_seconds DECIMAL(24,8) NOT NULL,
+    event_count BIGINT NOT NULL,
+    event_score_max DECIMAL(5,2),
+    PRIMARY KEY (hour, equipment_type, location)
+);
+
+CREATE TABLE risk_cube_delta (
+    hour TIMESTAMP NOT NULL,
+    equipment_type VARCHAR(100) NOT NULL,
+    location VARCHAR(255) NOT NULL,
+    low_seconds DECIMAL(20,6) NOT NULL,
+    medium_seconds DECIMAL(20,6) NOT NULL,
+    high_seconds DECIMAL(20,6) NOT NULL,
+    critical_seconds DECIMAL(20,6) NOT NULL,
+    score_seconds DECIMAL(24,8) NOT NULL,
+    event_count BIGINT NOT NULL,
+    event_score_max DECIMAL(5,2)
+);
+
+CREATE INDEX idx_risk_cube_delta_hour ON risk_cube_delta(hour);
+
+-- Seconds of [starts, ends) in each hour it overlaps
+CREATE FUNCTION risk_cube_hours(starts TIMESTAMP, ends TIMESTAMP)
+RETURNS TABLE (hour TIMESTAMP, seconds DECIMAL(20,6)) AS $$
+    SELECT h, round(CAST(extract(epoch FROM least(ends, h + INTERVAL '1 hour') - greatest(starts, h)) AS numeric), 6)
+    FROM generate_series(date_trunc('hour', starts), ends - INTERVAL '1 microsecond', INTERVAL '1 hour') h
+    WHERE ends > starts;
+$$ LANGUAGE sql IMMUTABLE;
+
+CREATE FUNCTION risk_cube_append() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO risk_cube_delta
+    WITH stretch AS (
+        SELECT n.equipment_id, min(n.timestamp) AS first_at, max(n.timestamp) AS last_at,
+               e.type, coalesce(e.location, '') AS location
+        FROM inserted_events n
+        JOIN equipment e ON e.id = n.equipment_id
+        GROUP BY n.equipment_id, e.id
+    ),
+    stored AS (
+        SELECT r.id, r.equipment_id, r.timestamp, r.risk_level, r.risk_score
+        FROM stretch s
+        JOIN risk_event r ON r.equipment_id = s.equipment_id AND r.timestamp BETWEEN s.first_at AND s.last_at
+        WHERE NOT EXISTS (SELECT 1 FROM inserted_events n WHERE n.id = r.id)
+        UNION ALL
+        SELECT p.* FROM stretch s CROSS JOIN LATERAL (
+            SELECT r.id, r.equipment_id, r.timestamp, r.risk_level, r.risk_score
+            FROM risk_event r
+            WHERE r.equipment_id = s.equipment_id AND r.timestamp < s.first_at
+            ORDER BY r.timestamp DESC, r.id DESC
+            LIMIT 1) p
+        UNION ALL
+        SELECT q.* FROM stretch s CROSS JOIN LATERAL (
+            SELECT r.id, r.equipment_id, r.timestamp, r.risk_level, r.risk_score
+            FROM risk_event r
+            WHERE r.equipment_id = s.equipment_id AND r.timestamp > s.last_at
+            ORDER BY r.timestamp, r.id
+            LIMIT 1) q
+    ),
+    intervals AS (
+        SELECT -1 AS sign, equipment_id, risk_level, risk_score, timestamp AS starts,
+               lead(timestamp) OVER (PARTITION BY equipment_id ORDER BY timestamp, id) AS ends
+        FROM stored
+        UNION ALL
+        SELECT 1, equipment_id, risk_level, risk_score, timestamp,
+               lead(timestamp) OVER (PARTITION BY equipment_id ORDER BY timestamp, id)
+        FROM (SELECT id, equipment_id, timestamp, risk_level, risk_score FROM stored
+              UNION ALL
+              SELECT id, equipment_id, timestamp, risk_level, risk_score FROM inserted_events) e
+    ),
+    parts AS (
+        SELECT h.hour, i.equipment_id, i.risk_level, i.sign * h.seconds AS seconds,
+               i.sign * h.seconds * i.risk_score AS score_seconds, 0 AS events, CAST(NULL AS numeric) AS score
+        FROM intervals i
+        CROSS JOIN LATERAL risk_cube_hours(i.starts, i.ends) h
+        UNION ALL
+        SELECT date_trunc('hour', n.timestamp), n.equipment_id, n.risk_level, 0, 0, 1, n.risk_score
+        FROM inserted_events n
+    )
+    SELECT p.hour, s.type, s.location,
+           coalesce(sum(p.seconds) FILTER (WHERE p.risk_level = 'LOW'), 0),
+           coalesce(sum(p.seconds) FILTER (WHERE p.risk_level = 'MEDIUM'), 0),
+           coalesce(sum(p.seconds) FILTER (WHERE p.risk_level = 'HIGH'), 0),
+           coalesce(sum(p.seconds) FILTER (WHERE p.risk_level = 'CRITICAL'), 0),
+           sum(p.score_seconds), sum(p.events), max(p.score)
+    FROM parts p
+    JOIN stretch s ON s.equipment_id = p.equipment_id
+    GROUP BY 1, 2, 3;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER risk_event_cube
+    AFTER INSERT ON risk_event
+    REFERENCING NEW TABLE AS inserted_events
+    FOR EACH STATEMENT EXECUTE FUNCTION risk_cube_append();
+
+INSERT INTO risk_cube_hourly
+WITH intervals AS (
+    SELECT equipment_id, risk_level, risk_score, timestamp AS starts,
+           lead(timestamp) OVER (PARTITION BY equipment_id ORDER BY timestamp, id) AS ends
+    FROM risk_event
+),
+parts AS (
+    SELECT h.hour, i.equipment_id, i.risk_level, h.seconds, h.seconds * i.risk_score AS score_seconds,
+           0 AS events, CAST(NULL AS numeric) AS score
+    FROM intervals i
+    CROSS JOIN LATERAL risk_cube_hours(i.starts, i.ends) h
+    UNION ALL
+    SELECT date_trunc('hour', r.timestamp), r.equipment_id, r.risk_level, 0, 0, 1, r.risk_score
+    FROM risk_event r
+)
+SELECT p.hour, e.type, coalesce(e.location, ''),
+       coalesce(sum(p.seconds) FILTER (WHERE p.risk_level = 'LOW'), 0),
+       coalesce(sum(p.seconds) FILTER (WHERE p.risk_level = 'MEDIUM'), 0),
+       coalesce(sum(p.seconds) FILTER (WHERE p.risk_level = 'HIGH'), 0),
+       coalesce(sum(p.seconds) FILTER (WHERE p.risk_level = 'CRITICAL'), 0),
+       sum(p.score_seconds), sum(p.events), max(p.score)
+FROM parts p
+JOIN equipment e ON e.id = p.equipment_id
+GROUP BY 1, 2, 3;
+
+COMMENT ON TABLE risk_cube_hourly IS 'Seconds spent in each risk level, score-seconds and events recorded per hour, equipment type and location';
+COMMENT ON TABLE risk_cube_delta IS 'Risk cube rows not yet folded into risk_cube_hourly';
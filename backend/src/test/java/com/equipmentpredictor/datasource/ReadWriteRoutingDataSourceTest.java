@@ -0,0 +1,84 @@
+package com.equipmentpredictor.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for read/write routing between primary and replica
+ */
+@DisplayName("ReadWriteRoutingDataSource Tests")
+class ReadWriteRoutingDataSourceTest {
+
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource replica = mock(DataSource.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+    private final ReplicaLagMonitor lagMonitor = mock(ReplicaLagMonitor.class);
+
+    private ReadWriteRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        when(lagMonitor.lagMillis()).thenReturn(100L);
+        routing = new ReadWriteRoutingDataSource(primary, replica, lagMonitor, 5000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        ReadWriteRoutingDataSource.setMaxLag(null);
+    }
+
+    @Test
+    @DisplayName("Test 1: Writes and non-transactional access use the primary")
+    void testWritesUsePrimary() throws SQLException {
+        assertSame(primaryConnection, routing.getConnection());
+        verifyNoInteractions(replica);
+    }
+
+    @Test
+    @DisplayName("Test 2: Read-only transactions use the replica within the lag limit")
+    void testReadOnlyUsesReplica() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(replicaConnection, routing.getConnection());
+    }
+
+    @Test
+    @DisplayName("Test 3: A tighter method limit falls back to the primary when the replica lags")
+    void testStalenessLimitFallsBackToPrimary() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        ReadWriteRoutingDataSource.setMaxLag(50L);
+
+        assertSame(primaryConnection, routing.getConnection());
+
+        ReadWriteRoutingDataSource.setMaxLag(0L);
+        when(lagMonitor.lagMillis()).thenReturn(0L);
+        assertSame(replicaConnection, routing.getConnection());
+    }
+
+    @Test
+    @DisplayName("Test 4: An unavailable or failing replica sends reads to the primary")
+    void testUnavailableReplicaFallsBack() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        when(lagMonitor.lagMillis()).thenReturn(ReplicaLagMonitor.UNAVAILABLE);
+        assertSame(primaryConnection, routing.getConnection());
+
+        when(lagMonitor.lagMillis()).thenReturn(0L);
+        when(replica.getConnection()).thenThrow(new SQLException("connection refused"));
+        assertSame(primaryConnection, routing.getConnection());
+        verify(lagMonitor).markUnavailable();
+    }
+}
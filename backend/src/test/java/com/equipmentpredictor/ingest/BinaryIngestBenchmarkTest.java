@@ -0,0 +1,119 @@
+package com.equipmentpredictor.ingest;
+
+import com.equipmentpredictor.service.SensorLogService;
+import com.equipmentpredictor.store.IngestWal;
+import com.equipmentpredictor.store.ReadingBuffer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Loopback throughput of the binary ingestion listener
+ * Device threads stream frames over localhost as fast as the listener accepts
+ * them, into two sinks: a no-op (framing, decoding and hand-off only) and the
+ * write-ahead log (adds one group fsync per batch, the acknowledged path in
+ * WAL mode). Run with: mvn test -Pbenchmarks
+ * Sizes: -Dbench.connections (4), -Dbench.frames per connection (2000000), -Dbench.batch (1000)
+ */
+@Tag("benchmarks")
+@DisplayName("Binary ingestion loopback benchmark")
+class BinaryIngestBenchmarkTest {
+
+    private static final int CONNECTIONS = Integer.getInteger("bench.connections", 4);
+    private static final int FRAMES = Integer.getInteger("bench.frames", 2_000_000);
+    private static final int BATCH = Integer.getInteger("bench.batch", 1000);
+    private static final int FRAMES_PER_WRITE = 4096;
+
+    @TempDir
+    Path walDirectory;
+
+    @Test
+    @DisplayName("Decode and hand-off only")
+    void noOpSink() throws Exception {
+        SensorLogService sensorLogService = mock(SensorLogService.class);
+        when(sensorLogService.addReadings(any())).thenReturn(SensorLogService.IngestResult.NONE);
+        run("no-op sink", sensorLogService);
+    }
+
+    @Test
+    @DisplayName("Into the write-ahead log")
+    void walSink() throws Exception {
+        IngestWal wal = new IngestWal(walDirectory.toString(), 64, 2000, 256, 10000);
+        wal.open();
+        wal.recover(0);
+        try {
+            SensorLogService sensorLogService = mock(SensorLogService.class);
+            when(sensorLogService.addReadings(any())).thenAnswer(invocation -> {
+                wal.appendAll((ReadingBuffer) invocation.getArgument(0));
+                return SensorLogService.IngestResult.NONE;
+            });
+            run("write-ahead log", sensorLogService);
+        } finally {
+            wal.close();
+        }
+    }
+
+    private void run(String sink, SensorLogService sensorLogService) throws Exception {
+        BinaryIngestListener listener = new BinaryIngestListener(sensorLogService, "127.0.0.1", 0, CONNECTIONS, BATCH);
+        listener.start();
+        ExecutorService devices = Executors.newFixedThreadPool(CONNECTIONS);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> sending = new ArrayList<>();
+            for (int c = 0; c < CONNECTIONS; c++) {
+                long equipmentId = c + 1;
+                sending.add(devices.submit(() -> {
+                    send(listener, equipmentId);
+                    return null;
+                }));
+            }
+            for (Future<?> future : sending) {
+                future.get();
+            }
+            long expected = (long) CONNECTIONS * FRAMES;
+            while (listener.framesStored() + listener.framesRejected() < expected) {
+                Thread.sleep(1);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            assertEquals(expected, listener.framesStored());
+            System.out.printf("%-16s %d connections x %d frames, batch %d: %.2f s, %,.0f frames/s (%.1f MB/s)%n",
+                    sink, CONNECTIONS, FRAMES, BATCH, seconds, expected / seconds,
+                    expected * BinaryIngestListener.FRAME_BYTES / seconds / 1e6);
+        } finally {
+            devices.shutdown();
+            listener.stop();
+        }
+    }
+
+    private static void send(BinaryIngestListener listener, long equipmentId) throws Exception {
+        ByteBuffer frames = ByteBuffer.allocateDirect(FRAMES_PER_WRITE * BinaryIngestListener.FRAME_BYTES);
+        try (SocketChannel device = SocketChannel.open(listener.localAddress())) {
+            long millis = 1_704_067_200_000L;
+            for (int sent = 0; sent < FRAMES; ) {
+                frames.clear();
+                int count = Math.min(FRAMES_PER_WRITE, FRAMES - sent);
+                for (int i = 0; i < count; i++) {
+                    BinaryIngestListenerTest.frame(frames, equipmentId, millis++, 7000 + i % 500, 300 + i % 50, 6000);
+                }
+                frames.flip();
+                BinaryIngestListenerTest.writeFully(device, frames);
+                sent += count;
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.equipmentpredictor.ingest;
+
+import com.equipmentpredictor.dto.SensorLogDTO;
+import com.equipmentpredictor.service.SensorLogService;
+import com.equipmentpredictor.store.ReadingBuffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayName("BinaryIngestListener Tests")
+class BinaryIngestListenerTest {
+
+    private final List<SensorLogDTO> stored = new CopyOnWriteArrayList<>();
+    private BinaryIngestListener listener;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        listener.stop();
+    }
+
+    @Test
+    @DisplayName("Should decode frames split across writes and drop out-of-range values")
+    void shouldDecodeFrames() throws Exception {
+        start(16);
+        ByteBuffer frames = ByteBuffer.allocate(3 * BinaryIngestListener.FRAME_BYTES);
+        frame(frames, 1, 1_704_103_200_000L, 7150, 320, 6400);
+        frame(frames, 2, 1_704_103_201_000L, 25000, 320, 6400);
+        frame(frames, 3, 1_704_103_202_000L, -120, 0, 10000);
+        frames.flip();
+
+        try (SocketChannel device = connect()) {
+            // First frame and a half, then the rest
+            writeFully(device, frames.slice(0, 40));
+            Thread.sleep(50);
+            writeFully(device, frames.slice(40, frames.limit() - 40));
+            await(() -> stored.size() == 2 && listener.framesRejected() == 1);
+        }
+
+        SensorLogDTO first = stored.get(0);
+        assertEquals(1L, first.getEquipmentId());
+        assertEquals(LocalDateTime.of(2024, 1, 1, 10, 0), first.getTimestamp());
+        assertEquals(new BigDecimal("71.50"), first.getTemperature());
+        assertEquals(new BigDecimal("3.20"), first.getVibration());
+        assertEquals(new BigDecimal("64.00"), first.getLoadPercentage());
+        assertEquals(3L, stored.get(1).getEquipmentId());
+        assertEquals(new BigDecimal("-1.20"), stored.get(1).getTemperature());
+        assertEquals(2, listener.framesStored());
+    }
+
+    @Test
+    @DisplayName("Should refuse connections over the limit and close on a framing error")
+    void shouldEnforceLimitsAndFraming() throws Exception {
+        start(16);
+        try (SocketChannel first = connect(); SocketChannel second = connect()) {
+            assertEquals(-1, second.read(ByteBuffer.allocate(1)));
+
+            writeFully(first, ByteBuffer.wrap(new byte[]{0, 99, 0, 0}));
+            assertEquals(-1, first.read(ByteBuffer.allocate(1)));
+        }
+        // The slot is free again
+        try (SocketChannel third = connect()) {
+            ByteBuffer frame = ByteBuffer.allocate(BinaryIngestListener.FRAME_BYTES);
+            frame(frame, 5, 0, 2000, 100, 100);
+            writeFully(third, frame.flip());
+            await(() -> stored.size() == 1);
+        }
+    }
+
+    @Test
+    @DisplayName("Should retry only the readings a full shard queue turned away")
+    void shouldRetryReadingsTurnedAwayByFullQueue() throws Exception {
+        // Equipment 2's shard queue is full the first time it is offered readings
+        AtomicBoolean queueFull = new AtomicBoolean(true);
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        SensorLogService sensorLogService = mock(SensorLogService.class);
+        when(sensorLogService.addReadings(any())).thenAnswer(invocation -> {
+            ReadingBuffer batch = invocation.getArgument(0);
+            batchSizes.add(batch.size());
+            Map<Integer, String> rejected = new TreeMap<>();
+            for (int i = 0; i < batch.size(); i++) {
+                if (batch.equipmentId(i) == 2 && queueFull.get()) {
+                    rejected.put(i, "Ingestion queue full");
+                } else {
+                    stored.add(batch.toDTO(i));
+                }
+            }
+            queueFull.set(false);
+            return new SensorLogService.IngestResult(rejected, List.of(), rejected.keySet());
+        });
+        listener = new BinaryIngestListener(sensorLogService, "127.0.0.1", 0, 1, 3);
+        listener.start();
+
+        ByteBuffer frames = ByteBuffer.allocate(3 * BinaryIngestListener.FRAME_BYTES);
+        frame(frames, 1, 1_704_103_200_000L, 7150, 320, 6400);
+        frame(frames, 2, 1_704_103_200_000L, 7150, 320, 6400);
+        frame(frames, 2, 1_704_103_201_000L, 7150, 320, 6400);
+        try (SocketChannel device = connect()) {
+            writeFully(device, frames.flip());
+            await(() -> stored.size() == 3);
+        }
+
+        assertEquals(List.of(3, 2), batchSizes);
+        assertEquals(List.of(1L, 2L, 2L), stored.stream().map(SensorLogDTO::getEquipmentId).toList());
+        assertEquals(LocalDateTime.of(2024, 1, 1, 10, 0, 1), stored.get(2).getTimestamp());
+        assertEquals(3, listener.framesStored());
+        assertEquals(0, listener.framesRejected());
+    }
+
+    @Test
+    @DisplayName("Should keep reading a connection whose batch failed with an error")
+    void shouldResumeAfterStoreError() throws Exception {
+        // The first batch fails with an Error, which store() does not catch
+        AtomicBoolean fail = new AtomicBoolean(true);
+        SensorLogService sensorLogService = mock(SensorLogService.class);
+        when(sensorLogService.addReadings(any())).thenAnswer(invocation -> {
+            if (fail.getAndSet(false)) {
+                throw new AssertionError("storage failed");
+            }
+            ReadingBuffer batch = invocation.getArgument(0);
+            for (int i = 0; i < batch.size(); i++) {
+                stored.add(batch.toDTO(i));
+            }
+            return SensorLogService.IngestResult.NONE;
+        });
+        listener = new BinaryIngestListener(sensorLogService, "127.0.0.1", 0, 1, 16);
+        listener.start();
+
+        try (SocketChannel device = connect()) {
+            ByteBuffer frame = ByteBuffer.allocate(BinaryIngestListener.FRAME_BYTES);
+            frame(frame, 1, 1_704_103_200_000L, 7150, 320, 6400);
+            writeFully(device, frame.flip());
+            await(() -> !fail.get());
+
+            frame.clear();
+            frame(frame, 2, 1_704_103_201_000L, 7150, 320, 6400);
+            writeFully(device, frame.flip());
+            await(() -> stored.size() == 1);
+        }
+        assertEquals(2L, stored.get(0).getEquipmentId());
+    }
+
+    private void start(int batchSize) throws IOException {
+        SensorLogService sensorLogService = mock(SensorLogService.class);
+        when(sensorLogService.addReadings(any())).thenAnswer(invocation -> {
+            ReadingBuffer batch = invocation.getArgument(0);
+            for (int i = 0; i < batch.size(); i++) {
+                stored.add(batch.toDTO(i));
+            }
+            return SensorLogService.IngestResult.NONE;
+        });
+        listener = new BinaryIngestListener(sensorLogService, "127.0.0.1", 0, 1, batchSize);
+        listener.start();
+    }
+
+    private SocketChannel connect() throws IOException {
+        return SocketChannel.open(listener.localAddress());
+    }
+
+    static void frame(ByteBuffer out, long equipmentId, long epochMillis, int temperature, int vibration, int load) {
+        out.putShort((short) BinaryIngestListener.PAYLOAD_BYTES)
+                .putLong(equipmentId)
+                .putLong(epochMillis)
+                .putShort((short) temperature)
+                .putShort((short) vibration)
+                .putShort((short) load);
+    }
+
+    static void writeFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.equipmentpredictor.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the order of admission checks in IngestLimitInterceptor
+ */
+@DisplayName("IngestLimitInterceptor Tests")
+class IngestLimitInterceptorTest {
+
+    private static final String CLIENT = "address:127.0.0.1";
+
+    private final IngestLimiter limiter = mock(IngestLimiter.class);
+    private final IngestLimitInterceptor interceptor =
+            new IngestLimitInterceptor(limiter, new ObjectMapper().findAndRegisterModules());
+
+    private static MockHttpServletRequest reading(long equipmentId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/equipment/" + equipmentId + "/logs");
+        request.setRemoteAddr("127.0.0.1");
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("id", String.valueOf(equipmentId)));
+        return request;
+    }
+
+    @Test
+    @DisplayName("Test 1: A request rejected by a later check gets the tokens of the earlier ones back")
+    void testRejectedRequestRefunded() throws IOException {
+        // Client bucket empty: the equipment token is given back
+        when(limiter.tryAcquireClient(CLIENT, 1)).thenReturn(1_000_000L);
+        MockHttpServletResponse limited = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(reading(7), limited, null));
+        assertEquals(429, limited.getStatus());
+        verify(limiter).refundEquipment(7L, 1);
+        verify(limiter, never()).refundClient(anyString(), anyInt());
+
+        // Shed: both tokens are given back and no slot is held
+        when(limiter.tryAcquireClient(CLIENT, 1)).thenReturn(0L);
+        when(limiter.tryEnter()).thenReturn(false);
+        MockHttpServletResponse shed = new MockHttpServletResponse();
+        MockHttpServletRequest request = reading(8);
+        assertFalse(interceptor.preHandle(request, shed, null));
+        assertEquals(503, shed.getStatus());
+        verify(limiter).refundEquipment(8L, 1);
+        verify(limiter).refundClient(CLIENT, 1);
+        interceptor.afterCompletion(request, shed, null, null);
+        verify(limiter, never()).exit();
+
+        // Admitted: nothing is refunded
+        when(limiter.tryEnter()).thenReturn(true);
+        assertTrue(interceptor.preHandle(reading(9), new MockHttpServletResponse(), null));
+        verify(limiter, never()).refundEquipment(eq(9L), anyInt());
+        verify(limiter, times(2)).refundEquipment(anyLong(), anyInt());
+    }
+}
@@ -0,0 +1,100 @@
+package com.equipmentpredictor.ingest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the token buckets and the adaptive concurrency limit behind IngestLimiter
+ */
+@DisplayName("IngestLimiter Tests")
+class IngestLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+
+    @Test
+    @DisplayName("Test 1: Buckets allow the burst, refill at the rate and are evicted once full")
+    void testTokenBuckets() {
+        TokenBucketTable<Long> buckets = new TokenBucketTable<>(10, 5, 4, clock::get);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, buckets.tryAcquire(1L, 1));
+        }
+        // Empty: the next token is 100 ms away, and another key is unaffected
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), buckets.tryAcquire(1L, 1));
+        assertEquals(0, buckets.tryAcquire(2L, 1));
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(250));
+        assertEquals(0, buckets.tryAcquire(1L, 2));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(50), buckets.tryAcquire(1L, 1));
+
+        // Reserving goes into debt: 20 tokens short is two seconds of waiting
+        assertEquals(TimeUnit.SECONDS.toNanos(2), buckets.reserve(3L, 25));
+        assertTrue(buckets.tryAcquire(3L, 1) > TimeUnit.SECONDS.toNanos(2));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(1, buckets.evictIdle());
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertEquals(0, buckets.evictIdle());
+    }
+
+    @Test
+    @DisplayName("Test 2: Concurrency limit shrinks while latency is above target and recovers below it")
+    void testAdaptiveConcurrencyLimit() {
+        long target = TimeUnit.MILLISECONDS.toNanos(100);
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 8, target, clock::get);
+
+        for (int i = 0; i < 8; i++) {
+            assertTrue(limit.tryAcquire());
+        }
+        assertFalse(limit.tryAcquire());
+
+        // One decrease per target interval however many slow samples arrive
+        limit.onLatency(TimeUnit.MILLISECONDS.toNanos(500));
+        limit.onLatency(TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(6, limit.limit());
+        for (int i = 0; i < 6; i++) {
+            clock.addAndGet(target);
+            limit.onLatency(TimeUnit.MILLISECONDS.toNanos(500));
+        }
+        assertEquals(2, limit.limit());
+
+        for (int i = 0; i < 8; i++) {
+            limit.release();
+        }
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+
+        // The average has to come back under the target before the limit grows again
+        for (int i = 0; i < 200; i++) {
+            limit.onLatency(TimeUnit.MILLISECONDS.toNanos(5));
+        }
+        assertEquals(8, limit.limit());
+        assertTrue(limit.averageMillis() < 100);
+    }
+
+    @Test
+    @DisplayName("Test 3: Refunded tokens are available again, up to the burst")
+    void testRefund() {
+        TokenBucketTable<String> buckets = new TokenBucketTable<>(10, 5, 4, clock::get);
+
+        assertEquals(0, buckets.tryAcquire("client", 5));
+        assertTrue(buckets.tryAcquire("client", 1) > 0);
+        buckets.refund("client", 2);
+        assertEquals(0, buckets.tryAcquire("client", 2));
+        assertTrue(buckets.tryAcquire("client", 1) > 0);
+
+        // A reservation in debt is paid back, and refunds never exceed the burst
+        buckets.reserve("stream", 15);
+        buckets.refund("stream", 15);
+        assertEquals(0, buckets.tryAcquire("stream", 5));
+        buckets.refund("stream", 50);
+        assertEquals(0, buckets.tryAcquire("stream", 5));
+        assertTrue(buckets.tryAcquire("stream", 1) > 0);
+    }
+}
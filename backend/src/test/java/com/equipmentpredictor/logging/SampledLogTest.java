@@ -0,0 +1,52 @@
+package com.equipmentpredictor.logging;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("SampledLog Tests")
+class SampledLogTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final SampledLog site = new SampledLog(LoggerFactory.getLogger(SampledLogTest.class), "test", clock::get);
+
+    @AfterEach
+    void tearDown() {
+        SampledLog.configure(100, 10);
+    }
+
+    private int allowed(int calls) {
+        int allowed = 0;
+        for (int i = 0; i < calls; i++) {
+            if (site.allow()) {
+                allowed++;
+            }
+        }
+        return allowed;
+    }
+
+    @Test
+    @DisplayName("Should let through the first and every Nth call, at most the per-second budget")
+    void shouldSampleAndRateLimit() {
+        SampledLog.configure(10, 3);
+
+        assertTrue(site.allow());
+        // Calls 2-100 hold nine more samples, of which two fit into this second
+        assertEquals(2, allowed(99));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(3, allowed(100));
+
+        // A summary starts the count over, so the next call is sampled again
+        site.summarize(60);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertTrue(site.allow());
+        assertFalse(site.allow());
+    }
+}
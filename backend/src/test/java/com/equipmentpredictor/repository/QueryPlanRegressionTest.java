@@ -0,0 +1,491 @@
+package com.equipmentpredictor.repository;
+
+import com.equipmentpredictor.model.RiskEvent;
+import com.equipmentpredictor.model.SensorLog;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ReflectionUtils;
+
+import javax.sql.DataSource;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Query plan regression suite for the repository queries
+ * Loads a synthetic production-sized dataset (10M readings by default) into a
+ * scratch PostgreSQL database migrated by Flyway, calls every query declared in
+ * SensorLogRepository, RiskEventRepository, EquipmentRepository and RiskCubeRepository
+ * through the application's JPA setup, runs EXPLAIN (ANALYZE, BUFFERS) for the SQL
+ * Hibernate sent with the values it bound, and fails when a plan sequentially scans a large table,
+ * stops using its expected index, or exceeds its buffer or latency budget.
+ *
+ * The plan checks need a database and only run with the query-plans profile:
+ *   mvn -Pquery-plans test -Dplans.url=jdbc:postgresql://localhost:5432/equipment_predictor_plans
+ * The dataset is loaded once and reused while its size matches. The coverage
+ * check (every repository query has a plan case) runs in every build.
+ */
+@DisplayName("Query Plan Regression Tests")
+@Slf4j
+class QueryPlanRegressionTest {
+
+    private static final String URL = System.getProperty("plans.url",
+            "jdbc:postgresql://localhost:5432/equipment_predictor_plans");
+    private static final String USERNAME = System.getProperty("plans.username", "postgres");
+    private static final String PASSWORD = System.getProperty("plans.password", "postgres");
+    private static final long READINGS = Long.getLong("plans.readings", 10_000_000L);
+    private static final long EQUIPMENT = Long.getLong("plans.equipment", 1_000L);
+    private static final long LOAD_BATCH = 1_000_000L;
+
+    // Tables that grow with the fleet's history; a sequential scan of either always fails
+    private static final Set<String> LARGE_TABLES = Set.of("sensor_log", "risk_event");
+
+    // Readings are one minute apart per equipment from BASE; one risk event per ten readings
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime DAY = BASE.plusDays(3);
+
+    // ScoringProfileService's default profile as SensorLogRepository.insertAndEvaluate takes it
+    private static final String DEFAULT_PROFILE = "[{\"type\":null,\"temperature_min\":0,\"temperature_max\":150,"
+            + "\"temperature_weight\":0.40,\"vibration_min\":0,\"vibration_max\":50,\"vibration_weight\":0.35,"
+            + "\"load_min\":0,\"load_max\":100,\"load_weight\":0.25,"
+            + "\"threshold_medium\":40,\"threshold_high\":65,\"threshold_critical\":85}]";
+
+    private static final List<Class<?>> REPOSITORIES = List.of(
+            SensorLogRepository.class, RiskEventRepository.class, EquipmentRepository.class, RiskCubeRepository.class);
+
+    // Each case calls the repository method with these arguments (the default page sizes) and
+    // explains the SQL Hibernate sent for it with the values it bound.
+    // Default methods are covered by the queries they delegate to.
+    private static final List<PlanCase> CASES = List.of(
+            PlanCase.of(SensorLogRepository.class, "findByEquipmentIdOrderByTimestampDesc", 42L, PageRequest.of(0, 100))
+                    .usesIndex("idx_sensor_log_equipment_timestamp").budget(250, 25),
+            PlanCase.of(SensorLogRepository.class, "findByEquipmentIdOrderByTimestampAsc", 42L, PageRequest.of(0, 100))
+                    .usesIndex("idx_sensor_log_equipment_timestamp").budget(250, 25),
+            PlanCase.of(SensorLogRepository.class, "findByEquipmentIdAndTimestampBetween",
+                    42L, DAY, DAY.plusHours(6), PageRequest.of(0, 100))
+                    .usesIndex("idx_sensor_log_equipment_timestamp").budget(250, 25),
+            PlanCase.of(SensorLogRepository.class, "findFirstByEquipmentIdOrderByTimestampDesc", 42L)
+                    .usesIndex("idx_sensor_log_equipment_timestamp").budget(10, 5),
+            PlanCase.of(SensorLogRepository.class, "findFirstByEquipmentIdOrderByTimestampAsc", 42L)
+                    .usesIndex("idx_sensor_log_equipment_timestamp").budget(10, 5),
+            PlanCase.of(SensorLogRepository.class, "findForArchive", 42L, DAY, DAY.plusDays(1))
+                    .usesIndex("idx_sensor_log_equipment_timestamp").budget(3_000, 100),
+            PlanCase.of(SensorLogRepository.class, "streamByEquipmentIdAndTimestampBetween", 42L, DAY, DAY.plusDays(1))
+                    .usesIndex("idx_sensor_log_equipment_timestamp").budget(3_000, 100),
+            // A gateway resending 100 stored readings: every row conflicts, so nothing is written
+            PlanCase.of(SensorLogRepository.class, "insertIgnoringDuplicates",
+                    LongStream.range(0, 100).map(k -> 42L).toArray(),
+                    LongStream.range(0, 100).map(k -> BASE.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + k * 60_000_000L)
+                            .toArray(),
+                    new short[100], new short[100], new short[100])
+                    .budget(2_000, 50),
+            // A retried single reading: it conflicts, so nothing is scored or written
+            PlanCase.of(SensorLogRepository.class, "insertAndEvaluate",
+                    42L, BASE.toEpochSecond(ZoneOffset.UTC) * 1_000_000L, (short) 0, (short) 0, (short) 0,
+                    DEFAULT_PROFILE, "CHANGES", new BigDecimal("5"), 300_000_000L, BigDecimal.TEN)
+                    .usesIndex("idx_risk_event_equipment_timestamp").budget(50, 10),
+            PlanCase.of(SensorLogRepository.class, "countByEquipmentId", 42L)
+                    .usesIndex("idx_sensor_log_equipment_timestamp").budget(500, 50),
+
+            PlanCase.of(RiskEventRepository.class, "findFirstByEquipmentIdOrderByTimestampDesc", 42L)
+                    .usesIndex("idx_risk_event_equipment_timestamp").budget(10, 5),
+            PlanCase.of(RiskEventRepository.class, "findByEquipmentIdOrderByTimestampDesc", 42L, PageRequest.of(0, 100))
+                    .usesIndex("idx_risk_event_equipment_timestamp").budget(250, 25),
+            PlanCase.of(RiskEventRepository.class, "findByRiskLevelOrderByTimestampDesc",
+                    RiskEvent.RiskLevel.CRITICAL, PageRequest.of(0, 50))
+                    .usesIndex("idx_risk_event_level_timestamp").budget(150, 25),
+            PlanCase.of(RiskEventRepository.class, "findByReasonFactorAndRiskLevelInOrderByTimestampDesc",
+                    RiskEvent.RiskFactor.VIBRATION,
+                    List.of(RiskEvent.RiskLevel.MEDIUM, RiskEvent.RiskLevel.HIGH, RiskEvent.RiskLevel.CRITICAL),
+                    PageRequest.of(0, 50))
+                    .usesIndex("idx_risk_event_factor_timestamp").budget(500, 50),
+            PlanCase.of(RiskEventRepository.class, "countEquipmentByLatestRiskLevel", RiskEvent.RiskLevel.HIGH)
+                    .usesIndex("idx_risk_event_equipment_timestamp").budget(5 * EQUIPMENT, 250),
+
+            // The cube has one row per hour, type and location; deltas are a few seconds of events
+            PlanCase.of(RiskCubeRepository.class, "aggregate", DAY, DAY.plusDays(1), null, null, "day", true, false)
+                    .usesIndex("risk_cube_hourly_pkey").budget(200, 25),
+            PlanCase.of(RiskCubeRepository.class, "foldDeltas")
+                    .budget(50_000, 500),
+
+            // equipment is one row per machine and fits in a few pages; scanning it is fine
+            PlanCase.of(EquipmentRepository.class, "findByType", "Pump")
+                    .budget(100, 10),
+            PlanCase.of(EquipmentRepository.class, "findSummaries", "Pump", null, 500L, PageRequest.of(0, 100))
+                    .budget(100, 10),
+            PlanCase.of(EquipmentRepository.class, "streamSummaries", null, null)
+                    .budget(100, 10));
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static ConfigurableApplicationContext context;
+
+    @AfterAll
+    static void closeContext() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Every repository query has a plan case")
+    void testEveryRepositoryQueryCovered() {
+        Set<String> declared = new TreeSet<>();
+        for (Class<?> repository : REPOSITORIES) {
+            for (Method method : repository.getDeclaredMethods()) {
+                if (!method.isSynthetic() && !method.isDefault()) {
+                    declared.add(repository.getSimpleName() + "." + method.getName());
+                }
+            }
+        }
+        Set<String> covered = CASES.stream().map(PlanCase::name).collect(Collectors.toCollection(TreeSet::new));
+
+        Set<String> missing = new TreeSet<>(declared);
+        missing.removeAll(covered);
+        assertTrue(missing.isEmpty(), "Repository queries without a plan case: " + missing);
+
+        Set<String> stale = new TreeSet<>(covered);
+        stale.removeAll(declared);
+        assertTrue(stale.isEmpty(), "Plan cases for queries that no longer exist: " + stale);
+    }
+
+    @TestFactory
+    @Tag("query-plans")
+    @DisplayName("Repository query plans at production scale")
+    Stream<DynamicTest> testQueryPlans() throws SQLException {
+        Flyway.configure()
+                .dataSource(URL, USERNAME, PASSWORD)
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+        try (Connection connection = DriverManager.getConnection(URL, USERNAME, PASSWORD)) {
+            prepareDataset(connection);
+        }
+        context = new SpringApplicationBuilder(PlanContext.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .run("--spring.datasource.url=" + URL, "--spring.datasource.username=" + USERNAME,
+                        "--spring.datasource.password=" + PASSWORD, "--spring.jpa.show-sql=false",
+                        "--spring.flyway.enabled=false");
+
+        return CASES.stream().map(planCase -> DynamicTest.dynamicTest(planCase.name(), () -> check(planCase)));
+    }
+
+    private static void check(PlanCase planCase) {
+        JsonNode result = capture(planCase);
+        JsonNode plan = result.get("Plan");
+        double executionMillis = result.get("Execution Time").asDouble();
+        long buffers = plan.path("Shared Hit Blocks").asLong() + plan.path("Shared Read Blocks").asLong();
+
+        List<String> seqScans = new ArrayList<>();
+        Set<String> indexes = new TreeSet<>();
+        collect(plan, seqScans, indexes);
+
+        log.info("{} {} ms {} buffers indexes={} seqscans={}",
+                planCase.name(), String.format("%.2f", executionMillis), buffers, indexes, seqScans);
+
+        List<String> largeSeqScans = seqScans.stream().filter(LARGE_TABLES::contains).toList();
+        assertTrue(largeSeqScans.isEmpty(),
+                planCase.name() + " sequentially scans " + largeSeqScans + ":\n" + plan.toPrettyString());
+        if (planCase.index() != null) {
+            assertTrue(indexes.contains(planCase.index()),
+                    planCase.name() + " no longer uses " + planCase.index() + ":\n" + plan.toPrettyString());
+        }
+        assertTrue(buffers <= planCase.maxBuffers(),
+                planCase.name() + " touched " + buffers + " buffers, budget " + planCase.maxBuffers());
+        assertTrue(executionMillis <= planCase.maxMillis(),
+                planCase.name() + " took " + executionMillis + " ms, budget " + planCase.maxMillis());
+    }
+
+    /**
+     * Call the repository method in a transaction that is rolled back, then explain
+     * the one statement it sent on the same connection, before the rollback
+     */
+    private static JsonNode capture(PlanCase planCase) {
+        Object repository = context.getBean(planCase.repository());
+        StatementRecorder recorder = context.getBean(StatementRecorder.class);
+        TransactionTemplate transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        return transaction.execute(status -> {
+            status.setRollbackOnly();
+            recorder.clear();
+            planCase.invoke(repository);
+            List<RecordedStatement> statements = recorder.statements();
+            assertEquals(1, statements.size(), planCase.name() + " sent " + statements);
+            // First run warms the cache; budgets apply to the second
+            statements.get(0).explain();
+            return statements.get(0).explain();
+        });
+    }
+
+    private static void collect(JsonNode node, List<String> seqScans, Set<String> indexes) {
+        if ("Seq Scan".equals(node.path("Node Type").asText())) {
+            seqScans.add(node.path("Relation Name").asText());
+        }
+        if (node.has("Index Name")) {
+            indexes.add(node.get("Index Name").asText());
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collect(child, seqScans, indexes);
+        }
+    }
+
+    /**
+     * Load the synthetic fleet unless a dataset of the requested size is already there
+     */
+    private static void prepareDataset(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (count(statement, "SELECT COUNT(*) FROM equipment") == EQUIPMENT
+                    && count(statement, "SELECT COUNT(*) FROM sensor_log") == READINGS) {
+                // Rolled-back inserts of earlier runs leave dead index entries at the newest rows, which
+                // top-N scans step over; a plain VACUUM skips index cleanup when they are this few
+                statement.execute("VACUUM (ANALYZE, INDEX_CLEANUP ON) equipment, sensor_log, risk_event");
+                return;
+            }
+
+            log.info("Loading {} equipment, {} readings, {} risk events", EQUIPMENT, READINGS, READINGS / 10);
+            statement.execute("TRUNCATE equipment, sensor_log, risk_event, risk_cube_hourly, risk_cube_delta "
+                    + "RESTART IDENTITY CASCADE");
+            statement.execute("""
+                    INSERT INTO equipment (name, type, location, install_date)
+                    SELECT 'Equipment-' || g,
+                           (ARRAY['Pump', 'Motor', 'Compressor', 'Turbine', 'Conveyor', 'Generator', 'Fan', 'Boiler'])[1 + g %% 8],
+                           'Site-' || (1 + g %% 20),
+                           DATE '2020-01-01' + (g %% 1000)::int
+                    FROM generate_series(1, %d) g
+                    """.formatted(EQUIPMENT));
+        }
+
+        // Interleaved by equipment in arrival order, like live ingestion
+        load(connection, READINGS, """
+                INSERT INTO sensor_log (equipment_id, timestamp, temperature, vibration, load_percentage)
+                SELECT 1 + g %% %1$d,
+                       TIMESTAMP '%2$s' + (g / %1$d) * INTERVAL '1 minute',
+                       (2000 + random() * 8000)::smallint,
+                       (random() * 5000)::smallint,
+                       (random() * 10000)::smallint
+                FROM generate_series(?, ?) g
+                """.formatted(EQUIPMENT, BASE));
+        load(connection, READINGS / 10, """
+                INSERT INTO risk_event (equipment_id, timestamp, risk_score, risk_level, reason_factor, reason_value)
+                SELECT 1 + g %% %1$d,
+                       TIMESTAMP '%2$s' + (g / %1$d) * INTERVAL '10 minutes',
+                       score,
+                       CASE WHEN score >= 85 THEN 'CRITICAL' WHEN score >= 65 THEN 'HIGH'
+                            WHEN score >= 40 THEN 'MEDIUM' ELSE 'LOW' END,
+                       1 + g %% 3,
+                       round((random() * 100)::numeric, 2)
+                FROM (SELECT g, round((random() * 100)::numeric, 2) AS score FROM generate_series(?, ?) g) s
+                """.formatted(EQUIPMENT, BASE));
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("VACUUM ANALYZE equipment, sensor_log, risk_event");
+        }
+    }
+
+    private static void load(Connection connection, long rows, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (long from = 0; from < rows; from += LOAD_BATCH) {
+                statement.setLong(1, from);
+                statement.setLong(2, Math.min(from + LOAD_BATCH, rows) - 1);
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    private static long count(Statement statement, String sql) throws SQLException {
+        try (ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * One repository method, the arguments to call it with, its expected index and budgets
+     */
+    private record PlanCase(Class<?> repository, String method, List<Object> args,
+                            String index, long maxBuffers, double maxMillis) {
+
+        static PlanCase of(Class<?> repository, String method, Object... args) {
+            return new PlanCase(repository, method, Arrays.asList(args), null, Long.MAX_VALUE, Double.MAX_VALUE);
+        }
+
+        String name() {
+            return repository.getSimpleName() + "." + method;
+        }
+
+        PlanCase usesIndex(String index) {
+            return new PlanCase(repository, method, args, index, maxBuffers, maxMillis);
+        }
+
+        PlanCase budget(long maxBuffers, double maxMillis) {
+            return new PlanCase(repository, method, args, index, maxBuffers, maxMillis);
+        }
+
+        void invoke(Object bean) {
+            Method target = Arrays.stream(repository.getMethods())
+                    .filter(m -> m.getName().equals(method) && !m.isDefault() && m.getParameterCount() == args.size())
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("No method " + name() + " with " + args.size() + " arguments"));
+            Object result = ReflectionUtils.invokeMethod(target, bean, args.toArray());
+            if (result instanceof Stream<?> rows) {
+                try (rows) {
+                    rows.forEach(row -> { });
+                }
+            }
+        }
+    }
+
+    /**
+     * A statement as the driver received it: its SQL and the values bound to it
+     */
+    private record RecordedStatement(Connection connection, String sql, List<Binding> bindings) {
+
+        JsonNode explain() {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) " + sql)) {
+                for (Binding binding : bindings) {
+                    binding.setter().invoke(statement, binding.args());
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    rs.next();
+                    return MAPPER.readTree(rs.getString(1)).get(0);
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to explain " + sql, e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return sql;
+        }
+    }
+
+    private record Binding(Method setter, Object[] args) {
+    }
+
+    /**
+     * Records every prepared statement executed through the application's DataSource
+     */
+    static final class StatementRecorder implements BeanPostProcessor {
+        private final List<RecordedStatement> statements = new CopyOnWriteArrayList<>();
+
+        void clear() {
+            statements.clear();
+        }
+
+        List<RecordedStatement> statements() {
+            return List.copyOf(statements);
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource)) {
+                return bean;
+            }
+            return new DelegatingDataSource(dataSource) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    return recording(super.getConnection());
+                }
+            };
+        }
+
+        private Connection recording(Connection connection) {
+            return proxy(Connection.class, connection, (method, args, result) ->
+                    method.getName().equals("prepareStatement") ? recording(connection, (String) args[0],
+                            (PreparedStatement) result) : result);
+        }
+
+        private PreparedStatement recording(Connection connection, String sql, PreparedStatement statement) {
+            List<Binding> bindings = new ArrayList<>();
+            return proxy(PreparedStatement.class, statement, (method, args, result) -> {
+                // Parameter setters take the parameter index first; setFetchSize and the like take one argument
+                if (method.getName().startsWith("set") && args != null && args.length > 1 && args[0] instanceof Integer) {
+                    bindings.add(new Binding(method, args));
+                } else if (method.getName().startsWith("execute")) {
+                    statements.add(new RecordedStatement(connection, sql, List.copyOf(bindings)));
+                }
+                return result;
+            });
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target, Interceptor interceptor) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+                try {
+                    Object result = method.invoke(target, args);
+                    return interceptor.after(method, args, result);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+        }
+
+        private interface Interceptor {
+            Object after(Method method, Object[] args, Object result) throws Throwable;
+        }
+    }
+
+    /**
+     * The application's JPA setup (entities, repositories, Hibernate properties) without the web layer
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ImportAutoConfiguration({DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class,
+            TransactionAutoConfiguration.class})
+    @EntityScan(basePackageClasses = SensorLog.class)
+    @EnableJpaRepositories(basePackageClasses = SensorLogRepository.class)
+    static class PlanContext {
+
+        @Bean
+        static StatementRecorder statementRecorder() {
+            return new StatementRecorder();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.equipmentpredictor.service;
+
+import com.equipmentpredictor.dto.AlertBatchDTO;
+import com.equipmentpredictor.dto.CoalescedAlertDTO;
+import com.equipmentpredictor.dto.RiskResponseDTO;
+import com.equipmentpredictor.model.RiskEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for coalesced alert delivery
+ */
+@DisplayName("AlertCoalescer Tests")
+class AlertCoalescerTest {
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2025, 3, 1, 10, 0);
+
+    private static RiskResponseDTO alert(long equipmentId, RiskEvent.RiskLevel level, String score, int second) {
+        return RiskResponseDTO.builder()
+                .equipmentId(equipmentId)
+                .equipmentName("Equipment " + equipmentId)
+                .riskLevel(level)
+                .riskScore(new BigDecimal(score))
+                .timestamp(TIME.plusSeconds(second))
+                .build();
+    }
+
+    @Test
+    @DisplayName("Test 1: One window becomes one batch frame plus the latest and worst alert per equipment on the alert topics")
+    void testFlushPublishesBatchAndAlertTopics() {
+        SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+        AlertCoalescer coalescer = new AlertCoalescer(messagingTemplate);
+
+        RiskResponseDTO worst = alert(1, RiskEvent.RiskLevel.CRITICAL, "91.00", 0);
+        RiskResponseDTO latest = alert(1, RiskEvent.RiskLevel.HIGH, "70.00", 2);
+        RiskResponseDTO only = alert(2, RiskEvent.RiskLevel.HIGH, "66.00", 1);
+        coalescer.offer(worst);
+        coalescer.offer(alert(1, RiskEvent.RiskLevel.HIGH, "68.00", 1));
+        coalescer.offer(latest);
+        coalescer.offer(only);
+        coalescer.flush();
+
+        ArgumentCaptor<AlertBatchDTO> batch = ArgumentCaptor.forClass(AlertBatchDTO.class);
+        verify(messagingTemplate).convertAndSend(eq(AlertCoalescer.BATCH_TOPIC), batch.capture());
+        assertEquals(1, batch.getValue().getSequence());
+        assertEquals(2, batch.getValue().getAlerts().size());
+        CoalescedAlertDTO first = batch.getValue().getAlerts().stream()
+                .filter(a -> a.getEquipmentId() == 1L).findFirst().orElseThrow();
+        assertEquals(3, first.getCount());
+        assertSame(latest, first.getLatest());
+        assertSame(worst, first.getWorst());
+
+        // Existing subscribers still receive single alerts
+        verify(messagingTemplate).convertAndSend(RiskBroadcastService.ALERTS_TOPIC, latest);
+        verify(messagingTemplate).convertAndSend("/topic/alerts/HIGH", latest);
+        verify(messagingTemplate).convertAndSend("/topic/alerts/CRITICAL", worst);
+        verify(messagingTemplate).convertAndSend(RiskBroadcastService.ALERTS_TOPIC, only);
+        verify(messagingTemplate).convertAndSend("/topic/alerts/HIGH", only);
+        verify(messagingTemplate, times(6)).convertAndSend(anyString(), any(Object.class));
+
+        // Nothing pending: no frame, and the next window continues the sequence
+        coalescer.flush();
+        verifyNoMoreInteractions(messagingTemplate);
+        coalescer.offer(only);
+        coalescer.flush();
+        verify(messagingTemplate, times(2)).convertAndSend(eq(AlertCoalescer.BATCH_TOPIC), batch.capture());
+        assertEquals(2, batch.getValue().getSequence());
+    }
+}
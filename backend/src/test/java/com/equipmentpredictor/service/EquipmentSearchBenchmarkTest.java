@@ -0,0 +1,85 @@
+package com.equipmentpredictor.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Search latency of EquipmentSearchIndex over a synthetic fleet
+ * Builds the index for -Dbench.equipment (500000) equipment and times each
+ * query -Dbench.rounds (200) times after a warm-up, at the default result cap
+ * (search.equipment.max-results). Type-ahead queries (prefix and substring)
+ * must stay under 10 ms at the 99th percentile; fuzzy fallbacks are reported.
+ * Run with: mvn test -Pbenchmarks
+ */
+@Tag("benchmarks")
+@DisplayName("Equipment search benchmark")
+@Slf4j
+class EquipmentSearchBenchmarkTest {
+
+    private static final int EQUIPMENT = Integer.getInteger("bench.equipment", 500_000);
+    private static final int ROUNDS = Integer.getInteger("bench.rounds", 200);
+    private static final int LIMIT = 50;
+    private static final double TYPE_AHEAD_MAX_MILLIS = 10;
+
+    private static final String[] TYPES = {"Pump", "Motor", "Compressor", "Turbine", "Conveyor", "Generator", "Fan", "Boiler"};
+    private static final String[] PARTS = {"Feed", "Cooling", "Main", "Auxiliary", "Booster", "Exhaust", "Intake", "Backup",
+            "Transfer", "Circulation", "Vacuum", "Hydraulic", "Drive", "Primary", "Secondary", "Standby"};
+    private static final String[] SITES = {"Plant North", "Plant South", "Riverside", "Harbor", "Pumphouse", "Hilltop",
+            "Quarry", "Refinery East", "Refinery West", "Substation"};
+
+    private static final List<String> TYPE_AHEAD = List.of("Bo", "Pump", "Main Comp", "Hydraulic Tur", "ooling", "ompress",
+            "refinery", "booster pump 12");
+    private static final List<String> FUZZY = List.of("compresor", "turbin generatr", "hydralic pmp", "riversde boiler");
+
+    @Test
+    @DisplayName("Search at fleet scale")
+    void searchLatency() {
+        Random random = new Random(42);
+        EquipmentSearchIndex index = new EquipmentSearchIndex();
+        long buildStart = System.nanoTime();
+        for (int id = 1; id <= EQUIPMENT; id++) {
+            String type = TYPES[random.nextInt(TYPES.length)];
+            index.put(id, PARTS[random.nextInt(PARTS.length)] + " " + type + " " + random.nextInt(5_000),
+                    type, SITES[random.nextInt(SITES.length)] + " " + (1 + random.nextInt(40)));
+        }
+        log.info("Built index of {} equipment in {} ms", EQUIPMENT, (System.nanoTime() - buildStart) / 1_000_000);
+
+        for (String query : TYPE_AHEAD) {
+            double p99 = time(index, query, "type-ahead");
+            assertTrue(p99 < TYPE_AHEAD_MAX_MILLIS, "'" + query + "' took " + p99 + " ms at p99");
+        }
+        for (String query : FUZZY) {
+            time(index, query, "fuzzy");
+        }
+    }
+
+    // Returns the 99th percentile in milliseconds
+    private static double time(EquipmentSearchIndex index, String query, String kind) {
+        for (int i = 0; i < ROUNDS; i++) {
+            index.search(query, LIMIT);
+        }
+        long[] nanos = new long[ROUNDS];
+        int results = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            results = index.search(query, LIMIT).size();
+            nanos[i] = System.nanoTime() - start;
+        }
+        assertFalse(results == 0, "No results for '" + query + "'");
+        Arrays.sort(nanos);
+        double median = nanos[ROUNDS / 2] / 1e6;
+        double p99 = nanos[(int) (ROUNDS * 0.99)] / 1e6;
+        log.info("{} '{}': {} results, median {} ms, p99 {} ms", kind, query, results,
+                String.format("%.3f", median), String.format("%.3f", p99));
+        return p99;
+    }
+}
@@ -0,0 +1,59 @@
+package com.equipmentpredictor.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the in-memory equipment search index
+ */
+@DisplayName("EquipmentSearchIndex Tests")
+class EquipmentSearchIndexTest {
+
+    private static EquipmentSearchIndex fleet() {
+        EquipmentSearchIndex index = new EquipmentSearchIndex();
+        index.put(1, "Boiler Feed Pump", "Pump", "Plant North");
+        index.put(2, "Cooling Tower Fan", "Fan", "Plant South");
+        index.put(3, "Pump Station 4", "Pump", "Riverside");
+        index.put(4, "Main Compressor", "Compressor", "Pumphouse");
+        index.put(5, "Turbine A", "Turbine", "Plant North");
+        return index;
+    }
+
+    @Test
+    @DisplayName("Test 1: Name prefix matches rank before substring matches in name, type or location")
+    void testRankedTiers() {
+        EquipmentSearchIndex index = fleet();
+
+        assertEquals(List.of(3L, 1L, 4L), index.search("pump", 10));
+        assertEquals(List.of(1L, 5L), index.search("north", 10));
+        assertEquals(List.of(3L), index.search("PU", 10));
+    }
+
+    @Test
+    @DisplayName("Test 2: Misspelled queries match on shared trigrams, most shared first")
+    void testFuzzyMatch() {
+        EquipmentSearchIndex index = fleet();
+
+        assertEquals(List.of(4L), index.search("compresor", 10));
+        assertEquals(5L, index.search("turbnie", 10).get(0));
+        assertTrue(index.search("xyzzy", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test 3: Results are capped and follow updates and removals")
+    void testLimitAndChanges() {
+        EquipmentSearchIndex index = fleet();
+        assertEquals(List.of(3L, 1L), index.search("pump", 2));
+
+        index.put(3, "Lift Station 4", "Lift", "Riverside");
+        index.remove(1);
+
+        assertEquals(List.of(4L), index.search("pump", 10));
+        assertEquals(List.of(3L), index.search("lift", 10));
+        assertEquals(4, index.size());
+    }
+}
@@ -0,0 +1,207 @@
+package com.equipmentpredictor.service;
+
+import com.equipmentpredictor.dto.SensorLogDTO;
+import com.equipmentpredictor.ingest.IngestLimiter;
+import com.equipmentpredictor.model.RiskEvent;
+import com.equipmentpredictor.model.SensorLog;
+import com.equipmentpredictor.repository.EquipmentRepository;
+import com.equipmentpredictor.repository.RiskEventRepository;
+import com.equipmentpredictor.repository.ScoringProfileRepository;
+import com.equipmentpredictor.repository.SensorLogRepository;
+import com.equipmentpredictor.store.IngestWal;
+import com.equipmentpredictor.store.SensorArchiveStore;
+import com.equipmentpredictor.store.SensorHotStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Stress test for ordered ingestion through IngestShardRouter
+ * Fires concurrent readings per equipment and checks the risk event sequence
+ */
+@DisplayName("IngestShardRouter Stress Tests")
+class IngestShardRouterTest {
+
+    private static final int EQUIPMENT_COUNT = 16;
+    private static final int SUBMITTERS_PER_EQUIPMENT = 8;
+    private static final int READINGS_PER_SUBMITTER = 50;
+
+    // temp=120, vib=40, load=85 scores HIGH; temp=20, vib=5, load=10 scores LOW
+    private static final BigDecimal HIGH_TEMP = new BigDecimal("120");
+    private static final BigDecimal LOW_TEMP = new BigDecimal("20");
+
+    private final Map<Long, List<RiskEvent>> events = new ConcurrentHashMap<>();
+    private final Map<Long, List<BigDecimal>> processedTemperatures = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> writerThreads = new ConcurrentHashMap<>();
+
+    private IngestShardRouter router;
+    private SensorLogService sensorLogService;
+
+    @BeforeEach
+    void setUp() {
+        RiskEventRepository riskEventRepository = mock(RiskEventRepository.class, withSettings().stubOnly());
+        EquipmentRepository equipmentRepository = mock(EquipmentRepository.class, withSettings().stubOnly());
+        SensorLogRepository sensorLogRepository = mock(SensorLogRepository.class, withSettings().stubOnly());
+        RiskBroadcastService riskBroadcastService = mock(RiskBroadcastService.class, withSettings().stubOnly());
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class, withSettings().stubOnly());
+
+        when(equipmentRepository.existsById(anyLong())).thenReturn(true);
+        when(equipmentRepository.findById(anyLong())).thenReturn(Optional.empty());
+
+        // Unsynchronized read-modify-write store: only safe with a single writer per equipment
+        when(riskEventRepository.findFirstByEquipmentIdOrderByTimestampDesc(anyLong())).thenAnswer(inv -> {
+            List<RiskEvent> list = events.get(inv.<Long>getArgument(0));
+            Thread.yield();
+            return list == null || list.isEmpty() ? Optional.empty() : Optional.of(list.get(list.size() - 1));
+        });
+        when(riskEventRepository.save(any(RiskEvent.class))).thenAnswer(inv -> {
+            RiskEvent event = inv.getArgument(0);
+            events.computeIfAbsent(event.getEquipmentId(), id -> new ArrayList<>()).add(event);
+            return event;
+        });
+
+        AtomicLong ids = new AtomicLong();
+        when(sensorLogRepository.insertIgnoringDuplicates(any(), any(), any(), any(), any())).thenAnswer(inv -> {
+            long[] equipmentIds = inv.getArgument(0);
+            long[] timestamps = inv.getArgument(1);
+            short[] temperatures = inv.getArgument(2);
+            short[] vibrations = inv.getArgument(3);
+            short[] loads = inv.getArgument(4);
+            List<SensorLog> inserted = new ArrayList<>();
+            for (int i = 0; i < equipmentIds.length; i++) {
+                SensorLog log = new SensorLog(ids.incrementAndGet(), equipmentIds[i],
+                        SensorHotStore.fromMicros(timestamps[i]), temperatures[i], vibrations[i], loads[i]);
+                processedTemperatures.computeIfAbsent(log.getEquipmentId(), id -> new ArrayList<>())
+                        .add(log.temperatureValue());
+                writerThreads.computeIfAbsent(log.getEquipmentId(), id -> ConcurrentHashMap.newKeySet())
+                        .add(Thread.currentThread().getName());
+                inserted.add(log);
+            }
+            return inserted;
+        });
+
+        ScoringProfileService scoringProfileService = new ScoringProfileService(
+                mock(ScoringProfileRepository.class, withSettings().stubOnly()),
+                new BigDecimal("0.40"), new BigDecimal("0.35"), new BigDecimal("0.25"));
+        RiskPredictionService riskPredictionService = new RiskPredictionService(
+                riskEventRepository, equipmentRepository, riskBroadcastService, scoringProfileService,
+                new RiskEventPolicy(RiskEventPolicy.Mode.EVERY, BigDecimal.TEN, Duration.ofMinutes(5), new BigDecimal("5")),
+                sensorLogRepository);
+
+        router = new IngestShardRouter(4, 100_000);
+        sensorLogService = new SensorLogService(sensorLogRepository, equipmentRepository,
+                riskPredictionService, riskBroadcastService, router, new TransactionTemplate(transactionManager),
+                absent(SensorHotStore.class), absent(IngestWal.class), absent(SensorArchiveStore.class),
+                mock(IngestLimiter.class));
+    }
+
+    private static <T> ObjectProvider<T> absent(Class<T> type) {
+        return new StaticListableBeanFactory().getBeanProvider(type);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        router.shutdown();
+    }
+
+    @Test
+    @DisplayName("Concurrent readings per equipment produce the sequential event sequence")
+    void testConcurrentReadingsKeepEventSequence() throws Exception {
+        ExecutorService submitters = Executors.newFixedThreadPool(EQUIPMENT_COUNT * SUBMITTERS_PER_EQUIPMENT);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (long equipmentId = 1; equipmentId <= EQUIPMENT_COUNT; equipmentId++) {
+            for (int submitter = 0; submitter < SUBMITTERS_PER_EQUIPMENT; submitter++) {
+                long id = equipmentId;
+                int offset = submitter;
+                futures.add(submitters.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < READINGS_PER_SUBMITTER; i++) {
+                        boolean high = (i + offset) % 3 == 0;
+                        sensorLogService.addSensorLog(createReading(id, high));
+                    }
+                    return null;
+                }));
+            }
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        submitters.shutdown();
+
+        for (long equipmentId = 1; equipmentId <= EQUIPMENT_COUNT; equipmentId++) {
+            List<BigDecimal> processed = processedTemperatures.get(equipmentId);
+            assertEquals(SUBMITTERS_PER_EQUIPMENT * READINGS_PER_SUBMITTER, processed.size());
+            assertEquals(1, writerThreads.get(equipmentId).size(),
+                    "All readings for one equipment must run on a single shard thread");
+
+            List<RiskEvent.RiskLevel> actual = events.getOrDefault(equipmentId, Collections.emptyList())
+                    .stream().map(RiskEvent::getRiskLevel).toList();
+            assertEquals(expectedEventLevels(processed), actual,
+                    "Event sequence must match sequential processing for equipment " + equipmentId);
+        }
+    }
+
+    @Test
+    @DisplayName("Same equipment always maps to the same shard")
+    void testShardAssignmentIsStable() {
+        assertEquals(router.shardFor(5L), router.shardFor(9L));
+        assertNotEquals(router.shardFor(5L), router.shardFor(6L));
+        assertTrue(router.shardFor(-3L) >= 0);
+    }
+
+    // Replays the event rule from RiskPredictionService over the processed order
+    private List<RiskEvent.RiskLevel> expectedEventLevels(List<BigDecimal> temperatures) {
+        List<RiskEvent.RiskLevel> expected = new ArrayList<>();
+        for (BigDecimal temperature : temperatures) {
+            RiskEvent.RiskLevel level = temperature.compareTo(HIGH_TEMP) == 0
+                    ? RiskEvent.RiskLevel.HIGH
+                    : RiskEvent.RiskLevel.LOW;
+            boolean lastWasRisk = !expected.isEmpty() && expected.get(expected.size() - 1) != RiskEvent.RiskLevel.LOW;
+            if (level != RiskEvent.RiskLevel.LOW || lastWasRisk) {
+                expected.add(level);
+            }
+        }
+        return expected;
+    }
+
+    private SensorLogDTO createReading(Long equipmentId, boolean high) {
+        SensorLogDTO dto = new SensorLogDTO();
+        dto.setEquipmentId(equipmentId);
+        dto.setTimestamp(LocalDateTime.now());
+        dto.setTemperature(high ? HIGH_TEMP : LOW_TEMP);
+        dto.setVibration(high ? new BigDecimal("40") : new BigDecimal("5"));
+        dto.setLoadPercentage(high ? new BigDecimal("85") : new BigDecimal("10"));
+        return dto;
+    }
+}
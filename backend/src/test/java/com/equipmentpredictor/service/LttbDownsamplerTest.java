@@ -0,0 +1,162 @@
+package com.equipmentpredictor.service;
+
+import com.equipmentpredictor.dto.SensorLogDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for streaming LTTB downsampling
+ */
+@DisplayName("LttbDownsampler Tests")
+class LttbDownsamplerTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Test
+    @DisplayName("Test 1: Ranges with at most maxPoints readings are returned unchanged")
+    void testShortRangeUnchanged() {
+        List<SensorLogDTO> rows = readings(50, new Random(1));
+        LttbDownsampler downsampler = new LttbDownsampler(FROM, FROM.plusHours(1), 50);
+        rows.forEach(downsampler::add);
+
+        assertEquals(rows, downsampler.finish());
+    }
+
+    @Test
+    @DisplayName("Test 2: A one-reading spike survives heavy downsampling")
+    void testSpikePreserved() {
+        List<SensorLogDTO> rows = readings(100_000, new Random(2));
+        SensorLogDTO spike = rows.get(61_234);
+        spike.setTemperature(new BigDecimal("180.00"));
+
+        LttbDownsampler downsampler = new LttbDownsampler(FROM, FROM.plusMinutes(100_000), 200);
+        rows.forEach(downsampler::add);
+        List<SensorLogDTO> result = downsampler.finish();
+
+        assertTrue(result.contains(spike));
+        assertTrue(result.size() <= 200, "at most maxPoints for all channels together");
+        assertSame(rows.get(0), result.get(0));
+        assertSame(rows.get(rows.size() - 1), result.get(result.size() - 1));
+        for (int i = 1; i < result.size(); i++) {
+            assertFalse(result.get(i).getTimestamp().isBefore(result.get(i - 1).getTimestamp()));
+        }
+    }
+
+    @Test
+    @DisplayName("Test 3: Hull-based selection matches LTTB over full buckets")
+    void testMatchesFullBucketLttb() {
+        List<SensorLogDTO> rows = readings(20_000, new Random(3));
+        LocalDateTime to = FROM.plusMinutes(20_000);
+        LttbDownsampler downsampler = new LttbDownsampler(FROM, to, 150);
+        rows.forEach(downsampler::add);
+
+        Set<SensorLogDTO> expected = new LinkedHashSet<>();
+        int buckets = LttbDownsampler.bucketsFor(150);
+        expected.addAll(reference(rows, to, buckets, SensorLogDTO::getTemperature));
+        expected.addAll(reference(rows, to, buckets, SensorLogDTO::getVibration));
+        expected.addAll(reference(rows, to, buckets, SensorLogDTO::getLoadPercentage));
+        List<SensorLogDTO> sorted = new ArrayList<>(expected);
+        sorted.sort(Comparator.comparing(SensorLogDTO::getTimestamp));
+
+        assertEquals(sorted, downsampler.finish());
+    }
+
+    @Test
+    @DisplayName("Test 4: Channels that never share a pick still fit in maxPoints together")
+    void testBudgetSharedByChannels() {
+        // Each channel spikes in a different reading of every bucket, so the channels pick disjoint rows
+        List<SensorLogDTO> rows = readings(30_000, new Random(4));
+        for (int i = 0; i < rows.size(); i++) {
+            SensorLogDTO row = rows.get(i);
+            switch (i % 3) {
+                case 0 -> row.setTemperature(BigDecimal.valueOf(9000 + i % 997, 2));
+                case 1 -> row.setVibration(BigDecimal.valueOf(5000 + i % 991, 2));
+                default -> row.setLoadPercentage(BigDecimal.valueOf(9000 + i % 983, 2));
+            }
+        }
+        for (int maxPoints : new int[] {LttbDownsampler.MIN_POINTS, 6, 7, 8, 100, 300, 1001}) {
+            LttbDownsampler downsampler = new LttbDownsampler(FROM, FROM.plusMinutes(30_000), maxPoints);
+            rows.forEach(downsampler::add);
+            List<SensorLogDTO> result = downsampler.finish();
+
+            assertTrue(result.size() <= maxPoints, result.size() + " rows for maxPoints " + maxPoints);
+            assertSame(rows.get(0), result.get(0));
+            assertSame(rows.get(rows.size() - 1), result.get(result.size() - 1));
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> new LttbDownsampler(FROM, FROM.plusHours(1), LttbDownsampler.MIN_POINTS - 1));
+    }
+
+    // Textbook LTTB over the same time buckets, keeping every reading of every bucket
+    private static List<SensorLogDTO> reference(List<SensorLogDTO> rows, LocalDateTime to, int bucketCount,
+                                                Function<SensorLogDTO, BigDecimal> value) {
+        double bucketSeconds = Duration.between(FROM, to).getSeconds() / (double) bucketCount;
+        TreeMap<Long, List<SensorLogDTO>> buckets = new TreeMap<>();
+        for (SensorLogDTO row : rows.subList(1, rows.size())) {
+            long bucket = Math.min((long) Math.floor(x(row) / bucketSeconds), bucketCount - 1);
+            buckets.computeIfAbsent(bucket, b -> new ArrayList<>()).add(row);
+        }
+        List<List<SensorLogDTO>> ordered = new ArrayList<>(buckets.values());
+        SensorLogDTO last = rows.get(rows.size() - 1);
+
+        List<SensorLogDTO> kept = new ArrayList<>(List.of(rows.get(0)));
+        SensorLogDTO a = rows.get(0);
+        for (int i = 0; i < ordered.size(); i++) {
+            double cx;
+            double cy;
+            if (i + 1 < ordered.size()) {
+                cx = ordered.get(i + 1).stream().mapToDouble(LttbDownsamplerTest::x).average().orElseThrow();
+                cy = ordered.get(i + 1).stream().mapToDouble(r -> value.apply(r).doubleValue()).average().orElseThrow();
+            } else {
+                cx = x(last);
+                cy = value.apply(last).doubleValue();
+            }
+            SensorLogDTO best = null;
+            double bestArea = -1;
+            for (SensorLogDTO b : ordered.get(i)) {
+                double ay = value.apply(a).doubleValue();
+                double area = Math.abs((x(a) - cx) * (value.apply(b).doubleValue() - ay)
+                        - (x(a) - x(b)) * (cy - ay));
+                if (area > bestArea) {
+                    bestArea = area;
+                    best = b;
+                }
+            }
+            kept.add(best);
+            a = best;
+        }
+        if (kept.get(kept.size() - 1) != last) {
+            kept.add(last);
+        }
+        return kept;
+    }
+
+    private static double x(SensorLogDTO row) {
+        return Duration.between(FROM, row.getTimestamp()).getSeconds();
+    }
+
+    private static List<SensorLogDTO> readings(int count, Random random) {
+        List<SensorLogDTO> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new SensorLogDTO((long) i + 1, 1L, FROM.plusMinutes(i),
+                    BigDecimal.valueOf(6000 + random.nextInt(500), 2),
+                    BigDecimal.valueOf(1000 + random.nextInt(300), 2),
+                    BigDecimal.valueOf(5000 + random.nextInt(2000), 2)));
+        }
+        return rows;
+    }
+}
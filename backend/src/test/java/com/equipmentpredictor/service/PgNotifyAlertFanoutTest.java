@@ -0,0 +1,163 @@
+package com.equipmentpredictor.service;
+
+import com.equipmentpredictor.dto.RiskResponseDTO;
+import com.equipmentpredictor.dto.SensorLogDTO;
+import com.equipmentpredictor.model.RiskEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for cross-node alert fan-out over LISTEN/NOTIFY
+ */
+@DisplayName("PgNotifyAlertFanout Tests")
+class PgNotifyAlertFanoutTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private PgNotifyAlertFanout fanout() {
+        PgNotifyAlertFanout fanout = new PgNotifyAlertFanout(mock(RiskBroadcastService.class), objectMapper);
+        ReflectionTestUtils.setField(fanout, "channel", "risk_alerts");
+        return fanout;
+    }
+
+    private static RiskResponseDTO alert(long equipmentId, String name) {
+        return RiskResponseDTO.builder()
+                .equipmentId(equipmentId)
+                .equipmentName(name)
+                .riskLevel(RiskEvent.RiskLevel.HIGH)
+                .riskScore(new BigDecimal("70.00"))
+                .build();
+    }
+
+    /**
+     * Connection whose NOTIFYs append their payloads, failing from the given call on
+     */
+    private static Connection connection(List<String> payloads, int failFrom) throws SQLException {
+        Connection connection = mock(Connection.class);
+        PreparedStatement notify = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString())).thenReturn(notify);
+        List<String> current = new ArrayList<>(1);
+        doAnswer(invocation -> {
+            if (invocation.<Integer>getArgument(0) == 2) {
+                current.add(0, invocation.getArgument(1));
+            }
+            return null;
+        }).when(notify).setString(anyInt(), anyString());
+        when(notify.execute()).thenAnswer(invocation -> {
+            if (payloads.size() >= failFrom) {
+                throw new SQLException("connection lost");
+            }
+            payloads.add(current.get(0));
+            return true;
+        });
+        return connection;
+    }
+
+    private List<Long> equipmentIds(List<String> payloads) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (String payload : payloads) {
+            for (JsonNode alert : objectMapper.readTree(payload).path("alerts")) {
+                ids.add(alert.path("equipmentId").asLong());
+            }
+        }
+        return ids;
+    }
+
+    @Test
+    @DisplayName("Test 1: Payloads are split by UTF-8 bytes, not characters")
+    void testPayloadLimitInBytes() throws Exception {
+        PgNotifyAlertFanout fanout = fanout();
+        // 1,500 characters but 3,000 bytes each: three fit 7,500 characters, but not 8,000 bytes
+        String name = "é".repeat(1_500);
+        for (long id = 1; id <= 6; id++) {
+            fanout.publish(alert(id, name));
+        }
+
+        List<String> payloads = new ArrayList<>();
+        fanout.sendPending(connection(payloads, Integer.MAX_VALUE));
+
+        assertEquals(3, payloads.size());
+        for (String payload : payloads) {
+            assertTrue(payload.getBytes(StandardCharsets.UTF_8).length <= PgNotifyAlertFanout.MAX_PAYLOAD_BYTES);
+        }
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L), equipmentIds(payloads));
+    }
+
+    @Test
+    @DisplayName("Test 2: Alerts a failed NOTIFY did not send are sent on the next attempt, the sent ones are not repeated")
+    void testFailedNotifyKeepsUnsentAlerts() throws Exception {
+        PgNotifyAlertFanout fanout = fanout();
+        String name = "x".repeat(3_000);
+        for (long id = 1; id <= 6; id++) {
+            fanout.publish(alert(id, name));
+        }
+
+        List<String> payloads = new ArrayList<>();
+        assertThrows(SQLException.class, () -> fanout.sendPending(connection(payloads, 1)));
+        assertEquals(List.of(1L, 2L), equipmentIds(payloads));
+
+        fanout.publish(alert(7, "Press"));
+        fanout.sendPending(connection(payloads, Integer.MAX_VALUE));
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L), equipmentIds(payloads));
+    }
+
+    @Test
+    @DisplayName("Test 3: Risk updates, readings and alerts, local and remote, all wait for the commit")
+    void testLocalAndRemoteDeliveryAfterCommit() {
+        SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+        PgNotifyAlertFanout fanout = mock(PgNotifyAlertFanout.class);
+        RiskBroadcastService broadcastService = new RiskBroadcastService(messagingTemplate, mock(AlertCoalescer.class),
+                new StaticListableBeanFactory(Map.of("fanout", fanout)).getBeanProvider(PgNotifyAlertFanout.class));
+        RiskResponseDTO alert = alert(1, "Pump");
+        SensorLogDTO reading = new SensorLogDTO(null, 1L, LocalDateTime.of(2025, 3, 1, 10, 0),
+                new BigDecimal("71.50"), new BigDecimal("3.20"), new BigDecimal("64.00"));
+
+        // Rolled back: nothing is sent
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            broadcastService.publishReading(reading);
+            broadcastService.publishRisk(alert);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verifyNoInteractions(messagingTemplate, fanout);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            broadcastService.publishReading(reading);
+            broadcastService.publishRisk(alert);
+            verifyNoInteractions(messagingTemplate, fanout);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(messagingTemplate).convertAndSend(RiskBroadcastService.equipmentReadingsTopic(1L), reading);
+        verify(messagingTemplate).convertAndSend(RiskBroadcastService.equipmentRiskTopic(1L), alert);
+        verify(messagingTemplate).convertAndSend(RiskBroadcastService.ALERTS_TOPIC, alert);
+        verify(messagingTemplate).convertAndSend("/topic/alerts/HIGH", alert);
+        verify(fanout).publish(alert);
+    }
+}
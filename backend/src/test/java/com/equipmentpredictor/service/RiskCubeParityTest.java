@@ -0,0 +1,243 @@
+package com.equipmentpredictor.service;
+
+import com.equipmentpredictor.repository.RiskCubeRepository;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Parity of the risk cube with a GROUP BY over risk_event
+ * Random events are inserted in rounds, folded into the hourly cells after
+ * all but the last round, and RiskCubeRepository.AGGREGATE is compared with
+ * the same aggregation computed directly from risk_event: the time from each
+ * event to the next one of its equipment, split by hour, for every bucket and
+ * grouping and with filters. Later rounds land between earlier events, so the
+ * trigger has to split intervals it already counted. Everything is rolled back.
+ *
+ * Needs a database, so it runs with the query-plans profile:
+ *   mvn -Pquery-plans test -Dplans.url=jdbc:postgresql://localhost:5432/equipment_predictor_plans
+ */
+@Tag("query-plans")
+@DisplayName("Risk Cube Parity Tests")
+class RiskCubeParityTest {
+
+    private static final String URL = System.getProperty("plans.url",
+            "jdbc:postgresql://localhost:5432/equipment_predictor_plans");
+    private static final String USERNAME = System.getProperty("plans.username", "postgres");
+    private static final String PASSWORD = System.getProperty("plans.password", "postgres");
+
+    private static final LocalDateTime START = LocalDateTime.of(2031, 1, 1, 22, 0);
+    private static final int HOURS = 60;
+    private static final int EVENTS_PER_ROUND = 600;
+    private static final Pattern PARAMETER = Pattern.compile(":(\\w+)");
+
+    // Same buckets and dimensions as AGGREGATE, straight from the events; equipment without a location is ''
+    private static final String GROUP_BY_EVENTS = "WITH intervals AS (SELECT r.equipment_id, r.risk_level, "
+            + "r.risk_score, r.timestamp AS starts, "
+            + "lead(r.timestamp) OVER (PARTITION BY r.equipment_id ORDER BY r.timestamp, r.id) AS ends "
+            + "FROM risk_event r WHERE r.equipment_id = ANY(?)), "
+            + "parts AS (SELECT h AS hour, i.equipment_id, i.risk_level, "
+            + "extract(epoch FROM least(i.ends, h + INTERVAL '1 hour') - greatest(i.starts, h)) AS seconds, "
+            + "i.risk_score, 0 AS events "
+            + "FROM intervals i, generate_series(date_trunc('hour', i.starts), i.ends - INTERVAL '1 microsecond', "
+            + "INTERVAL '1 hour') h WHERE i.ends > i.starts "
+            + "UNION ALL SELECT date_trunc('hour', r.timestamp), r.equipment_id, r.risk_level, 0, r.risk_score, 1 "
+            + "FROM risk_event r WHERE r.equipment_id = ANY(?)) "
+            + "SELECT CASE CAST(? AS varchar) "
+            + "WHEN 'hour' THEN p.hour WHEN 'day' THEN date_trunc('day', p.hour) END, "
+            + "CASE WHEN CAST(? AS boolean) THEN e.type END, "
+            + "CASE WHEN CAST(? AS boolean) THEN coalesce(e.location, '') END, "
+            + "coalesce(sum(p.seconds) FILTER (WHERE p.risk_level = 'LOW'), 0), "
+            + "coalesce(sum(p.seconds) FILTER (WHERE p.risk_level = 'MEDIUM'), 0), "
+            + "coalesce(sum(p.seconds) FILTER (WHERE p.risk_level = 'HIGH'), 0), "
+            + "coalesce(sum(p.seconds) FILTER (WHERE p.risk_level = 'CRITICAL'), 0), "
+            + "sum(p.seconds * p.risk_score), sum(p.events), max(p.risk_score) FILTER (WHERE p.events = 1) "
+            + "FROM parts p JOIN equipment e ON e.id = p.equipment_id "
+            + "WHERE p.hour >= ? AND p.hour < ? "
+            + "AND (CAST(? AS varchar) IS NULL OR e.type = ?) "
+            + "AND (CAST(? AS varchar) IS NULL OR coalesce(e.location, '') = ?) "
+            + "GROUP BY 1, 2, 3 ORDER BY 1, 2, 3";
+
+    @Test
+    @DisplayName("Folded cells plus pending deltas equal a GROUP BY over the events, for every bucket and grouping")
+    void testCubeMatchesGroupBy() throws SQLException {
+        Flyway.configure()
+                .dataSource(URL, USERNAME, PASSWORD)
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+
+        try (Connection connection = DriverManager.getConnection(URL, USERNAME, PASSWORD)) {
+            connection.setAutoCommit(false);
+            try {
+                // Two types over two locations, and one machine without a location
+                List<Long> equipment = new ArrayList<>();
+                for (String[] row : new String[][] {{"Pump", "Plant North"}, {"Pump", "Plant South"},
+                        {"Fan", "Plant North"}, {"Fan", null}}) {
+                    equipment.add(insertEquipment(connection, row[0], row[1]));
+                }
+
+                Random random = new Random(42);
+                for (int round = 1; round <= 3; round++) {
+                    insertEvents(connection, equipment, random);
+                    // The last round stays in risk_cube_delta
+                    if (round < 3) {
+                        try (Statement statement = connection.createStatement()) {
+                            assertTrue(statement.executeUpdate(RiskCubeRepository.FOLD_DELTAS) > 0);
+                        }
+                    }
+                    compareAll(connection, equipment, "round " + round);
+                }
+            } finally {
+                connection.rollback();
+            }
+        }
+    }
+
+    private static void compareAll(Connection connection, List<Long> equipment, String context) throws SQLException {
+        Array ids = connection.createArrayOf("bigint", equipment.toArray());
+        LocalDateTime end = START.plusHours(HOURS);
+        for (String bucket : List.of("hour", "day", "total")) {
+            for (boolean byType : new boolean[] {false, true}) {
+                for (boolean byLocation : new boolean[] {false, true}) {
+                    compare(connection, ids, context, START, end, null, null, bucket, byType, byLocation);
+                }
+            }
+        }
+        // A range cutting into both days, and the filters
+        compare(connection, ids, context, START.plusHours(5), START.plusHours(40), null, null, "day", true, true);
+        compare(connection, ids, context, START, end, "Pump", null, "hour", false, true);
+        compare(connection, ids, context, START, end, null, "Plant North", "day", true, false);
+        compare(connection, ids, context, START, end, "Fan", "", "total", true, true);
+    }
+
+    private static void compare(Connection connection, Array ids, String context, LocalDateTime from, LocalDateTime to,
+            String type, String location, String bucket, boolean byType, boolean byLocation) throws SQLException {
+        String at = context + ": " + bucket + " by type " + byType + ", by location " + byLocation
+                + " [" + from + ", " + to + ") type " + type + ", location " + location;
+
+        List<String> expected;
+        try (PreparedStatement statement = connection.prepareStatement(GROUP_BY_EVENTS)) {
+            Object[] values = {ids, ids, bucket, byType, byLocation, from, to, type, type, location, location};
+            for (int i = 0; i < values.length; i++) {
+                statement.setObject(i + 1, values[i]);
+            }
+            expected = rows(statement);
+        }
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("from", from);
+        params.put("to", to);
+        params.put("type", type);
+        params.put("location", location);
+        params.put("bucket", bucket);
+        params.put("byType", byType);
+        params.put("byLocation", byLocation);
+        List<Object> values = new ArrayList<>();
+        Matcher matcher = PARAMETER.matcher(RiskCubeRepository.AGGREGATE);
+        StringBuilder sql = new StringBuilder();
+        while (matcher.find()) {
+            values.add(params.get(matcher.group(1)));
+            matcher.appendReplacement(sql, "?");
+        }
+        matcher.appendTail(sql);
+        List<String> actual;
+        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            for (int i = 0; i < values.size(); i++) {
+                statement.setObject(i + 1, values.get(i));
+            }
+            actual = rows(statement);
+        }
+
+        assertFalse(expected.isEmpty(), at);
+        assertEquals(expected, actual, at);
+    }
+
+    private static List<String> rows(PreparedStatement statement) throws SQLException {
+        List<String> rows = new ArrayList<>();
+        try (ResultSet rs = statement.executeQuery()) {
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                Object[] row = new Object[columns];
+                for (int i = 0; i < columns; i++) {
+                    row[i] = rs.getObject(i + 1);
+                    // The cube stores seconds with a fixed scale
+                    if (row[i] instanceof BigDecimal decimal) {
+                        row[i] = decimal.stripTrailingZeros().toPlainString();
+                    }
+                }
+                rows.add(Arrays.toString(row));
+            }
+        }
+        return rows;
+    }
+
+    private static long insertEquipment(Connection connection, String type, String location) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO equipment (name, type, location) VALUES (?, ?, ?) RETURNING id")) {
+            statement.setString(1, "Cube " + type + " " + location);
+            statement.setString(2, type);
+            statement.setString(3, location);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    // In a few multi-row statements, so one trigger run covers many cube keys
+    private static void insertEvents(Connection connection, List<Long> equipment, Random random) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO risk_event (equipment_id, timestamp, risk_score, risk_level, reason_factor, reason_value) "
+                        + "SELECT * FROM unnest(?, ?, ?, ?, ?, ?)")) {
+            int perStatement = EVENTS_PER_ROUND / 3;
+            for (int from = 0; from < EVENTS_PER_ROUND; from += perStatement) {
+                Long[] ids = new Long[perStatement];
+                Timestamp[] timestamps = new Timestamp[perStatement];
+                BigDecimal[] scores = new BigDecimal[perStatement];
+                String[] levels = new String[perStatement];
+                Short[] factors = new Short[perStatement];
+                BigDecimal[] values = new BigDecimal[perStatement];
+                for (int i = 0; i < perStatement; i++) {
+                    ids[i] = equipment.get(random.nextInt(equipment.size()));
+                    timestamps[i] = Timestamp.valueOf(START.plusSeconds(random.nextInt(HOURS * 3600)));
+                    scores[i] = BigDecimal.valueOf(random.nextInt(10_001), 2);
+                    levels[i] = scores[i].compareTo(BigDecimal.valueOf(85)) >= 0 ? "CRITICAL"
+                            : scores[i].compareTo(BigDecimal.valueOf(65)) >= 0 ? "HIGH"
+                            : scores[i].compareTo(BigDecimal.valueOf(40)) >= 0 ? "MEDIUM" : "LOW";
+                    factors[i] = (short) (1 + random.nextInt(3));
+                    values[i] = BigDecimal.valueOf(random.nextInt(10_001), 2);
+                }
+                statement.setArray(1, connection.createArrayOf("bigint", ids));
+                statement.setArray(2, connection.createArrayOf("timestamp", timestamps));
+                statement.setArray(3, connection.createArrayOf("numeric", scores));
+                statement.setArray(4, connection.createArrayOf("varchar", levels));
+                statement.setArray(5, connection.createArrayOf("int2", factors));
+                statement.setArray(6, connection.createArrayOf("numeric", values));
+                assertEquals(perStatement, statement.executeUpdate());
+            }
+        }
+    }
+}
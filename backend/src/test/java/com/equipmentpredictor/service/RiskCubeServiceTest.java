@@ -0,0 +1,90 @@
+package com.equipmentpredictor.service;
+
+import com.equipmentpredictor.dto.RiskCubeRowDTO;
+import com.equipmentpredictor.model.RiskEvent;
+import com.equipmentpredictor.repository.RiskCubeRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the risk cube queries in RiskCubeService
+ */
+@DisplayName("RiskCubeService Tests")
+class RiskCubeServiceTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2025, 3, 1, 0, 0);
+
+    private final RiskCubeRepository riskCubeRepository = mock(RiskCubeRepository.class);
+    private final RiskCubeService service = new RiskCubeService(riskCubeRepository, 31);
+
+    @Test
+    @DisplayName("Test 1: Range is widened to whole hours and rows carry level seconds, events and time-weighted average")
+    void testAggregate() {
+        RiskCubeRepository.CubeRow row = cubeRow(new BigDecimal("1800.400000"), BigDecimal.ZERO,
+                new BigDecimal("600.000000"), new BigDecimal("1199.600000"), new BigDecimal("186000.00000000"));
+        when(row.getEventCount()).thenReturn(2L);
+        when(row.getEventScoreMax()).thenReturn(new BigDecimal("90.00"));
+        RiskCubeRepository.CubeRow eventsOnly = cubeRow(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO,
+                BigDecimal.ZERO, BigDecimal.ZERO);
+        when(eventsOnly.getEventCount()).thenReturn(1L);
+        when(riskCubeRepository.aggregate(any(), any(), any(), any(), anyString(), anyBoolean(), anyBoolean()))
+                .thenReturn(List.of(row, eventsOnly));
+
+        List<RiskCubeRowDTO> rows = service.aggregate(DAY.plusMinutes(30), DAY.plusHours(5).plusSeconds(1),
+                List.of("Type", " location "), "DAY", "Pump", null);
+
+        verify(riskCubeRepository).aggregate(DAY, DAY.plusHours(6), "Pump", null, "day", true, true);
+        RiskCubeRowDTO result = rows.get(0);
+        assertEquals(1800L, result.getLevelSeconds().get(RiskEvent.RiskLevel.LOW));
+        assertEquals(0L, result.getLevelSeconds().get(RiskEvent.RiskLevel.MEDIUM));
+        assertEquals(1200L, result.getLevelSeconds().get(RiskEvent.RiskLevel.CRITICAL));
+        // 186000 score-seconds over one hour
+        assertEquals(new BigDecimal("51.67"), result.getAvgScore());
+        assertEquals(2, result.getEvents());
+        assertEquals(new BigDecimal("90.00"), result.getMaxEventScore());
+        assertNull(result.getLocation());
+        // An hour whose only event has no successor yet has no time to average over
+        assertNull(rows.get(1).getAvgScore());
+        assertEquals(1, rows.get(1).getEvents());
+    }
+
+    private static RiskCubeRepository.CubeRow cubeRow(BigDecimal low, BigDecimal medium, BigDecimal high,
+            BigDecimal critical, BigDecimal scoreSeconds) {
+        RiskCubeRepository.CubeRow row = mock(RiskCubeRepository.CubeRow.class);
+        when(row.getBucket()).thenReturn(DAY);
+        when(row.getEquipmentType()).thenReturn("Pump");
+        when(row.getLocation()).thenReturn("");
+        when(row.getLowSeconds()).thenReturn(low);
+        when(row.getMediumSeconds()).thenReturn(medium);
+        when(row.getHighSeconds()).thenReturn(high);
+        when(row.getCriticalSeconds()).thenReturn(critical);
+        when(row.getScoreSeconds()).thenReturn(scoreSeconds);
+        return row;
+    }
+
+    @Test
+    @DisplayName("Test 2: Invalid ranges, buckets and dimensions are rejected")
+    void testValidation() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.aggregate(DAY, DAY, List.of(), "hour", null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.aggregate(DAY, DAY.plusDays(32), List.of(), "hour", null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.aggregate(DAY, DAY.plusDays(1), List.of(), "week", null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.aggregate(DAY, DAY.plusDays(1), List.of("site"), "hour", null, null));
+
+        service.aggregate(DAY, DAY.plusDays(1), List.of("none"), "total", null, null);
+        verify(riskCubeRepository).aggregate(DAY, DAY.plusDays(1), null, null, "total", false, false);
+    }
+}
@@ -3,9 +3,11 @@ package com.equipmentpredictor.service;
 import com.equipmentpredictor.dto.RiskResponseDTO;
 import com.equipmentpredictor.model.Equipment;
 import com.equipmentpredictor.model.RiskEvent;
+import com.equipmentpredictor.model.ScoringProfile;
 import com.equipmentpredictor.model.SensorLog;
 import com.equipmentpredictor.repository.EquipmentRepository;
 import com.equipmentpredictor.repository.RiskEventRepository;
+import com.equipmentpredictor.repository.ScoringProfileRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -17,7 +19,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -39,6 +43,12 @@ class RiskPredictionServiceTest {
     @Mock
     private EquipmentRepository equipmentRepository;
 
+    @Mock
+    private RiskBroadcastService riskBroadcastService;
+
+    @Mock
+    private ScoringProfileRepository scoringProfileRepository;
+
     @InjectMocks
     private RiskPredictionService riskPredictionService;
 
@@ -46,10 +56,14 @@ class RiskPredictionServiceTest {
 
     @BeforeEach
     void setUp() {
-        // Initialize service with default weight values
-        ReflectionTestUtils.setField(riskPredictionService, "WEIGHT_TEMP", new BigDecimal("0.40"));
-        ReflectionTestUtils.setField(riskPredictionService, "WEIGHT_VIB", new BigDecimal("0.35"));
-        ReflectionTestUtils.setField(riskPredictionService, "WEIGHT_LOAD", new BigDecimal("0.25"));
+        // Initialize service with the default profile and default weight values
+        ReflectionTestUtils.setField(riskPredictionService, "scoringProfileService",
+                new ScoringProfileService(scoringProfileRepository,
+                        new BigDecimal("0.40"), new BigDecimal("0.35"), new BigDecimal("0.25")));
+        // Record transitions, moves of 10+ points and a 5 minute heartbeat, with a 5 point hysteresis band
+        ReflectionTestUtils.setField(riskPredictionService, "riskEventPolicy",
+                new RiskEventPolicy(RiskEventPolicy.Mode.CHANGES, BigDecimal.TEN, Duration.ofMinutes(5),
+                        new BigDecimal("5")));
 
         // Setup test equipment
         testEquipment = new Equipment();
@@ -129,7 +143,9 @@ class RiskPredictionServiceTest {
         RiskEvent savedEvent = eventCaptor.getValue();
         assertEquals(1L, savedEvent.getEquipmentId());
         assertNotNull(savedEvent.getRiskScore());
-        assertNotNull(savedEvent.getReason());
+        assertNotNull(savedEvent.getReasonFactor());
+        assertNotNull(savedEvent.getReasonValue());
+        assertEquals(result.getReason(), savedEvent.describeReason());
     }
 
     @Test
@@ -239,13 +255,117 @@ class RiskPredictionServiceTest {
         verify(riskEventRepository, times(1)).save(any(RiskEvent.class));
     }
 
+    @Test
+    @DisplayName("Test Case 9: Verify equipment type profile replaces default ranges and thresholds")
+    void testEquipmentTypeProfile() {
+        // Given: A TURBINE profile with a narrow temperature range and lower thresholds
+        ScoringProfile turbineProfile = new ScoringProfile(1L, "TURBINE",
+                new BigDecimal("0"), new BigDecimal("80"),
+                new BigDecimal("0"), new BigDecimal("50"),
+                new BigDecimal("0"), new BigDecimal("100"),
+                new BigDecimal("0.60"), new BigDecimal("0.20"), new BigDecimal("0.20"),
+                new BigDecimal("30"), new BigDecimal("50"), new BigDecimal("70"),
+                LocalDateTime.now());
+        ScoringProfileService scoringProfileService = (ScoringProfileService)
+                ReflectionTestUtils.getField(riskPredictionService, "scoringProfileService");
+        when(scoringProfileRepository.findAll()).thenReturn(List.of(turbineProfile));
+        scoringProfileService.load();
+
+        // temp=80 -> 100 * 0.6 = 60, vib=5 -> 10 * 0.2 = 2, load=10 -> 10 * 0.2 = 2; score 64
+        SensorLog sensorLog = createSensorLog(1L, new BigDecimal("80"), new BigDecimal("5"), new BigDecimal("10"));
+
+        when(equipmentRepository.findById(1L)).thenReturn(Optional.of(testEquipment));
+        when(riskEventRepository.findFirstByEquipmentIdOrderByTimestampDesc(1L)).thenReturn(Optional.empty());
+
+        // When: Calculate risk
+        RiskResponseDTO result = riskPredictionService.calculateRisk(sensorLog);
+
+        // Then: Scored with the TURBINE profile (default profile would give LOW, ~27.33)
+        assertEquals(0, new BigDecimal("64.00").compareTo(result.getRiskScore()));
+        assertEquals(RiskEvent.RiskLevel.HIGH, result.getRiskLevel());
+    }
+
+    @Test
+    @DisplayName("Test Case 10: Verify NO risk event for a steady MEDIUM reading within the heartbeat")
+    void testNoRiskEventForSteadyLevel() {
+        // Given: A MEDIUM event one minute ago with a similar score
+        RiskEvent previousEvent = createPreviousEvent(RiskEvent.RiskLevel.MEDIUM, "45", 1);
+
+        // temp=75, vib=20, load=40 -> score 44.00 (MEDIUM)
+        SensorLog sensorLog = createSensorLog(1L, new BigDecimal("75"), new BigDecimal("20"), new BigDecimal("40"));
+
+        when(equipmentRepository.findById(1L)).thenReturn(Optional.of(testEquipment));
+        when(riskEventRepository.findFirstByEquipmentIdOrderByTimestampDesc(1L))
+                .thenReturn(Optional.of(previousEvent));
+
+        // When: Calculate risk
+        RiskResponseDTO result = riskPredictionService.calculateRisk(sensorLog);
+
+        // Then: Still scored and broadcast, but NOT recorded
+        assertEquals(RiskEvent.RiskLevel.MEDIUM, result.getRiskLevel());
+        verify(riskBroadcastService, times(1)).publishRisk(result);
+        verify(riskEventRepository, never()).save(any(RiskEvent.class));
+    }
+
+    @Test
+    @DisplayName("Test Case 11: Verify hysteresis keeps HIGH for a score just below the threshold")
+    void testHysteresisPreventsFlapping() {
+        // Given: A HIGH event one minute ago at 66
+        RiskEvent previousEvent = createPreviousEvent(RiskEvent.RiskLevel.HIGH, "66", 1);
+
+        // temp=100, vib=40, load=35 -> score 63.42 (MEDIUM, but within 5 points of 65)
+        SensorLog sensorLog = createSensorLog(1L, new BigDecimal("100"), new BigDecimal("40"), new BigDecimal("35"));
+
+        when(equipmentRepository.findById(1L)).thenReturn(Optional.of(testEquipment));
+        when(riskEventRepository.findFirstByEquipmentIdOrderByTimestampDesc(1L))
+                .thenReturn(Optional.of(previousEvent));
+
+        // When: Calculate risk
+        RiskResponseDTO result = riskPredictionService.calculateRisk(sensorLog);
+
+        // Then: The live level is MEDIUM, but no MEDIUM event is written
+        assertEquals(RiskEvent.RiskLevel.MEDIUM, result.getRiskLevel());
+        verify(riskEventRepository, never()).save(any(RiskEvent.class));
+    }
+
+    @Test
+    @DisplayName("Test Case 12: Verify heartbeat event for a steady level after the interval")
+    void testHeartbeatRiskEvent() {
+        // Given: A MEDIUM event ten minutes ago with a similar score
+        RiskEvent previousEvent = createPreviousEvent(RiskEvent.RiskLevel.MEDIUM, "45", 10);
+
+        SensorLog sensorLog = createSensorLog(1L, new BigDecimal("75"), new BigDecimal("20"), new BigDecimal("40"));
+
+        when(equipmentRepository.findById(1L)).thenReturn(Optional.of(testEquipment));
+        when(riskEventRepository.findFirstByEquipmentIdOrderByTimestampDesc(1L))
+                .thenReturn(Optional.of(previousEvent));
+
+        // When: Calculate risk
+        riskPredictionService.calculateRisk(sensorLog);
+
+        // Then: A heartbeat event is written at the same level
+        ArgumentCaptor<RiskEvent> eventCaptor = ArgumentCaptor.forClass(RiskEvent.class);
+        verify(riskEventRepository, times(1)).save(eventCaptor.capture());
+        assertEquals(RiskEvent.RiskLevel.MEDIUM, eventCaptor.getValue().getRiskLevel());
+    }
+
+    // Helper method to create a previous RiskEvent
+    private RiskEvent createPreviousEvent(RiskEvent.RiskLevel level, String score, int minutesAgo) {
+        RiskEvent event = new RiskEvent();
+        event.setEquipmentId(1L);
+        event.setRiskLevel(level);
+        event.setRiskScore(new BigDecimal(score));
+        event.setTimestamp(LocalDateTime.now().minusMinutes(minutesAgo));
+        return event;
+    }
+
     // Helper method to create SensorLog
     private SensorLog createSensorLog(Long equipmentId, BigDecimal temp, BigDecimal vib, BigDecimal load) {
         SensorLog log = new SensorLog();
         log.setEquipmentId(equipmentId);
-        log.setTemperature(temp);
-        log.setVibration(vib);
-        log.setLoadPercentage(load);
+        log.setTemperatureHundredths(SensorLog.toHundredths(temp));
+        log.setVibrationHundredths(SensorLog.toHundredths(vib));
+        log.setLoadHundredths(SensorLog.toHundredths(load));
         log.setTimestamp(LocalDateTime.now());
         return log;
     }
@@ -0,0 +1,115 @@
+package com.equipmentpredictor.service;
+
+import com.equipmentpredictor.model.RiskEvent;
+import com.equipmentpredictor.model.ScoringProfile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the risk simulation kernels against BigDecimal scoring
+ */
+@DisplayName("RiskScoringKernel Tests")
+class RiskScoringKernelTest {
+
+    private static final int READINGS = 10_001;
+
+    private static ScoringProfileService.CompiledProfile profile(String weightTemperature, String weightVibration,
+            String weightLoad, String medium, String high, String critical) {
+        return ScoringProfileService.compile(new ScoringProfile(null, null,
+                new BigDecimal("20.5"), new BigDecimal("120.25"),
+                BigDecimal.ZERO, new BigDecimal("16"),
+                new BigDecimal("10"), new BigDecimal("97"),
+                new BigDecimal(weightTemperature), new BigDecimal(weightVibration), new BigDecimal(weightLoad),
+                new BigDecimal(medium), new BigDecimal(high), new BigDecimal(critical), null));
+    }
+
+    // As RiskPredictionService scores one reading; the vibration span of 16 makes normalization ties
+    private static RiskEvent.RiskLevel level(ScoringProfileService.CompiledProfile profile,
+            double temperature, double vibration, double load) {
+        BigDecimal score = profile.temperature().normalize(BigDecimal.valueOf((long) temperature, 2))
+                .multiply(profile.temperature().weight())
+                .add(profile.vibration().normalize(BigDecimal.valueOf((long) vibration, 2))
+                        .multiply(profile.vibration().weight()))
+                .add(profile.load().normalize(BigDecimal.valueOf((long) load, 2))
+                        .multiply(profile.load().weight()))
+                .setScale(2, RoundingMode.HALF_UP);
+        return profile.level(score);
+    }
+
+    @Test
+    @DisplayName("Test 1: Scalar and platform (vector with -Pvector) kernels count exactly the levels of BigDecimal scoring")
+    void testKernelsMatchBigDecimalScoring() {
+        Random random = new Random(42);
+        double[] temperature = new double[READINGS];
+        double[] vibration = new double[READINGS];
+        double[] load = new double[READINGS];
+        for (int i = 0; i < READINGS; i++) {
+            temperature[i] = random.nextInt(-5000, 20001);
+            vibration[i] = random.nextInt(0, 5001);
+            load[i] = random.nextInt(0, 10001);
+        }
+        List<RiskScoringKernel> kernels = List.of(new RiskScoringKernel.Scalar(), RiskScoringKernel.forPlatform());
+
+        for (ScoringProfileService.CompiledProfile profile : List.of(
+                profile("0.40", "0.35", "0.25", "40", "65", "85"),
+                profile("0.333", "0.333", "0.334", "30.5", "50.25", "70.125"),
+                profile("0.125", "0.5", "0.375", "1", "2", "99.99"))) {
+            long[] expected = new long[RiskEvent.RiskLevel.values().length];
+            for (int i = 0; i < READINGS; i++) {
+                expected[level(profile, temperature[i], vibration[i], load[i]).ordinal()]++;
+            }
+            RiskScoringKernel.Params params = RiskScoringKernel.Params.of(profile);
+            for (RiskScoringKernel kernel : kernels) {
+                long[] counts = new long[expected.length];
+                kernel.countLevels(temperature, vibration, load, READINGS, params, counts);
+                assertArrayEquals(expected, counts, kernel.describe());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test 2: Weights with more than eight decimals are rejected when the profile is compiled")
+    void testRejectsFineWeights() {
+        assertThrows(IllegalArgumentException.class,
+                () -> profile("0.333333333", "0.333333333", "0.333333334", "40", "65", "85"));
+    }
+
+    @Test
+    @DisplayName("Test 3: Integer scoring of the hot path gives exactly the BigDecimal score, level and factor order")
+    void testIntegerScoringMatchesBigDecimal() {
+        Random random = new Random(7);
+        for (ScoringProfileService.CompiledProfile profile : List.of(
+                profile("0.40", "0.35", "0.25", "40", "65", "85"),
+                profile("0.333", "0.333", "0.334", "30.5", "50.25", "70.125"),
+                profile("0.125", "0.5", "0.375", "1", "2", "99.99"))) {
+            for (int i = 0; i < READINGS; i++) {
+                int temperature = random.nextInt(-5000, 20001);
+                int vibration = random.nextInt(0, 5001);
+                int load = random.nextInt(0, 10001);
+                BigDecimal t = profile.temperature().normalize(BigDecimal.valueOf(temperature, 2))
+                        .multiply(profile.temperature().weight());
+                BigDecimal v = profile.vibration().normalize(BigDecimal.valueOf(vibration, 2))
+                        .multiply(profile.vibration().weight());
+                BigDecimal l = profile.load().normalize(BigDecimal.valueOf(load, 2))
+                        .multiply(profile.load().weight());
+                BigDecimal expected = t.add(v).add(l).setScale(2, RoundingMode.HALF_UP);
+
+                long wt = profile.temperature().weighted(temperature);
+                long wv = profile.vibration().weighted(vibration);
+                long wl = profile.load().weighted(load);
+                int score = profile.score(wt + wv + wl);
+                assertEquals(expected, BigDecimal.valueOf(score, 2));
+                assertEquals(profile.level(expected), profile.level(score));
+                assertEquals(t.compareTo(v), Long.compare(wt, wv));
+                assertEquals(v.compareTo(l), Long.compare(wv, wl));
+            }
+        }
+    }
+}
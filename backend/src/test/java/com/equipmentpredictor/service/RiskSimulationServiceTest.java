@@ -0,0 +1,100 @@
+package com.equipmentpredictor.service;
+
+import com.equipmentpredictor.dto.RiskSimulationRequestDTO;
+import com.equipmentpredictor.dto.RiskSimulationResultDTO;
+import com.equipmentpredictor.model.Equipment;
+import com.equipmentpredictor.model.RiskEvent;
+import com.equipmentpredictor.model.ScoringProfile;
+import com.equipmentpredictor.model.SensorLog;
+import com.equipmentpredictor.repository.EquipmentRepository;
+import com.equipmentpredictor.repository.SensorLogRepository;
+import com.equipmentpredictor.store.SensorArchiveStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for alert counting in RiskSimulationService
+ */
+@DisplayName("RiskSimulationService Tests")
+class RiskSimulationServiceTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2025, 3, 1, 0, 0);
+    private static final int HIGH_READINGS = 5000;
+
+    private static RiskSimulationService service(RiskEventPolicy policy) {
+        Equipment equipment = mock(Equipment.class);
+        when(equipment.getId()).thenReturn(7L);
+        when(equipment.getType()).thenReturn("Pump");
+        EquipmentRepository equipmentRepository = mock(EquipmentRepository.class);
+        when(equipmentRepository.findAllById(any())).thenReturn(List.of(equipment));
+
+        // Over one chunk of readings at score 89.6, then back to low
+        SensorLogRepository sensorLogRepository = mock(SensorLogRepository.class);
+        when(sensorLogRepository.streamByEquipmentIdAndTimestampBetween(eq(7L), any(), any())).thenAnswer(invocation -> {
+            List<SensorLog> rows = new ArrayList<>();
+            for (int i = 0; i < HIGH_READINGS + 5; i++) {
+                boolean high = i < HIGH_READINGS;
+                rows.add(new SensorLog((long) i, 7L, FROM.plusSeconds(i), (short) (high ? 11000 : 3000),
+                        (short) (high ? 1400 : 100), (short) (high ? 9000 : 2000)));
+            }
+            return rows.stream();
+        });
+
+        ScoringProfileService scoringProfileService = mock(ScoringProfileService.class);
+        when(scoringProfileService.snapshot()).thenReturn(ScoringProfileService.Snapshot.of(Map.of(),
+                ScoringProfileService.compile(new ScoringProfile(null, null,
+                        new BigDecimal("20.5"), new BigDecimal("120.25"),
+                        BigDecimal.ZERO, new BigDecimal("16"),
+                        new BigDecimal("10"), new BigDecimal("97"),
+                        new BigDecimal("0.40"), new BigDecimal("0.35"), new BigDecimal("0.25"),
+                        new BigDecimal("40"), new BigDecimal("65"), new BigDecimal("85"), null))));
+
+        return new RiskSimulationService(equipmentRepository, sensorLogRepository, scoringProfileService, policy,
+                new StaticListableBeanFactory().getBeanProvider(SensorArchiveStore.class),
+                mock(PlatformTransactionManager.class), 93, 1);
+    }
+
+    private static RiskSimulationRequestDTO request() {
+        return RiskSimulationRequestDTO.builder()
+                .equipmentIds(List.of(7L))
+                .from(FROM)
+                .to(FROM.plusDays(1))
+                .thresholdCritical(new BigDecimal("95"))
+                .build();
+    }
+
+    @Test
+    @DisplayName("Test 1: Alerts are the events the policy records, replayed in timestamp order across chunks")
+    void testAlertsReplayEventPolicy() {
+        RiskEventPolicy changes = new RiskEventPolicy(RiskEventPolicy.Mode.CHANGES,
+                new BigDecimal("10"), Duration.ofSeconds(300), new BigDecimal("5"));
+        RiskSimulationResultDTO result = service(changes).simulate(request());
+
+        assertEquals(HIGH_READINGS + 5, result.getReadings());
+        assertEquals(HIGH_READINGS, result.getCurrent().getLevels().get(RiskEvent.RiskLevel.CRITICAL));
+        assertEquals(5, result.getCurrent().getLevels().get(RiskEvent.RiskLevel.LOW));
+        assertEquals(HIGH_READINGS, result.getCandidate().getLevels().get(RiskEvent.RiskLevel.HIGH));
+        // The first reading, then a heartbeat every 300 readings; the return to LOW is not an alert
+        assertEquals(17, result.getCurrent().getAlerts());
+        assertEquals(17, result.getCandidate().getAlerts());
+        assertEquals(1, result.getCurrent().getEquipmentWithAlerts());
+
+        RiskEventPolicy every = new RiskEventPolicy(RiskEventPolicy.Mode.EVERY,
+                new BigDecimal("10"), Duration.ofSeconds(300), new BigDecimal("5"));
+        assertEquals(HIGH_READINGS, service(every).simulate(request()).getCurrent().getAlerts());
+    }
+}
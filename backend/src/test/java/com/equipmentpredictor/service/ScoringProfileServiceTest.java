@@ -0,0 +1,56 @@
+package com.equipmentpredictor.service;
+
+import com.equipmentpredictor.model.ScoringProfile;
+import com.equipmentpredictor.repository.ScoringProfileRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for refreshing the scoring profile snapshot
+ */
+@DisplayName("ScoringProfileService Tests")
+class ScoringProfileServiceTest {
+
+    private static final LocalDateTime UPDATED = LocalDateTime.of(2025, 3, 1, 10, 0);
+
+    private static ScoringProfile pump(String weightTemperature, String weightVibration) {
+        return new ScoringProfile(1L, "PUMP",
+                new BigDecimal("0.00"), new BigDecimal("120.00"),
+                new BigDecimal("0.00"), new BigDecimal("20.00"),
+                new BigDecimal("0.00"), new BigDecimal("100.00"),
+                new BigDecimal(weightTemperature), new BigDecimal(weightVibration), new BigDecimal("0.200"),
+                new BigDecimal("35.00"), new BigDecimal("60.00"), new BigDecimal("80.00"),
+                UPDATED);
+    }
+
+    @Test
+    @DisplayName("Test 1: A refresh recompiles when a row changed without touching updated_at, and not otherwise")
+    void testRefreshComparesRowContents() {
+        ScoringProfileRepository repository = mock(ScoringProfileRepository.class);
+        when(repository.findAll()).thenReturn(List.of(pump("0.500", "0.300")));
+        ScoringProfileService service = new ScoringProfileService(repository,
+                new BigDecimal("0.40"), new BigDecimal("0.35"), new BigDecimal("0.25"));
+        service.load();
+        ScoringProfileService.Snapshot loaded = service.snapshot();
+        assertEquals(new BigDecimal("0.500"), loaded.forType("PUMP").temperature().weight());
+
+        // Same rows: the snapshot is kept
+        when(repository.findAll()).thenReturn(List.of(pump("0.500", "0.300")));
+        service.refresh();
+        assertSame(loaded, service.snapshot());
+
+        // Edited directly in the table, same updated_at
+        when(repository.findAll()).thenReturn(List.of(pump("0.400", "0.400")));
+        service.refresh();
+        assertNotSame(loaded, service.snapshot());
+        assertEquals(4, service.snapshot().forType("PUMP").temperature().scaledWeight());
+        assertEquals(3_500, service.snapshot().forType("PUMP").mediumScore());
+    }
+}
@@ -0,0 +1,299 @@
+package com.equipmentpredictor.service;
+
+import com.equipmentpredictor.dto.SensorLogDTO;
+import com.equipmentpredictor.exception.ResourceNotFoundException;
+import com.equipmentpredictor.ingest.IngestLimiter;
+import com.equipmentpredictor.model.SensorLog;
+import com.equipmentpredictor.repository.EquipmentRepository;
+import com.equipmentpredictor.repository.SensorLogRepository;
+import com.equipmentpredictor.store.IngestWal;
+import com.equipmentpredictor.store.ReadingBuffer;
+import com.equipmentpredictor.store.SensorArchiveStore;
+import com.equipmentpredictor.store.SensorHotStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for idempotent ingestion and WAL admission in SensorLogService
+ */
+@DisplayName("SensorLogService Tests")
+class SensorLogServiceTest {
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2025, 3, 1, 10, 0);
+
+    private static SensorLogDTO reading(long equipmentId, LocalDateTime timestamp) {
+        return new SensorLogDTO(null, equipmentId, timestamp,
+                new BigDecimal("71.5"), new BigDecimal("3.2"), new BigDecimal("64"));
+    }
+
+    @Test
+    @DisplayName("Test 1: Only inserted readings are scored; the rest are duplicates or rejected")
+    @SuppressWarnings("unchecked")
+    void testOnlyInsertedReadingsScored() {
+        SensorLogRepository sensorLogRepository = mock(SensorLogRepository.class);
+        EquipmentRepository equipmentRepository = mock(EquipmentRepository.class);
+        RiskPredictionService riskPredictionService = mock(RiskPredictionService.class);
+        SensorLogService service = new SensorLogService(sensorLogRepository, equipmentRepository,
+                riskPredictionService, mock(RiskBroadcastService.class), mock(IngestShardRouter.class), null,
+                mock(ObjectProvider.class), mock(ObjectProvider.class), mock(ObjectProvider.class),
+                mock(IngestLimiter.class));
+
+        // Equipment 1 at TIME is already stored, equipment 9 does not exist
+        RiskPredictionService.Target pump = new RiskPredictionService.Target(1L, "Pump", null);
+        RiskPredictionService.Target press = new RiskPredictionService.Target(2L, "Press", null);
+        when(riskPredictionService.targets(Set.of(1L, 2L, 9L))).thenReturn(new HashMap<>(Map.of(1L, pump, 2L, press)));
+        when(sensorLogRepository.insertIgnoringDuplicates(any(), any(), any(), any(), any())).thenReturn(List.of(
+                new SensorLog(11L, 1L, TIME.plusMinutes(1), (short) 7150, (short) 320, (short) 6400),
+                new SensorLog(12L, 2L, TIME, (short) 7150, (short) 320, (short) 6400)));
+
+        List<SensorLogDTO> batch = List.of(
+                reading(1, TIME),
+                reading(1, TIME.plusMinutes(1)),
+                reading(2, TIME.plusNanos(999)),
+                reading(9, TIME),
+                reading(1, TIME.plusMinutes(1)));
+        SensorLogService.IngestResult result = service.persistAndScoreAll(batch, List.of(0, 1, 2, 3, 4), null);
+
+        assertEquals(List.of(0, 4), result.duplicates());
+        assertEquals(Map.of(3, "Equipment not found with id: 9"), result.rejected());
+        ArgumentCaptor<SensorLog> scored = ArgumentCaptor.forClass(SensorLog.class);
+        ArgumentCaptor<RiskPredictionService.Target> targets = ArgumentCaptor.forClass(RiskPredictionService.Target.class);
+        verify(riskPredictionService, times(2)).calculateRisk(scored.capture(), targets.capture());
+        assertEquals(List.of(11L, 12L), scored.getAllValues().stream().map(SensorLog::getId).toList());
+        assertEquals(List.of(pump, press), targets.getAllValues());
+        // Equipment is resolved once for the batch, not per reading
+        verify(riskPredictionService).targets(any());
+        verifyNoInteractions(equipmentRepository);
+
+        // Sent as epoch microseconds, sub-microsecond digits dropped
+        ArgumentCaptor<long[]> timestamps = ArgumentCaptor.forClass(long[].class);
+        verify(sensorLogRepository).insertIgnoringDuplicates(any(), timestamps.capture(), any(), any(), any());
+        assertEquals(SensorHotStore.toMicros(TIME), timestamps.getValue()[2]);
+    }
+
+    @Test
+    @DisplayName("Test 2: In WAL mode readings of unknown equipment are rejected before they are logged")
+    void testWalModeRejectsUnknownEquipment() {
+        EquipmentRepository equipmentRepository = mock(EquipmentRepository.class);
+        when(equipmentRepository.existsById(1L)).thenReturn(true);
+        IngestWal wal = mock(IngestWal.class);
+        when(wal.appendAll(anyList())).thenAnswer(invocation -> invocation.<List<?>>getArgument(0).size());
+        SensorLogService service = new SensorLogService(mock(SensorLogRepository.class), equipmentRepository,
+                mock(RiskPredictionService.class), mock(RiskBroadcastService.class), mock(IngestShardRouter.class), null,
+                new StaticListableBeanFactory().getBeanProvider(SensorHotStore.class),
+                new StaticListableBeanFactory(Map.of("wal", wal)).getBeanProvider(IngestWal.class),
+                new StaticListableBeanFactory().getBeanProvider(SensorArchiveStore.class),
+                mock(IngestLimiter.class));
+
+        assertThrows(ResourceNotFoundException.class, () -> service.addSensorLog(reading(9, TIME)));
+        verify(wal, never()).append(any());
+
+        SensorLogDTO known = reading(1, TIME);
+        SensorLogService.IngestResult result = service.addSensorLogs(List.of(reading(9, TIME), known, reading(9, TIME)));
+        assertEquals(Map.of(0, "Equipment not found with id: 9", 2, "Equipment not found with id: 9"), result.rejected());
+        verify(wal).appendAll(List.of(known));
+        verify(equipmentRepository, times(2)).existsById(9L);
+    }
+
+    @Test
+    @DisplayName("Test 3: A value the hundredths columns cannot hold rejects that reading alone, and a single one with 400")
+    void testOutOfRangeReadingRejected() {
+        EquipmentRepository equipmentRepository = mock(EquipmentRepository.class);
+        when(equipmentRepository.existsById(1L)).thenReturn(true);
+        IngestWal wal = mock(IngestWal.class);
+        when(wal.appendAll(anyList())).thenAnswer(invocation -> {
+            // The log converts every value it writes
+            for (SensorLogDTO dto : invocation.<List<SensorLogDTO>>getArgument(0)) {
+                SensorLog.toHundredths(dto.getTemperature());
+            }
+            return 1;
+        });
+        SensorLogService service = new SensorLogService(mock(SensorLogRepository.class), equipmentRepository,
+                mock(RiskPredictionService.class), mock(RiskBroadcastService.class), mock(IngestShardRouter.class), null,
+                new StaticListableBeanFactory().getBeanProvider(SensorHotStore.class),
+                new StaticListableBeanFactory(Map.of("wal", wal)).getBeanProvider(IngestWal.class),
+                new StaticListableBeanFactory().getBeanProvider(SensorArchiveStore.class),
+                mock(IngestLimiter.class));
+
+        SensorLogDTO tooHot = reading(1, TIME);
+        tooHot.setTemperature(new BigDecimal("400.00"));
+        SensorLogDTO fine = reading(1, TIME.plusSeconds(1));
+        SensorLogService.IngestResult result = service.addSensorLogs(List.of(tooHot, fine));
+
+        assertEquals(Map.of(0, "Reading 400.00 is out of range (-327.68 to 327.67)"), result.rejected());
+        verify(wal).appendAll(List.of(fine));
+        assertEquals((short) -32768, SensorLog.toHundredths(new BigDecimal("-327.675")));
+        assertThrows(IllegalArgumentException.class, () -> SensorLog.toHundredths(new BigDecimal("327.675")));
+    }
+
+    @Test
+    @DisplayName("Test 4: A shard that fails rejects its own readings; the other shards' readings are stored")
+    @SuppressWarnings("unchecked")
+    void testFailedShardRejectsOnlyItsReadings() throws InterruptedException {
+        SensorLogRepository sensorLogRepository = mock(SensorLogRepository.class);
+        RiskPredictionService riskPredictionService = mock(RiskPredictionService.class);
+        IngestShardRouter router = new IngestShardRouter(2, 10);
+        SensorLogService service = new SensorLogService(sensorLogRepository, mock(EquipmentRepository.class),
+                riskPredictionService, mock(RiskBroadcastService.class), router,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                mock(ObjectProvider.class), mock(ObjectProvider.class), mock(ObjectProvider.class),
+                mock(IngestLimiter.class));
+
+        // Equipment 2 is on shard 0 and its insert times out; equipment 1 is on shard 1
+        when(riskPredictionService.targets(any())).thenAnswer(invocation -> {
+            Map<Long, RiskPredictionService.Target> targets = new HashMap<>();
+            for (Long id : invocation.<Set<Long>>getArgument(0)) {
+                targets.put(id, new RiskPredictionService.Target(id, "Equipment-" + id, null));
+            }
+            return targets;
+        });
+        when(sensorLogRepository.insertIgnoringDuplicates(any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            long[] equipmentIds = invocation.getArgument(0);
+            long[] timestamps = invocation.getArgument(1);
+            if (equipmentIds[0] == 2) {
+                throw new QueryTimeoutException("statement timeout");
+            }
+            List<SensorLog> rows = new ArrayList<>();
+            for (int j = 0; j < equipmentIds.length; j++) {
+                rows.add(new SensorLog(100L + j, equipmentIds[j], SensorHotStore.fromMicros(timestamps[j]),
+                        (short) 7150, (short) 320, (short) 6400));
+            }
+            return rows;
+        });
+
+        try {
+            SensorLogService.IngestResult result = service.addSensorLogs(List.of(
+                    reading(1, TIME), reading(2, TIME), reading(1, TIME.plusSeconds(1)), reading(2, TIME.plusSeconds(1))));
+
+            assertEquals(Map.of(1, "Ingestion failed: statement timeout", 3, "Ingestion failed: statement timeout"),
+                    result.rejected());
+            assertEquals(List.of(), result.duplicates());
+            verify(riskPredictionService, times(2)).calculateRisk(any(SensorLog.class), any());
+        } finally {
+            router.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Test 5: When the WAL fills up partway, only the readings it did not take are rejected")
+    void testWalFullPartway() {
+        EquipmentRepository equipmentRepository = mock(EquipmentRepository.class);
+        when(equipmentRepository.existsById(1L)).thenReturn(true);
+        IngestWal wal = mock(IngestWal.class);
+        when(wal.appendAll(anyList())).thenReturn(2);
+        SensorLogService service = new SensorLogService(mock(SensorLogRepository.class), equipmentRepository,
+                mock(RiskPredictionService.class), mock(RiskBroadcastService.class), mock(IngestShardRouter.class), null,
+                new StaticListableBeanFactory().getBeanProvider(SensorHotStore.class),
+                new StaticListableBeanFactory(Map.of("wal", wal)).getBeanProvider(IngestWal.class),
+                new StaticListableBeanFactory().getBeanProvider(SensorArchiveStore.class),
+                mock(IngestLimiter.class));
+
+        SensorLogService.IngestResult result = service.addSensorLogs(List.of(reading(1, TIME), reading(9, TIME),
+                reading(1, TIME.plusSeconds(1)), reading(1, TIME.plusSeconds(2)), reading(1, TIME.plusSeconds(3))));
+
+        // Index 1 is unknown equipment; of the other four the log took the first two
+        assertEquals(Map.of(1, "Equipment not found with id: 9", 3, "Write-ahead log is full",
+                4, "Write-ahead log is full"), result.rejected());
+    }
+
+    @Test
+    @DisplayName("Test 6: Readings for a shard whose queue is full are rejected as retryable")
+    @SuppressWarnings("unchecked")
+    void testFullShardQueueRetryable() throws InterruptedException {
+        SensorLogRepository sensorLogRepository = mock(SensorLogRepository.class);
+        RiskPredictionService riskPredictionService = mock(RiskPredictionService.class);
+        when(riskPredictionService.targets(any())).thenReturn(new HashMap<>(
+                Map.of(1L, new RiskPredictionService.Target(1L, "Pump", null))));
+        when(sensorLogRepository.insertIgnoringDuplicates(any(), any(), any(), any(), any())).thenReturn(List.of(
+                new SensorLog(11L, 1L, TIME, (short) 7150, (short) 320, (short) 6400)));
+        IngestShardRouter router = new IngestShardRouter(2, 1);
+        SensorLogService service = new SensorLogService(sensorLogRepository, mock(EquipmentRepository.class),
+                riskPredictionService, mock(RiskBroadcastService.class), router,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                mock(ObjectProvider.class), mock(ObjectProvider.class), mock(ObjectProvider.class),
+                mock(IngestLimiter.class));
+
+        // Shard 0 (equipment 2) is busy with one task and has another queued
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        router.submit(2L, () -> {
+            started.countDown();
+            return release.await(5, TimeUnit.SECONDS);
+        });
+        started.await();
+        router.submit(2L, () -> true);
+        try {
+            SensorLogService.IngestResult result = service.addSensorLogs(List.of(
+                    reading(2, TIME), reading(1, TIME), reading(2, TIME.plusSeconds(1))));
+
+            assertEquals(Map.of(0, "Ingestion queue full", 2, "Ingestion queue full"), result.rejected());
+            assertEquals(Set.of(0, 2), result.retryable());
+            verify(riskPredictionService).calculateRisk(any(SensorLog.class), any());
+        } finally {
+            release.countDown();
+            router.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Test 7: A binary batch reaches the insert as its columns; a value out of range rejects that reading")
+    @SuppressWarnings("unchecked")
+    void testBinaryBatchInsertedFromColumns() throws InterruptedException {
+        SensorLogRepository sensorLogRepository = mock(SensorLogRepository.class);
+        RiskPredictionService riskPredictionService = mock(RiskPredictionService.class);
+        when(riskPredictionService.targets(any())).thenReturn(new HashMap<>(
+                Map.of(1L, new RiskPredictionService.Target(1L, "Pump", null))));
+        when(sensorLogRepository.insertIgnoringDuplicates(any(), any(), any(), any(), any())).thenReturn(List.of(
+                new SensorLog(11L, 1L, TIME, (short) 7150, (short) 320, (short) 6400),
+                new SensorLog(12L, 1L, TIME.plusSeconds(2), (short) -1200, (short) 0, (short) 10000)));
+        IngestShardRouter router = new IngestShardRouter(2, 10);
+        SensorLogService service = new SensorLogService(sensorLogRepository, mock(EquipmentRepository.class),
+                riskPredictionService, mock(RiskBroadcastService.class), router,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                mock(ObjectProvider.class), mock(ObjectProvider.class), mock(ObjectProvider.class),
+                mock(IngestLimiter.class));
+
+        ReadingBuffer readings = new ReadingBuffer(3);
+        readings.add(1L, SensorHotStore.toMicros(TIME), 7150, 320, 6400);
+        readings.add(1L, SensorHotStore.toMicros(TIME.plusSeconds(1)), 40000, 320, 6400);
+        readings.add(1L, SensorHotStore.toMicros(TIME.plusSeconds(2)), -1200, 0, 10000);
+        try {
+            SensorLogService.IngestResult result = service.addReadings(readings);
+
+            assertEquals(Map.of(1, "Reading 400.00 is out of range (-327.68 to 327.67)"), result.rejected());
+            verify(riskPredictionService, times(2)).calculateRisk(any(SensorLog.class), any());
+            ArgumentCaptor<long[]> timestamps = ArgumentCaptor.forClass(long[].class);
+            ArgumentCaptor<short[]> temperatures = ArgumentCaptor.forClass(short[].class);
+            ArgumentCaptor<short[]> loads = ArgumentCaptor.forClass(short[].class);
+            verify(sensorLogRepository).insertIgnoringDuplicates(any(), timestamps.capture(),
+                    temperatures.capture(), any(), loads.capture());
+            assertArrayEquals(new long[] {SensorHotStore.toMicros(TIME), SensorHotStore.toMicros(TIME.plusSeconds(2))},
+                    timestamps.getValue());
+            assertArrayEquals(new short[] {7150, -1200}, temperatures.getValue());
+            assertArrayEquals(new short[] {6400, 10000}, loads.getValue());
+        } finally {
+            router.shutdown();
+        }
+    }
+}
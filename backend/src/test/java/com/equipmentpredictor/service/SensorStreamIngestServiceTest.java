@@ -0,0 +1,195 @@
+package com.equipmentpredictor.service;
+
+import com.equipmentpredictor.dto.IngestAckDTO;
+import com.equipmentpredictor.dto.SensorLogDTO;
+import com.equipmentpredictor.ingest.IngestLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@DisplayName("SensorStreamIngestService Tests")
+class SensorStreamIngestServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final List<List<SensorLogDTO>> batches = new ArrayList<>();
+    private SensorLogService sensorLogService;
+    private IngestLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        sensorLogService = mock(SensorLogService.class);
+        limiter = mock(IngestLimiter.class);
+        when(limiter.tryEnter()).thenReturn(true);
+        // Equipment 99 does not exist
+        when(sensorLogService.addSensorLogs(anyList())).thenAnswer(invocation -> {
+            List<SensorLogDTO> batch = List.copyOf(invocation.getArgument(0));
+            batches.add(batch);
+            return batch.get(0).getEquipmentId() == 99
+                    ? new SensorLogService.IngestResult(Map.of(0, "Equipment not found with id: 99"), List.of())
+                    : SensorLogService.IngestResult.NONE;
+        });
+    }
+
+    @Test
+    @DisplayName("Should acknowledge micro-batches with per-record errors")
+    void shouldAcknowledgeBatches() throws IOException {
+        String body = """
+                {"equipmentId":1,"timestamp":"2024-01-01T10:00:00","temperature":71.5,"vibration":3.2,"loadPercentage":64}
+                {"equipmentId":1,"temperature":250,"vibration":3.2,"loadPercentage":64}
+                {"equipmentId":2,"temperature":70,"vibration":3,"loadPercentage":60,"extra":{"ignored":[1,2]}}
+
+                {"equipmentId":2,"temperature":70,"loadPercentage":60}
+                {"equipmentId":99,"temperature":70,"vibration":3,"loadPercentage":60}
+                """;
+
+        List<IngestAckDTO> acks = ingest(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), 2);
+
+        assertEquals(4, acks.size());
+        IngestAckDTO first = acks.get(0);
+        assertEquals(IngestAckDTO.Status.ACK, first.getStatus());
+        assertEquals(1L, first.getFirstRecord());
+        assertEquals(2L, first.getLastRecord());
+        assertEquals(1, first.getAccepted());
+        assertEquals(1, first.getRejected());
+        assertEquals(2, first.getErrors().get(0).getRecord());
+
+        IngestAckDTO second = acks.get(1);
+        assertEquals(3L, second.getFirstRecord());
+        assertEquals(4L, second.getLastRecord());
+        assertEquals(1, second.getAccepted());
+        assertEquals("Vibration is required", second.getErrors().get(0).getError());
+
+        IngestAckDTO third = acks.get(2);
+        assertEquals(5L, third.getFirstRecord());
+        assertEquals(0, third.getAccepted());
+        assertEquals(5, third.getErrors().get(0).getRecord());
+
+        assertEquals(IngestAckDTO.Status.DONE, acks.get(3).getStatus());
+        assertEquals(2, acks.get(3).getAccepted());
+        assertEquals(3, acks.get(3).getRejected());
+
+        SensorLogDTO reading = batches.get(0).get(0);
+        assertEquals(LocalDateTime.of(2024, 1, 1, 10, 0), reading.getTimestamp());
+        assertEquals(0, new BigDecimal("71.5").compareTo(reading.getTemperature()));
+    }
+
+    @Test
+    @DisplayName("Should acknowledge what has arrived before waiting for more input")
+    void shouldAcknowledgeWhenInputIsDrained() throws IOException {
+        String line = "{\"equipmentId\":1,\"temperature\":70,\"vibration\":3,\"loadPercentage\":60}\n";
+        // The second reading arrives split across two reads
+        InputStream body = new ChunkedInputStream(line, line.substring(0, 20), line.substring(20), line);
+
+        List<IngestAckDTO> acks = ingest(body, 1000);
+
+        assertEquals(4, acks.size());
+        assertEquals(List.of(1L, 2L, 3L), acks.subList(0, 3).stream().map(IngestAckDTO::getLastRecord).toList());
+        assertEquals(3, acks.get(3).getAccepted());
+        assertEquals(3, batches.size());
+    }
+
+    @Test
+    @DisplayName("Should end the stream with an error on malformed JSON")
+    void shouldStopOnMalformedJson() throws IOException {
+        String body = """
+                {"equipmentId":1,"temperature":70,"vibration":3,"loadPercentage":60}
+                {"equipmentId":1,"temperature":70,,}
+                {"equipmentId":1,"temperature":70,"vibration":3,"loadPercentage":60}
+                """;
+
+        List<IngestAckDTO> acks = ingest(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), 1000);
+
+        assertEquals(2, acks.size());
+        assertEquals(1, acks.get(0).getAccepted());
+        assertEquals(IngestAckDTO.Status.ERROR, acks.get(1).getStatus());
+        assertTrue(acks.get(1).getError().startsWith("Malformed JSON after record 1"));
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    @DisplayName("Should give back the rate limit tokens of a batch that is shed")
+    void shouldRefundTokensOfShedBatch() throws IOException {
+        when(limiter.tryEnter()).thenReturn(false);
+        String body = """
+                {"equipmentId":1,"temperature":70,"vibration":3,"loadPercentage":60}
+                {"equipmentId":2,"temperature":70,"vibration":3,"loadPercentage":60}
+                {"equipmentId":1,"temperature":250,"vibration":3,"loadPercentage":60}
+                """;
+
+        List<IngestAckDTO> acks = ingest(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), 1000);
+
+        assertEquals(3, acks.get(0).getRejected());
+        assertEquals("Ingestion is shedding load, retry later", acks.get(0).getErrors().get(0).getError());
+        // The invalid reading took no token; the two admitted ones get theirs back
+        verify(limiter).tryAcquireEquipment(1L);
+        verify(limiter).tryAcquireEquipment(2L);
+        verify(limiter).reserveClient("address:127.0.0.1", 2);
+        verify(limiter).refundClient("address:127.0.0.1", 2);
+        verify(limiter).refundEquipment(1L, 1);
+        verify(limiter).refundEquipment(2L, 1);
+        verify(sensorLogService, never()).addSensorLogs(anyList());
+    }
+
+    private List<IngestAckDTO> ingest(InputStream body, int batchSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // Commits run inline, so batch boundaries are deterministic
+        new SensorStreamIngestService(sensorLogService, limiter, objectMapper, batchSize, 4, Runnable::run)
+                .ingest("address:127.0.0.1", body, out);
+        List<IngestAckDTO> acks = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            acks.add(objectMapper.readValue(line, IngestAckDTO.class));
+        }
+        return acks;
+    }
+
+    /**
+     * Returns one chunk per read and reports nothing available in between, like a slow gateway
+     */
+    private static final class ChunkedInputStream extends InputStream {
+        private final Deque<byte[]> chunks = new ArrayDeque<>();
+
+        ChunkedInputStream(String... chunks) {
+            for (String chunk : chunks) {
+                this.chunks.add(chunk.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        @Override
+        public int read() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            byte[] chunk = chunks.poll();
+            if (chunk == null) {
+                return -1;
+            }
+            System.arraycopy(chunk, 0, buffer, offset, chunk.length);
+            return chunk.length;
+        }
+
+        @Override
+        public int available() {
+            return 0;
+        }
+    }
+}
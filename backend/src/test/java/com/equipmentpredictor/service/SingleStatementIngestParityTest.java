@@ -0,0 +1,233 @@
+package com.equipmentpredictor.service;
+
+import com.equipmentpredictor.dto.RiskResponseDTO;
+import com.equipmentpredictor.model.Equipment;
+import com.equipmentpredictor.model.RiskEvent;
+import com.equipmentpredictor.model.ScoringProfile;
+import com.equipmentpredictor.model.SensorLog;
+import com.equipmentpredictor.repository.EquipmentRepository;
+import com.equipmentpredictor.repository.RiskEventRepository;
+import com.equipmentpredictor.repository.ScoringProfileRepository;
+import com.equipmentpredictor.repository.SensorLogRepository;
+import com.equipmentpredictor.store.SensorHotStore;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Parity of SensorLogRepository.INSERT_AND_EVALUATE with the Java scoring path
+ * Random reading sequences (values around the profile's ranges and
+ * thresholds, gaps around the heartbeat) are run through the statement and
+ * through RiskPredictionService.calculateRisk for both event policies; every
+ * score, level, reason and event decision must agree. Everything is rolled back.
+ *
+ * Needs a database, so it runs with the query-plans profile:
+ *   mvn -Pquery-plans test -Dplans.url=jdbc:postgresql://localhost:5432/equipment_predictor_plans
+ */
+@Tag("query-plans")
+@DisplayName("Single-Statement Ingest Parity Tests")
+class SingleStatementIngestParityTest {
+
+    private static final String URL = System.getProperty("plans.url",
+            "jdbc:postgresql://localhost:5432/equipment_predictor_plans");
+    private static final String USERNAME = System.getProperty("plans.username", "postgres");
+    private static final String PASSWORD = System.getProperty("plans.password", "postgres");
+
+    private static final int READINGS = 2_000;
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 0, 0);
+    private static final Pattern PARAMETER = Pattern.compile(":(\\w+)");
+
+    @Test
+    @DisplayName("Statement and Java path agree on every reading, for both policies and with and without a type profile")
+    void testStatementMatchesJavaPath() throws SQLException {
+        Flyway.configure()
+                .dataSource(URL, USERNAME, PASSWORD)
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+
+        // Pump has its own profile; Press falls back to the default one
+        ScoringProfileRepository profiles = mock(ScoringProfileRepository.class);
+        when(profiles.findAll()).thenReturn(List.of(new ScoringProfile(1L, "Pump",
+                new BigDecimal("20"), new BigDecimal("120"),
+                new BigDecimal("0.5"), new BigDecimal("20"),
+                new BigDecimal("10"), new BigDecimal("95.5"),
+                new BigDecimal("0.45"), new BigDecimal("0.35"), new BigDecimal("0.20"),
+                new BigDecimal("30"), new BigDecimal("55.55"), new BigDecimal("80"), LocalDateTime.now())));
+        ScoringProfileService scoringProfileService = new ScoringProfileService(profiles,
+                new BigDecimal("0.40"), new BigDecimal("0.35"), new BigDecimal("0.25"));
+        scoringProfileService.load();
+
+        try (Connection connection = DriverManager.getConnection(URL, USERNAME, PASSWORD)) {
+            connection.setAutoCommit(false);
+            try {
+                long seed = 1;
+                for (RiskEventPolicy.Mode mode : RiskEventPolicy.Mode.values()) {
+                    for (String type : List.of("Pump", "Press")) {
+                        RiskEventPolicy policy = new RiskEventPolicy(mode, new BigDecimal("7.5"),
+                                Duration.ofMinutes(5), new BigDecimal("4"));
+                        compare(connection, scoringProfileService, policy, type, new Random(seed++));
+                    }
+                }
+
+                // Unknown equipment: no row at all
+                assertFalse(evaluate(connection, scoringProfileService,
+                        new RiskEventPolicy(RiskEventPolicy.Mode.CHANGES, BigDecimal.TEN, Duration.ofMinutes(5), BigDecimal.ONE),
+                        new SensorLog(null, Long.MAX_VALUE, START, (short) 0, (short) 0, (short) 0)).next());
+            } finally {
+                connection.rollback();
+            }
+        }
+    }
+
+    private static void compare(Connection connection, ScoringProfileService scoringProfileService,
+            RiskEventPolicy policy, String type, Random random) throws SQLException {
+        long equipmentId;
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("INSERT INTO equipment (name, type) VALUES ('Parity "
+                     + type + "', '" + type + "') RETURNING id")) {
+            rs.next();
+            equipmentId = rs.getLong(1);
+        }
+        Equipment equipment = new Equipment();
+        equipment.setId(equipmentId);
+        equipment.setName("Parity " + type);
+        equipment.setType(type);
+
+        // The Java path against in-memory repositories
+        List<RiskEvent> events = new ArrayList<>();
+        EquipmentRepository equipmentRepository = mock(EquipmentRepository.class);
+        when(equipmentRepository.findById(equipmentId)).thenReturn(Optional.of(equipment));
+        RiskEventRepository riskEventRepository = mock(RiskEventRepository.class);
+        when(riskEventRepository.findFirstByEquipmentIdOrderByTimestampDesc(equipmentId))
+                .thenAnswer(invocation -> events.isEmpty() ? Optional.empty() : Optional.of(events.get(events.size() - 1)));
+        when(riskEventRepository.save(any(RiskEvent.class))).thenAnswer(invocation -> {
+            events.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        RiskPredictionService javaPath = new RiskPredictionService(riskEventRepository, equipmentRepository,
+                mock(RiskBroadcastService.class), scoringProfileService, policy, mock(SensorLogRepository.class));
+
+        String context = policy.mode() + "/" + type;
+        LocalDateTime timestamp = START;
+        short temperature = 5000;
+        short vibration = 1000;
+        short load = 5000;
+        for (int i = 0; i < READINGS; i++) {
+            // Mostly small steps that hover around thresholds, sometimes jumps and exact range ends
+            temperature = step(random, temperature, 15000);
+            vibration = step(random, vibration, 3000);
+            load = step(random, load, 10000);
+            if (random.nextInt(50) == 0) {
+                temperature = random.nextBoolean() ? (short) 2000 : (short) 12000;
+            }
+            timestamp = timestamp.plusSeconds(random.nextInt(20) == 0 ? 300 : 1 + random.nextInt(240));
+            SensorLog reading = new SensorLog((long) i, equipmentId, timestamp, temperature, vibration, load);
+
+            RiskEvent.RiskLevel previous = events.isEmpty() ? null : events.get(events.size() - 1).getRiskLevel();
+            int eventsBefore = events.size();
+            RiskResponseDTO expected = javaPath.calculateRisk(reading);
+            RiskEvent expectedEvent = events.size() > eventsBefore ? events.get(events.size() - 1) : null;
+
+            String at = context + " reading " + i;
+            try (ResultSet actual = evaluate(connection, scoringProfileService, policy, reading)) {
+                assertTrue(actual.next(), at);
+                assertNotNull(actual.getObject("id"), at);
+                assertEquals("Parity " + type, actual.getString("equipmentName"), at);
+                assertEquals(0, expected.getRiskScore().compareTo(actual.getBigDecimal("riskScore")), at);
+                assertEquals(expected.getRiskLevel().name(), actual.getString("riskLevel"), at);
+                assertEquals(expected.getReason(), RiskEvent.RiskFactor.fromCode(actual.getShort("reasonFactor"))
+                        .describe(actual.getBigDecimal("reasonValue")), at);
+                assertEquals(expectedEvent != null ? expectedEvent.getRiskLevel().name() : null,
+                        actual.getString("eventLevel"), at);
+                assertEquals(previous != null ? previous.name() : null, actual.getString("previousLevel"), at);
+            }
+
+            // A retry is a duplicate: nothing scored or written
+            if (random.nextInt(100) == 0) {
+                try (ResultSet retried = evaluate(connection, scoringProfileService, policy, reading)) {
+                    assertTrue(retried.next(), at);
+                    assertNull(retried.getObject("id"), at);
+                    assertNull(retried.getString("eventLevel"), at);
+                }
+            }
+        }
+
+        // The stored events are the ones the Java path wrote
+        List<String> stored = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT timestamp, risk_score, risk_level, reason_factor, reason_value FROM risk_event "
+                        + "WHERE equipment_id = ? ORDER BY timestamp")) {
+            statement.setLong(1, equipmentId);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    stored.add(rs.getTimestamp(1).toLocalDateTime() + " " + rs.getBigDecimal(2) + " " + rs.getString(3)
+                            + " " + rs.getShort(4) + " " + rs.getBigDecimal(5));
+                }
+            }
+        }
+        assertEquals(events.stream()
+                .map(e -> e.getTimestamp() + " " + e.getRiskScore() + " " + e.getRiskLevel()
+                        + " " + e.getReasonFactor().getCode() + " " + e.getReasonValue())
+                .toList(), stored, context);
+        assertTrue(events.size() > 10, context + " wrote only " + events.size() + " events");
+    }
+
+    private static short step(Random random, short value, int max) {
+        int next = value + (random.nextInt(10) == 0 ? random.nextInt(max / 2) - max / 4 : random.nextInt(401) - 200);
+        return (short) Math.max(0, Math.min(max, next));
+    }
+
+    private static ResultSet evaluate(Connection connection, ScoringProfileService scoringProfileService,
+            RiskEventPolicy policy, SensorLog reading) throws SQLException {
+        Map<String, Object> params = Map.of(
+                "equipmentId", reading.getEquipmentId(),
+                "micros", SensorHotStore.toMicros(reading.getTimestamp()),
+                "temperature", reading.getTemperatureHundredths(),
+                "vibration", reading.getVibrationHundredths(),
+                "load", reading.getLoadHundredths(),
+                "profiles", scoringProfileService.snapshot().json(),
+                "policy", policy.mode().name(),
+                "scoreDelta", policy.scoreDelta(),
+                "heartbeatMicros", policy.heartbeat().toNanos() / 1_000,
+                "hysteresis", policy.hysteresis());
+
+        List<Object> values = new ArrayList<>();
+        Matcher matcher = PARAMETER.matcher(SensorLogRepository.INSERT_AND_EVALUATE);
+        StringBuilder sql = new StringBuilder();
+        while (matcher.find()) {
+            values.add(params.get(matcher.group(1)));
+            matcher.appendReplacement(sql, "?");
+        }
+        matcher.appendTail(sql);
+
+        PreparedStatement statement = connection.prepareStatement(sql.toString());
+        for (int i = 0; i < values.size(); i++) {
+            statement.setObject(i + 1, values.get(i));
+        }
+        statement.closeOnCompletion();
+        return statement.executeQuery();
+    }
+}
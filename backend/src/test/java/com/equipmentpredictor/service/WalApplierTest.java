@@ -0,0 +1,90 @@
+package com.equipmentpredictor.service;
+
+import com.equipmentpredictor.dto.SensorLogDTO;
+import com.equipmentpredictor.model.IngestWalCheckpoint;
+import com.equipmentpredictor.repository.IngestWalCheckpointRepository;
+import com.equipmentpredictor.store.IngestWal;
+import com.equipmentpredictor.store.WalRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for poison record handling in WalApplier
+ */
+@DisplayName("WalApplier Tests")
+class WalApplierTest {
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2025, 3, 1, 10, 0);
+
+    @Test
+    @DisplayName("Test 1: A batch failing repeatedly is applied per record and only the poison record is dead-lettered")
+    void testPoisonRecordDeadLettered() throws InterruptedException {
+        List<WalRecord> records = List.of(
+                new WalRecord(1, 1, TIME, 7000, 300, 6000),
+                new WalRecord(2, 13, TIME, 7000, 300, 6000),
+                new WalRecord(3, 2, TIME, 7000, 300, 6000));
+        IngestWal ingestWal = mock(IngestWal.class);
+        when(ingestWal.walId()).thenReturn("wal");
+        when(ingestWal.read(anyLong(), anyInt())).thenAnswer(invocation -> records.stream()
+                .filter(record -> record.lsn() > invocation.<Long>getArgument(0))
+                .toList());
+
+        // Equipment 13 always fails; the first two attempts also hit a timeout, which is transient
+        SensorLogService sensorLogService = mock(SensorLogService.class);
+        int[] timeouts = {2};
+        when(sensorLogService.persistAndScoreAll(any(), any(), any())).thenAnswer(invocation -> {
+            if (timeouts[0]-- > 0) {
+                throw new QueryTimeoutException("statement timeout");
+            }
+            List<SensorLogDTO> batch = invocation.getArgument(0);
+            if (batch.stream().anyMatch(reading -> reading.getEquipmentId() == 13)) {
+                throw new DataIntegrityViolationException("value out of range");
+            }
+            return SensorLogService.IngestResult.NONE;
+        });
+
+        IngestWalCheckpointRepository checkpointRepository = mock(IngestWalCheckpointRepository.class);
+        WalApplier applier = new WalApplier(ingestWal, sensorLogService, checkpointRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(applier, "batchSize", 500);
+        ReflectionTestUtils.setField(applier, "maxAttempts", 3);
+
+        // Two transient and three non-transient failures of the whole batch; nothing is skipped yet
+        for (int attempt = 0; attempt < 5; attempt++) {
+            assertThrows(RuntimeException.class, applier::applyNext);
+        }
+        verify(ingestWal, never()).deadLetter(any(), anyString());
+        assertEquals(0, applier.appliedLsn());
+
+        applier.applyNext();
+
+        ArgumentCaptor<WalRecord> deadLetter = ArgumentCaptor.forClass(WalRecord.class);
+        verify(ingestWal).deadLetter(deadLetter.capture(), contains("value out of range"));
+        assertEquals(2, deadLetter.getValue().lsn());
+        ArgumentCaptor<IngestWalCheckpoint> checkpoints = ArgumentCaptor.forClass(IngestWalCheckpoint.class);
+        verify(checkpointRepository, times(3)).save(checkpoints.capture());
+        assertEquals(List.of(1L, 2L, 3L), checkpoints.getAllValues().stream().map(IngestWalCheckpoint::getAppliedLsn).toList());
+        assertEquals(3, applier.appliedLsn());
+        verify(ingestWal).truncate(3);
+
+        // Back to whole batches
+        applier.applyNext();
+        verify(ingestWal).awaitRecords(3, 100);
+    }
+}
@@ -0,0 +1,141 @@
+package com.equipmentpredictor.store;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round-trip tests for the Gorilla block codec used by the cold archive
+ */
+@DisplayName("ArchiveCodec Tests")
+class ArchiveCodecTest {
+
+    private static HotSegment.Columns columns(long[] timestamps, long[] ids, int[] temperatures,
+                                              int[] vibrations, int[] loads) {
+        HotSegment.Columns rows = new HotSegment.Columns(timestamps.length);
+        System.arraycopy(timestamps, 0, rows.timestamps, 0, timestamps.length);
+        System.arraycopy(ids, 0, rows.ids, 0, ids.length);
+        System.arraycopy(temperatures, 0, rows.temperatures, 0, temperatures.length);
+        System.arraycopy(vibrations, 0, rows.vibrations, 0, vibrations.length);
+        System.arraycopy(loads, 0, rows.loads, 0, loads.length);
+        return rows;
+    }
+
+    /**
+     * Encode rows [from, to), decode the block from a buffer offset past some padding, and compare
+     */
+    private static HotSegment.Columns roundTrip(HotSegment.Columns rows, int from, int to) {
+        byte[] block = ArchiveCodec.encodeBlock(rows, from, to);
+        ByteBuffer buffer = ByteBuffer.allocate(block.length + 3);
+        buffer.position(3);
+        buffer.put(block);
+        HotSegment.Columns decoded = ArchiveCodec.decodeBlock(buffer, 3, to - from);
+
+        assertEquals(to - from, decoded.length());
+        for (int i = from; i < to; i++) {
+            int row = i - from;
+            assertEquals(rows.timestamps[i], decoded.timestamps[row], "timestamp " + i);
+            assertEquals(rows.ids[i], decoded.ids[row], "id " + i);
+            assertEquals(rows.temperatures[i], decoded.temperatures[row], "temperature " + i);
+            assertEquals(rows.vibrations[i], decoded.vibrations[row], "vibration " + i);
+            assertEquals(rows.loads[i], decoded.loads[row], "load " + i);
+        }
+        return decoded;
+    }
+
+    private static HotSegment.Columns timestamps(long... timestamps) {
+        int n = timestamps.length;
+        long[] ids = new long[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i + 1;
+        }
+        return columns(timestamps, ids, new int[n], new int[n], new int[n]);
+    }
+
+    @Test
+    @DisplayName("Test 1: Regular sampling costs one bit per delta-of-delta and decodes exactly")
+    void testRegularTimestamps() {
+        int n = 1024;
+        long[] timestamps = new long[n];
+        long[] ids = new long[n];
+        for (int i = 0; i < n; i++) {
+            timestamps[i] = 1_740_823_200_000_000L + i * 1_000_000L;
+            ids[i] = 5_000_000L + i;
+        }
+        HotSegment.Columns rows = columns(timestamps, ids, new int[n], new int[n], new int[n]);
+        byte[] block = ArchiveCodec.encodeBlock(rows, 0, n);
+
+        // Raw first row, one full dod for the first delta, then 1 bit per column per row
+        assertTrue(block.length < 40 + 20 + n * 5 / 8 + 8, "block is " + block.length + " bytes");
+        roundTrip(rows, 0, n);
+    }
+
+    @Test
+    @DisplayName("Test 2: Delta-of-delta values at every bucket boundary, negative and 64-bit, round-trip")
+    void testDeltaOfDeltaBuckets() {
+        long[] dods = {
+                1, -1,
+                (1L << 13) - 1, -(1L << 13), 1L << 13, -(1L << 13) - 1,
+                (1L << 19) - 1, -(1L << 19), 1L << 19, -(1L << 19) - 1,
+                (1L << 31) - 1, -(1L << 31), 1L << 31, -(1L << 31) - 1,
+                1L << 40, -(1L << 40), Long.MAX_VALUE / 4, Long.MIN_VALUE / 4
+        };
+        long[] timestamps = new long[dods.length + 2];
+        long delta = 0;
+        timestamps[1] = 0;
+        for (int i = 0; i < dods.length; i++) {
+            delta += dods[i];
+            timestamps[i + 2] = timestamps[i + 1] + delta;
+        }
+        roundTrip(timestamps(timestamps), 0, timestamps.length);
+
+        // Ids with gaps and going backwards (rows re-sorted by timestamp)
+        HotSegment.Columns rows = timestamps(10, 20, 30, 40, 50, 60);
+        long[] ids = {100, 101, 102, 900_000_000_000L, 5, 6};
+        System.arraycopy(ids, 0, rows.ids, 0, ids.length);
+        roundTrip(rows, 0, ids.length);
+    }
+
+    @Test
+    @DisplayName("Test 3: XOR values round-trip when unchanged, changing sign, at the short extremes and across windows")
+    void testXorValues() {
+        int[] temperatures = {
+                7150, 7150, 7150, -7150, 0, 0, -1, 1,
+                Short.MAX_VALUE, Short.MIN_VALUE, Short.MAX_VALUE, 7151, 7152, 7150, 1024, 1025, 1, 0
+        };
+        int n = temperatures.length;
+        int[] vibrations = new int[n];
+        int[] loads = new int[n];
+        long[] timestamps = new long[n];
+        for (int i = 0; i < n; i++) {
+            // Vibration narrows the meaningful-bit window step by step, load widens it again
+            vibrations[i] = 1 << (i % 15);
+            loads[i] = i % 2 == 0 ? 10_000 : 1;
+            timestamps[i] = i;
+        }
+        long[] ids = timestamps.clone();
+        roundTrip(columns(timestamps, ids, temperatures, vibrations, loads), 0, n);
+
+        // Starting from a negative value with a zero leading-bit window
+        roundTrip(columns(new long[] {1, 2}, new long[] {1, 2}, new int[] {-1, 1}, new int[] {Short.MIN_VALUE, 0},
+                new int[] {0, Short.MIN_VALUE}), 0, 2);
+    }
+
+    @Test
+    @DisplayName("Test 4: Blocks of one row, empty blocks and blocks from the middle of the columns")
+    void testSingleRowAndEmptyBlocks() {
+        HotSegment.Columns rows = columns(new long[] {100, 200, 400, 800}, new long[] {1, 2, 3, 4},
+                new int[] {7150, 7160, 7170, 7180}, new int[] {320, 321, 322, 323}, new int[] {6400, 6400, 6500, 6500});
+
+        assertEquals(40, ArchiveCodec.encodeBlock(rows, 2, 3).length);
+        roundTrip(rows, 2, 3);
+
+        assertEquals(0, ArchiveCodec.encodeBlock(rows, 1, 1).length);
+        assertEquals(0, ArchiveCodec.decodeBlock(ByteBuffer.allocate(0), 0, 0).length());
+
+        roundTrip(rows, 1, 4);
+    }
+}
@@ -0,0 +1,119 @@
+package com.equipmentpredictor.store;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the memory-mapped ring buffer behind SensorHotStore
+ */
+@DisplayName("HotSegment Tests")
+class HotSegmentTest {
+
+    private static final long RETENTION = Long.MAX_VALUE / 2;
+
+    @TempDir
+    Path directory;
+
+    private HotSegment create(int capacity) throws IOException {
+        return HotSegment.create(directory.resolve("equipment-1.seg"), 1L, capacity, 0L);
+    }
+
+    private static void append(HotSegment segment, long timestamp) {
+        assertTrue(segment.append(timestamp * 10, timestamp, (int) timestamp, (int) timestamp + 1,
+                (int) timestamp + 2, RETENTION));
+    }
+
+    @Test
+    @DisplayName("Test 1: A full ring evicts the oldest rows and reads across the wrap-around")
+    void testRingWrapAround() throws IOException {
+        HotSegment segment = create(8);
+        for (long t = 1; t <= 13; t++) {
+            append(segment, t);
+        }
+
+        assertEquals(8, segment.size());
+        assertEquals(6, segment.coveredFromMicros());
+        HotSegment.Columns all = segment.latest(100);
+        assertArrayEquals(LongStream.rangeClosed(6, 13).toArray(), all.timestamps);
+        assertArrayEquals(LongStream.rangeClosed(6, 13).map(t -> t * 10).toArray(), all.ids);
+        assertEquals(13, all.temperatures[7]);
+        assertEquals(14, all.vibrations[7]);
+        assertEquals(15, all.loads[7]);
+
+        // Starts before the physical end of the buffer and continues at slot 0
+        assertArrayEquals(new long[] {7, 8, 9, 10}, segment.range(7, 10, 100).timestamps);
+        assertArrayEquals(new long[] {12, 13}, segment.latest(2).timestamps);
+    }
+
+    @Test
+    @DisplayName("Test 2: Range bounds are inclusive, limits keep the newest rows, gaps and outside ranges are empty")
+    void testRangeBinarySearch() throws IOException {
+        HotSegment segment = create(16);
+        for (long t : new long[] {10, 20, 20, 30, 40, 50}) {
+            append(segment, t);
+        }
+
+        assertArrayEquals(new long[] {20, 20, 30}, segment.range(20, 30, 100).timestamps);
+        assertArrayEquals(new long[] {20, 20, 30}, segment.range(11, 39, 100).timestamps);
+        assertArrayEquals(new long[] {40, 50}, segment.range(11, 59, 2).timestamps);
+        assertEquals(0, segment.range(21, 29, 100).length());
+        assertEquals(0, segment.range(51, 100, 100).length());
+        assertEquals(0, segment.range(0, 9, 100).length());
+        assertArrayEquals(new long[] {10, 20, 20, 30, 40, 50}, segment.range(Long.MIN_VALUE, Long.MAX_VALUE, 100).timestamps);
+    }
+
+    @Test
+    @DisplayName("Test 3: Out-of-order readings are inserted in timestamp order, also after a wrap-around")
+    void testOutOfOrderInserts() throws IOException {
+        HotSegment segment = create(6);
+        for (long t : new long[] {10, 30, 50, 70, 90, 20, 60, 40}) {
+            append(segment, t);
+        }
+
+        assertArrayEquals(new long[] {30, 40, 50, 60, 70, 90}, segment.latest(100).timestamps);
+        assertArrayEquals(new long[] {300, 400, 500, 600, 700, 900}, segment.latest(100).ids);
+
+        // Older than the retention window behind the newest row: rejected, nothing changes
+        assertFalse(segment.append(1, 5, 0, 0, 0, 50));
+        assertArrayEquals(new long[] {30, 40, 50, 60, 70, 90}, segment.latest(100).timestamps);
+    }
+
+    @Test
+    @DisplayName("Test 4: Reopen keeps rows and coverage after a clean close, and empties the segment otherwise")
+    void testReopen() throws IOException {
+        Path file = directory.resolve("equipment-1.seg");
+        HotSegment segment = create(4);
+        for (long t = 1; t <= 6; t++) {
+            append(segment, t);
+        }
+        segment.close();
+
+        HotSegment reopened = HotSegment.open(file, 1_000);
+        assertTrue(reopened.restored());
+        assertEquals(1L, reopened.equipmentId());
+        assertEquals(3, reopened.coveredFromMicros());
+        assertArrayEquals(new long[] {3, 4, 5, 6}, reopened.latest(100).timestamps);
+
+        // Appends after the reopen, then no clean close (a crash)
+        append(reopened, 7);
+        HotSegment crashed = HotSegment.open(file, 2_000);
+        assertFalse(crashed.restored());
+        assertEquals(0, crashed.size());
+        assertEquals(2_000, crashed.coveredFromMicros());
+
+        append(crashed, 2_001);
+        crashed.close();
+        HotSegment again = HotSegment.open(file, 3_000);
+        assertTrue(again.restored());
+        assertEquals(2_000, again.coveredFromMicros());
+        assertEquals("[2001]", Arrays.toString(again.latest(100).timestamps));
+    }
+}
@@ -0,0 +1,170 @@
+package com.equipmentpredictor.store;
+
+import com.equipmentpredictor.dto.SensorLogDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for write-ahead log recovery from damaged segment files
+ */
+@DisplayName("IngestWal Tests")
+class IngestWalTest {
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2025, 3, 1, 10, 0);
+
+    @TempDir
+    Path directory;
+
+    private Path segmentWith(int records) throws IOException {
+        Path file = directory.resolve("wal-00000000000000000001.log");
+        WalSegment segment = WalSegment.create(file, 1, 16);
+        ByteBuffer scratch = ByteBuffer.allocate(WalSegment.RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < records; i++) {
+            segment.append(scratch, 7, SensorHotStore.toMicros(TIME.plusSeconds(i)), 7000 + i, 300, 6400);
+        }
+        segment.force(0, records);
+        return file;
+    }
+
+    private static void overwrite(Path file, long position, byte[] bytes) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(position);
+            raf.write(bytes);
+        }
+    }
+
+    private IngestWal openWal() throws IOException {
+        IngestWal wal = new IngestWal(directory.toString(), 1, 0, 64, 10_000);
+        wal.open();
+        return wal;
+    }
+
+    private static SensorLogDTO reading(int second) {
+        return new SensorLogDTO(null, 7L, TIME.plusSeconds(second),
+                new BigDecimal("71.50"), new BigDecimal("3.20"), new BigDecimal("64.00"));
+    }
+
+    @Test
+    @DisplayName("Test 1: A torn record at the tail ends the segment; the records before it are intact")
+    void testTornTail() throws IOException {
+        Path file = segmentWith(5);
+        // Half of the last record made it to disk: its second half is zeros
+        overwrite(file, 4L * WalSegment.RECORD_BYTES + 20, new byte[20]);
+
+        WalSegment segment = WalSegment.open(file, 1);
+        assertEquals(4, segment.count());
+        assertEquals(4, segment.lastLsn());
+        WalRecord last = segment.read(3);
+        assertEquals(4, last.lsn());
+        assertEquals(7L, last.equipmentId());
+        assertEquals(TIME.plusSeconds(3), last.timestamp());
+        assertEquals(7003, last.temperature());
+    }
+
+    @Test
+    @DisplayName("Test 2: A CRC mismatch ends the segment at the damaged record, even with valid records after it")
+    void testCrcMismatch() throws IOException {
+        Path file = segmentWith(6);
+        // One flipped bit in the temperature of record 3 (lsn 3)
+        long temperature = 2L * WalSegment.RECORD_BYTES + 24;
+        byte[] original = new byte[1];
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+            raf.seek(temperature);
+            raf.readFully(original);
+        }
+        overwrite(file, temperature, new byte[] {(byte) (original[0] ^ 1)});
+
+        assertEquals(2, WalSegment.open(file, 1).count());
+
+        // A record with a valid checksum but the wrong lsn is also the end
+        Path other = segmentWith(3);
+        overwrite(other, 0, ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(9).array());
+        assertEquals(0, WalSegment.open(other, 1).count());
+    }
+
+    @Test
+    @DisplayName("Test 3: A segment file cut short mid-record keeps its whole records")
+    void testSegmentTruncation() throws IOException {
+        Path file = segmentWith(5);
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(3L * WalSegment.RECORD_BYTES + 17);
+        }
+
+        WalSegment segment = WalSegment.open(file, 1);
+        assertEquals(3, segment.count());
+        assertTrue(segment.isFull());
+        assertEquals(3, segment.lastLsn());
+    }
+
+    @Test
+    @DisplayName("Test 4: Recovery resumes writing right after the last valid record and replays the rest")
+    void testRecoveryAfterTornTail() throws IOException {
+        IngestWal wal = openWal();
+        wal.recover(0);
+        assertEquals(5, wal.appendAll(List.of(reading(0), reading(1), reading(2), reading(3), reading(4))));
+        wal.close();
+
+        Path segment;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "wal-*.log")) {
+            segment = files.iterator().next();
+        }
+        overwrite(segment, 4L * WalSegment.RECORD_BYTES + 36, new byte[] {1, 2, 3, 4});
+
+        IngestWal reopened = openWal();
+        reopened.recover(2);
+        try {
+            // Records after the applied checkpoint are replayed; the torn lsn 5 is written again
+            assertEquals(List.of(3L, 4L), lsns(reopened.read(2, 100)));
+            assertEquals(5, reopened.append(reading(5)));
+            List<WalRecord> records = reopened.read(2, 100);
+            assertEquals(List.of(3L, 4L, 5L), lsns(records));
+            assertEquals(TIME.plusSeconds(5), records.get(2).timestamp());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Test 5: A batch that fills the log is appended up to the limit and reports how many it took")
+    void testAppendAllStopsWhenFull() throws IOException {
+        // One segment of 1 MB at most
+        IngestWal wal = new IngestWal(directory.toString(), 1, 0, 1, 10_000);
+        wal.open();
+        wal.recover(0);
+        try {
+            int capacity = 1024 * 1024 / WalSegment.RECORD_BYTES;
+            List<SensorLogDTO> batch = new ArrayList<>();
+            for (int i = 0; i < capacity + 10; i++) {
+                batch.add(reading(i));
+            }
+            assertEquals(capacity, wal.appendAll(batch));
+            assertEquals(capacity, wal.read(0, capacity + 10).size());
+            assertThrows(RejectedExecutionException.class, () -> wal.appendAll(List.of(reading(0))));
+            assertThrows(RejectedExecutionException.class, () -> wal.append(reading(0)));
+        } finally {
+            wal.close();
+        }
+    }
+
+    private static List<Long> lsns(List<WalRecord> records) {
+        List<Long> lsns = new ArrayList<>();
+        records.forEach(record -> lsns.add(record.lsn()));
+        return lsns;
+    }
+}
@@ -0,0 +1,70 @@
+package com.equipmentpredictor.store;
+
+import com.equipmentpredictor.model.SensorLog;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for writing and replacing archived days
+ */
+@DisplayName("SensorArchiveStore Tests")
+class SensorArchiveStoreTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 1);
+
+    @TempDir
+    Path directory;
+
+    private static List<SensorLog> rows(int count, int temperature) {
+        List<SensorLog> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new SensorLog((long) i + 1, 7L, DAY.atStartOfDay().plusSeconds(i * 10L),
+                    (short) (temperature + i % 7), (short) 320, (short) 6400));
+        }
+        return rows;
+    }
+
+    private List<Path> dataFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory.resolve("7"), "*.gor")) {
+            stream.forEach(files::add);
+        }
+        return files;
+    }
+
+    @Test
+    @DisplayName("Test 1: Rewriting a cached day swaps in a new data file; readers see the new rows, the old file is gone")
+    void testRewriteSwapsGeneration() throws IOException {
+        SensorArchiveStore store = new SensorArchiveStore(directory.toString());
+        store.write(7L, DAY, rows(3000, 7000));
+        assertEquals(3000, store.readDay(7L, DAY).size());
+        List<Path> first = dataFiles();
+        assertEquals(1, first.size());
+
+        store.write(7L, DAY, rows(1500, 8000));
+
+        List<SensorLog> reread = store.readDay(7L, DAY);
+        assertEquals(1500, reread.size());
+        assertEquals(8000, reread.get(0).getTemperatureHundredths());
+        List<Path> second = dataFiles();
+        assertEquals(1, second.size());
+        assertNotEquals(first, second);
+        assertEquals(List.of(DAY), List.copyOf(store.archivedDays(7L)));
+
+        // An empty day still has a valid index
+        store.write(7L, DAY.plusDays(1), List.of());
+        assertEquals(0, store.readRange(7L, DAY.plusDays(1).atStartOfDay(),
+                DAY.plusDays(2).atStartOfDay(), 100, false).size());
+    }
+}
@@ -12,7 +12,9 @@ const api = axios.create({
 
 export const equipmentAPI = {
     // Equipment endpoints
-    getAll: () => api.get('/equipment'),
+    // Whole fleet without notes, streamed by the backend; list(params) pages through it
+    getAll: () => api.get('/equipment/stream'),
+    list: (params) => api.get('/equipment', { params }),
     getById: (id) => api.get(`/equipment/${id}`),
     create: (data) => api.post('/equipment', data),
     update: (id, data) => api.put(`/equipment/${id}`, data),
@@ -33,7 +33,11 @@ export const useWebSocket = (topic) => {
                     try {
                         const data = JSON.parse(message.body);
                         console.log('Received WebSocket message:', data);
-                        setMessages((prev) => [...prev, data]);
+                        // Coalesced batch frames carry the worst alert per equipment
+                        const items = Array.isArray(data.alerts)
+                            ? data.alerts.map((alert) => alert.worst)
+                            : [data];
+                        setMessages((prev) => [...prev, ...items]);
                     } catch (err) {
                         console.error('Error parsing WebSocket message:', err);
                     }
@@ -10,7 +10,7 @@ import './Dashboard.css';
 const Dashboard = () => {
     const navigate = useNavigate();
     const { stats, equipmentList, riskDataMap, alerts, isLoading, error } = useDashboardData();
-    const { messages: wsAlerts, isConnected } = useWebSocket('/topic/alerts');
+    const { messages: wsAlerts, isConnected } = useWebSocket(import.meta.env.VITE_ALERTS_TOPIC || '/topic/alerts');
     const [realtimeAlerts, setRealtimeAlerts] = useState([]);
 
     // Handle real-time WebSocket alerts
@@ -6,6 +6,12 @@ import { formatDate, formatDateTime } from '../utils/dateUtils';
 import { LineChart, Line, XAxis, YAxis, CartesianGrid, Tooltip, ResponsiveContainer, Legend } from 'recharts';
 import './EquipmentDetail.css';
 
+const CHART_RANGE_MS = 7 * 24 * 60 * 60 * 1000;
+const CHART_MAX_POINTS = 300;
+
+// Backend expects ISO local date-time (UTC) without offset
+const toLocalDateTime = (date) => date.toISOString().slice(0, 19);
+
 const EquipmentDetail = () => {
     const { id } = useParams();
     const navigate = useNavigate();
@@ -13,6 +19,7 @@ const EquipmentDetail = () => {
     const [currentRisk, setCurrentRisk] = useState(null);
     const [riskHistory, setRiskHistory] = useState([]);
     const [sensorLogs, setSensorLogs] = useState([]);
+    const [chartLogs, setChartLogs] = useState([]);
     const [loading, setLoading] = useState(true);
 
     useEffect(() => {
@@ -21,17 +28,26 @@ const EquipmentDetail = () => {
 
     const fetchData = async () => {
         try {
-            const [eqRes, riskRes, historyRes, logsRes] = await Promise.all([
+            // Chart the last week, downsampled on the server to keep its shape in a few hundred points
+            const to = new Date();
+            const from = new Date(to.getTime() - CHART_RANGE_MS);
+            const [eqRes, riskRes, historyRes, logsRes, chartRes] = await Promise.all([
                 equipmentAPI.getById(id),
                 riskAPI.getLatest(id).catch(() => ({ data: null })),
                 riskAPI.getHistory(id, { limit: 20 }).catch(() => ({ data: [] })),
                 equipmentAPI.getLogs(id, { limit: 20 }).catch(() => ({ data: [] })),
+                equipmentAPI.getLogs(id, {
+                    from: toLocalDateTime(from),
+                    to: toLocalDateTime(to),
+                    maxPoints: CHART_MAX_POINTS,
+                }).catch(() => ({ data: [] })),
             ]);
 
             setEquipment(eqRes.data);
             setCurrentRisk(riskRes.data);
             setRiskHistory(historyRes.data);
             setSensorLogs(logsRes.data);
+            setChartLogs(chartRes.data);
             setLoading(false);
         } catch (err) {
             console.error('Error:', err);
@@ -42,12 +58,14 @@ const EquipmentDetail = () => {
     if (loading) return <div className="page-loading"><div className="spinner"></div></div>;
     if (!equipment) return <div className="alert alert-error">Equipment not found</div>;
 
-    const chartData = sensorLogs.map(log => ({
-        time: new Date(log.timestamp).toLocaleTimeString(),
+    // Downsampled range is oldest first; fall back to the recent logs (newest first)
+    const chartSource = chartLogs.length > 0 ? chartLogs : [...sensorLogs].reverse();
+    const chartData = chartSource.map(log => ({
+        time: new Date(log.timestamp).toLocaleString(),
         temp: log.temperature,
         vib: log.vibration,
         load: log.loadPercentage,
-    })).reverse();
+    }));
 
     const riskChartData = riskHistory.map(r => ({
         time: new Date(r.timestamp).toLocaleTimeString(),